@@ -25,20 +25,50 @@ repositories {
     mavenCentral()
 }
 
+// 負荷試験（src/loadTest）。アプリケーションの jar には含めず、起動済みのバックエンドに対して
+// ./gradlew loadTest -PloadTest.rate=50 のように実行する（設定は LoadTestSettings を参照）
+// データベースに直接接続するベンチマークはアプリケーションのクラスを呼ぶため main の出力と依存を参照する
+sourceSets {
+    create("loadTest") {
+        compileClasspath += sourceSets["main"].output
+        runtimeClasspath += sourceSets["main"].output
+    }
+    // JMH ベンチマーク（src/jmh）。アプリケーションのクラスを対象にするため main の出力と依存を参照する
+    create("jmh") {
+        compileClasspath += sourceSets["main"].output
+        runtimeClasspath += sourceSets["main"].output
+    }
+}
+
+val loadTestImplementation by configurations.getting {
+    extendsFrom(configurations.implementation.get())
+}
+val loadTestRuntimeOnly by configurations.getting
+val jmhImplementation by configurations.getting {
+    extendsFrom(configurations.implementation.get())
+}
+val jmhAnnotationProcessor by configurations.getting
+
 dependencies {
     implementation("org.springframework.boot:spring-boot-starter-web")
     implementation("org.springframework.boot:spring-boot-starter-security")
     implementation("org.springframework.boot:spring-boot-starter-data-jpa")
     implementation("org.springframework.boot:spring-boot-starter-validation")
     implementation("org.springframework.boot:spring-boot-starter-actuator")
+    // シャーディング時の口座IDによるデータソース切り替え（@ShardKey のアスペクト）
+    implementation("org.springframework.boot:spring-boot-starter-aop")
     
     // JWT
     implementation("io.jsonwebtoken:jjwt-api:0.12.3")
     runtimeOnly("io.jsonwebtoken:jjwt-impl:0.12.3")
     runtimeOnly("io.jsonwebtoken:jjwt-jackson:0.12.3")
     
-    // PostgreSQL
-    runtimeOnly("org.postgresql:postgresql")
+    // PostgreSQL（LISTEN/NOTIFY で PGConnection を直接使用するため implementation）
+    implementation("org.postgresql:postgresql")
+
+    // Hibernate の二次キャッシュ（JCache 経由でプロセス内の Ehcache を使う。設定は ehcache.xml）
+    implementation("org.hibernate.orm:hibernate-jcache")
+    implementation("org.ehcache:ehcache::jakarta")
     
 
     
@@ -50,12 +80,67 @@ dependencies {
     testImplementation("org.springframework.security:spring-security-test")
     testImplementation("org.testcontainers:postgresql")
     testImplementation("org.testcontainers:junit-jupiter")
+
+    // 負荷試験
+    loadTestImplementation("org.hdrhistogram:HdrHistogram:2.1.12")
+    loadTestImplementation("com.fasterxml.jackson.core:jackson-databind")
+    loadTestRuntimeOnly("org.postgresql:postgresql")
+
+    // JMH ベンチマーク
+    jmhImplementation("org.openjdk.jmh:jmh-core:1.37")
+    jmhAnnotationProcessor("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
 
 tasks.withType<Test> {
     useJUnitPlatform()
 }
 
+tasks.register<JavaExec>("loadTest") {
+    group = "verification"
+    description = "起動済みのバックエンドに対して負荷試験を実行する（-PloadTest.* で設定）"
+    classpath = sourceSets["loadTest"].runtimeClasspath
+    mainClass.set("com.banking.internetbanking.loadtest.LoadTest")
+    // -PloadTest.xxx をシステムプロパティとして渡す
+    systemProperties(project.properties
+            .filterKeys { it.startsWith("loadTest.") }
+            .mapValues { it.value.toString() })
+}
+
+// データベースに直接接続するベンチマーク（-Pbench.jdbcUrl などで設定。各クラスの説明を参照）
+tasks.register<JavaExec>("ledgerBenchmark") {
+    group = "verification"
+    description = "残高の更新方式（行の書き換え / 仕訳）ごとの記帳スループットを計測する"
+    classpath = sourceSets["loadTest"].runtimeClasspath
+    mainClass.set("com.banking.internetbanking.loadtest.LedgerBenchmark")
+    systemProperties(project.properties
+            .filterKeys { it.startsWith("bench.") }
+            .mapValues { it.value.toString() })
+}
+
+tasks.register<JavaExec>("statementBenchmark") {
+    group = "verification"
+    description = "大量の取引の明細出力（CSV / PDF / Range）の所要時間とヒープ使用量のピークを計測する"
+    classpath = sourceSets["loadTest"].runtimeClasspath
+    mainClass.set("com.banking.internetbanking.loadtest.StatementExportBenchmark")
+    // 使用メモリが行数によらず一定であることを確かめるため、ヒープを小さく固定する
+    maxHeapSize = project.findProperty("bench.maxHeap")?.toString() ?: "256m"
+    systemProperties(project.properties
+            .filterKeys { it.startsWith("bench.") }
+            .mapValues { it.value.toString() })
+}
+
+// ./gradlew jmh -Pjmh.include=RequestBinding のように実行する（結果は build/reports/jmh/results.json）
+tasks.register<JavaExec>("jmh") {
+    group = "verification"
+    description = "JMH ベンチマークを実行する（-Pjmh.include で対象のクラス名を正規表現で指定）"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    val results = layout.buildDirectory.file("reports/jmh/results.json").get().asFile
+    doFirst { results.parentFile.mkdirs() }
+    args(listOfNotNull(project.findProperty("jmh.include")?.toString()) +
+            listOf("-rf", "json", "-rff", results.path))
+}
+
 tasks.withType<KotlinCompile> {
     kotlinOptions {
         freeCompilerArgs += "-Xjsr305=strict"
@@ -63,6 +148,12 @@ tasks.withType<KotlinCompile> {
     }
 }
 
+// Spring AOT（-Paot=true で有効化。起動時のリフレクション・条件評価を事前処理して起動を短縮する）
+// 注意: @ConditionalOnProperty などの条件はビルド時の設定で確定する
+if (project.findProperty("aot") == "true") {
+    apply(plugin = "org.springframework.boot.aot")
+}
+
 // bootJarタスクの設定（確実に実行可能JARを生成）
 tasks.getByName<org.springframework.boot.gradle.tasks.bundling.BootJar>("bootJar") {
     enabled = true
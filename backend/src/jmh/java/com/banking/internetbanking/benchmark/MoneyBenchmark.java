@@ -0,0 +1,96 @@
+package com.banking.internetbanking.benchmark;
+
+import com.banking.internetbanking.service.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 金額計算の比較（手数料 1.25% を差し引き、残高に加算する）
+ * bigDecimal*: 以前の方式（BigDecimal の multiply / setScale / add）。
+ * money*: {@link Money}（最小単位の long で計算し、丸めも long で行う）。
+ * Convert は USD → JPY または JPY → USD の換算（換算先の最小単位に丸める）。
+ *
+ * <p>割り当て量は {@code -prof gc} で計測する。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private static final int SIZE = 1024;
+    private static final BigDecimal FEE_RATE = new BigDecimal("0.0125");
+
+    @Param({ "USD", "JPY" })
+    public String currency;
+
+    private BigDecimal[] decimals;
+    private Money[] amounts;
+    private String target;
+    private int targetDigits;
+    // fx_rates と同じ小数点以下10桁のレート
+    private BigDecimal rate;
+    private long unscaledRate;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int digits = Money.fractionDigits(currency);
+        target = currency.equals("JPY") ? "USD" : "JPY";
+        targetDigits = Money.fractionDigits(target);
+        rate = new BigDecimal(currency.equals("JPY") ? "0.0066122000" : "151.2345678901");
+        unscaledRate = rate.unscaledValue().longValueExact();
+        decimals = new BigDecimal[SIZE];
+        amounts = new Money[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            long minorUnits = random.nextLong(1, 100_000_000);
+            decimals[i] = BigDecimal.valueOf(minorUnits, digits);
+            amounts[i] = Money.ofMinor(minorUnits, currency);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalFee() {
+        BigDecimal amount = decimals[next()];
+        BigDecimal fee = amount.multiply(FEE_RATE).setScale(amount.scale(), RoundingMode.HALF_EVEN);
+        return amount.subtract(fee).add(amount);
+    }
+
+    @Benchmark
+    public Money moneyFee() {
+        Money amount = amounts[next()];
+        return amount.minus(amount.multiply(FEE_RATE)).plus(amount);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalConvert() {
+        return decimals[next()].multiply(rate).setScale(targetDigits, RoundingMode.HALF_EVEN);
+    }
+
+    @Benchmark
+    public Money moneyConvert() {
+        return amounts[next()].convert(target, unscaledRate, 10, RoundingMode.HALF_EVEN);
+    }
+
+    private int next() {
+        index = (index + 1) & (SIZE - 1);
+        return index;
+    }
+}
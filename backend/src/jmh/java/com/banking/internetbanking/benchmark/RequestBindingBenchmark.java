@@ -0,0 +1,123 @@
+package com.banking.internetbanking.benchmark;
+
+import com.banking.internetbanking.dto.TransferRequest;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 振込リクエスト本文の読み取りの比較
+ * map*: 以前の方式（Map&lt;String, Object&gt; に読み、toString() を経由して Long / BigDecimal に変換）。
+ * record*: 現在の方式（{@link TransferRequest} に直接バインドし、Bean Validation で検証）。
+ * Invalid は金額が数値でない本文（以前は例外を catch して 400、現在は Jackson のバインドエラーで 400）。
+ *
+ * <p>ObjectMapper は Spring Boot の既定（未知のプロパティを無視）に合わせる。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestBindingBenchmark {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private ObjectMapper objectMapper;
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private byte[] validBody;
+    private byte[] invalidBody;
+
+    @Setup
+    public void setUp() {
+        objectMapper = JsonMapper.builder()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        validBody = """
+                {"fromAccountId":1001,"toAccountId":1002,"amount":12345.67,"currency":"JPY","description":"家賃 10月分"}
+                """.getBytes(StandardCharsets.UTF_8);
+        invalidBody = """
+                {"fromAccountId":1001,"toAccountId":1002,"amount":"12,345","currency":"JPY","description":"家賃 10月分"}
+                """.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Object mapValid() throws Exception {
+        return bindMap(validBody);
+    }
+
+    @Benchmark
+    public Object recordValid() throws Exception {
+        return bindRecord(validBody);
+    }
+
+    @Benchmark
+    public Object mapInvalid() {
+        try {
+            return bindMap(invalidBody);
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object recordInvalid() {
+        try {
+            return bindRecord(invalidBody);
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    // 以前の TransactionController#createTransfer と同じ変換
+    private Object[] bindMap(byte[] body) throws Exception {
+        Map<String, Object> request = objectMapper.readValue(body, MAP_TYPE);
+        Long fromAccountId = Long.valueOf(request.get("fromAccountId").toString());
+        Long toAccountId = Long.valueOf(request.get("toAccountId").toString());
+        BigDecimal amount = new BigDecimal(request.get("amount").toString());
+        String currency = (String) request.get("currency");
+        String description = (String) request.get("description");
+        return new Object[] {fromAccountId, toAccountId, amount, currency, description};
+    }
+
+    // @Valid @RequestBody と同じく、バインドしてから検証する
+    private TransferRequest bindRecord(byte[] body) throws Exception {
+        TransferRequest request = objectMapper.readValue(body, TransferRequest.class);
+        Set<ConstraintViolation<TransferRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.iterator().next().getMessage());
+        }
+        return request;
+    }
+}
@@ -0,0 +1,40 @@
+package com.banking.internetbanking.loadtest;
+
+/**
+ * フロントエンドの操作の流れ（1セッションで1つ実行する）
+ */
+enum Flow {
+
+    /** ログインしてダッシュボード（口座一覧・取引履歴）と口座ごとの履歴を見る */
+    BROWSE("browse", 50),
+    /** ログインしてダッシュボードの集約 API（/users/{id}/dashboard）を1回で読む */
+    DASHBOARD("dashboard", 20),
+    /** ログインして口座一覧を見てから別のユーザーの口座へ振り込み、履歴を確認する */
+    TRANSFER("transfer", 30),
+    /** 口座一覧を見てから入金する */
+    DEPOSIT("deposit", 15),
+    /** 新規登録してログインする */
+    REGISTER("register", 5),
+    /**
+     * ログインして口座番号から口座を引く（ユーザー名・口座番号のナチュラル ID の検索）。既定では実行しない。
+     * 二次キャッシュの効果は -PloadTest.weight.lookup=100 などで、APP_L2_CACHE_ENABLED=false と true の
+     * サーバーに同じ条件で流して応答時間を比べ、/actuator/metrics/hibernate.cache.region.hit.ratio で確かめる
+     */
+    LOOKUP("lookup", 0);
+
+    private final String key;
+    private final int defaultWeight;
+
+    Flow(String key, int defaultWeight) {
+        this.key = key;
+        this.defaultWeight = defaultWeight;
+    }
+
+    String key() {
+        return key;
+    }
+
+    int defaultWeight() {
+        return defaultWeight;
+    }
+}
@@ -0,0 +1,70 @@
+package com.banking.internetbanking.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * エンドポイントごとの応答時間（マイクロ秒）と応答ステータスの集計
+ *
+ * <p>応答時間は「本来送信するはずだった時刻」から数える（coordinated omission の補正）。
+ * セッションの最初のリクエストは到着予定時刻、以降は直前の応答時刻（＋思考時間）が起点になる。
+ * 負荷生成側やサーバーが詰まって送信が遅れた分も待ち時間として含まれるため、
+ * 詰まっている間に来るはずだった利用者の体感に近い値になる。比較のため、実際に送信してからの
+ * 時間（サービス時間）も別に記録する。
+ */
+final class LatencyRecorder {
+
+    // 1時間を超える値も記録できるよう自動で拡張する。有効数字は3桁
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long intendedNanos, long sentNanos, long completedNanos, int status) {
+        Endpoint stats = endpoints.computeIfAbsent(endpoint, name -> new Endpoint());
+        stats.responseTime.recordValue(micros(completedNanos - intendedNanos));
+        stats.serviceTime.recordValue(micros(completedNanos - sentNanos));
+        stats.statuses.computeIfAbsent(status, code -> new LongAdder()).increment();
+    }
+
+    /**
+     * 接続できない・タイムアウトなど応答が無い場合（ステータス 0 として数える）
+     */
+    void recordFailure(String endpoint, long intendedNanos, long sentNanos, long failedNanos) {
+        record(endpoint, intendedNanos, sentNanos, failedNanos, 0);
+    }
+
+    /**
+     * エンドポイント名の順に並べた集計結果
+     */
+    Map<String, Endpoint> snapshot() {
+        return new TreeMap<>(endpoints);
+    }
+
+    private static long micros(long nanos) {
+        return Math.max(TimeUnit.NANOSECONDS.toMicros(nanos), 0);
+    }
+
+    static final class Endpoint {
+
+        final Histogram responseTime = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+        final Histogram serviceTime = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+        final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        long count() {
+            return responseTime.getTotalCount();
+        }
+
+        long errors() {
+            return statuses.entrySet().stream()
+                    .filter(entry -> entry.getKey() < 200 || entry.getKey() >= 400)
+                    .mapToLong(entry -> entry.getValue().sum())
+                    .sum();
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.banking.internetbanking.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 残高更新の方式ごとの記帳スループットの比較（データベースに直接 JDBC で接続する）
+ * <ul>
+ *   <li>update-in-place: 以前の方式。取引の行を書き、送金元・送金先の残高をそれぞれ1行の UPDATE で書き換える</li>
+ *   <li>postings: 現在の方式（LedgerService と同じ SQL）。取引の行を書き、借方・貸方の仕訳を1回の複数行
+ *       INSERT で追記してから、口座ID順に残高を差分で更新する（送金元は残高の条件付き）</li>
+ * </ul>
+ * どちらも1送金を1トランザクションでコミットし、複数スレッドからランダムな口座の組み合わせで送金する。
+ * アプリケーションの表には触れず、スキーマ ledger_bench に同じ形の表を作って計測し、終了時に削除する。
+ *
+ * <p>実行例:
+ * <pre>
+ * docker compose up -d postgres
+ * ./gradlew ledgerBenchmark -Pbench.jdbcUrl=jdbc:postgresql://localhost:5432/internetbanking \
+ *     -Pbench.username=postgres -Pbench.password=postgres -Pbench.threads=8 -Pbench.durationSeconds=30
+ * </pre>
+ */
+public final class LedgerBenchmark {
+
+    private static final String SCHEMA = "ledger_bench";
+
+    private LedgerBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = property("jdbcUrl", "jdbc:postgresql://localhost:5432/internetbanking");
+        String username = property("username", "postgres");
+        String password = property("password", "postgres");
+        int threads = Integer.parseInt(property("threads", "8"));
+        int accounts = Integer.parseInt(property("accounts", "1000"));
+        long warmupNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(property("warmupSeconds", "10")));
+        long durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(property("durationSeconds", "30")));
+
+        System.out.printf("口座 %d、スレッド %d、ウォームアップ %ds、計測 %ds%n", accounts, threads,
+                TimeUnit.NANOSECONDS.toSeconds(warmupNanos), TimeUnit.NANOSECONDS.toSeconds(durationNanos));
+        try (Connection admin = DriverManager.getConnection(url, username, password)) {
+            createSchema(admin);
+            try {
+                for (Mode mode : Mode.values()) {
+                    resetData(admin, accounts);
+                    Result result = run(mode, url, username, password, threads, accounts, warmupNanos, durationNanos);
+                    Histogram latency = result.latency();
+                    System.out.printf("%-16s %10.1f 件/秒  p50 %6.2fms  p99 %6.2fms  最大 %7.2fms  失敗 %d%n",
+                            mode.key, result.committed() / (durationNanos / 1e9),
+                            latency.getValueAtPercentile(50) / 1000.0, latency.getValueAtPercentile(99) / 1000.0,
+                            latency.getMaxValue() / 1000.0, result.failed());
+                }
+            } finally {
+                try (Statement statement = admin.createStatement()) {
+                    statement.execute("DROP SCHEMA " + SCHEMA + " CASCADE");
+                }
+            }
+        }
+    }
+
+    private static Result run(Mode mode, String url, String username, String password, int threads, int accounts,
+            long warmupNanos, long durationNanos) throws Exception {
+        Histogram latency = new ConcurrentHistogram(3);
+        LongAdder committed = new LongAdder();
+        LongAdder failed = new LongAdder();
+        long start = System.nanoTime();
+        long measureFrom = start + warmupNanos;
+        long end = measureFrom + durationNanos;
+
+        List<Thread> workers = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = Thread.ofPlatform().name("ledger-bench-" + i).start(() -> {
+                try (Connection connection = DriverManager.getConnection(url, username, password)) {
+                    connection.setAutoCommit(false);
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (true) {
+                        long from = random.nextLong(1, accounts + 1);
+                        long to = random.nextLong(1, accounts);
+                        to = to >= from ? to + 1 : to;
+                        BigDecimal amount = BigDecimal.valueOf(random.nextLong(100, 100_000), 2);
+                        long began = System.nanoTime();
+                        if (began >= end) {
+                            return;
+                        }
+                        boolean ok;
+                        try {
+                            mode.transfer(connection, from, to, amount);
+                            connection.commit();
+                            ok = true;
+                        } catch (SQLException e) {
+                            connection.rollback();
+                            ok = false;
+                        }
+                        long finished = System.nanoTime();
+                        if (began >= measureFrom) {
+                            if (ok) {
+                                committed.increment();
+                                latency.recordValue(TimeUnit.NANOSECONDS.toMicros(finished - began));
+                            } else {
+                                failed.increment();
+                            }
+                        }
+                    }
+                } catch (SQLException e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+            });
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("計測中に接続が失敗しました", errors.get(0));
+        }
+        return new Result(committed.sum(), failed.sum(), latency);
+    }
+
+    private static void createSchema(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+            statement.execute("CREATE SCHEMA " + SCHEMA);
+            statement.execute("CREATE TABLE " + SCHEMA + ".accounts ("
+                    + "id BIGINT PRIMARY KEY, balance DECIMAL(15,2) NOT NULL, currency VARCHAR(3) NOT NULL, "
+                    + "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, version BIGINT NOT NULL DEFAULT 0)");
+            statement.execute("CREATE TABLE " + SCHEMA + ".transactions ("
+                    + "id BIGSERIAL PRIMARY KEY, from_account_id BIGINT REFERENCES " + SCHEMA + ".accounts(id), "
+                    + "to_account_id BIGINT REFERENCES " + SCHEMA + ".accounts(id), "
+                    + "transaction_type VARCHAR(20) NOT NULL, amount DECIMAL(15,2) NOT NULL, currency VARCHAR(3), "
+                    + "status VARCHAR(20), reference_number VARCHAR(50) UNIQUE NOT NULL, transaction_date TIMESTAMP)");
+            statement.execute("CREATE TABLE " + SCHEMA + ".postings ("
+                    + "id BIGSERIAL PRIMARY KEY, transaction_id BIGINT NOT NULL REFERENCES " + SCHEMA + ".transactions(id), "
+                    + "account_id BIGINT REFERENCES " + SCHEMA + ".accounts(id), ledger_code VARCHAR(30) NOT NULL, "
+                    + "direction CHAR(1) NOT NULL CHECK (direction IN ('D', 'C')), "
+                    + "amount DECIMAL(15,2) NOT NULL CHECK (amount > 0), currency VARCHAR(3) NOT NULL, posted_at TIMESTAMP)");
+            statement.execute("CREATE INDEX ON " + SCHEMA + ".transactions(from_account_id)");
+            statement.execute("CREATE INDEX ON " + SCHEMA + ".transactions(to_account_id)");
+            statement.execute("CREATE INDEX ON " + SCHEMA + ".postings(transaction_id)");
+            statement.execute("CREATE INDEX ON " + SCHEMA + ".postings(account_id, id)");
+        }
+    }
+
+    private static void resetData(Connection connection, int accounts) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE " + SCHEMA + ".postings, " + SCHEMA + ".transactions, " + SCHEMA
+                    + ".accounts RESTART IDENTITY");
+            statement.execute("INSERT INTO " + SCHEMA + ".accounts (id, balance, currency) "
+                    + "SELECT g, 1000000000.00, 'JPY' FROM generate_series(1, " + accounts + ") g");
+            statement.execute("VACUUM ANALYZE " + SCHEMA + ".accounts");
+        }
+    }
+
+    private static long insertTransaction(Connection connection, long from, long to, BigDecimal amount)
+            throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + SCHEMA + ".transactions "
+                + "(from_account_id, to_account_id, transaction_type, amount, currency, status, reference_number, "
+                + "transaction_date) VALUES (?, ?, 'TRANSFER', ?, 'JPY', 'COMPLETED', ?, CURRENT_TIMESTAMP) RETURNING id")) {
+            insert.setLong(1, from);
+            insert.setLong(2, to);
+            insert.setBigDecimal(3, amount);
+            insert.setString(4, "BENCH" + Long.toHexString(ThreadLocalRandom.current().nextLong()) + System.nanoTime());
+            try (ResultSet rs = insert.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    private enum Mode {
+
+        UPDATE_IN_PLACE("update-in-place") {
+            @Override
+            void transfer(Connection connection, long from, long to, BigDecimal amount) throws SQLException {
+                insertTransaction(connection, from, to, amount);
+                try (PreparedStatement update = connection.prepareStatement(
+                        "UPDATE " + SCHEMA + ".accounts SET balance = balance + ? WHERE id = ?")) {
+                    // 口座ID順に更新してデッドロックを避ける（postings と条件をそろえる）
+                    boolean debitFirst = from < to;
+                    update.setBigDecimal(1, debitFirst ? amount.negate() : amount);
+                    update.setLong(2, debitFirst ? from : to);
+                    update.executeUpdate();
+                    update.setBigDecimal(1, debitFirst ? amount : amount.negate());
+                    update.setLong(2, debitFirst ? to : from);
+                    update.executeUpdate();
+                }
+            }
+        },
+
+        POSTINGS("postings") {
+            @Override
+            void transfer(Connection connection, long from, long to, BigDecimal amount) throws SQLException {
+                long transactionId = insertTransaction(connection, from, to, amount);
+                Timestamp postedAt = new Timestamp(System.currentTimeMillis());
+                try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + SCHEMA + ".postings "
+                        + "(transaction_id, account_id, ledger_code, direction, amount, currency, posted_at) VALUES "
+                        + "(?, ?, 'CUSTOMER', 'D', ?, 'JPY', ?), (?, ?, 'CUSTOMER', 'C', ?, 'JPY', ?)")) {
+                    insert.setLong(1, transactionId);
+                    insert.setLong(2, from);
+                    insert.setBigDecimal(3, amount);
+                    insert.setTimestamp(4, postedAt);
+                    insert.setLong(5, transactionId);
+                    insert.setLong(6, to);
+                    insert.setBigDecimal(7, amount);
+                    insert.setTimestamp(8, postedAt);
+                    insert.executeUpdate();
+                }
+                if (from < to) {
+                    debit(connection, from, amount);
+                    credit(connection, to, amount);
+                } else {
+                    credit(connection, to, amount);
+                    debit(connection, from, amount);
+                }
+            }
+
+            private void debit(Connection connection, long accountId, BigDecimal amount) throws SQLException {
+                try (PreparedStatement update = connection.prepareStatement("UPDATE " + SCHEMA + ".accounts "
+                        + "SET balance = balance - ?, updated_at = CURRENT_TIMESTAMP, version = version + 1 "
+                        + "WHERE id = ? AND balance >= ? RETURNING id, balance, currency, updated_at")) {
+                    update.setBigDecimal(1, amount);
+                    update.setLong(2, accountId);
+                    update.setBigDecimal(3, amount);
+                    try (ResultSet rs = update.executeQuery()) {
+                        if (!rs.next()) {
+                            throw new SQLException("残高不足: " + accountId);
+                        }
+                    }
+                }
+            }
+
+            private void credit(Connection connection, long accountId, BigDecimal amount) throws SQLException {
+                try (PreparedStatement update = connection.prepareStatement("UPDATE " + SCHEMA + ".accounts "
+                        + "SET balance = balance + ?, updated_at = CURRENT_TIMESTAMP, version = version + 1 "
+                        + "WHERE id = ? RETURNING id, balance, currency, updated_at")) {
+                    update.setBigDecimal(1, amount);
+                    update.setLong(2, accountId);
+                    try (ResultSet rs = update.executeQuery()) {
+                        rs.next();
+                    }
+                }
+            }
+        };
+
+        private final String key;
+
+        Mode(String key) {
+            this.key = key;
+        }
+
+        abstract void transfer(Connection connection, long from, long to, BigDecimal amount) throws SQLException;
+    }
+
+    private record Result(long committed, long failed, Histogram latency) {
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty("bench." + name, defaultValue);
+    }
+}
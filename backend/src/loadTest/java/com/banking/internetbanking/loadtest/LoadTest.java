@@ -0,0 +1,91 @@
+package com.banking.internetbanking.loadtest;
+
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 負荷試験（オープンモデル）
+ * 応答を待たずに、設定した到着率でセッション（{@link Flow}）を開始する。サーバーが遅くなっても
+ * 到着は減らないため、実際の利用者の増加に近い負荷になる（クローズドモデルのように、遅くなると
+ * 負荷が下がって遅延が隠れることがない）。
+ *
+ * <p>実行手順（ローカル）:
+ * <pre>
+ * docker compose up -d postgres
+ * ./gradlew bootJar
+ * APP_RATE_LIMIT_ENABLED=false APP_VELOCITY_ENABLED=false java -jar build/libs/backend.jar
+ * ./gradlew loadTest -PloadTest.rate=50 -PloadTest.durationSeconds=120
+ * </pre>
+ * レート制限・取引頻度の上限は負荷生成元の1つの IP・少数の口座に集中するため無効にして測る
+ * （有効なままだと 429 がエラーとして集計される）。結果は標準出力と
+ * build/reports/loadtest/&lt;日時&gt;/ に出力する。
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        ApiClient client = new ApiClient(settings.baseUrl(), settings.requestTimeout());
+        LatencyRecorder recorder = new LatencyRecorder();
+        Scenarios scenarios = new Scenarios(client, recorder, settings);
+
+        System.out.printf("準備: ユーザー %d 人を作成しています（%s）%n", settings.seedUsers(), settings.baseUrl());
+        scenarios.seed(settings.seedUsers());
+
+        System.out.printf("開始: %.1f セッション/秒（%s）、ウォームアップ %ds、計測 %ds%n",
+                settings.rate(), settings.arrival(), settings.warmup().toSeconds(), settings.duration().toSeconds());
+        Instant startedAt = Instant.now();
+        Semaphore inFlight = new Semaphore(settings.maxInFlight());
+        long meanIntervalNanos = Math.round(1_000_000_000d / settings.rate());
+        long start = System.nanoTime();
+        long measureFrom = start + settings.warmup().toNanos();
+        long end = measureFrom + settings.duration().toNanos();
+        long started = 0;
+        long dropped = 0;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            long next = start;
+            while (next < end) {
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                long intended = next;
+                next += "constant".equals(settings.arrival())
+                        ? meanIntervalNanos
+                        : Math.round(-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanIntervalNanos);
+
+                boolean measured = intended >= measureFrom;
+                // 同時実行数の上限に達した到着は負荷生成側の限界として数え、計測結果を無効と判断できるようにする
+                if (!inFlight.tryAcquire()) {
+                    if (measured) {
+                        dropped++;
+                    }
+                    continue;
+                }
+                if (measured) {
+                    started++;
+                }
+                executor.submit(() -> {
+                    try {
+                        scenarios.runSession(intended, measured);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            System.out.println("到着の生成を終えました。実行中のセッションの完了を待っています...");
+        }
+
+        LoadTestReport report = new LoadTestReport(settings, startedAt, started, dropped,
+                scenarios.completedSessions(), scenarios.abortedSessions(), recorder.snapshot());
+        report.print(System.out);
+        report.write();
+    }
+}
@@ -0,0 +1,130 @@
+package com.banking.internetbanking.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+/**
+ * 負荷試験の結果
+ * 標準出力に表を出し、レポートディレクトリに summary.json（リリースごとの比較用）と
+ * エンドポイントごとのパーセンタイル分布（*.hgrm、HdrHistogram の形式。ミリ秒単位）を書く。
+ */
+final class LoadTestReport {
+
+    private static final DateTimeFormatter DIRECTORY_NAME =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneId.systemDefault());
+
+    private final LoadTestSettings settings;
+    private final Instant startedAt;
+    private final long sessionsStarted;
+    private final long sessionsDropped;
+    private final long sessionsCompleted;
+    private final long sessionsAborted;
+    private final Map<String, LatencyRecorder.Endpoint> endpoints;
+
+    LoadTestReport(LoadTestSettings settings, Instant startedAt, long sessionsStarted, long sessionsDropped,
+            long sessionsCompleted, long sessionsAborted, Map<String, LatencyRecorder.Endpoint> endpoints) {
+        this.settings = settings;
+        this.startedAt = startedAt;
+        this.sessionsStarted = sessionsStarted;
+        this.sessionsDropped = sessionsDropped;
+        this.sessionsCompleted = sessionsCompleted;
+        this.sessionsAborted = sessionsAborted;
+        this.endpoints = endpoints;
+    }
+
+    void print(PrintStream out) {
+        out.println();
+        out.printf("セッション: 開始 %d / 完了 %d / 中断 %d / 破棄 %d（到着率 %.1f/s）%n",
+                sessionsStarted, sessionsCompleted, sessionsAborted, sessionsDropped, settings.rate());
+        if (sessionsDropped > 0) {
+            out.println("警告: 同時実行数の上限で破棄した到着があります。負荷生成側が律速しているため結果は参考値です");
+        }
+        out.println("応答時間（ms、送信予定時刻から。括弧内は送信してからのサービス時間）");
+        out.printf("%-40s %8s %7s %8s %9s %9s %17s %9s%n",
+                "エンドポイント", "件数", "エラー", "件/秒", "p50", "p90", "p99", "max");
+        for (Map.Entry<String, LatencyRecorder.Endpoint> entry : endpoints.entrySet()) {
+            LatencyRecorder.Endpoint stats = entry.getValue();
+            Histogram response = stats.responseTime;
+            out.printf("%-40s %8d %7d %8.1f %9.1f %9.1f %8.1f (%6.1f) %9.1f%n",
+                    entry.getKey(), stats.count(), stats.errors(), throughput(stats),
+                    millis(response.getValueAtPercentile(50)), millis(response.getValueAtPercentile(90)),
+                    millis(response.getValueAtPercentile(99)), millis(stats.serviceTime.getValueAtPercentile(99)),
+                    millis(response.getMaxValue()));
+        }
+    }
+
+    void write() throws IOException {
+        Path directory = settings.reportDir().resolve(DIRECTORY_NAME.format(startedAt));
+        Files.createDirectories(directory);
+
+        ObjectMapper json = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        ObjectNode summary = json.createObjectNode();
+        summary.put("startedAt", startedAt.toString());
+        summary.put("baseUrl", settings.baseUrl());
+        summary.put("rate", settings.rate());
+        summary.put("arrival", settings.arrival());
+        summary.put("durationSeconds", settings.duration().toSeconds());
+        summary.put("warmupSeconds", settings.warmup().toSeconds());
+        ObjectNode sessions = summary.putObject("sessions");
+        sessions.put("started", sessionsStarted);
+        sessions.put("completed", sessionsCompleted);
+        sessions.put("aborted", sessionsAborted);
+        sessions.put("dropped", sessionsDropped);
+
+        ArrayNode results = summary.putArray("endpoints");
+        for (Map.Entry<String, LatencyRecorder.Endpoint> entry : endpoints.entrySet()) {
+            LatencyRecorder.Endpoint stats = entry.getValue();
+            ObjectNode result = results.addObject();
+            result.put("endpoint", entry.getKey());
+            result.put("count", stats.count());
+            result.put("errors", stats.errors());
+            result.put("throughputPerSecond", throughput(stats));
+            ObjectNode statuses = result.putObject("statuses");
+            stats.statuses.forEach((status, count) -> statuses.put(Integer.toString(status), count.sum()));
+            result.set("responseTimeMs", percentiles(json, stats.responseTime));
+            result.set("serviceTimeMs", percentiles(json, stats.serviceTime));
+
+            try (PrintStream out = new PrintStream(
+                    Files.newOutputStream(directory.resolve(fileName(entry.getKey()) + ".hgrm")))) {
+                stats.responseTime.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        json.writeValue(directory.resolve("summary.json").toFile(), summary);
+        System.out.println("結果を書き出しました: " + directory.toAbsolutePath());
+    }
+
+    private double throughput(LatencyRecorder.Endpoint stats) {
+        return stats.count() / (double) settings.duration().toSeconds();
+    }
+
+    private static ObjectNode percentiles(ObjectMapper json, Histogram histogram) {
+        ObjectNode node = json.createObjectNode();
+        node.put("mean", millis(histogram.getMean()));
+        node.put("p50", millis(histogram.getValueAtPercentile(50)));
+        node.put("p90", millis(histogram.getValueAtPercentile(90)));
+        node.put("p99", millis(histogram.getValueAtPercentile(99)));
+        node.put("p999", millis(histogram.getValueAtPercentile(99.9)));
+        node.put("max", millis(histogram.getMaxValue()));
+        return node;
+    }
+
+    private static double millis(double micros) {
+        return micros / 1000.0;
+    }
+
+    private static String fileName(String endpoint) {
+        return endpoint.replaceAll("[^A-Za-z0-9]+", "_").replaceAll("^_|_$", "");
+    }
+}
@@ -0,0 +1,72 @@
+package com.banking.internetbanking.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 負荷試験の設定（システムプロパティ loadTest.* から読む。Gradle では -PloadTest.rate=50 のように渡す）
+ *
+ * @param baseUrl         API のベース URL
+ * @param rate            1秒あたりに開始するセッション数（到着率）
+ * @param arrival         到着間隔の分布（poisson: 指数分布、constant: 等間隔）
+ * @param warmup          集計に含めない開始直後の時間
+ * @param duration        集計する時間
+ * @param seedUsers       開始前に作成しておくユーザー数（各ユーザーに口座2つ）
+ * @param maxInFlight     同時に実行するセッションの上限（超えた到着は破棄して件数を報告する）
+ * @param thinkTime       セッション内の操作の間隔
+ * @param requestTimeout  1リクエストのタイムアウト
+ * @param weights         フローごとの選択の重み
+ * @param reportDir       結果の出力先
+ */
+record LoadTestSettings(
+        String baseUrl,
+        double rate,
+        String arrival,
+        Duration warmup,
+        Duration duration,
+        int seedUsers,
+        int maxInFlight,
+        Duration thinkTime,
+        Duration requestTimeout,
+        Map<Flow, Integer> weights,
+        Path reportDir) {
+
+    static LoadTestSettings fromSystemProperties() {
+        Map<Flow, Integer> weights = new EnumMap<>(Flow.class);
+        for (Flow flow : Flow.values()) {
+            weights.put(flow, intProperty("weight." + flow.key(), flow.defaultWeight()));
+        }
+        LoadTestSettings settings = new LoadTestSettings(
+                property("baseUrl", "http://localhost:8080/api"),
+                Double.parseDouble(property("rate", "20")),
+                property("arrival", "poisson"),
+                Duration.ofSeconds(intProperty("warmupSeconds", 10)),
+                Duration.ofSeconds(intProperty("durationSeconds", 60)),
+                intProperty("seedUsers", 50),
+                intProperty("maxInFlight", 2000),
+                Duration.ofMillis(intProperty("thinkTimeMs", 0)),
+                Duration.ofMillis(intProperty("requestTimeoutMs", 30000)),
+                weights,
+                Path.of(property("reportDir", "build/reports/loadtest")));
+        if (settings.rate() <= 0) {
+            throw new IllegalArgumentException("loadTest.rate は正の値を指定してください");
+        }
+        if (settings.seedUsers() < 2) {
+            throw new IllegalArgumentException("loadTest.seedUsers は 2 以上を指定してください（振込先に別のユーザーを使う）");
+        }
+        if (!"poisson".equals(settings.arrival()) && !"constant".equals(settings.arrival())) {
+            throw new IllegalArgumentException("loadTest.arrival は poisson か constant を指定してください");
+        }
+        return settings;
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty("loadTest." + name, defaultValue);
+    }
+
+    private static int intProperty(String name, int defaultValue) {
+        return Integer.parseInt(property(name, Integer.toString(defaultValue)));
+    }
+}
@@ -0,0 +1,305 @@
+package com.banking.internetbanking.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * フロントエンドの操作の流れ（{@link Flow}）を API の呼び出しとして実行する
+ * 各リクエストの応答時間はエンドポイント（パスの ID 部分はまとめる）ごとに、セッション全体の時間は
+ * "flow:&lt;名前&gt;" として記録する。途中のリクエストが失敗したセッションはそこで打ち切る。
+ */
+final class Scenarios {
+
+    private static final String PASSWORD = "LoadTest-Passw0rd";
+    private static final BigDecimal INITIAL_DEPOSIT = new BigDecimal("10000000");
+
+    private final ApiClient client;
+    private final LatencyRecorder recorder;
+    private final long thinkNanos;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong registered = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong aborted = new AtomicLong();
+
+    private final int[] cumulativeWeights;
+    private final Flow[] flows;
+    private List<SeedUser> users = List.of();
+
+    Scenarios(ApiClient client, LatencyRecorder recorder, LoadTestSettings settings) {
+        this.client = client;
+        this.recorder = recorder;
+        this.thinkNanos = settings.thinkTime().toNanos();
+        List<Flow> enabled = new ArrayList<>();
+        List<Integer> cumulative = new ArrayList<>();
+        int total = 0;
+        for (Map.Entry<Flow, Integer> entry : settings.weights().entrySet()) {
+            if (entry.getValue() > 0) {
+                total += entry.getValue();
+                enabled.add(entry.getKey());
+                cumulative.add(total);
+            }
+        }
+        if (enabled.isEmpty()) {
+            throw new IllegalArgumentException("すべてのフローの重みが 0 です");
+        }
+        this.flows = enabled.toArray(Flow[]::new);
+        this.cumulativeWeights = cumulative.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * 試験に使うユーザーを作成する（登録・ログイン・口座2つの開設・入金。応答時間は記録しない）
+     */
+    void seed(int count) throws Exception {
+        List<SeedUser> created = Collections.synchronizedList(new ArrayList<>());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                String username = "lt" + runId + "s" + i;
+                tasks.add(executor.submit(() -> {
+                    created.add(createSeedUser(username));
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        }
+        users = List.copyOf(created);
+    }
+
+    private SeedUser createSeedUser(String username) throws IOException, InterruptedException {
+        expectSuccess(client.post("/auth/register", registerRequest(username)), "登録");
+        ApiClient.Response login = expectSuccess(client.post("/auth/login",
+                Map.of("username", username, "password", PASSWORD)), "ログイン");
+        long userId = login.body().path("userId").asLong();
+        if (userId == 0) {
+            throw new IllegalStateException("ログインの応答に userId がありません: " + login.body());
+        }
+        long[] accountIds = new long[2];
+        String[] accountNumbers = new String[accountIds.length];
+        String[] types = {"CHECKING", "SAVINGS"};
+        for (int i = 0; i < accountIds.length; i++) {
+            ApiClient.Response account = expectSuccess(client.post("/accounts", Map.of(
+                    "userId", userId, "accountType", types[i], "currency", "JPY",
+                    "interestRate", BigDecimal.ZERO)), "口座開設");
+            accountIds[i] = account.body().path("id").asLong();
+            accountNumbers[i] = account.body().path("accountNumber").asText();
+            expectSuccess(client.post("/transactions/deposit", Map.of(
+                    "toAccountId", accountIds[i], "amount", INITIAL_DEPOSIT, "description", "負荷試験の初期入金")),
+                    "初期入金");
+        }
+        return new SeedUser(username, userId, accountIds, accountNumbers);
+    }
+
+    /**
+     * 重みに従ってフローを選び、1セッションを実行する
+     *
+     * @param intendedNanos 到着予定時刻（System.nanoTime の値）
+     * @param measured      応答時間を集計に含めるか（ウォームアップ中は false）
+     */
+    void runSession(long intendedNanos, boolean measured) {
+        Flow flow = pickFlow();
+        Session session = new Session(intendedNanos, measured);
+        try {
+            switch (flow) {
+                case BROWSE -> browse(session);
+                case DASHBOARD -> dashboard(session);
+                case TRANSFER -> transfer(session);
+                case DEPOSIT -> deposit(session);
+                case REGISTER -> register(session);
+                case LOOKUP -> lookup(session);
+            }
+            if (measured) {
+                completed.incrementAndGet();
+                recorder.record("flow:" + flow.key(), intendedNanos, intendedNanos, System.nanoTime(), 200);
+            }
+        } catch (SessionAbortedException e) {
+            if (measured) {
+                aborted.incrementAndGet();
+                recorder.record("flow:" + flow.key(), intendedNanos, intendedNanos, System.nanoTime(), e.status);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    long completedSessions() {
+        return completed.get();
+    }
+
+    long abortedSessions() {
+        return aborted.get();
+    }
+
+    private void browse(Session session) throws SessionAbortedException, InterruptedException {
+        SeedUser user = randomUser();
+        session.post("POST /auth/login", "/auth/login", Map.of("username", user.username(), "password", PASSWORD));
+        session.get("GET /accounts/user/{userId}", "/accounts/user/" + user.userId());
+        session.get("GET /transactions/user/{userId}", "/transactions/user/" + user.userId());
+        for (long accountId : user.accountIds()) {
+            session.get("GET /transactions/account/{accountId}", "/transactions/account/" + accountId);
+        }
+    }
+
+    private void dashboard(Session session) throws SessionAbortedException, InterruptedException {
+        SeedUser user = randomUser();
+        session.post("POST /auth/login", "/auth/login", Map.of("username", user.username(), "password", PASSWORD));
+        session.get("GET /users/{userId}/dashboard", "/users/" + user.userId() + "/dashboard");
+    }
+
+    private void transfer(Session session) throws SessionAbortedException, InterruptedException {
+        SeedUser from = randomUser();
+        SeedUser to = randomUser();
+        while (to == from) {
+            to = randomUser();
+        }
+        session.post("POST /auth/login", "/auth/login", Map.of("username", from.username(), "password", PASSWORD));
+        session.get("GET /accounts/user/{userId}", "/accounts/user/" + from.userId());
+        session.post("POST /transactions/transfer", "/transactions/transfer", Map.of(
+                "fromAccountId", from.accountIds()[0],
+                "toAccountId", to.accountIds()[1],
+                "amount", randomAmount(),
+                "description", "負荷試験の振込"));
+        session.get("GET /transactions/user/{userId}", "/transactions/user/" + from.userId());
+    }
+
+    private void deposit(Session session) throws SessionAbortedException, InterruptedException {
+        SeedUser user = randomUser();
+        session.get("GET /accounts/user/{userId}", "/accounts/user/" + user.userId());
+        session.post("POST /transactions/deposit", "/transactions/deposit", Map.of(
+                "toAccountId", user.accountIds()[ThreadLocalRandom.current().nextInt(user.accountIds().length)],
+                "amount", randomAmount(),
+                "description", "負荷試験の入金"));
+    }
+
+    private void register(Session session) throws SessionAbortedException, InterruptedException {
+        String username = "lt" + runId + "r" + registered.incrementAndGet();
+        session.post("POST /auth/register", "/auth/register", registerRequest(username));
+        session.post("POST /auth/login", "/auth/login", Map.of("username", username, "password", PASSWORD));
+    }
+
+    private void lookup(Session session) throws SessionAbortedException, InterruptedException {
+        SeedUser user = randomUser();
+        session.post("POST /auth/login", "/auth/login", Map.of("username", user.username(), "password", PASSWORD));
+        for (String accountNumber : user.accountNumbers()) {
+            session.get("GET /accounts/number/{accountNumber}", "/accounts/number/" + accountNumber);
+        }
+    }
+
+    private Flow pickFlow() {
+        int value = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return flows[i];
+            }
+        }
+        return flows[flows.length - 1];
+    }
+
+    private SeedUser randomUser() {
+        return users.get(ThreadLocalRandom.current().nextInt(users.size()));
+    }
+
+    private static BigDecimal randomAmount() {
+        return BigDecimal.valueOf(ThreadLocalRandom.current().nextInt(100, 5001));
+    }
+
+    private static Map<String, String> registerRequest(String username) {
+        return Map.of(
+                "username", username,
+                "email", username + "@loadtest.example",
+                "password", PASSWORD,
+                "firstName", "負荷",
+                "lastName", "試験");
+    }
+
+    private static ApiClient.Response expectSuccess(ApiClient.Response response, String step) {
+        if (!response.isSuccess()) {
+            throw new IllegalStateException(step + "に失敗しました（" + response.status() + "）: " + response.body());
+        }
+        return response;
+    }
+
+    private record SeedUser(String username, long userId, long[] accountIds, String[] accountNumbers) {
+    }
+
+    /**
+     * 1セッション内のリクエストの送信と記録。次のリクエストの送信予定時刻は直前の応答時刻＋思考時間
+     */
+    private final class Session {
+
+        private long intendedNanos;
+        private final boolean measured;
+
+        Session(long intendedNanos, boolean measured) {
+            this.intendedNanos = intendedNanos;
+            this.measured = measured;
+        }
+
+        JsonNode get(String endpoint, String path) throws SessionAbortedException, InterruptedException {
+            return execute(endpoint, () -> client.get(path));
+        }
+
+        JsonNode post(String endpoint, String path, Object body) throws SessionAbortedException, InterruptedException {
+            return execute(endpoint, () -> client.post(path, body));
+        }
+
+        private JsonNode execute(String endpoint, Call call) throws SessionAbortedException, InterruptedException {
+            long wait = intendedNanos - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            long sent = System.nanoTime();
+            ApiClient.Response response;
+            try {
+                response = call.send();
+            } catch (IOException e) {
+                if (measured) {
+                    recorder.recordFailure(endpoint, intendedNanos, sent, System.nanoTime());
+                }
+                throw new SessionAbortedException(0);
+            }
+            long completedNanos = System.nanoTime();
+            if (measured) {
+                recorder.record(endpoint, intendedNanos, sent, completedNanos, response.status());
+            }
+            if (!response.isSuccess()) {
+                throw new SessionAbortedException(response.status());
+            }
+            intendedNanos = completedNanos + thinkNanos;
+            return response.body();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Call {
+
+        ApiClient.Response send() throws IOException, InterruptedException;
+    }
+
+    private static final class SessionAbortedException extends Exception {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        SessionAbortedException(int status) {
+            super(null, null, false, false);
+            this.status = status;
+        }
+    }
+}
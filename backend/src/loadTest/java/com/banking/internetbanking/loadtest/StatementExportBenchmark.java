@@ -0,0 +1,175 @@
+package com.banking.internetbanking.loadtest;
+
+import com.banking.internetbanking.service.StatementExportService;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 取引明細の出力の所要時間とヒープ使用量の計測（データベースに直接 JDBC で接続する）
+ * 1口座に bench.rows 件（既定 500 万件）の取引を入れ、{@link StatementExportService} で全期間の明細を
+ * 書き出す（出力はバイト数を数えて捨てる）。形式ごとに以下を表示する。
+ * <ul>
+ *   <li>所要時間と1秒あたりの行数</li>
+ *   <li>ヒープ使用量のピーク（計測前に GC してピークをリセットし、ヒープの各領域のピークを合計した値）</li>
+ *   <li>計測スレッドが割り当てたバイト数（1行あたり）</li>
+ * </ul>
+ * csv-range は Range リクエストと同じく、1つのスナップショットで版の取得・長さの計数・2回目の出力を行う。
+ * アプリケーションの表には触れず、スキーマ statement_bench に同じ形の表を作って計測し、終了時に削除する。
+ * 使用メモリが行数によらず一定であることを確かめるため、タスクはヒープを bench.maxHeap（既定 256m）に固定する。
+ *
+ * <p>実行例:
+ * <pre>
+ * docker compose up -d postgres
+ * ./gradlew statementBenchmark -Pbench.jdbcUrl=jdbc:postgresql://localhost:5432/internetbanking \
+ *     -Pbench.username=postgres -Pbench.password=postgres -Pbench.rows=5000000 -Pbench.formats=csv,pdf,csv-range
+ * </pre>
+ */
+public final class StatementExportBenchmark {
+
+    private static final String SCHEMA = "statement_bench";
+    private static final long ACCOUNT_ID = 1;
+    private static final LocalDateTime START = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    private StatementExportBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = property("jdbcUrl", "jdbc:postgresql://localhost:5432/internetbanking");
+        String username = property("username", "postgres");
+        String password = property("password", "postgres");
+        long rows = Long.parseLong(property("rows", "5000000"));
+        int fetchSize = Integer.parseInt(property("fetchSize", "5000"));
+        List<String> formats = List.of(property("formats", "csv,pdf,csv-range").split(","));
+
+        System.out.printf("取引 %,d 件、fetchSize %d、最大ヒープ %,d MB%n", rows, fetchSize,
+                Runtime.getRuntime().maxMemory() / (1024 * 1024));
+        try (Connection admin = DriverManager.getConnection(url, username, password)) {
+            long loadStarted = System.nanoTime();
+            createData(admin, rows);
+            System.out.printf("データ作成 %.1fs%n", (System.nanoTime() - loadStarted) / 1e9);
+            try {
+                DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                        url + (url.contains("?") ? "&" : "?") + "currentSchema=" + SCHEMA, username, password);
+                StatementExportService service = new StatementExportService(new JdbcTemplate(dataSource),
+                        new DataSourceTransactionManager(dataSource));
+                setFetchSize(service, fetchSize);
+                LocalDateTime end = START.plusSeconds(rows + 1);
+                for (String format : formats) {
+                    run(service, format.strip(), end, rows);
+                }
+            } finally {
+                try (Statement statement = admin.createStatement()) {
+                    statement.execute("DROP SCHEMA " + SCHEMA + " CASCADE");
+                }
+            }
+        }
+    }
+
+    private static void run(StatementExportService service, String format, LocalDateTime end, long rows)
+            throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long allocatedBefore = allocatedBytes();
+        long started = System.nanoTime();
+
+        switch (format) {
+            case "csv", "pdf" -> service.export(ACCOUNT_ID, START, end, format, out);
+            case "csv-range" -> service.withSnapshot(ACCOUNT_ID, START, end, StatementExportService.FORMAT_CSV,
+                    snapshot -> {
+                        snapshot.version();
+                        CountingOutputStream counter = new CountingOutputStream();
+                        snapshot.writeTo(counter);
+                        snapshot.writeTo(out);
+                        return counter.count;
+                    });
+            default -> throw new IllegalArgumentException("bench.formats は csv, pdf, csv-range から選んでください: " + format);
+        }
+
+        double seconds = (System.nanoTime() - started) / 1e9;
+        long allocated = allocatedBytes() - allocatedBefore;
+        long peak = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        System.out.printf("%-10s %7.1fs  %,12.0f 行/秒  出力 %,8d MB  ヒープのピーク %,6d MB  割り当て %,8d B/行%n",
+                format, seconds, rows / seconds, out.count / (1024 * 1024), peak / (1024 * 1024),
+                allocated / rows);
+    }
+
+    // 口座1と口座2の間で交互に送金した取引を1秒間隔で作る（口座1の期首残高は 1 億）
+    private static void createData(Connection connection, long rows) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+            statement.execute("CREATE SCHEMA " + SCHEMA);
+            statement.execute("CREATE TABLE " + SCHEMA + ".accounts ("
+                    + "id BIGINT PRIMARY KEY, account_number VARCHAR(20) NOT NULL, balance DECIMAL(15,2) NOT NULL, "
+                    + "currency VARCHAR(3) NOT NULL)");
+            statement.execute("CREATE TABLE " + SCHEMA + ".transactions ("
+                    + "id BIGINT PRIMARY KEY, from_account_id BIGINT, to_account_id BIGINT, "
+                    + "transaction_type VARCHAR(20) NOT NULL, amount DECIMAL(15,2) NOT NULL, "
+                    + "settlement_amount DECIMAL(15,2), description TEXT, status VARCHAR(20) NOT NULL, "
+                    + "reference_number VARCHAR(50) NOT NULL, transaction_date TIMESTAMP NOT NULL, "
+                    + "version BIGINT NOT NULL DEFAULT 0)");
+            statement.execute("INSERT INTO " + SCHEMA + ".transactions (id, from_account_id, to_account_id, "
+                    + "transaction_type, amount, description, status, reference_number, transaction_date) "
+                    + "SELECT g, CASE WHEN g % 2 = 0 THEN 1 ELSE 2 END, CASE WHEN g % 2 = 0 THEN 2 ELSE 1 END, "
+                    + "'TRANSFER', (g % 100000 + 1) / 100.0, '振込 ' || g, 'COMPLETED', 'BENCH' || g, "
+                    + "TIMESTAMP '2020-01-01 00:00:00' + g * INTERVAL '1 second' "
+                    + "FROM generate_series(1, " + rows + ") g");
+            // アプリケーションと同じ口座ごとの索引
+            statement.execute("CREATE INDEX ON " + SCHEMA + ".transactions (from_account_id, transaction_date DESC, id DESC)");
+            statement.execute("CREATE INDEX ON " + SCHEMA + ".transactions (to_account_id, transaction_date DESC, id DESC)");
+            statement.execute("INSERT INTO " + SCHEMA + ".accounts (id, account_number, balance, currency) "
+                    + "SELECT 1, '0000000001', 100000000 + COALESCE(SUM(CASE WHEN to_account_id = 1 THEN amount "
+                    + "ELSE -amount END), 0), 'JPY' FROM " + SCHEMA + ".transactions "
+                    + "UNION ALL SELECT 2, '0000000002', 100000000, 'JPY'");
+            statement.execute("VACUUM ANALYZE " + SCHEMA + ".transactions");
+        }
+    }
+
+    // 設定は @Value で注入されるため、Spring を起動しない計測では直接設定する
+    private static void setFetchSize(StatementExportService service, int fetchSize) throws ReflectiveOperationException {
+        Field field = StatementExportService.class.getDeclaredField("fetchSize");
+        field.setAccessible(true);
+        field.setInt(service, fetchSize);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().threadId());
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty("bench." + name, defaultValue);
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
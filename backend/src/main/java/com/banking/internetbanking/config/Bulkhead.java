@@ -0,0 +1,53 @@
+package com.banking.internetbanking.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * サービスのメソッド（クラスに付けた場合はその全メソッド）を処理する区画（バルクヘッド）
+ * 区画ごとに接続プールと同時実行数の上限を分け、履歴の検索が集中しても振込の接続が
+ * 枯渇しないようにする。{@link BulkheadAspect} がトランザクションの開始より前に区画を決め、
+ * メソッド内のデータベースアクセスをその区画の接続プールに振り分ける。
+ *
+ * <p>メソッドに付けた指定はクラスの指定より優先する。すでに区画の中で呼ばれた場合は
+ * 外側の区画のまま処理する（バッチから呼んだ振込はバッチの接続を使う）。
+ * 区画の指定が無い処理は {@link Type#READ} の接続プールを使う（同時実行数は制限しない）。
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Bulkhead {
+
+    Type value();
+
+    enum Type {
+        /** 振込・入出金など、利用者を待たせられない更新 */
+        WRITE("write"),
+        /** 画面表示のための読み込み */
+        READ("read"),
+        /** 管理機能の API（照合・集計の作り直しの起動、全件出力、明細の出力） */
+        BATCH("batch"),
+        /**
+         * アプリケーションが自分で起動するスレッド（アウトボックスの中継・定期実行・レートの読み直し・
+         * シャード間振込の回復・照合と集計の作り直しのワーカー）。API の混雑で中継や定期実行が止まらないよう、
+         * {@link #BATCH} とは接続プールを分ける
+         */
+        BACKGROUND("background");
+
+        private final String key;
+
+        Type(String key) {
+            this.key = key;
+        }
+
+        /**
+         * 設定・メトリクスのタグに使う名前
+         */
+        public String key() {
+            return key;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.banking.internetbanking.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link Bulkhead} を付けたメソッドを、その区画の同時実行数の枠の中で実行し、
+ * メソッド内のデータベースアクセスを区画の接続プールに振り分ける。
+ * 接続はトランザクションの開始時に取得されるため、シャードの振り分け（{@link ShardRoutingAspect}）の
+ * 内側、楽観的ロックのやり直しと @Transactional の外側で実行する（やり直しは同じ枠のまま行う）。
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "app.bulkheads.enabled", havingValue = "true", matchIfMissing = true)
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+class BulkheadAspect {
+
+    private final Bulkheads bulkheads;
+    // メソッドごとの区画（メソッドの指定を優先し、無ければクラスの指定）
+    private final Map<Method, Bulkhead.Type> types = new ConcurrentHashMap<>();
+
+    BulkheadAspect(Bulkheads bulkheads) {
+        this.bulkheads = bulkheads;
+    }
+
+    @Around("within(com.banking.internetbanking..*) && "
+            + "(@annotation(com.banking.internetbanking.config.Bulkhead) "
+            + "|| @within(com.banking.internetbanking.config.Bulkhead))")
+    @SuppressWarnings("try")
+    public Object isolate(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Bulkhead.Type type = types.computeIfAbsent(AopUtils.getMostSpecificMethod(method,
+                joinPoint.getTarget().getClass()), BulkheadAspect::typeOf);
+        try (Bulkheads.Scope ignored = bulkheads.enter(type)) {
+            return joinPoint.proceed();
+        }
+    }
+
+    private static Bulkhead.Type typeOf(Method method) {
+        Bulkhead bulkhead = AnnotatedElementUtils.findMergedAnnotation(method, Bulkhead.class);
+        if (bulkhead == null) {
+            bulkhead = AnnotatedElementUtils.findMergedAnnotation(method.getDeclaringClass(), Bulkhead.class);
+        }
+        return bulkhead != null ? bulkhead.value() : Bulkhead.Type.READ;
+    }
+}
@@ -0,0 +1,39 @@
+package com.banking.internetbanking.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * シャーディングが無効で区画が有効な場合の DataSource
+ * spring.datasource のデータベースに区画ごとの接続プールを作る（シャーディングが有効な場合は
+ * {@link ShardingConfig} がシャードごとに作る）。この Bean があるため Spring Boot の DataSource
+ * 自動設定は使われない。
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnExpression("${app.bulkheads.enabled:true} and !${app.sharding.enabled:false}")
+public class BulkheadConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkheadConfig.class);
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties dataSourceProperties, BulkheadPools bulkheadPools,
+            Environment environment) {
+        HikariConfig template = Binder.get(environment).bindOrCreate("spring.datasource.hikari", HikariConfig.class);
+        DataSource dataSource = bulkheadPools.create(template, dataSourceProperties.determineDriverClassName(),
+                "db", ShardKeys.DEFAULT_SHARD, dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+        logger.info("区画ごとの接続プールを作成しました（{}）", bulkheadPools.pools().stream()
+                .map(pool -> pool.dataSource().getPoolName() + "=" + pool.dataSource().getMaximumPoolSize())
+                .toList());
+        return dataSource;
+    }
+}
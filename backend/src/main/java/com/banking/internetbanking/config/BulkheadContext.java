@@ -0,0 +1,35 @@
+package com.banking.internetbanking.config;
+
+/**
+ * 現在のスレッドが処理している区画
+ * {@link BulkheadRoutingDataSource} はここに設定された区画の接続プールから接続を取得する
+ * （未設定の場合は {@link Bulkhead.Type#READ}）。
+ */
+final class BulkheadContext {
+
+    private static final ThreadLocal<Bulkhead.Type> CURRENT = new ThreadLocal<>();
+
+    private BulkheadContext() {
+    }
+
+    static Bulkhead.Type current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @return 切り替える前の区画（{@link #restore} に渡す）
+     */
+    static Bulkhead.Type enter(Bulkhead.Type type) {
+        Bulkhead.Type previous = CURRENT.get();
+        CURRENT.set(type);
+        return previous;
+    }
+
+    static void restore(Bulkhead.Type previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
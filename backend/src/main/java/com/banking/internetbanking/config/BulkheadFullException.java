@@ -0,0 +1,23 @@
+package com.banking.internetbanking.config;
+
+import java.io.Serial;
+
+/**
+ * 区画の同時実行数が上限に達し、待ち時間内に空かなかった（API では 503 を返す）
+ */
+public class BulkheadFullException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final Bulkhead.Type bulkhead;
+
+    public BulkheadFullException(Bulkhead.Type bulkhead) {
+        super("混み合っているため処理できませんでした。時間をおいて再度お試しください");
+        this.bulkhead = bulkhead;
+    }
+
+    public Bulkhead.Type getBulkhead() {
+        return bulkhead;
+    }
+}
@@ -0,0 +1,68 @@
+package com.banking.internetbanking.config;
+
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 区画ごとの同時実行数と接続プールの使用状況（/actuator/health の bulkhead）
+ * 飽和は一時的な混雑のため状態は UP のままにし（プローブで再起動させない）、詳細に使用率を返す。
+ * 値はメモリ上のカウンタから読むため、データベースには問い合わせない。
+ */
+@Component
+public class BulkheadHealthIndicator implements HealthIndicator {
+
+    private final Bulkheads bulkheads;
+    private final BulkheadPools bulkheadPools;
+
+    public BulkheadHealthIndicator(Bulkheads bulkheads, BulkheadPools bulkheadPools) {
+        this.bulkheads = bulkheads;
+        this.bulkheadPools = bulkheadPools;
+    }
+
+    @Override
+    public Health health() {
+        if (!bulkheads.isEnabled()) {
+            return Health.up().withDetail("enabled", false).build();
+        }
+        Health.Builder builder = Health.up();
+        for (Bulkhead.Type type : Bulkhead.Type.values()) {
+            Bulkheads.Compartment compartment = bulkheads.compartment(type);
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("calls_active", compartment.active());
+            details.put("calls_max", compartment.maxConcurrent());
+            details.put("calls_waiting", compartment.waiting());
+            details.put("calls_rejected", compartment.rejected());
+            details.put("saturation", (double) compartment.active() / compartment.maxConcurrent());
+            Map<String, Object> pools = new LinkedHashMap<>();
+            for (BulkheadPools.Pool pool : bulkheadPools.pools()) {
+                if (pool.type() == type) {
+                    pools.put("shard-" + pool.shard(), poolDetails(pool));
+                }
+            }
+            details.put("pools", pools);
+            builder.withDetail(type.key(), details);
+        }
+        return builder.build();
+    }
+
+    private static Map<String, Object> poolDetails(BulkheadPools.Pool pool) {
+        HikariPoolMXBean mxBean = pool.dataSource().getHikariPoolMXBean();
+        if (mxBean == null) {
+            return Map.of(); // プール未初期化
+        }
+        int maximum = pool.dataSource().getMaximumPoolSize();
+        int active = mxBean.getActiveConnections();
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("pool_active", active);
+        details.put("pool_idle", mxBean.getIdleConnections());
+        details.put("pool_max", maximum);
+        details.put("pool_pending_threads", mxBean.getThreadsAwaitingConnection());
+        details.put("pool_saturation", maximum > 0 ? (double) active / maximum : 0.0);
+        return details;
+    }
+}
@@ -0,0 +1,83 @@
+package com.banking.internetbanking.config;
+
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.function.ToIntFunction;
+
+/**
+ * 区画ごとの飽和状態のメトリクス（タグ bulkhead）
+ * 同時実行数: bulkhead.calls.active / waiting / max と bulkhead.calls.rejected（上限で断った回数）、
+ * bulkhead.saturation（実行中 / 上限）。
+ * 接続プール: bulkhead.pool.active / idle / pending / max（タグ shard も付ける）。
+ */
+@Component
+public class BulkheadMetrics implements MeterBinder {
+
+    private final Bulkheads bulkheads;
+    private final BulkheadPools bulkheadPools;
+
+    // DataSource は接続プールの作成後にメトリクスを登録するための依存（値は使わない）
+    public BulkheadMetrics(Bulkheads bulkheads, BulkheadPools bulkheadPools, DataSource dataSource) {
+        this.bulkheads = bulkheads;
+        this.bulkheadPools = bulkheadPools;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!bulkheads.isEnabled()) {
+            return;
+        }
+        for (Bulkhead.Type type : Bulkhead.Type.values()) {
+            Bulkheads.Compartment compartment = bulkheads.compartment(type);
+            Gauge.builder("bulkhead.calls.active", compartment, Bulkheads.Compartment::active)
+                    .description("区画で実行中の呼び出し数")
+                    .tag("bulkhead", type.key())
+                    .register(registry);
+            Gauge.builder("bulkhead.calls.waiting", compartment, Bulkheads.Compartment::waiting)
+                    .description("同時実行数の空きを待っている呼び出し数")
+                    .tag("bulkhead", type.key())
+                    .register(registry);
+            Gauge.builder("bulkhead.calls.max", compartment, Bulkheads.Compartment::maxConcurrent)
+                    .description("区画の同時実行数の上限")
+                    .tag("bulkhead", type.key())
+                    .register(registry);
+            FunctionCounter.builder("bulkhead.calls.rejected", compartment, Bulkheads.Compartment::rejected)
+                    .description("同時実行数の上限で断った呼び出し数")
+                    .tag("bulkhead", type.key())
+                    .register(registry);
+            Gauge.builder("bulkhead.saturation", compartment, c -> (double) c.active() / c.maxConcurrent())
+                    .description("同時実行数の使用率（実行中 / 上限）")
+                    .tag("bulkhead", type.key())
+                    .register(registry);
+        }
+        for (BulkheadPools.Pool pool : bulkheadPools.pools()) {
+            poolGauge(registry, pool, "active", "使用中の接続数", HikariPoolMXBean::getActiveConnections);
+            poolGauge(registry, pool, "idle", "空いている接続数", HikariPoolMXBean::getIdleConnections);
+            poolGauge(registry, pool, "pending", "接続の取得を待っているスレッド数",
+                    HikariPoolMXBean::getThreadsAwaitingConnection);
+            Gauge.builder("bulkhead.pool.max", pool, p -> p.dataSource().getMaximumPoolSize())
+                    .description("接続プールの最大接続数")
+                    .tag("bulkhead", pool.type().key())
+                    .tag("shard", Integer.toString(pool.shard()))
+                    .register(registry);
+        }
+    }
+
+    private static void poolGauge(MeterRegistry registry, BulkheadPools.Pool pool, String name, String description,
+            ToIntFunction<HikariPoolMXBean> value) {
+        Gauge.builder("bulkhead.pool." + name, pool, p -> {
+                    HikariPoolMXBean mxBean = p.dataSource().getHikariPoolMXBean();
+                    return mxBean != null ? value.applyAsInt(mxBean) : 0; // プール未初期化
+                })
+                .description(description)
+                .tag("bulkhead", pool.type().key())
+                .tag("shard", Integer.toString(pool.shard()))
+                .register(registry);
+    }
+}
@@ -0,0 +1,79 @@
+package com.banking.internetbanking.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * データベース（シャード）ごとの接続プールの作成
+ * 区画が有効な場合は区画ごとに接続プールを作り、{@link BulkheadRoutingDataSource} で振り分ける。
+ * 作成した接続プールはメトリクスとヘルスチェックのために保持する。
+ */
+@Component
+public class BulkheadPools {
+
+    private final BulkheadProperties properties;
+    private final List<Pool> pools = new CopyOnWriteArrayList<>();
+
+    public BulkheadPools(BulkheadProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * @param template 共通の設定（spring.datasource.hikari）。接続先と最大接続数は上書きする
+     * @param name     接続プール名（区画が有効な場合は "名前-区画" になる）
+     */
+    DataSource create(HikariConfig template, String driverClassName, String name, int shard, String url,
+            String username, String password) {
+        if (!properties.enabled()) {
+            return pool(template, driverClassName, name, url, username, password, null);
+        }
+        Map<Object, Object> targets = new HashMap<>();
+        for (Bulkhead.Type type : Bulkhead.Type.values()) {
+            HikariDataSource pool = pool(template, driverClassName, name + "-" + type.key(), url, username, password,
+                    properties.limits(type).poolSize());
+            targets.put(type, pool);
+            pools.add(new Pool(type, shard, pool));
+        }
+        BulkheadRoutingDataSource dataSource = new BulkheadRoutingDataSource();
+        dataSource.setTargetDataSources(targets);
+        dataSource.setDefaultTargetDataSource(targets.get(Bulkhead.Type.READ));
+        dataSource.afterPropertiesSet();
+        return dataSource;
+    }
+
+    /**
+     * 区画ごとの接続プール（区画が無効な場合は空）
+     */
+    public List<Pool> pools() {
+        return List.copyOf(pools);
+    }
+
+    private static HikariDataSource pool(HikariConfig template, String driverClassName, String name, String url,
+            String username, String password, Integer maximumPoolSize) {
+        HikariConfig config = new HikariConfig();
+        template.copyStateTo(config);
+        config.setPoolName(name);
+        config.setDriverClassName(driverClassName);
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        if (maximumPoolSize != null) {
+            config.setMaximumPoolSize(maximumPoolSize);
+            // 最小アイドル数が未設定（-1）の場合は最大接続数と同じになる
+            if (template.getMinimumIdle() >= 0) {
+                config.setMinimumIdle(Math.min(template.getMinimumIdle(), maximumPoolSize));
+            }
+        }
+        return new HikariDataSource(config);
+    }
+
+    public record Pool(Bulkhead.Type type, int shard, HikariDataSource dataSource) {
+    }
+}
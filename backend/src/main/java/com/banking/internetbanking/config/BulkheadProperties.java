@@ -0,0 +1,54 @@
+package com.banking.internetbanking.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * 区画（{@link Bulkhead}）ごとの接続プールと同時実行数の設定（app.bulkheads）
+ * 接続プールはシャードごとに作るため、データベースへの接続数は pool-size の合計 × シャード数になる。
+ * プールの他の設定（タイムアウト・最小アイドル数など）は spring.datasource.hikari を共通で使う。
+ *
+ * <p>background の max-concurrent は照合・集計の作り直しのワーカーが同時に使える接続の数で、
+ * 常駐のスレッド（中継・定期実行など）の接続が残るよう pool-size より小さくする。
+ *
+ * @param enabled false の場合は従来どおり1つの接続プールを全処理で共有する
+ */
+@ConfigurationProperties("app.bulkheads")
+public record BulkheadProperties(@DefaultValue("true") boolean enabled, Limits write, Limits read, Limits batch,
+        Limits background) {
+
+    public BulkheadProperties {
+        write = write != null ? write : new Limits(5, 50, 2000);
+        read = read != null ? read : new Limits(4, 100, 500);
+        batch = batch != null ? batch : new Limits(3, 3, 5000);
+        background = background != null ? background : new Limits(6, 2, 300000);
+        if (background.maxConcurrent() >= background.poolSize()) {
+            throw new IllegalArgumentException("app.bulkheads.background の max-concurrent は pool-size より"
+                    + "小さくしてください（常駐のスレッドの接続を残すため）");
+        }
+    }
+
+    public Limits limits(Bulkhead.Type type) {
+        return switch (type) {
+            case WRITE -> write;
+            case READ -> read;
+            case BATCH -> batch;
+            case BACKGROUND -> background;
+        };
+    }
+
+    /**
+     * @param poolSize      シャードあたりの接続プールの最大接続数
+     * @param maxConcurrent 区画で同時に実行できる呼び出しの数（超えた分は maxWaitMs まで待つ）
+     * @param maxWaitMs     同時実行数が上限のときに空きを待つ時間。過ぎたら {@link BulkheadFullException}
+     */
+    public record Limits(int poolSize, int maxConcurrent, long maxWaitMs) {
+
+        public Limits {
+            if (poolSize < 1 || maxConcurrent < 1 || maxWaitMs < 0) {
+                throw new IllegalArgumentException("app.bulkheads の pool-size・max-concurrent は 1 以上、"
+                        + "max-wait-ms は 0 以上を指定してください");
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.banking.internetbanking.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+
+/**
+ * 現在のスレッドの区画（{@link BulkheadContext}）の接続プールへ振り分ける DataSource
+ * 区画が未設定の場合は {@link Bulkhead.Type#READ} の接続プールを使う。
+ */
+final class BulkheadRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    BulkheadRoutingDataSource() {
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Bulkhead.Type current = BulkheadContext.current();
+        return current != null ? current : Bulkhead.Type.READ;
+    }
+
+    @Override
+    public void close() {
+        for (DataSource dataSource : getResolvedDataSources().values()) {
+            if (dataSource instanceof HikariDataSource hikari) {
+                hikari.close();
+            }
+        }
+    }
+}
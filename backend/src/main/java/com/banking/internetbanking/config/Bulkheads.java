@@ -0,0 +1,201 @@
+package com.banking.internetbanking.config;
+
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 区画（{@link Bulkhead}）の同時実行数の制限と、区画を指定した処理の実行
+ * リクエストは仮想スレッドで処理するため、区画ごとのスレッドプールではなくセマフォで
+ * 同時実行数を制限する。上限を超えた呼び出しは設定した時間だけ待ち、空かなければ
+ * {@link BulkheadFullException} にする（接続プールの取得待ちで長く滞留させない）。
+ *
+ * <p>アプリケーションが自分で起動する常駐のスレッド（中継・定期実行）は、スレッド数が決まっているため
+ * 同時実行数は数えず、{@link #bind} で区画の接続プールだけを指定する。照合・集計の作り直しのワーカーは
+ * 同時に複数の処理が動くことがあるため、{@link #limit} で同時実行数を数える。
+ * 区画が無効な場合は何も制限・切り替えしない。
+ */
+@Component
+public class Bulkheads {
+
+    private final boolean enabled;
+    private final Map<Bulkhead.Type, Compartment> compartments = new EnumMap<>(Bulkhead.Type.class);
+
+    public Bulkheads(BulkheadProperties properties) {
+        this.enabled = properties.enabled();
+        for (Bulkhead.Type type : Bulkhead.Type.values()) {
+            BulkheadProperties.Limits limits = properties.limits(type);
+            compartments.put(type, new Compartment(type, limits.maxConcurrent(), limits.maxWaitMs()));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 現在のスレッドの区画（未設定なら null）
+     */
+    public Bulkhead.Type current() {
+        return BulkheadContext.current();
+    }
+
+    @SuppressWarnings("try")
+    public <T> T call(Bulkhead.Type type, Supplier<T> action) {
+        try (Scope ignored = enter(type)) {
+            return action.get();
+        }
+    }
+
+    public void run(Bulkhead.Type type, Runnable action) {
+        call(type, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * 同時実行数を数えずに、指定した区画の接続プールで処理するタスクにする
+     */
+    public Runnable bind(Bulkhead.Type type, Runnable task) {
+        if (!enabled) {
+            return task;
+        }
+        return () -> {
+            Bulkhead.Type previous = BulkheadContext.enter(type);
+            try {
+                task.run();
+            } finally {
+                BulkheadContext.restore(previous);
+            }
+        };
+    }
+
+    public <T> Callable<T> bind(Bulkhead.Type type, Callable<T> task) {
+        if (!enabled) {
+            return task;
+        }
+        return () -> {
+            Bulkhead.Type previous = BulkheadContext.enter(type);
+            try {
+                return task.call();
+            } finally {
+                BulkheadContext.restore(previous);
+            }
+        };
+    }
+
+    /**
+     * 同時実行数を数えて、指定した区画の接続プールで処理するタスクにする（枠が空くまで max-wait-ms まで待つ）
+     */
+    @SuppressWarnings("try")
+    public <T> Callable<T> limit(Bulkhead.Type type, Callable<T> task) {
+        if (!enabled) {
+            return task;
+        }
+        return () -> {
+            try (Scope ignored = enter(type)) {
+                return task.call();
+            }
+        };
+    }
+
+    /**
+     * ワーカーのスレッド数（区画の同時実行数より多く起動しても枠を待つだけになるため、その数までにする）
+     */
+    public int workers(Bulkhead.Type type, int requested) {
+        int workers = Math.max(1, requested);
+        return enabled ? Math.min(workers, compartments.get(type).maxConcurrent()) : workers;
+    }
+
+    Compartment compartment(Bulkhead.Type type) {
+        return compartments.get(type);
+    }
+
+    /**
+     * 区画に入る。すでに区画の中にいる場合は外側の区画のまま何もしない
+     */
+    Scope enter(Bulkhead.Type type) {
+        if (!enabled || BulkheadContext.current() != null) {
+            return Scope.NONE;
+        }
+        Compartment compartment = compartments.get(type);
+        compartment.acquire();
+        BulkheadContext.enter(type);
+        return () -> {
+            BulkheadContext.restore(null);
+            compartment.release();
+        };
+    }
+
+    @FunctionalInterface
+    interface Scope extends AutoCloseable {
+
+        Scope NONE = () -> {
+        };
+
+        @Override
+        void close();
+    }
+
+    /**
+     * 1つの区画の同時実行数の枠と、上限で断った回数
+     */
+    static final class Compartment {
+
+        private final Bulkhead.Type type;
+        private final int maxConcurrent;
+        private final long maxWaitMs;
+        private final Semaphore permits;
+        private final LongAdder rejected = new LongAdder();
+
+        Compartment(Bulkhead.Type type, int maxConcurrent, long maxWaitMs) {
+            this.type = type;
+            this.maxConcurrent = maxConcurrent;
+            this.maxWaitMs = maxWaitMs;
+            this.permits = new Semaphore(maxConcurrent, true);
+        }
+
+        private void acquire() {
+            boolean acquired;
+            try {
+                acquired = maxWaitMs > 0
+                        ? permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS)
+                        : permits.tryAcquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+            if (!acquired) {
+                rejected.increment();
+                throw new BulkheadFullException(type);
+            }
+        }
+
+        private void release() {
+            permits.release();
+        }
+
+        int maxConcurrent() {
+            return maxConcurrent;
+        }
+
+        int active() {
+            return maxConcurrent - permits.availablePermits();
+        }
+
+        int waiting() {
+            return permits.getQueueLength();
+        }
+
+        long rejected() {
+            return rejected.sum();
+        }
+    }
+}
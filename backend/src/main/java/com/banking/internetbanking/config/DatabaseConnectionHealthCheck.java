@@ -2,7 +2,10 @@ package com.banking.internetbanking.config;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.annotation.Order;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
@@ -14,6 +17,7 @@ import java.sql.DatabaseMetaData;
 /**
  * データベース接続ヘルスチェックコンポーネント
  * アプリケーション起動時にデータベース接続を確認
+ * 高速起動モードでは疎通確認だけを行い、接続情報の詳細な出力は Ready 通知後に行う
  */
 @Component
 @Order(1) // DatabaseInitializerより先に実行
@@ -24,6 +28,9 @@ public class DatabaseConnectionHealthCheck implements CommandLineRunner {
     private final DataSource dataSource;
     private final JdbcTemplate jdbcTemplate;
 
+    @Value("${app.startup.fast-start:false}")
+    private boolean fastStart;
+
     public DatabaseConnectionHealthCheck(DataSource dataSource, JdbcTemplate jdbcTemplate) {
         this.dataSource = dataSource;
         this.jdbcTemplate = jdbcTemplate;
@@ -31,6 +38,54 @@ public class DatabaseConnectionHealthCheck implements CommandLineRunner {
 
     @Override
     public void run(String... args) {
+        if (fastStart) {
+            verifyReachable();
+            return;
+        }
+        runDetailedCheck();
+    }
+
+    /**
+     * 高速起動モード: Ready 通知後に接続情報の詳細を出力する
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void logDetailsAfterReady() {
+        if (fastStart) {
+            Thread.ofVirtual().name("db-connection-details").start(this::runDetailedCheck);
+        }
+    }
+
+    /**
+     * 疎通確認のみ（短い間隔から指数的に待機時間を延ばして再試行する）
+     */
+    private void verifyReachable() {
+        long delayMs = 250;
+        long deadline = System.currentTimeMillis() + 15000;
+        int attempt = 0;
+        while (true) {
+            attempt++;
+            try {
+                jdbcTemplate.execute("SELECT 1");
+                logger.info("✓ データベース疎通確認成功（試行 {} 回）", attempt);
+                return;
+            } catch (Exception e) {
+                if (System.currentTimeMillis() + delayMs > deadline) {
+                    logger.warn("データベース疎通確認に失敗しました（{}回試行）: {}", attempt, e.getMessage());
+                    logger.warn("アプリケーションは起動を続けますが、データベース接続が確立されていない可能性があります。");
+                    return;
+                }
+                try {
+                    Thread.sleep(delayMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                delayMs = Math.min(delayMs * 2, 2000);
+            }
+        }
+    }
+
+    private void runDetailedCheck() {
         logger.info("=== データベース接続ヘルスチェック開始 ===");
 
         int maxRetries = 5;
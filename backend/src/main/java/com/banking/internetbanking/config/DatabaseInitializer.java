@@ -13,7 +13,8 @@ import java.nio.charset.StandardCharsets;
 
 /**
  * データベース初期化コンポーネント
- * Railway環境などでスキーマが自動初期化されない場合に使用
+ * スキーマの作成・更新は {@link SchemaMigrator} が起動時に行う。
+ * ここでは自動初期化が有効な場合に、空のデータベースへサンプルデータを投入する
  */
 @Component
 public class DatabaseInitializer implements CommandLineRunner {
@@ -40,155 +41,44 @@ public class DatabaseInitializer implements CommandLineRunner {
         }
 
         try {
-            // データベース接続の確認（リトライ付き）
-            logger.info("データベース接続を確認しています...");
-            int maxConnectionRetries = 5;
-            long retryDelayMs = 2000;
-            boolean connectionEstablished = false;
-
-            for (int attempt = 1; attempt <= maxConnectionRetries; attempt++) {
-                try {
-                    jdbcTemplate.execute("SELECT 1");
-                    logger.info("データベース接続が正常です。");
-                    connectionEstablished = true;
-                    break;
-                } catch (Exception e) {
-                    logger.warn("接続確認試行 {}/{} 失敗: {}", attempt, maxConnectionRetries, e.getMessage());
-                    if (attempt < maxConnectionRetries) {
-                        logger.info("{}秒後に再試行します...", retryDelayMs / 1000);
-                        try {
-                            Thread.sleep(retryDelayMs);
-                        } catch (InterruptedException ie) {
-                            Thread.currentThread().interrupt();
-                            logger.error("リトライ待機中に割り込みが発生しました", ie);
-                            return;
-                        }
-                    }
-                }
-            }
-
-            if (!connectionEstablished) {
-                logger.error("データベース接続を確立できませんでした。スキーマ初期化をスキップします。");
+            // ユーザーが既に存在する場合はサンプルデータを投入しない
+            Integer userCount = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Integer.class);
+            if (userCount != null && userCount > 0) {
+                logger.info("データベースには既にデータが存在します（users: {}件）。サンプルデータの挿入をスキップします。",
+                        userCount);
                 return;
             }
 
-            // テーブルが存在するか確認
-            String checkTableQuery = "SELECT COUNT(*) FROM information_schema.tables WHERE table_schema = 'public' AND table_name = 'users'";
-            Integer tableCount = jdbcTemplate.queryForObject(checkTableQuery, Integer.class);
+            logger.info("サンプルデータの挿入を開始します...");
+            ClassPathResource sampleDataResource = new ClassPathResource("sample-data.sql");
+            String sampleDataSql = StreamUtils.copyToString(sampleDataResource.getInputStream(),
+                    StandardCharsets.UTF_8);
 
-            if (tableCount != null && tableCount > 0) {
-                logger.info("データベーススキーマは既に初期化されています（usersテーブルが存在します）。");
-                return;
-            }
-
-            logger.info("データベーススキーマを初期化しています...");
-
-            // schema.sqlを読み込んで実行
-            ClassPathResource schemaResource = new ClassPathResource("schema.sql");
-            String schemaSql = StreamUtils.copyToString(schemaResource.getInputStream(), StandardCharsets.UTF_8);
-
-            // SQLを実行（より堅牢な方法）
-            // セミコロンで分割し、空でない文のみ実行
-            String[] rawStatements = schemaSql.split(";");
-            int executedCount = 0;
-            int skippedCount = 0;
-
-            for (String rawStatement : rawStatements) {
-                String statement = rawStatement.trim();
-
-                // 空の文やコメントのみの文をスキップ
-                if (statement.isEmpty() ||
-                        statement.startsWith("--") ||
-                        statement.matches("^\\s*$")) {
-                    continue;
-                }
-
-                // 複数行のコメントを除去
-                statement = statement.replaceAll("(?s)/\\*.*?\\*/", "").trim();
-
-                if (statement.isEmpty()) {
-                    continue;
-                }
+            int dataExecutedCount = 0;
+            int dataSkippedCount = 0;
 
+            for (String statement : SqlScriptSplitter.split(sampleDataSql)) {
                 try {
                     jdbcTemplate.execute(statement);
-                    executedCount++;
-                    String statementPreview = statement.length() > 60
-                            ? statement.substring(0, 60) + "..."
-                            : statement;
-                    logger.debug("SQL実行成功 [{}]: {}", executedCount, statementPreview);
+                    dataExecutedCount++;
+                    logger.debug("サンプルデータ挿入成功 [{}]", dataExecutedCount);
                 } catch (Exception e) {
-                    skippedCount++;
+                    dataSkippedCount++;
                     String errorMsg = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
 
-                    // 既に存在するテーブルなどのエラーは無視
-                    if (errorMsg.contains("already exists") ||
-                            errorMsg.contains("duplicate") ||
-                            errorMsg.contains("relation") && errorMsg.contains("already exists")) {
-                        logger.debug("オブジェクトは既に存在します（無視）: {}", errorMsg);
+                    if (errorMsg.contains("duplicate") ||
+                            errorMsg.contains("already exists") ||
+                            errorMsg.contains("violates unique constraint")) {
+                        logger.debug("サンプルデータは既に存在します（無視）: {}", errorMsg);
                     } else {
-                        logger.warn("SQL実行エラー [{}]: {} - SQL: {}", skippedCount, errorMsg,
-                                statement.length() > 100 ? statement.substring(0, 100) + "..." : statement);
-                    }
-                }
-            }
-
-            logger.info("データベーススキーマの初期化が完了しました。実行: {}, スキップ: {}", executedCount, skippedCount);
-
-            // サンプルデータの挿入（オプション）
-            if (sqlInitEnabled) {
-                try {
-                    logger.info("サンプルデータの挿入を開始します...");
-                    ClassPathResource sampleDataResource = new ClassPathResource("sample-data.sql");
-                    String sampleDataSql = StreamUtils.copyToString(sampleDataResource.getInputStream(),
-                            StandardCharsets.UTF_8);
-
-                    String[] sampleRawStatements = sampleDataSql.split(";");
-                    int dataExecutedCount = 0;
-                    int dataSkippedCount = 0;
-
-                    for (String rawStatement : sampleRawStatements) {
-                        String statement = rawStatement.trim();
-
-                        if (statement.isEmpty() ||
-                                statement.startsWith("--") ||
-                                statement.matches("^\\s*$")) {
-                            continue;
-                        }
-
-                        // 複数行のコメントを除去
-                        statement = statement.replaceAll("(?s)/\\*.*?\\*/", "").trim();
-
-                        if (statement.isEmpty()) {
-                            continue;
-                        }
-
-                        try {
-                            jdbcTemplate.execute(statement);
-                            dataExecutedCount++;
-                            logger.debug("サンプルデータ挿入成功 [{}]", dataExecutedCount);
-                        } catch (Exception e) {
-                            dataSkippedCount++;
-                            String errorMsg = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
-
-                            if (errorMsg.contains("duplicate") ||
-                                    errorMsg.contains("already exists") ||
-                                    errorMsg.contains("violates unique constraint")) {
-                                logger.debug("サンプルデータは既に存在します（無視）: {}", errorMsg);
-                            } else {
-                                logger.warn("サンプルデータ挿入エラー: {}", errorMsg);
-                            }
-                        }
+                        logger.warn("サンプルデータ挿入エラー: {}", errorMsg);
                     }
-
-                    logger.info("サンプルデータの挿入が完了しました。実行: {}, スキップ: {}", dataExecutedCount, dataSkippedCount);
-                } catch (Exception e) {
-                    logger.warn("サンプルデータの挿入に失敗しました: {}", e.getMessage());
                 }
             }
 
+            logger.info("サンプルデータの挿入が完了しました。実行: {}, スキップ: {}", dataExecutedCount, dataSkippedCount);
         } catch (Exception e) {
-            logger.error("データベース初期化中にエラーが発生しました", e);
+            logger.warn("サンプルデータの挿入に失敗しました: {}", e.getMessage());
             // エラーが発生してもアプリケーションは起動を続ける
         }
     }
@@ -2,18 +2,25 @@ package com.banking.internetbanking.config;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.annotation.Order;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * データベース起動検証コンポーネント
  * アプリケーション起動後にデータベースの状態を詳細に検証
+ * 高速起動モードでは起動をブロックせず、Ready 通知後に各検証を並行して実行する
+ * 検証の問い合わせはバッチの区画の接続プールで行い、利用者の処理の接続を使わない
  */
 @Component
 @Order(3) // DatabaseConnectionHealthCheck と DatabaseInitializer の後に実行
@@ -22,13 +29,26 @@ public class DatabaseStartupVerifier implements ApplicationRunner {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseStartupVerifier.class);
 
     private final JdbcTemplate jdbcTemplate;
+    private final Bulkheads bulkheads;
 
-    public DatabaseStartupVerifier(JdbcTemplate jdbcTemplate) {
+    @Value("${app.startup.fast-start:false}")
+    private boolean fastStart;
+
+    public DatabaseStartupVerifier(JdbcTemplate jdbcTemplate, Bulkheads bulkheads) {
         this.jdbcTemplate = jdbcTemplate;
+        this.bulkheads = bulkheads;
     }
 
     @Override
     public void run(ApplicationArguments args) {
+        if (fastStart) {
+            logger.info("高速起動モード: データベース起動検証は Ready 通知後に実行します");
+            return;
+        }
+        bulkheads.bind(Bulkhead.Type.BACKGROUND, this::verifyAll).run();
+    }
+
+    private void verifyAll() {
         logger.info("=== データベース起動検証開始 ===");
 
         try {
@@ -51,6 +71,33 @@ public class DatabaseStartupVerifier implements ApplicationRunner {
         }
     }
 
+    /**
+     * 高速起動モード: Ready 通知後に検証を並行実行する（結果はログのみで起動には影響しない）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyAfterReady() {
+        if (!fastStart) {
+            return;
+        }
+        long start = System.nanoTime();
+        logger.info("=== データベース起動検証開始（並行・遅延実行） ===");
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        CompletableFuture.allOf(
+                CompletableFuture.runAsync(bulkheads.bind(Bulkhead.Type.BACKGROUND, this::verifyConnection), executor),
+                CompletableFuture.runAsync(bulkheads.bind(Bulkhead.Type.BACKGROUND, this::verifyRequiredTables), executor),
+                CompletableFuture.runAsync(bulkheads.bind(Bulkhead.Type.BACKGROUND, this::verifyDatabaseSettings), executor),
+                CompletableFuture.runAsync(bulkheads.bind(Bulkhead.Type.BACKGROUND, this::verifyConnectionPool), executor))
+                .whenComplete((result, error) -> {
+                    executor.shutdown();
+                    long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+                    if (error != null) {
+                        logger.error("データベース起動検証中にエラーが発生しました（{}ms）", elapsedMs, error);
+                    } else {
+                        logger.info("=== データベース起動検証完了: すべて正常（{}ms） ===", elapsedMs);
+                    }
+                });
+    }
+
     private void verifyConnection() {
         logger.info("1. データベース接続の確認...");
         try {
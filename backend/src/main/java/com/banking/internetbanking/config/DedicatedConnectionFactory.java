@@ -0,0 +1,49 @@
+package com.banking.internetbanking.config;
+
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * 専用データベース接続ファクトリ
+ * LISTEN/NOTIFY のように接続を長時間占有する処理のため、
+ * Hikari プールを経由せずに単独の接続を開く（シャードを指定しなければシャード0）
+ */
+@Component
+public class DedicatedConnectionFactory {
+
+    private final DataSourceProperties dataSourceProperties;
+    private final ShardingProperties shardingProperties;
+
+    public DedicatedConnectionFactory(DataSourceProperties dataSourceProperties,
+            ShardingProperties shardingProperties) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.shardingProperties = shardingProperties;
+    }
+
+    public Connection open(String applicationName) throws SQLException {
+        return open(applicationName, ShardKeys.DEFAULT_SHARD);
+    }
+
+    public Connection open(String applicationName, int shard) throws SQLException {
+        String url = dataSourceProperties.determineUrl();
+        String username = dataSourceProperties.determineUsername();
+        String password = dataSourceProperties.determinePassword();
+        if (shard != ShardKeys.DEFAULT_SHARD) {
+            ShardingProperties.Shard target = shardingProperties.shards().stream()
+                    .filter(candidate -> candidate.id() == shard)
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("シャードが設定されていません: " + shard));
+            url = target.url();
+            username = target.username() != null ? target.username() : username;
+            password = target.password() != null ? target.password() : password;
+        }
+        Connection connection = DriverManager.getConnection(url, username, password);
+        connection.setClientInfo("ApplicationName", applicationName);
+        connection.setAutoCommit(true);
+        return connection;
+    }
+}
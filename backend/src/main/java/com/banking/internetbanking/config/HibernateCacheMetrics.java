@@ -0,0 +1,70 @@
+package com.banking.internetbanking.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Hibernate の二次キャッシュのリージョンごとのヒット・ミス・格納の件数とヒット率
+ * （hibernate.cache.region.hits / misses / puts / hit.ratio、タグ region）。
+ * ナチュラル ID・クエリ結果のリージョンも含む。値は Hibernate の統計（generate_statistics）から読む。
+ */
+@Component
+public class HibernateCacheMetrics implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(HibernateCacheMetrics.class);
+
+    private final Statistics statistics;
+
+    public HibernateCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!statistics.isStatisticsEnabled()) {
+            logger.info("Hibernate の統計が無効のため、二次キャッシュのメトリクスは記録しません。");
+            return;
+        }
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            counter(registry, region, "hits", "キャッシュから返した件数", CacheRegionStatistics::getHitCount);
+            counter(registry, region, "misses", "キャッシュに無く、データベースから読んだ件数",
+                    CacheRegionStatistics::getMissCount);
+            counter(registry, region, "puts", "キャッシュに格納した件数", CacheRegionStatistics::getPutCount);
+            Gauge.builder("hibernate.cache.region.hit.ratio", statistics, s -> hitRatio(s, region))
+                    .description("起動からのヒット率（ヒット / (ヒット + ミス)）")
+                    .tag("region", region)
+                    .register(registry);
+        }
+    }
+
+    private void counter(MeterRegistry registry, String region, String name, String description,
+            ToLongFunction<CacheRegionStatistics> count) {
+        FunctionCounter.builder("hibernate.cache.region." + name, statistics, s -> {
+                    CacheRegionStatistics regionStatistics = s.getCacheRegionStatistics(region);
+                    return regionStatistics != null ? count.applyAsLong(regionStatistics) : 0;
+                })
+                .description(description)
+                .tag("region", region)
+                .register(registry);
+    }
+
+    private static double hitRatio(Statistics statistics, String region) {
+        CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+        if (regionStatistics == null) {
+            return Double.NaN;
+        }
+        long lookups = regionStatistics.getHitCount() + regionStatistics.getMissCount();
+        return lookups > 0 ? (double) regionStatistics.getHitCount() / lookups : Double.NaN;
+    }
+}
@@ -0,0 +1,93 @@
+package com.banking.internetbanking.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link RetryOnConflict} を付けたメソッドを、楽観的ロックの競合時にやり直す
+ * 待ち時間は試行ごとに上限を倍にした範囲からランダムに選ぶ（full jitter）ため、同じ行を
+ * 更新し合う処理どうしが同じ間隔でぶつかり続けることはない。
+ *
+ * <p>シャードの振り分け（{@link ShardRoutingAspect}）と区画（{@link BulkheadAspect}）の内側、@Transactional の
+ * 外側で実行し、試行ごとに新しいトランザクションと永続化コンテキストを使う。メソッドごとに呼び出し数・競合数・
+ * 試行回数の上限到達数を記録する（競合率 = optimistic.conflicts / optimistic.calls）。
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+class OptimisticRetryAspect {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimisticRetryAspect.class);
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, Meters> meters = new ConcurrentHashMap<>();
+
+    @Value("${app.optimistic-retry.initial-backoff-ms:10}")
+    private long initialBackoffMs;
+
+    @Value("${app.optimistic-retry.max-backoff-ms:200}")
+    private long maxBackoffMs;
+
+    OptimisticRetryAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("@annotation(retryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint, RetryOnConflict retryOnConflict) throws Throwable {
+        // 外側のトランザクションは競合で rollback-only になっており、内側だけやり直しても意味がない
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Meters counters = meters.computeIfAbsent(method, this::metersOf);
+        counters.calls().increment();
+        int maxAttempts = Math.max(1, retryOnConflict.maxAttempts());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException e) {
+                counters.conflicts().increment();
+                if (attempt >= maxAttempts) {
+                    counters.exhausted().increment();
+                    logger.warn("{} の更新が競合し、{}回試行しても成功しませんでした: {}",
+                            counters.name(), attempt, e.getMessage());
+                    throw e;
+                }
+                long ceiling = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+                long backoff = ThreadLocalRandom.current().nextLong(ceiling + 1);
+                logger.debug("{} の更新が競合しました。{}ms後にやり直します（{}/{}回目）",
+                        counters.name(), backoff, attempt, maxAttempts);
+                Thread.sleep(backoff);
+            }
+        }
+    }
+
+    private Meters metersOf(Method method) {
+        String name = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        return new Meters(name,
+                Counter.builder("optimistic.calls").tag("method", name).register(meterRegistry),
+                Counter.builder("optimistic.conflicts").tag("method", name).register(meterRegistry),
+                Counter.builder("optimistic.retries.exhausted").tag("method", name).register(meterRegistry));
+    }
+
+    private record Meters(String name, Counter calls, Counter conflicts, Counter exhausted) {
+    }
+}
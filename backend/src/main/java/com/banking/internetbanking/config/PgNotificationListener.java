@@ -0,0 +1,147 @@
+package com.banking.internetbanking.config;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * PostgreSQL LISTEN/NOTIFY リスナー
+ * 専用接続でチャネルを購読し、通知を受けたら登録済みのリスナーを起こす。
+ * 接続が切れた場合は再接続し、取りこぼしに備えて全リスナーを一度起こす
+ */
+@Component
+public class PgNotificationListener implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(PgNotificationListener.class);
+
+    private final DedicatedConnectionFactory connectionFactory;
+    private final Map<String, List<Runnable>> listeners = new ConcurrentHashMap<>();
+
+    @Value("${app.notify.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.notify.poll-timeout-ms:1000}")
+    private int pollTimeoutMs;
+
+    @Value("${app.notify.reconnect-delay-ms:5000}")
+    private long reconnectDelayMs;
+
+    private volatile boolean running;
+    private volatile boolean resubscribe;
+    private Thread worker;
+
+    public PgNotificationListener(DedicatedConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * チャネルを購読する。リスナーは通知スレッド上で呼ばれるため、重い処理は行わないこと
+     */
+    public void subscribe(String channel, Runnable listener) {
+        listeners.computeIfAbsent(channel, key -> new CopyOnWriteArrayList<>()).add(listener);
+        resubscribe = true;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            logger.info("LISTEN/NOTIFY は無効です。購読者はポーリングのみで動作します。");
+            return;
+        }
+        running = true;
+        worker = Thread.ofPlatform().name("pg-notify-listener").daemon().start(this::listenLoop);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // 購読者（アウトボックスリレーなど）より先に起動し、後に停止する
+        return Integer.MIN_VALUE + 100;
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection connection = connectionFactory.open("pg-notify-listener")) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                listen(connection);
+                logger.info("LISTEN を開始しました: {}", listeners.keySet());
+                // 接続確立までに発生した通知を取りこぼさないよう、全リスナーを一度起こす
+                wakeAll();
+
+                while (running) {
+                    if (resubscribe) {
+                        listen(connection);
+                    }
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeoutMs);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        dispatch(notification.getName());
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("LISTEN 接続でエラーが発生しました。{}ms後に再接続します: {}", reconnectDelayMs, e.getMessage());
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void listen(Connection connection) throws Exception {
+        resubscribe = false;
+        try (Statement statement = connection.createStatement()) {
+            for (String channel : listeners.keySet()) {
+                statement.execute("LISTEN " + channel);
+            }
+        }
+    }
+
+    private void dispatch(String channel) {
+        List<Runnable> channelListeners = listeners.get(channel);
+        if (channelListeners == null) {
+            return;
+        }
+        for (Runnable listener : channelListeners) {
+            try {
+                listener.run();
+            } catch (Exception e) {
+                logger.warn("通知リスナーの実行に失敗しました [{}]: {}", channel, e.getMessage());
+            }
+        }
+    }
+
+    private void wakeAll() {
+        listeners.keySet().forEach(this::dispatch);
+    }
+}
@@ -1,77 +1,221 @@
 package com.banking.internetbanking.config;
 
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.HealthIndicator;
-import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.stereotype.Component;
 
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * PostgreSQL ステータスチェッカー
  * Actuator のヘルスエンドポイントで使用
+ *
+ * <p>プローブのたびに問い合わせるのではなく、バックグラウンドで一定間隔ごとに
+ * 専用接続（プール外）で状態を取得し、その結果を返す。プローブが頻繁でも
+ * データベースへの負荷とプール接続の消費は増えない。
+ * 最終取得から一定時間を超えた結果は古いものとして DOWN を返す。
  */
 @Component
-public class PostgreSQLStatusChecker implements HealthIndicator {
+public class PostgreSQLStatusChecker implements HealthIndicator, SmartLifecycle {
 
     private static final Logger logger = LoggerFactory.getLogger(PostgreSQLStatusChecker.class);
 
-    private final JdbcTemplate jdbcTemplate;
+    private static final String STATUS_QUERY = "SELECT "
+            + "  current_database() AS database_name, "
+            + "  version() AS version, "
+            + "  (SELECT count(*) FROM pg_stat_activity WHERE state = 'active') AS active_connections, "
+            + "  (SELECT setting::int FROM pg_settings WHERE name = 'max_connections') AS max_connections, "
+            + "  (SELECT count(*) FROM pg_stat_activity) AS total_connections, "
+            + "  (SELECT count(*) FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace "
+            + "     WHERE n.nspname = 'public' AND c.relkind IN ('r', 'p')) AS table_count, "
+            + "  pg_size_pretty(pg_database_size(current_database())) AS database_size, "
+            + "  pg_is_in_recovery() AS in_recovery, "
+            // レプリカでは最終再生からの経過時間、プライマリでは接続中のスタンバイの最大再生遅延
+            + "  CASE WHEN pg_is_in_recovery() "
+            + "    THEN EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) "
+            + "    ELSE (SELECT EXTRACT(EPOCH FROM max(replay_lag)) FROM pg_stat_replication) "
+            + "  END AS replication_lag_seconds";
 
-    public PostgreSQLStatusChecker(JdbcTemplate jdbcTemplate) {
-        this.jdbcTemplate = jdbcTemplate;
+    private final DedicatedConnectionFactory connectionFactory;
+    private final DataSource dataSource;
+
+    @Value("${app.health.db.refresh-interval-ms:10000}")
+    private long refreshIntervalMs;
+
+    @Value("${app.health.db.max-staleness-ms:30000}")
+    private long maxStalenessMs;
+
+    @Value("${app.health.db.query-timeout-seconds:3}")
+    private int queryTimeoutSeconds;
+
+    private ScheduledExecutorService refresher;
+    private Connection connection;
+    private volatile Snapshot snapshot;
+    private volatile boolean running;
+
+    public PostgreSQLStatusChecker(DedicatedConnectionFactory connectionFactory, DataSource dataSource) {
+        this.connectionFactory = connectionFactory;
+        this.dataSource = dataSource;
     }
 
     @Override
     public Health health() {
-        try {
-            // データベース接続テスト
-            jdbcTemplate.execute("SELECT 1");
-
-            // PostgreSQL のバージョン情報を取得
-            String version = jdbcTemplate.queryForObject("SELECT version()", String.class);
-
-            // データベース名を取得
-            String databaseName = jdbcTemplate.queryForObject("SELECT current_database()", String.class);
-
-            // 接続数情報を取得
-            Map<String, Object> connectionInfo = jdbcTemplate.queryForMap(
-                    "SELECT " +
-                            "  (SELECT count(*) FROM pg_stat_activity WHERE state = 'active') as active_connections, " +
-                            "  (SELECT setting::int FROM pg_settings WHERE name = 'max_connections') as max_connections, "
-                            +
-                            "  (SELECT count(*) FROM pg_stat_activity) as total_connections");
-
-            // テーブル数を取得
-            Integer tableCount = jdbcTemplate.queryForObject(
-                    "SELECT COUNT(*) FROM information_schema.tables WHERE table_schema = 'public'",
-                    Integer.class);
-
-            // データベースサイズを取得
-            String dbSize = jdbcTemplate.queryForObject(
-                    "SELECT pg_size_pretty(pg_database_size(current_database()))",
-                    String.class);
-
-            return Health.up()
-                    .withDetail("status", "UP")
-                    .withDetail("database", databaseName)
-                    .withDetail("version",
-                            version != null ? version.substring(0, Math.min(50, version.length())) : "Unknown")
-                    .withDetail("active_connections", connectionInfo.get("active_connections"))
-                    .withDetail("total_connections", connectionInfo.get("total_connections"))
-                    .withDetail("max_connections", connectionInfo.get("max_connections"))
-                    .withDetail("table_count", tableCount != null ? tableCount : 0)
-                    .withDetail("database_size", dbSize != null ? dbSize : "Unknown")
+        Snapshot current = snapshot;
+        if (current == null) {
+            return Health.unknown()
+                    .withDetail("status", "UNKNOWN")
+                    .withDetail("reason", "初回のステータス取得が完了していません")
+                    .withDetails(poolDetails())
                     .build();
+        }
 
-        } catch (Exception e) {
-            logger.error("PostgreSQL ヘルスチェックに失敗しました", e);
-            return Health.down()
+        long ageMs = System.currentTimeMillis() - current.checkedAt().toEpochMilli();
+        Health.Builder builder;
+        if (ageMs > maxStalenessMs) {
+            // 更新が止まっている（専用接続がハングしているなど）場合は古い結果を UP として返さない
+            builder = Health.down()
                     .withDetail("status", "DOWN")
-                    .withDetail("error", e.getMessage())
-                    .build();
+                    .withDetail("error", "ステータスが " + ageMs + "ms 更新されていません");
+        } else if (current.error() != null) {
+            builder = Health.down()
+                    .withDetail("status", "DOWN")
+                    .withDetail("error", current.error());
+        } else {
+            builder = Health.up().withDetail("status", "UP");
+        }
+        return builder
+                .withDetails(current.details())
+                .withDetails(poolDetails())
+                .withDetail("checked_at", current.checkedAt().toString())
+                .withDetail("age_ms", ageMs)
+                .build();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        refresher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("pg-health").daemon().factory());
+        refresher.scheduleWithFixedDelay(this::refresh, 0, refreshIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+        closeConnection();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void refresh() {
+        try {
+            Connection current = connection();
+            try (Statement statement = current.createStatement()) {
+                statement.setQueryTimeout(queryTimeoutSeconds);
+                try (ResultSet rs = statement.executeQuery(STATUS_QUERY)) {
+                    rs.next();
+                    snapshot = new Snapshot(Instant.now(), statusDetails(rs), null);
+                }
+            }
+        } catch (Exception e) {
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            Snapshot previous = snapshot;
+            if (previous == null || previous.error() == null) {
+                logger.error("PostgreSQL ヘルスチェックに失敗しました: {}", error);
+            }
+            snapshot = new Snapshot(Instant.now(), Map.of(), error);
+            // 次回は接続を張り直す
+            closeConnection();
+        }
+    }
+
+    private Map<String, Object> statusDetails(ResultSet rs) throws SQLException {
+        Map<String, Object> details = new LinkedHashMap<>();
+        String version = rs.getString("version");
+        details.put("database", rs.getString("database_name"));
+        details.put("version", version != null ? version.substring(0, Math.min(50, version.length())) : "Unknown");
+        details.put("active_connections", rs.getLong("active_connections"));
+        details.put("total_connections", rs.getLong("total_connections"));
+        details.put("max_connections", rs.getInt("max_connections"));
+        details.put("table_count", rs.getInt("table_count"));
+        details.put("database_size", rs.getString("database_size"));
+        details.put("role", rs.getBoolean("in_recovery") ? "replica" : "primary");
+        double lag = rs.getDouble("replication_lag_seconds");
+        // スタンバイが無い（プライマリ）・再生履歴が無い（レプリカ）場合は出力しない
+        if (!rs.wasNull()) {
+            details.put("replication_lag_seconds", lag);
+        }
+        return details;
+    }
+
+    /**
+     * アプリケーションの接続プールの使用状況（問い合わせ不要のため毎回最新値を返す）
+     */
+    private Map<String, Object> poolDetails() {
+        if (!(dataSource instanceof HikariDataSource hikari)) {
+            return Map.of();
+        }
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        if (pool == null) {
+            return Map.of(); // プール未初期化
+        }
+        int maximum = hikari.getMaximumPoolSize();
+        int active = pool.getActiveConnections();
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("pool_active", active);
+        details.put("pool_idle", pool.getIdleConnections());
+        details.put("pool_total", pool.getTotalConnections());
+        details.put("pool_max", maximum);
+        details.put("pool_pending_threads", pool.getThreadsAwaitingConnection());
+        details.put("pool_saturation", maximum > 0 ? (double) active / maximum : 0.0);
+        return details;
+    }
+
+    private Connection connection() throws SQLException {
+        if (connection == null || connection.isClosed()) {
+            connection = connectionFactory.open("pg-health");
+            // クエリタイムアウトはサーバー側でも効かせ、応答の無い接続はソケットタイムアウトで切る
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET statement_timeout = " + queryTimeoutSeconds * 1000);
+            }
+            connection.setNetworkTimeout(Runnable::run, (queryTimeoutSeconds + 2) * 1000);
         }
+        return connection;
+    }
+
+    private void closeConnection() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                logger.debug("ヘルスチェック用接続のクローズに失敗しました: {}", e.getMessage());
+            }
+            connection = null;
+        }
+    }
+
+    private record Snapshot(Instant checkedAt, Map<String, Object> details, String error) {
     }
 }
@@ -0,0 +1,244 @@
+package com.banking.internetbanking.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * レート制限フィルター（セキュリティフィルターチェーン内、Basic 認証より前で実行）
+ * エンドポイントの種類（認証・参照・更新・管理）ごとの上限を、ログイン中のユーザー、
+ * 未ログインならクライアント IP 単位で適用する。認証系は総当たり対策として常に IP 単位。
+ * 管理 API（{@link SecurityConfig#ADMIN_ENDPOINTS}）と Basic 認証の付いたリクエストは管理の上限で、
+ * 認証情報の照合より前に IP 単位で判定する（管理者パスワードの総当たり対策）。
+ *
+ * <p>各キーはトークンバケットと等価な GCRA（理論到着時刻を1つの AtomicLong で持ち、
+ * CAS で更新する）で判定するため、ロックを取らない。到着時刻が現在より前のキーは
+ * バケットが満杯の状態と同じなので、上限数を超えたときはそれらから捨てる。
+ *
+ * <p>超過時は 429 と Retry-After を返し、http.server.requests.throttled を加算する。
+ * 制限されたキーはキーごとに1分に1回ログに出す。
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private static final long LOG_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    /**
+     * エンドポイントの種類
+     */
+    enum EndpointClass {
+        AUTH, READ, WRITE, ADMIN
+    }
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Map<EndpointClass, Policy> policies = new EnumMap<>(EndpointClass.class);
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    @Value("${app.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.rate-limit.max-keys:100000}")
+    private int maxKeys;
+
+    public RateLimitFilter(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${app.rate-limit.auth.requests-per-minute:10}") long authPerMinute,
+            @Value("${app.rate-limit.auth.burst:5}") int authBurst,
+            @Value("${app.rate-limit.read.requests-per-minute:300}") long readPerMinute,
+            @Value("${app.rate-limit.read.burst:60}") int readBurst,
+            @Value("${app.rate-limit.write.requests-per-minute:60}") long writePerMinute,
+            @Value("${app.rate-limit.write.burst:20}") int writeBurst,
+            @Value("${app.rate-limit.admin.requests-per-minute:30}") long adminPerMinute,
+            @Value("${app.rate-limit.admin.burst:10}") int adminBurst) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        policies.put(EndpointClass.AUTH, new Policy(authPerMinute, authBurst));
+        policies.put(EndpointClass.READ, new Policy(readPerMinute, readBurst));
+        policies.put(EndpointClass.WRITE, new Policy(writePerMinute, writeBurst));
+        policies.put(EndpointClass.ADMIN, new Policy(adminPerMinute, adminBurst));
+        Gauge.builder("rate.limit.tracked.keys", buckets, Map::size).register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || classify(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        EndpointClass endpointClass = classify(request);
+        Policy policy = policies.get(endpointClass);
+        String principal = principalKey(request, endpointClass);
+        String key = endpointClass.name() + ":" + principal;
+
+        long now = System.nanoTime();
+        Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket(now));
+        long waitNanos = bucket.tryAcquire(now, policy);
+        evictIfNeeded(now);
+
+        if (waitNanos == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        Counter.builder("http.server.requests.throttled")
+                .tag("class", endpointClass.name().toLowerCase())
+                .tag("principal", principal.startsWith("user:") ? "user" : "ip")
+                .register(meterRegistry)
+                .increment();
+        if (bucket.shouldLog(now)) {
+            logger.warn("レート制限により拒否しました: {} {} {}（{}）", principal, request.getMethod(),
+                    request.getRequestURI(), endpointClass);
+        }
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getWriter(),
+                Map.of("error", "リクエストが多すぎます。しばらくしてから再試行してください"));
+    }
+
+    private EndpointClass classify(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        if ("OPTIONS".equals(request.getMethod())) {
+            return null; // CORS のプリフライトは対象外
+        }
+        if (path.startsWith("/api/auth/")) {
+            return EndpointClass.AUTH;
+        }
+        if (path.startsWith("/actuator")) {
+            // ヘルスプローブは制限しない
+            return path.startsWith("/actuator/health") ? null : EndpointClass.ADMIN;
+        }
+        if (SecurityConfig.ADMIN_ENDPOINTS.matches(request) || hasBasicCredentials(request)) {
+            return EndpointClass.ADMIN;
+        }
+        if (path.startsWith("/api/")) {
+            return "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod())
+                    ? EndpointClass.READ : EndpointClass.WRITE;
+        }
+        return null;
+    }
+
+    private static boolean hasBasicCredentials(HttpServletRequest request) {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        return authorization != null && authorization.regionMatches(true, 0, "Basic ", 0, 6);
+    }
+
+    private String principalKey(HttpServletRequest request, EndpointClass endpointClass) {
+        if (endpointClass != EndpointClass.AUTH) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.isAuthenticated()
+                    && !(authentication instanceof AnonymousAuthenticationToken)) {
+                return "user:" + authentication.getName();
+            }
+        }
+        // プロキシ配下では server.forward-headers-strategy により実クライアントの IP になる
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    /**
+     * 上限数を超えたら、満杯（理論到着時刻が過去）のバケットから捨てる。
+     * それでも収まらない場合（多数のキーが同時に制限中）は任意のキーを捨てて上限を守る
+     */
+    private void evictIfNeeded(long now) {
+        if (buckets.size() <= maxKeys || !evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            buckets.values().removeIf(bucket -> bucket.isIdle(now));
+            Iterator<String> keys = buckets.keySet().iterator();
+            int target = maxKeys - maxKeys / 10;
+            while (buckets.size() > target && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * 上限（1分あたりのリクエスト数と許容バースト）
+     */
+    private record Policy(long emissionIntervalNanos, long burstToleranceNanos) {
+
+        Policy(long requestsPerMinute, int burst) {
+            this(TimeUnit.MINUTES.toNanos(1) / Math.max(1, requestsPerMinute),
+                    TimeUnit.MINUTES.toNanos(1) / Math.max(1, requestsPerMinute) * Math.max(1, burst));
+        }
+    }
+
+    private static final class Bucket {
+
+        // 理論到着時刻（次のリクエストが「遅れなく」届くべき時刻）
+        private final AtomicLong theoreticalArrival;
+        private volatile long lastLogged;
+
+        Bucket(long now) {
+            this.theoreticalArrival = new AtomicLong(now);
+            this.lastLogged = now - LOG_INTERVAL_NANOS;
+        }
+
+        /**
+         * @return 許可なら 0、拒否なら次に許可されるまでの待ち時間（ナノ秒）
+         */
+        long tryAcquire(long now, Policy policy) {
+            while (true) {
+                long current = theoreticalArrival.get();
+                long next = Math.max(current, now) + policy.emissionIntervalNanos();
+                long overshoot = next - now - policy.burstToleranceNanos();
+                if (overshoot > 0) {
+                    return overshoot;
+                }
+                if (theoreticalArrival.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        boolean isIdle(long now) {
+            return theoreticalArrival.get() - now <= 0;
+        }
+
+        boolean shouldLog(long now) {
+            long last = lastLogged;
+            if (now - last < LOG_INTERVAL_NANOS) {
+                return false;
+            }
+            lastLogged = now;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.banking.internetbanking.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 楽観的ロックの競合（{@link org.springframework.dao.OptimisticLockingFailureException}）で失敗した
+ * サービスのメソッドを、間隔をランダムにずらしながら新しいトランザクションでやり直す。
+ * {@link OptimisticRetryAspect} が @Transactional より外側で実行する。
+ *
+ * <p>やり直しではメソッド全体（読み込みから）を再実行するため、メソッドは最新の行を読み直して
+ * 更新内容を組み立てること。呼び出し元のトランザクション内で呼ばれた場合はやり直さない。
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RetryOnConflict {
+
+    /**
+     * 最初の実行を含む最大の試行回数
+     */
+    int maxAttempts() default 3;
+}
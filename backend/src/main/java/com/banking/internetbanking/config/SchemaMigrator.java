@@ -0,0 +1,415 @@
+package com.banking.internetbanking.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * スキーマ移行（マイグレーション）
+ * classpath:db/migration/V{番号}__{説明}.sql を番号順に適用し、schema_migrations に
+ * 適用履歴とチェックサムを記録する。適用済みファイルが変更されていれば起動を止める。
+ *
+ * <p>各マイグレーションは1トランザクション内で、全文を1回のバッチとして送信する
+ * （途中で失敗すれば全体がロールバックされる）。先頭行に
+ * {@code -- migrate:no-transaction} を書いたファイルは自動コミットで1文ずつ実行し、
+ * CREATE INDEX CONCURRENTLY のようにトランザクション内で実行できない文に使う。
+ *
+ * <p>複数ノードが同時に起動しても、アドバイザリロックで移行は常に1ノードだけが行う。
+ * 履歴テーブルが無い既存データベースは、ベースライン番号までを適用済みとして記録してから
+ * 残りを適用する。schema.sql / init.sql で作成したデータベースは users テーブルのコメント
+ * （{@code schema-snapshot:V{番号}}）に記録された番号をベースラインにする。
+ *
+ * <p>シャーディングが有効な場合は全シャードに同じ移行を適用し、各シャードのシーケンスを
+ * そのシャードの ID の範囲（{@link ShardKeys}）に設定する。
+ *
+ * <p>EntityManagerFactory や JdbcTemplate より先に実行されるよう、
+ * {@link SchemaMigratorDatabaseInitializerDetector} でデータベース初期化処理として登録している。
+ */
+@Component
+public class SchemaMigrator implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    private static final String LOCATION = "classpath:db/migration/V*__*.sql";
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+    private static final String NO_TRANSACTION_DIRECTIVE = "-- migrate:no-transaction";
+    private static final Pattern SNAPSHOT_MARKER = Pattern.compile("schema-snapshot:V(\\d+)");
+    // アドバイザリロックのキー（他の用途のロックと衝突しない固定値）
+    private static final long ADVISORY_LOCK_KEY = 0x6962616E6B6D6967L;
+
+    private final DedicatedConnectionFactory connectionFactory;
+    private final ShardRouter shardRouter;
+
+    @Value("${app.migration.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.migration.baseline-version:1}")
+    private int baselineVersion;
+
+    @Value("${app.migration.lock-timeout-ms:120000}")
+    private long lockTimeoutMs;
+
+    @Value("${app.migration.validate-checksums:true}")
+    private boolean validateChecksums;
+
+    public SchemaMigrator(DedicatedConnectionFactory connectionFactory, ShardRouter shardRouter) {
+        this.connectionFactory = connectionFactory;
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        if (!enabled) {
+            logger.info("スキーマ移行は無効です。スキップします。");
+            return;
+        }
+        List<Migration> migrations = loadMigrations();
+        logger.info("スキーマ移行を確認しています（マイグレーション: {}件）", migrations.size());
+
+        for (int shard : shardRouter.shardIds()) {
+            if (shardRouter.isEnabled()) {
+                logger.info("シャード {} のスキーマ移行を確認しています", shard);
+            }
+            try (Connection connection = connectionFactory.open("internet-banking-migrator", shard)) {
+                // CONCURRENTLY のインデックス作成などはソケットタイムアウトより長くかかるため無効化する
+                connection.setNetworkTimeout(Runnable::run, 0);
+                acquireLock(connection);
+                try {
+                    migrate(connection, migrations);
+                    if (shardRouter.isEnabled()) {
+                        reserveIdRange(connection, shard);
+                    }
+                } finally {
+                    try (PreparedStatement unlock = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+                        unlock.setLong(1, ADVISORY_LOCK_KEY);
+                        unlock.execute();
+                    }
+                }
+            }
+        }
+    }
+
+    private void migrate(Connection connection, List<Migration> migrations) throws SQLException {
+        createHistoryTable(connection);
+        // ロック取得までに他ノードが適用した分も含めて読み直す
+        Map<Integer, AppliedMigration> applied = loadHistory(connection);
+        if (applied.isEmpty() && tableExists(connection, "users")) {
+            baseline(connection, migrations);
+            applied = loadHistory(connection);
+        }
+
+        validate(migrations, applied);
+
+        int executed = 0;
+        for (Migration migration : migrations) {
+            if (applied.containsKey(migration.version())) {
+                continue;
+            }
+            long start = System.currentTimeMillis();
+            logger.info("マイグレーションを適用しています: V{} {}{}", migration.version(), migration.description(),
+                    migration.transactional() ? "" : "（トランザクション外）");
+            if (migration.transactional()) {
+                applyInTransaction(connection, migration, start);
+            } else {
+                applyWithoutTransaction(connection, migration, start);
+            }
+            executed++;
+            logger.info("マイグレーションを適用しました: V{} ({}ms)", migration.version(),
+                    System.currentTimeMillis() - start);
+        }
+
+        if (executed == 0) {
+            logger.info("スキーマは最新です（バージョン: {}）", currentVersion(migrations, applied));
+        } else {
+            logger.info("スキーマ移行が完了しました。適用: {}件", executed);
+        }
+    }
+
+    private void applyInTransaction(Connection connection, Migration migration, long start) throws SQLException {
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : migration.statements()) {
+                statement.addBatch(sql);
+            }
+            // 全文を1回の往復で送信する（行を返す文は使えないため、必要なら DO ブロックで PERFORM する）
+            statement.executeBatch();
+            recordHistory(connection, migration, "SQL", System.currentTimeMillis() - start);
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw new IllegalStateException(failureMessage(migration, e), e);
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private void applyWithoutTransaction(Connection connection, Migration migration, long start) throws SQLException {
+        int index = 0;
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : migration.statements()) {
+                statement.execute(sql);
+                index++;
+            }
+        } catch (SQLException e) {
+            // 実行済みの文は戻らないため、再実行できるよう IF NOT EXISTS などで冪等に書いておくこと
+            throw new IllegalStateException(failureMessage(migration, e)
+                    + "（トランザクション外のため " + index + " 文目までは適用済みです）", e);
+        }
+        recordHistory(connection, migration, "SQL_NO_TRANSACTION", System.currentTimeMillis() - start);
+    }
+
+    private void baseline(Connection connection, List<Migration> migrations) throws SQLException {
+        int version = snapshotVersion(connection);
+        if (version < 0) {
+            version = baselineVersion;
+        }
+        logger.info("既存のスキーマを検出しました。V{} までを適用済みとして記録します。", version);
+        connection.setAutoCommit(false);
+        try {
+            for (Migration migration : migrations) {
+                if (migration.version() <= version) {
+                    recordHistory(connection, migration, "BASELINE", 0);
+                }
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private void validate(List<Migration> migrations, Map<Integer, AppliedMigration> applied) {
+        Map<Integer, Migration> byVersion = new HashMap<>();
+        migrations.forEach(migration -> byVersion.put(migration.version(), migration));
+
+        for (AppliedMigration history : applied.values()) {
+            Migration migration = byVersion.get(history.version());
+            if (migration == null) {
+                logger.warn("適用済みのマイグレーション V{} のファイルが見つかりません", history.version());
+            } else if (!migration.checksum().equals(history.checksum())) {
+                String message = "適用済みのマイグレーション V" + history.version() + " (" + migration.script()
+                        + ") が変更されています。変更は新しいバージョンのファイルとして追加してください";
+                if (validateChecksums) {
+                    throw new IllegalStateException(message);
+                }
+                logger.warn(message);
+            }
+        }
+    }
+
+    private void acquireLock(Connection connection) throws SQLException, InterruptedException {
+        long deadline = System.currentTimeMillis() + lockTimeoutMs;
+        try (PreparedStatement lock = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            lock.setLong(1, ADVISORY_LOCK_KEY);
+            boolean waiting = false;
+            while (true) {
+                try (ResultSet rs = lock.executeQuery()) {
+                    rs.next();
+                    if (rs.getBoolean(1)) {
+                        return;
+                    }
+                }
+                if (System.currentTimeMillis() >= deadline) {
+                    throw new IllegalStateException("他のノードがスキーマ移行を実行中のため、"
+                            + lockTimeoutMs + "ms 以内にロックを取得できませんでした");
+                }
+                if (!waiting) {
+                    logger.info("他のノードがスキーマ移行を実行中です。完了を待っています...");
+                    waiting = true;
+                }
+                Thread.sleep(500);
+            }
+        }
+    }
+
+    /**
+     * シーケンスの範囲をシャードの ID の範囲にする（設定済みなら何もしない）。
+     * 範囲より前の値を採番済みのシーケンスがあれば、ID からシャードを判別できないため起動を止める
+     */
+    private void reserveIdRange(Connection connection, int shard) throws SQLException {
+        long first = ShardKeys.firstId(shard);
+        long last = ShardKeys.lastId(shard);
+        List<String> statements = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery(
+                        "SELECT format('%I.%I', schemaname, sequencename) AS name, min_value, max_value, last_value "
+                                + "FROM pg_sequences WHERE schemaname = current_schema()")) {
+            while (rs.next()) {
+                String name = rs.getString("name");
+                if (rs.getLong("min_value") == first && rs.getLong("max_value") == last) {
+                    continue;
+                }
+                long lastValue = rs.getLong("last_value");
+                boolean used = !rs.wasNull();
+                if (used && (lastValue < first || lastValue > last)) {
+                    throw new IllegalStateException("シャード " + shard + " のシーケンス " + name + " がシャードの ID の範囲外（"
+                            + lastValue + "）まで採番済みです。シャード番号の設定を確認してください");
+                }
+                // 採番済みのシーケンスは現在値を変えない（稼働中のノードが採番していても値が戻らないように）
+                statements.add("ALTER SEQUENCE " + name + " MINVALUE " + first + " MAXVALUE " + last
+                        + " START WITH " + first + (used ? "" : " RESTART WITH " + first));
+            }
+        }
+        if (statements.isEmpty()) {
+            return;
+        }
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        logger.info("シャード {} のシーケンス {}件を ID の範囲 {}〜{} に設定しました", shard, statements.size(), first, last);
+    }
+
+    private void createHistoryTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS schema_migrations ("
+                    + "version INTEGER PRIMARY KEY, "
+                    + "description VARCHAR(200) NOT NULL, "
+                    + "type VARCHAR(20) NOT NULL, "
+                    + "script VARCHAR(1000) NOT NULL, "
+                    + "checksum VARCHAR(64) NOT NULL, "
+                    + "execution_time_ms BIGINT NOT NULL, "
+                    + "installed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        }
+    }
+
+    private Map<Integer, AppliedMigration> loadHistory(Connection connection) throws SQLException {
+        Map<Integer, AppliedMigration> applied = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT version, checksum FROM schema_migrations")) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), new AppliedMigration(rs.getInt("version"), rs.getString("checksum")));
+            }
+        }
+        return applied;
+    }
+
+    private void recordHistory(Connection connection, Migration migration, String type, long executionTimeMs)
+            throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO schema_migrations (version, description, type, script, checksum, execution_time_ms) "
+                        + "VALUES (?, ?, ?, ?, ?, ?)")) {
+            insert.setInt(1, migration.version());
+            insert.setString(2, migration.description());
+            insert.setString(3, type);
+            insert.setString(4, migration.script());
+            insert.setString(5, migration.checksum());
+            insert.setLong(6, executionTimeMs);
+            insert.executeUpdate();
+        }
+    }
+
+    /**
+     * スナップショット（schema.sql / init.sql）で作成したスキーマのバージョン。記録が無ければ -1
+     */
+    private int snapshotVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT obj_description('users'::regclass, 'pg_class')")) {
+            if (rs.next() && rs.getString(1) != null) {
+                Matcher matcher = SNAPSHOT_MARKER.matcher(rs.getString(1));
+                if (matcher.find()) {
+                    return Integer.parseInt(matcher.group(1));
+                }
+            }
+        }
+        return -1;
+    }
+
+    private boolean tableExists(Connection connection, String tableName) throws SQLException {
+        try (PreparedStatement query = connection.prepareStatement(
+                "SELECT COUNT(*) FROM information_schema.tables WHERE table_schema = 'public' AND table_name = ?")) {
+            query.setString(1, tableName);
+            try (ResultSet rs = query.executeQuery()) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        }
+    }
+
+    private List<Migration> loadMigrations() throws IOException {
+        Resource[] resources = new PathMatchingResourcePatternResolver().getResources(LOCATION);
+        List<Migration> migrations = new ArrayList<>();
+        Map<Integer, String> seen = new HashMap<>();
+        for (Resource resource : resources) {
+            String fileName = resource.getFilename();
+            Matcher matcher = fileName != null ? FILE_NAME.matcher(fileName) : null;
+            if (matcher == null || !matcher.matches()) {
+                continue;
+            }
+            int version = Integer.parseInt(matcher.group(1));
+            String previous = seen.put(version, fileName);
+            if (previous != null) {
+                throw new IllegalStateException("マイグレーションのバージョンが重複しています: "
+                        + previous + ", " + fileName);
+            }
+            // 改行コードの違い（Windows でのチェックアウトなど）でチェックサムが変わらないよう正規化する
+            String sql = StreamUtils.copyToString(resource.getInputStream(), StandardCharsets.UTF_8)
+                    .replace("\r\n", "\n");
+            migrations.add(new Migration(version, matcher.group(2).replace('_', ' '), fileName, sha256(sql),
+                    !sql.stripLeading().startsWith(NO_TRANSACTION_DIRECTIVE), SqlScriptSplitter.split(sql)));
+        }
+        migrations.sort(Comparator.comparingInt(Migration::version));
+        return migrations;
+    }
+
+    private static String currentVersion(List<Migration> migrations, Map<Integer, AppliedMigration> applied) {
+        return applied.keySet().stream().max(Integer::compare).map(String::valueOf)
+                .orElse(migrations.isEmpty() ? "なし" : "0");
+    }
+
+    private static String failureMessage(Migration migration, SQLException e) {
+        SQLException cause = e instanceof BatchUpdateException && e.getNextException() != null
+                ? e.getNextException() : e;
+        return "マイグレーション V" + migration.version() + " (" + migration.script() + ") の適用に失敗しました: "
+                + cause.getMessage();
+    }
+
+    private static String sha256(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Migration(int version, String description, String script, String checksum,
+            boolean transactional, List<String> statements) {
+    }
+
+    private record AppliedMigration(int version, String checksum) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.banking.internetbanking.config;
+
+import org.springframework.boot.sql.init.dependency.AbstractBeansOfTypeDatabaseInitializerDetector;
+
+import java.util.Set;
+
+/**
+ * {@link SchemaMigrator} をデータベース初期化処理として Spring Boot に認識させる
+ * （META-INF/spring.factories で登録）。
+ * EntityManagerFactory（ddl-auto: validate）や JdbcTemplate を使う Bean、
+ * spring.sql.init のスクリプト実行は、スキーマ移行の完了後に初期化される
+ */
+public class SchemaMigratorDatabaseInitializerDetector extends AbstractBeansOfTypeDatabaseInitializerDetector {
+
+    @Override
+    protected Set<Class<?>> getDatabaseInitializerBeanTypes() {
+        return Set.of(SchemaMigrator.class);
+    }
+}
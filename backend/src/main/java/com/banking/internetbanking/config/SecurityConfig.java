@@ -1,35 +1,91 @@
 package com.banking.internetbanking.config;
 
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
 
+import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
+
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+    /**
+     * 運用者向けの管理 API（ロール ADMIN が必要）。照合・為替レートの登録・集計の作り直しと、
+     * 全利用者・全口座・全取引の一覧と全件出力
+     */
+    static final RequestMatcher ADMIN_ENDPOINTS = new OrRequestMatcher(
+            antMatcher("/api/reconciliation/**"),
+            antMatcher(HttpMethod.PUT, "/api/fx/rates/**"),
+            antMatcher("/api/analytics/rollups/**"),
+            read("/api/users"),
+            read("/api/users/export"),
+            read("/api/accounts"),
+            read("/api/accounts/export"),
+            read("/api/transactions"),
+            read("/api/transactions/export"));
+
+    // GET と、GET のハンドラーで処理される HEAD
+    private static RequestMatcher read(String pattern) {
+        return new OrRequestMatcher(antMatcher(HttpMethod.GET, pattern), antMatcher(HttpMethod.HEAD, pattern));
+    }
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder(12);
     }
 
+    /**
+     * 管理 API の利用者（spring.security.user）。パスワードの既定値は持たず、未設定なら起動しない
+     */
+    @Bean
+    public InMemoryUserDetailsManager adminUserDetailsService(SecurityProperties properties) {
+        SecurityProperties.User admin = properties.getUser();
+        if (admin.isPasswordGenerated()) {
+            throw new IllegalStateException(
+                    "管理者のパスワードが未設定です。SPRING_SECURITY_USER_PASSWORD に BCrypt のハッシュを設定してください");
+        }
+        if (!admin.getPassword().startsWith("$2")) {
+            throw new IllegalStateException("SPRING_SECURITY_USER_PASSWORD は BCrypt のハッシュで指定してください");
+        }
+        return new InMemoryUserDetailsManager(User.withUsername(admin.getName())
+                .password(admin.getPassword())
+                .roles(admin.getRoles().toArray(String[]::new))
+                .build());
+    }
+
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, RateLimitFilter rateLimitFilter) throws Exception {
         http
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
+                // Basic 認証（BCrypt の照合）より前にレート制限を判定し、パスワードの総当たりも制限する
+                // （利用者がまだ分からないため、Basic 認証のリクエストは IP 単位）
+                .addFilterBefore(rateLimitFilter, BasicAuthenticationFilter.class)
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                // 運用者向けの管理 API は spring.security.user（ロール ADMIN）の Basic 認証で保護する
+                .httpBasic(Customizer.withDefaults())
                 .authorizeHttpRequests(authz -> authz
+                        .requestMatchers(ADMIN_ENDPOINTS).hasRole("ADMIN")
                         .requestMatchers("/").permitAll()
                         .requestMatchers("/error").permitAll()
                         .requestMatchers("/api/**").permitAll() // 開発環境ではすべてのAPIを許可
@@ -38,6 +94,14 @@ public class SecurityConfig {
         return http.build();
     }
 
+    // RateLimitFilter はセキュリティフィルターチェーン内でのみ実行する（サーブレットフィルターとしての自動登録を無効化）
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter rateLimitFilter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
@@ -0,0 +1,43 @@
+package com.banking.internetbanking.config;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 現在のスレッドが処理しているシャード
+ * {@link ShardRoutingDataSource} はここに設定されたシャードの接続プールから接続を取得する
+ * （未設定の場合はシャード0）。接続はトランザクションの開始時に取得されるため、
+ * トランザクション中に別のシャードへ切り替えようとした場合は例外にする。
+ */
+final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    static Integer current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @return 切り替える前のシャード（{@link #restore} に渡す）
+     */
+    static Integer enter(int shard) {
+        Integer previous = CURRENT.get();
+        int bound = previous != null ? previous : ShardKeys.DEFAULT_SHARD;
+        if (shard != bound && TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException(
+                    "トランザクション中に別のシャードへは切り替えられません（" + bound + " → " + shard + "）");
+        }
+        CURRENT.set(shard);
+        return previous;
+    }
+
+    static void restore(Integer previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
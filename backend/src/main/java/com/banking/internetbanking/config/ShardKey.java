@@ -0,0 +1,32 @@
+package com.banking.internetbanking.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * サービスのメソッド引数のうち、処理するシャードを決める引数に付ける
+ * シャーディングが有効な場合、{@link ShardRoutingAspect} がトランザクションの開始より前に
+ * この引数からシャードを求め、メソッド内のデータベースアクセスをそのシャードに振り分ける。
+ * 複数の引数に付けた場合は null でない引数がすべて同じシャードを指す必要がある。
+ *
+ * <p>ID 型の引数には ID（Long）のほか、口座・ユーザー・取引のエンティティも渡せる。
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ShardKey {
+
+    Type value() default Type.ID;
+
+    enum Type {
+        /** ユーザー・口座・取引の ID（上位ビットがシャード番号） */
+        ID,
+        /** 口座番号（先頭の S + 3桁がシャード番号） */
+        ACCOUNT_NUMBER,
+        /** ユーザー名（コンシステントハッシュで割り当てたシャード） */
+        USERNAME
+    }
+}
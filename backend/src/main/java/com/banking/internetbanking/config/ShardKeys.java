@@ -0,0 +1,56 @@
+package com.banking.internetbanking.config;
+
+/**
+ * ID・口座番号とシャードの対応
+ * 各シャードのシーケンスは重ならない範囲（シャード番号 × 2^44 から）で採番するため、
+ * ユーザー・口座・取引の ID の上位ビットがそのままシャード番号になる。シャード0の範囲は
+ * 従来の ID と同じ（1 から）で、既存のデータベースはそのままシャード0として使える。
+ * ID は JavaScript の Number で誤差なく扱える 2^53 未満に収まる。
+ *
+ * <p>口座番号は「S + シャード番号3桁 + 16進数12桁」とする。S は16進数に含まれないため、
+ * 従来の12桁の16進数の口座番号（シャード0）と区別できる。
+ */
+public final class ShardKeys {
+
+    public static final int DEFAULT_SHARD = 0;
+    public static final int ID_SHIFT = 44;
+    public static final int MAX_SHARDS = 1 << (53 - ID_SHIFT);
+
+    private static final String ACCOUNT_NUMBER_MARKER = "S";
+
+    private ShardKeys() {
+    }
+
+    public static int shardOfId(long id) {
+        return (int) (id >>> ID_SHIFT);
+    }
+
+    public static long firstId(int shard) {
+        return shard == DEFAULT_SHARD ? 1 : (long) shard << ID_SHIFT;
+    }
+
+    public static long lastId(int shard) {
+        return ((long) (shard + 1) << ID_SHIFT) - 1;
+    }
+
+    public static String accountNumberPrefix(int shard) {
+        return ACCOUNT_NUMBER_MARKER + String.format("%03d", shard);
+    }
+
+    public static int shardOfAccountNumber(String accountNumber) {
+        if (accountNumber.length() < 4 || !accountNumber.startsWith(ACCOUNT_NUMBER_MARKER)) {
+            return DEFAULT_SHARD;
+        }
+        try {
+            return Integer.parseInt(accountNumber.substring(1, 4));
+        } catch (NumberFormatException e) {
+            return DEFAULT_SHARD;
+        }
+    }
+
+    static void validate(int shard) {
+        if (shard < 0 || shard >= MAX_SHARDS) {
+            throw new IllegalArgumentException("シャード番号は 0 以上 " + MAX_SHARDS + " 未満で指定してください: " + shard);
+        }
+    }
+}
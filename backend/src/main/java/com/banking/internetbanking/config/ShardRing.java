@@ -0,0 +1,52 @@
+package com.banking.internetbanking.config;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * コンシステントハッシュのリング
+ * 各シャードを仮想ノードとしてリング上の複数の位置に置き、キーのハッシュ値から時計回りに
+ * 最初に見つかったシャードを割り当てる。シャードを追加しても、割り当てが変わるのは
+ * 新しいシャードの位置の手前にあるキー（おおよそ 1/シャード数）だけで済む。
+ */
+final class ShardRing {
+
+    private final NavigableMap<Long, Integer> ring = new TreeMap<>();
+
+    ShardRing(Collection<Integer> shardIds, int virtualNodes) {
+        if (shardIds.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("シャードと仮想ノードを1つ以上指定してください");
+        }
+        for (int shard : shardIds) {
+            for (int node = 0; node < virtualNodes; node++) {
+                // ハッシュ値が衝突した場合は番号の小さいシャードを残す（どのノードでも同じ結果になる）
+                ring.merge(hash("shard-" + shard + "#" + node), shard, Math::min);
+            }
+        }
+    }
+
+    int locate(String key) {
+        Map.Entry<Long, Integer> entry = ring.ceilingEntry(hash(key));
+        return (entry != null ? entry : ring.firstEntry()).getValue();
+    }
+
+    /**
+     * 64ビットの FNV-1a に MurmurHash3 の最終ミックスを掛けたもの（JVM やノードによらず同じ値になる）
+     */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
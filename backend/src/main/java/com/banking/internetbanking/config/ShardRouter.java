@@ -0,0 +1,122 @@
+package com.banking.internetbanking.config;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+/**
+ * シャードの割り当てと振り分け
+ * 既存の行は ID・口座番号に含まれるシャード番号で、新しいユーザーはユーザー名の
+ * コンシステントハッシュでシャードを決める（口座はユーザーと同じシャードに作る）。
+ * 単一のキーで決まる処理は {@link ShardKey} で振り分け、全シャードを対象にする検索や
+ * 複数シャードにまたがる処理はここから明示的にシャードを指定して実行する。
+ *
+ * <p>シャーディングが無効な場合はシャード0だけがあるものとして振る舞い、何も切り替えない。
+ */
+@Component
+public class ShardRouter {
+
+    private final boolean enabled;
+    private final List<Integer> shardIds;
+    private final ShardRing ring;
+
+    public ShardRouter(ShardingProperties properties) {
+        this.enabled = properties.enabled();
+        TreeSet<Integer> ids = new TreeSet<>();
+        ids.add(ShardKeys.DEFAULT_SHARD);
+        if (enabled) {
+            for (ShardingProperties.Shard shard : properties.shards()) {
+                ShardKeys.validate(shard.id());
+                if (!ids.add(shard.id())) {
+                    throw new IllegalArgumentException("シャード番号が重複しています: " + shard.id());
+                }
+            }
+        }
+        this.shardIds = List.copyOf(ids);
+        this.ring = new ShardRing(shardIds, properties.virtualNodes());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public List<Integer> shardIds() {
+        return shardIds;
+    }
+
+    public int shardOfId(long id) {
+        return enabled ? ShardKeys.shardOfId(id) : ShardKeys.DEFAULT_SHARD;
+    }
+
+    public int shardOfAccountNumber(String accountNumber) {
+        return enabled ? ShardKeys.shardOfAccountNumber(accountNumber) : ShardKeys.DEFAULT_SHARD;
+    }
+
+    /**
+     * 新しいユーザーを置くシャード
+     */
+    public int shardOfUsername(String username) {
+        return enabled ? ring.locate(username) : ShardKeys.DEFAULT_SHARD;
+    }
+
+    public boolean isCrossShard(Long accountId, Long otherAccountId) {
+        return enabled && accountId != null && otherAccountId != null
+                && shardOfId(accountId) != shardOfId(otherAccountId);
+    }
+
+    /**
+     * 現在のスレッドで処理しているシャード（未設定ならシャード0）
+     */
+    public int currentShard() {
+        Integer current = ShardContext.current();
+        return current != null ? current : ShardKeys.DEFAULT_SHARD;
+    }
+
+    public <T> T call(int shard, Supplier<T> action) {
+        if (!enabled) {
+            return action.get();
+        }
+        Integer previous = ShardContext.enter(shard);
+        try {
+            return action.get();
+        } finally {
+            ShardContext.restore(previous);
+        }
+    }
+
+    public void run(int shard, Runnable action) {
+        call(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * 全シャードで同じ検索を行い、シャード番号順に連結して返す
+     */
+    public <T> List<T> collect(Supplier<? extends Collection<T>> query) {
+        List<T> results = new ArrayList<>();
+        for (int shard : shardIds) {
+            results.addAll(call(shard, query));
+        }
+        return results;
+    }
+
+    /**
+     * 最初に見つかった行を返す。preferred のシャードから順に探す
+     */
+    public <T> Optional<T> findFirst(int preferred, Supplier<Optional<T>> query) {
+        Optional<T> found = call(preferred, query);
+        for (int i = 0; found.isEmpty() && i < shardIds.size(); i++) {
+            if (shardIds.get(i) != preferred) {
+                found = call(shardIds.get(i), query);
+            }
+        }
+        return found;
+    }
+}
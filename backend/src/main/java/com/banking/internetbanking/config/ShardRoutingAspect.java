@@ -0,0 +1,100 @@
+package com.banking.internetbanking.config;
+
+import com.banking.internetbanking.entity.Account;
+import com.banking.internetbanking.entity.Transaction;
+import com.banking.internetbanking.entity.User;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link ShardKey} を付けた引数から処理するシャードを決め、メソッドの実行中は
+ * そのシャードへ振り分ける。@Transactional より先に（外側で）実行されるよう最優先の順序にする。
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+class ShardRoutingAspect {
+
+    private final ShardRouter shardRouter;
+    // メソッドごとの引数の ShardKey（付いていない引数は null）
+    private final Map<Method, ShardKey[]> keys = new ConcurrentHashMap<>();
+
+    ShardRoutingAspect(ShardRouter shardRouter) {
+        this.shardRouter = shardRouter;
+    }
+
+    @Around("execution(* com.banking.internetbanking.service..*(.., @com.banking.internetbanking.config.ShardKey (*), ..))")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        ShardKey[] parameterKeys = keys.computeIfAbsent(method, ShardRoutingAspect::keysOf);
+        Object[] args = joinPoint.getArgs();
+
+        Integer shard = null;
+        for (int i = 0; i < parameterKeys.length; i++) {
+            Integer resolved = parameterKeys[i] != null ? resolve(parameterKeys[i].value(), args[i]) : null;
+            if (resolved == null) {
+                continue;
+            }
+            if (shard != null && !shard.equals(resolved)) {
+                throw new IllegalStateException(method.getDeclaringClass().getSimpleName() + "." + method.getName()
+                        + " の引数が別々のシャードを指しています（" + shard + ", " + resolved + "）");
+            }
+            shard = resolved;
+        }
+        if (shard == null) {
+            return joinPoint.proceed();
+        }
+
+        Integer previous = ShardContext.enter(shard);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ShardContext.restore(previous);
+        }
+    }
+
+    private Integer resolve(ShardKey.Type type, Object value) {
+        if (value == null) {
+            return null;
+        }
+        return switch (type) {
+            case ACCOUNT_NUMBER -> shardRouter.shardOfAccountNumber((String) value);
+            case USERNAME -> shardRouter.shardOfUsername((String) value);
+            case ID -> {
+                Long id = switch (value) {
+                    case Number number -> number.longValue();
+                    case Account account -> account.getId();
+                    case User user -> user.getId();
+                    case Transaction transaction -> transaction.getId();
+                    default -> throw new IllegalArgumentException("シャードを判別できない引数です: " + value.getClass());
+                };
+                yield id != null ? shardRouter.shardOfId(id) : null;
+            }
+        };
+    }
+
+    private static ShardKey[] keysOf(Method method) {
+        Annotation[][] annotations = method.getParameterAnnotations();
+        ShardKey[] result = new ShardKey[annotations.length];
+        for (int i = 0; i < annotations.length; i++) {
+            for (Annotation annotation : annotations[i]) {
+                if (annotation instanceof ShardKey key) {
+                    result[i] = key;
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,34 @@
+package com.banking.internetbanking.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+
+/**
+ * 現在のスレッドのシャード（{@link ShardContext}）の接続プールへ振り分ける DataSource
+ * 未登録のシャード番号はシャード0に読み替えず例外にする。
+ */
+final class ShardRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    ShardRoutingDataSource() {
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+
+    @Override
+    public void close() {
+        for (DataSource dataSource : getResolvedDataSources().values()) {
+            if (dataSource instanceof HikariDataSource hikari) {
+                hikari.close();
+            } else if (dataSource instanceof BulkheadRoutingDataSource bulkheads) {
+                bulkheads.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.banking.internetbanking.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * シャーディングが有効な場合の DataSource
+ * シャードごとに Hikari の接続プール（区画が有効な場合は区画ごとのプール。{@link BulkheadPools}）を作り
+ * （設定は spring.datasource.hikari を共通で使う）、{@link ShardRoutingDataSource} で振り分ける。
+ * シャード0は spring.datasource のデータベース。
+ * この Bean があるため Spring Boot の DataSource 自動設定は使われない。
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardingConfig.class);
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties dataSourceProperties, ShardingProperties sharding,
+            BulkheadPools bulkheadPools, Environment environment) {
+        HikariConfig template = Binder.get(environment).bindOrCreate("spring.datasource.hikari", HikariConfig.class);
+        String driverClassName = dataSourceProperties.determineDriverClassName();
+
+        Map<Object, Object> pools = new HashMap<>();
+        pools.put(ShardKeys.DEFAULT_SHARD, pool(bulkheadPools, template, driverClassName, ShardKeys.DEFAULT_SHARD,
+                dataSourceProperties.determineUrl(), dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword()));
+        for (ShardingProperties.Shard shard : sharding.shards()) {
+            pools.put(shard.id(), pool(bulkheadPools, template, driverClassName, shard.id(), shard.url(),
+                    shard.username() != null ? shard.username() : dataSourceProperties.determineUsername(),
+                    shard.password() != null ? shard.password() : dataSourceProperties.determinePassword()));
+        }
+        logger.info("シャーディングを有効にしました（シャード: {}）", pools.keySet());
+
+        ShardRoutingDataSource dataSource = new ShardRoutingDataSource();
+        dataSource.setTargetDataSources(pools);
+        dataSource.setDefaultTargetDataSource(pools.get(ShardKeys.DEFAULT_SHARD));
+        return dataSource;
+    }
+
+    private static DataSource pool(BulkheadPools bulkheadPools, HikariConfig template, String driverClassName,
+            int shard, String url, String username, String password) {
+        return bulkheadPools.create(template, driverClassName, "shard-" + shard, shard, url, username, password);
+    }
+}
@@ -0,0 +1,25 @@
+package com.banking.internetbanking.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+/**
+ * シャーディングの設定（app.sharding）
+ * spring.datasource のデータベースをシャード0とし、shards に追加のシャードを列挙する。
+ *
+ * @param enabled      false の場合は従来どおり spring.datasource の1台だけを使う
+ * @param virtualNodes コンシステントハッシュのリング上に置く、シャードあたりの仮想ノード数
+ * @param shards       シャード0以外のシャード（id は 1 以上 {@link ShardKeys#MAX_SHARDS} 未満）
+ */
+@ConfigurationProperties("app.sharding")
+public record ShardingProperties(boolean enabled, @DefaultValue("128") int virtualNodes, List<Shard> shards) {
+
+    public ShardingProperties {
+        shards = shards != null ? List.copyOf(shards) : List.of();
+    }
+
+    public record Shard(int id, String url, String username, String password) {
+    }
+}
@@ -0,0 +1,148 @@
+package com.banking.internetbanking.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQL スクリプトの文分割
+ * 文字列リテラル・引用符付き識別子・コメント・ドル引用（$$ ... $$, $tag$ ... $tag$）の
+ * 内側にあるセミコロンでは分割しない。関数定義や DO ブロックもそのまま1文として扱える
+ */
+public final class SqlScriptSplitter {
+
+    private SqlScriptSplitter() {
+    }
+
+    /**
+     * スクリプトを文ごとに分割する（末尾のセミコロンは含まない。コメントだけの文は除く）
+     */
+    public static List<String> split(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean hasCode = false;
+        int length = script.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = script.charAt(i);
+            char next = i + 1 < length ? script.charAt(i + 1) : '\0';
+
+            if (c == '-' && next == '-') {
+                int end = script.indexOf('\n', i);
+                end = end < 0 ? length : end;
+                current.append(script, i, end);
+                i = end;
+            } else if (c == '/' && next == '*') {
+                int end = skipBlockComment(script, i);
+                current.append(script, i, end);
+                i = end;
+            } else if (c == '\'') {
+                boolean escapes = i > 0 && (script.charAt(i - 1) == 'E' || script.charAt(i - 1) == 'e')
+                        && (i < 2 || !isIdentifierPart(script.charAt(i - 2)));
+                int end = skipQuoted(script, i, '\'', escapes);
+                current.append(script, i, end);
+                hasCode = true;
+                i = end;
+            } else if (c == '"') {
+                int end = skipQuoted(script, i, '"', false);
+                current.append(script, i, end);
+                hasCode = true;
+                i = end;
+            } else if (c == '$' && (i == 0 || !isIdentifierPart(script.charAt(i - 1)))) {
+                String tag = dollarTag(script, i);
+                if (tag != null) {
+                    int close = script.indexOf(tag, i + tag.length());
+                    int end = close < 0 ? length : close + tag.length();
+                    current.append(script, i, end);
+                    hasCode = true;
+                    i = end;
+                } else {
+                    current.append(c);
+                    hasCode = true;
+                    i++;
+                }
+            } else if (c == ';') {
+                if (hasCode) {
+                    statements.add(current.toString().trim());
+                }
+                current.setLength(0);
+                hasCode = false;
+                i++;
+            } else {
+                current.append(c);
+                if (!Character.isWhitespace(c)) {
+                    hasCode = true;
+                }
+                i++;
+            }
+        }
+        if (hasCode) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+
+    private static int skipBlockComment(String script, int start) {
+        // PostgreSQL のブロックコメントは入れ子にできる
+        int depth = 0;
+        int i = start;
+        while (i < script.length() - 1) {
+            if (script.charAt(i) == '/' && script.charAt(i + 1) == '*') {
+                depth++;
+                i += 2;
+            } else if (script.charAt(i) == '*' && script.charAt(i + 1) == '/') {
+                depth--;
+                i += 2;
+                if (depth == 0) {
+                    return i;
+                }
+            } else {
+                i++;
+            }
+        }
+        return script.length();
+    }
+
+    private static int skipQuoted(String script, int start, char quote, boolean backslashEscapes) {
+        int i = start + 1;
+        while (i < script.length()) {
+            char c = script.charAt(i);
+            if (backslashEscapes && c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                // 引用符の二重化（'it''s'）はリテラルの続き
+                if (i + 1 < script.length() && script.charAt(i + 1) == quote) {
+                    i += 2;
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        return script.length();
+    }
+
+    /**
+     * 位置 start から始まるドル引用の開始タグ（$$ または $tag$）。位置パラメータ（$1）などは null
+     */
+    private static String dollarTag(String script, int start) {
+        int i = start + 1;
+        while (i < script.length()) {
+            char c = script.charAt(i);
+            if (c == '$') {
+                return script.substring(start, i + 1);
+            }
+            boolean valid = i == start + 1 ? Character.isLetter(c) || c == '_' : isIdentifierPart(c);
+            if (!valid) {
+                return null;
+            }
+            i++;
+        }
+        return null;
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+}
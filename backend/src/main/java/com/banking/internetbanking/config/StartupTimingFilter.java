@@ -0,0 +1,71 @@
+package com.banking.internetbanking.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 起動時間の計測
+ * JVM 起動から Ready 通知まで、および最初のリクエスト処理完了までの時間を記録する。
+ * 高速起動モードの効果はデプロイごとにこの値（ログとメトリクス）で比較する
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class StartupTimingFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupTimingFilter.class);
+
+    private final AtomicBoolean firstRequestSeen = new AtomicBoolean();
+    private final AtomicLong firstRequestMillis = new AtomicLong(-1);
+
+    @Value("${app.startup.fast-start:false}")
+    private boolean fastStart;
+
+    public StartupTimingFilter(MeterRegistry meterRegistry) {
+        Gauge.builder("application.first.request.time", firstRequestMillis, value -> value.get() < 0 ? Double.NaN : value.get() / 1000.0)
+                .description("JVM 起動から最初のリクエスト処理完了までの時間")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        logger.info("起動完了: JVM 起動から Ready まで {}ms（高速起動モード: {}）", uptimeMillis(), fastStart);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (!firstRequestSeen.get() && firstRequestSeen.compareAndSet(false, true)) {
+                long uptime = uptimeMillis();
+                firstRequestMillis.set(uptime);
+                logger.info("最初のリクエスト処理完了: JVM 起動から {}ms（{} {}）",
+                        uptime, request.getMethod(), request.getRequestURI());
+            }
+        }
+    }
+
+    private long uptimeMillis() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+}
@@ -1,11 +1,30 @@
 package com.banking.internetbanking.controller;
 
+import com.banking.internetbanking.dto.AccountTransferRequest;
+import com.banking.internetbanking.dto.CreateAccountRequest;
 import com.banking.internetbanking.entity.Account;
+import com.banking.internetbanking.repository.VersionStamp;
+import com.banking.internetbanking.service.AccountEventHub;
 import com.banking.internetbanking.service.AccountService;
+import com.banking.internetbanking.service.StatementExportService;
+import com.banking.internetbanking.service.VelocityService;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -16,26 +35,46 @@ import java.util.Map;
 public class AccountController {
 
     private final AccountService accountService;
+    private final AccountEventHub accountEventHub;
+    private final VelocityService velocityService;
+    private final StatementExportService statementExportService;
 
-    public AccountController(AccountService accountService) {
+    public AccountController(AccountService accountService, AccountEventHub accountEventHub,
+            VelocityService velocityService, StatementExportService statementExportService) {
         this.accountService = accountService;
+        this.accountEventHub = accountEventHub;
+        this.velocityService = velocityService;
+        this.statementExportService = statementExportService;
     }
 
+    // 管理画面の一覧（例: ?sort=balance&direction=desc&currency=JPY&limit=100。続きは nextCursor を cursor に渡す）
     @GetMapping
-    public ResponseEntity<List<Account>> getAllAccounts() {
-        return ResponseEntity.ok(accountService.getAllAccounts());
+    public ResponseEntity<?> listAccounts(@RequestParam Map<String, String> params) {
+        return Listings.page(params, accountService::listAccounts);
+    }
+
+    // 一覧と同じ条件の全件を JSON Lines で書き出す
+    @GetMapping("/export")
+    public ResponseEntity<?> exportAccounts(@RequestParam Map<String, String> params, HttpServletResponse response)
+            throws IOException {
+        return Listings.export(params, "accounts", response, accountService::exportAccounts);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Account> getAccountById(@PathVariable Long id) {
-        return accountService.getAccountById(id)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<Account> getAccountById(@PathVariable Long id, WebRequest request) {
+        VersionStamp stamp = accountService.getAccountVersion(id);
+        if (stamp.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ConditionalGet.respond(request, "account-" + id, stamp,
+                () -> accountService.getAccountById(id).orElse(null));
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Account>> getAccountsByUserId(@PathVariable Long userId) {
-        return ResponseEntity.ok(accountService.getAccountsByUserId(userId));
+    public ResponseEntity<List<Account>> getAccountsByUserId(@PathVariable Long userId, WebRequest request) {
+        return ConditionalGet.respond(request, "user-accounts-" + userId,
+                accountService.getAccountsVersionByUserId(userId),
+                () -> accountService.getAccountsByUserId(userId));
     }
 
     @GetMapping("/number/{accountNumber}")
@@ -46,27 +85,17 @@ public class AccountController {
     }
 
     @PostMapping
-    public ResponseEntity<Account> createAccount(@RequestBody Map<String, Object> request) {
-        try {
-            Long userId = Long.valueOf(request.get("userId").toString());
-            String accountType = (String) request.get("accountType");
-            String currency = (String) request.get("currency");
-            BigDecimal interestRate = new BigDecimal(request.get("interestRate").toString());
-
-            Account account = accountService.createAccount(userId, accountType, currency, interestRate);
-            return ResponseEntity.ok(account);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().build();
-        }
+    public ResponseEntity<Account> createAccount(@Valid @RequestBody CreateAccountRequest request) {
+        Account account = accountService.createAccount(
+                request.userId(), request.accountType(), request.currency(), request.interestRate());
+        return ResponseEntity.ok(account);
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<Account> updateAccount(@PathVariable Long id, @RequestBody Account account) {
-        if (accountService.updateAccount(account)) {
-            return ResponseEntity.ok(account);
-        } else {
-            return ResponseEntity.notFound().build();
-        }
+        return accountService.updateAccount(id, account)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     @DeleteMapping("/{id}")
@@ -79,32 +108,123 @@ public class AccountController {
     }
 
     @PostMapping("/transfer")
-    public ResponseEntity<?> transferMoney(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<?> transferMoney(@Valid @RequestBody AccountTransferRequest request) {
+        // 上限超過は ApiExceptionHandler で 429 を返す
+        VelocityService.Reservation reservation = velocityService.reserve(request.fromAccountId(), request.amount());
+        boolean transferred = false;
         try {
-            Long fromAccountId = Long.valueOf(request.get("fromAccountId").toString());
-            Long toAccountId = Long.valueOf(request.get("toAccountId").toString());
-            BigDecimal amount = new BigDecimal(request.get("amount").toString());
-
-            if (accountService.transferMoney(fromAccountId, toAccountId, amount)) {
-                return ResponseEntity.ok(Map.of("message", "送金が完了しました"));
-            } else {
-                return ResponseEntity.badRequest().body(Map.of("error", "送金に失敗しました"));
+            transferred = accountService.transferMoney(request.fromAccountId(), request.toAccountId(), request.amount());
+        } finally {
+            if (!transferred) {
+                velocityService.release(reservation);
             }
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        if (transferred) {
+            return ResponseEntity.ok(Map.of("message", "送金が完了しました"));
+        } else {
+            return ResponseEntity.badRequest().body(Map.of("error", "送金に失敗しました"));
         }
     }
 
     @GetMapping("/{id}/balance")
-    public ResponseEntity<Map<String, Object>> getAccountBalance(@PathVariable Long id) {
+    public ResponseEntity<Map<String, Object>> getAccountBalance(@PathVariable Long id, WebRequest request) {
+        VersionStamp stamp = accountService.getAccountVersion(id);
+        if (stamp.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ConditionalGet.respond(request, "balance-" + id, stamp,
+                () -> accountService.getAccountById(id)
+                        .map(account -> {
+                            Map<String, Object> response = new HashMap<>();
+                            response.put("accountId", account.getId());
+                            response.put("balance", account.getBalance());
+                            response.put("currency", account.getCurrency());
+                            return response;
+                        })
+                        .orElse(null));
+    }
+
+    // 残高変更と新しい取引を Server-Sent Events でプッシュする（ポーリングの代替）
+    @GetMapping(path = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamAccountEvents(
+            @PathVariable Long id,
+            @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
         return accountService.getAccountById(id)
-                .map(account -> {
-                    Map<String, Object> response = new HashMap<>();
-                    response.put("accountId", account.getId());
-                    response.put("balance", account.getBalance());
-                    response.put("currency", account.getCurrency());
-                    return ResponseEntity.ok(response);
-                })
+                .map(account -> ResponseEntity.ok()
+                        .header("Cache-Control", "no-cache")
+                        .header("X-Accel-Buffering", "no")
+                        .body(accountEventHub.subscribe(account, lastEventId)))
                 .orElse(ResponseEntity.notFound().build());
     }
+
+    /**
+     * 取引明細（CSV / PDF）のダウンロード
+     * 行を読みながらレスポンスに直接書き出す（非同期処理のタイムアウトを受けないよう、リクエストの
+     * スレッドで書く）。同じ期間・同じ取引なら出力は同じバイト列になるため、強い ETag を付けて
+     * Range / If-Range による途中からの再開に応じる。
+     */
+    @GetMapping("/{id}/statement")
+    public ResponseEntity<?> exportStatement(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = StatementExportService.FORMAT_CSV) String format,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestHeader(name = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(name = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            HttpServletResponse response) throws IOException {
+        if (!StatementExportService.FORMAT_CSV.equals(format) && !StatementExportService.FORMAT_PDF.equals(format)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "format は csv または pdf を指定してください"));
+        }
+        if (endDate.isBefore(startDate)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "endDate は startDate 以降を指定してください"));
+        }
+        if (accountService.getAccountVersion(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String filename = "statement-" + id + "-" + startDate.format(DateTimeFormatter.BASIC_ISO_DATE) + "-"
+                + endDate.format(DateTimeFormatter.BASIC_ISO_DATE) + "." + format;
+        response.setContentType(StatementExportService.FORMAT_PDF.equals(format)
+                ? MediaType.APPLICATION_PDF_VALUE
+                : "text/csv; charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(filename).build().toString());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+
+        // ETag の計算、長さを数える1回目の出力、範囲を切り出す2回目の出力を同じスナップショットで行う
+        return statementExportService.withSnapshot(id, startDate, endDate, format, snapshot -> {
+            String etag = ConditionalGet.strongEtag(
+                    "statement-" + id + "-" + format + "-" + startDate + "-" + endDate, snapshot.version());
+            // 強い ETag の応答は Tomcat が圧縮しないため、Range の位置は常に元のバイト列を指す
+            response.setHeader(HttpHeaders.ETAG, etag);
+
+            // If-Range が一致しない（明細が変わった）場合は Range を無視して全体を返す
+            boolean partial = ByteRange.isSingleRange(range) && (ifRange == null || ifRange.equals(etag));
+            if (!partial) {
+                snapshot.writeTo(response.getOutputStream());
+                return null;
+            }
+
+            ByteRange.CountingNullOutputStream counter = new ByteRange.CountingNullOutputStream();
+            snapshot.writeTo(counter);
+            ByteRange byteRange = ByteRange.resolve(range, counter.count());
+            if (byteRange == null) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + counter.count());
+                return null;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, byteRange.contentRange(counter.count()));
+            response.setContentLengthLong(byteRange.length());
+            OutputStream out = response.getOutputStream();
+            try {
+                snapshot.writeTo(byteRange.slice(out));
+            } catch (ByteRange.RangeCompleteException e) {
+                // 範囲の末尾まで書き終えたため、残りの行は読まずに打ち切った
+            }
+            out.flush();
+            return null;
+        });
+    }
 }
@@ -0,0 +1,60 @@
+package com.banking.internetbanking.controller;
+
+import com.banking.internetbanking.service.MonthlyRollupService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+/**
+ * 口座の月次の入出金集計（account_monthly_rollups を読むだけで、取引は走査しない）
+ */
+@RestController
+@RequestMapping("/api/analytics")
+@CrossOrigin(origins = "http://localhost:3000")
+public class AnalyticsController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsController.class);
+
+    private final MonthlyRollupService monthlyRollupService;
+
+    public AnalyticsController(MonthlyRollupService monthlyRollupService) {
+        this.monthlyRollupService = monthlyRollupService;
+    }
+
+    // 期間の省略時は今月までの12か月
+    @GetMapping("/accounts/{accountId}/monthly")
+    public ResponseEntity<?> getMonthly(@PathVariable Long accountId,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to) {
+        YearMonth end = to != null ? to : YearMonth.now();
+        YearMonth start = from != null ? from : end.minusMonths(11);
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "from は to 以前の月を指定してください"));
+        }
+        if (ChronoUnit.MONTHS.between(start, end) >= MonthlyRollupService.MAX_MONTHS) {
+            return ResponseEntity.badRequest().body(Map.of("error",
+                    "期間は" + MonthlyRollupService.MAX_MONTHS + "か月以内で指定してください"));
+        }
+        return ResponseEntity.ok(Map.of("accountId", accountId, "from", start.toString(), "to", end.toString(),
+                "months", monthlyRollupService.getMonthlyRollups(accountId, start, end)));
+    }
+
+    // 作り直しは時間がかかるため、バックグラウンドで開始して受付だけを返す
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<?> rebuildRollups() {
+        Thread.ofVirtual().name("rollup-rebuild-request").start(() -> {
+            try {
+                monthlyRollupService.rebuild();
+            } catch (Exception e) {
+                logger.warn("月次集計の作り直しに失敗しました: {}", e.getMessage());
+            }
+        });
+        return ResponseEntity.accepted().body(Map.of("message", "月次集計の作り直しを開始しました"));
+    }
+}
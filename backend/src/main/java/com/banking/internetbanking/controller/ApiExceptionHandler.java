@@ -0,0 +1,106 @@
+package com.banking.internetbanking.controller;
+
+import com.banking.internetbanking.config.BulkheadFullException;
+import com.banking.internetbanking.service.CurrencyConversionException;
+import com.banking.internetbanking.service.InsufficientFundsException;
+import com.banking.internetbanking.service.TransactionImmutableException;
+import com.banking.internetbanking.service.VelocityLimitExceededException;
+import com.banking.internetbanking.service.VersionConflictException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * API 共通の例外ハンドラ
+ * リクエスト DTO のバインド・検証エラーを、データベースへアクセスする前に 400 で返す。
+ * サービス層の入力チェック（IllegalArgumentException）と金額の桁あふれ（ArithmeticException）も 400 にする。
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<Map<String, Object>> handleValidation(MethodArgumentNotValidException e) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (FieldError error : e.getBindingResult().getFieldErrors()) {
+            fields.putIfAbsent(error.getField(), error.getDefaultMessage());
+        }
+        e.getBindingResult().getGlobalErrors()
+                .forEach(error -> fields.putIfAbsent(error.getObjectName(), error.getDefaultMessage()));
+        return ResponseEntity.badRequest().body(Map.of(
+                "error", "入力内容に誤りがあります",
+                "fields", fields));
+    }
+
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<Map<String, Object>> handleUnreadable(HttpMessageNotReadableException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", "リクエスト本文を読み取れません"));
+    }
+
+    // サービス層での入力値の検証エラー（不正な通貨・カーソルなど）
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error",
+                e.getMessage() != null ? e.getMessage() : "入力内容に誤りがあります"));
+    }
+
+    // 金額の計算が表現できる範囲を超えた場合（Money の桁あふれなど）
+    @ExceptionHandler(ArithmeticException.class)
+    public ResponseEntity<Map<String, Object>> handleArithmetic(ArithmeticException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", "金額が扱える範囲を超えています"));
+    }
+
+    @ExceptionHandler(InsufficientFundsException.class)
+    public ResponseEntity<Map<String, Object>> handleInsufficientFunds(InsufficientFundsException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(CurrencyConversionException.class)
+    public ResponseEntity<Map<String, Object>> handleCurrencyConversion(CurrencyConversionException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(VelocityLimitExceededException.class)
+    public ResponseEntity<Map<String, Object>> handleVelocityLimit(VelocityLimitExceededException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()))
+                .body(Map.of(
+                        "error", e.getMessage(),
+                        "limit", e.getScope() + "/" + e.getWindow() + "/" + e.getMetric()));
+    }
+
+    @ExceptionHandler(VersionConflictException.class)
+    public ResponseEntity<Map<String, Object>> handleVersionConflict(VersionConflictException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "error", e.getMessage(),
+                "currentVersion", e.getCurrentVersion()));
+    }
+
+    @ExceptionHandler(TransactionImmutableException.class)
+    public ResponseEntity<Map<String, Object>> handleTransactionImmutable(TransactionImmutableException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+    }
+
+    // やり直しの上限まで競合が続いた場合
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleOptimisticLocking(OptimisticLockingFailureException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "他の更新と競合しました。時間をおいて再度お試しください"));
+    }
+
+    // 区画の同時実行数の上限（混雑は短時間で解消するため、すぐに再試行してよい）
+    @ExceptionHandler(BulkheadFullException.class)
+    public ResponseEntity<Map<String, Object>> handleBulkheadFull(BulkheadFullException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", e.getMessage()));
+    }
+}
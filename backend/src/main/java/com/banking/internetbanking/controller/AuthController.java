@@ -1,10 +1,13 @@
 package com.banking.internetbanking.controller;
 
+import com.banking.internetbanking.config.BulkheadFullException;
+import com.banking.internetbanking.entity.User;
 import com.banking.internetbanking.service.UserService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -59,6 +62,8 @@ public class AuthController {
             System.out.println("ユーザー作成が完了しました: " + username);
 
             return ResponseEntity.ok(Map.of("message", "ユーザー登録が完了しました"));
+        } catch (BulkheadFullException e) {
+            throw e; // 混雑は入力の誤りではないため 503（ApiExceptionHandler）
         } catch (Exception e) {
             System.err.println("ユーザー登録エラー: " + e.getMessage());
             e.printStackTrace();
@@ -77,12 +82,15 @@ public class AuthController {
                 return ResponseEntity.badRequest().body(Map.of("error", "ユーザー名とパスワードが必要です"));
             }
 
-            if (userService.authenticateUser(username, password)) {
+            Optional<User> user = userService.authenticate(username, password);
+            if (user.isPresent()) {
                 // 実際の実装ではJWTトークンを生成して返す
-                return ResponseEntity.ok(Map.of("message", "ログイン成功"));
+                return ResponseEntity.ok(Map.of("message", "ログイン成功", "userId", user.get().getId()));
             } else {
                 return ResponseEntity.badRequest().body(Map.of("error", "認証に失敗しました"));
             }
+        } catch (BulkheadFullException e) {
+            throw e; // 混雑は入力の誤りではないため 503（ApiExceptionHandler）
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
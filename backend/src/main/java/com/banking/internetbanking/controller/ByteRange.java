@@ -0,0 +1,144 @@
+package com.banking.internetbanking.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serial;
+
+/**
+ * Range リクエスト（単一範囲の bytes=first-last / first- / -suffix）の範囲
+ * 複数範囲（multipart/byteranges）には対応せず、その場合は全体を返す。
+ *
+ * @param first 先頭のバイト位置（含む）
+ * @param last  末尾のバイト位置（含む）
+ */
+record ByteRange(long first, long last) {
+
+    long length() {
+        return last - first + 1;
+    }
+
+    String contentRange(long total) {
+        return "bytes " + first + "-" + last + "/" + total;
+    }
+
+    /**
+     * Range ヘッダーの構文を確認する（範囲外かどうかは全体の長さが分かってから {@link #resolve} で判定）
+     */
+    static boolean isSingleRange(String header) {
+        return header != null && header.startsWith("bytes=") && header.indexOf(',') < 0
+                && header.indexOf('-') >= 0;
+    }
+
+    /**
+     * 全体の長さに合わせて範囲を確定する。満たせない範囲なら null（416 を返す）
+     */
+    static ByteRange resolve(String header, long total) {
+        String spec = header.substring("bytes=".length()).strip();
+        int dash = spec.indexOf('-');
+        try {
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0 || total == 0) {
+                    return null;
+                }
+                return new ByteRange(Math.max(total - suffix, 0), total - 1);
+            }
+            long first = Long.parseLong(spec.substring(0, dash));
+            String lastPart = spec.substring(dash + 1);
+            long last = lastPart.isEmpty() ? total - 1 : Math.min(Long.parseLong(lastPart), total - 1);
+            if (first >= total || first > last) {
+                return null;
+            }
+            return new ByteRange(first, last);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 範囲内のバイトだけを書き出す。範囲の末尾を過ぎると {@link RangeCompleteException} を投げて
+     * 出力元の処理を打ち切る
+     */
+    OutputStream slice(OutputStream out) {
+        return new SliceOutputStream(out, first, last);
+    }
+
+    /**
+     * 範囲の末尾まで書き終えたことを示す（エラーではない）
+     */
+    static final class RangeCompleteException extends IOException {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        RangeCompleteException() {
+            super("range complete", null);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /**
+     * 長さを数えるだけで何も書き出さない出力先（範囲を確定するための1回目の出力に使う）
+     */
+    static final class CountingNullOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+
+        long count() {
+            return count;
+        }
+    }
+
+    private static final class SliceOutputStream extends OutputStream {
+
+        private final OutputStream out;
+        private final long first;
+        private final long last;
+        private long position;
+
+        SliceOutputStream(OutputStream out, long first, long last) {
+            this.out = out;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            long end = position + len;
+            long from = Math.max(position, first);
+            long to = Math.min(end, last + 1);
+            if (from < to) {
+                out.write(b, off + (int) (from - position), (int) (to - from));
+            }
+            position = end;
+            if (position > last) {
+                out.flush();
+                throw new RangeCompleteException();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
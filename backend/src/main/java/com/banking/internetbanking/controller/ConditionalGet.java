@@ -0,0 +1,59 @@
+package com.banking.internetbanking.controller;
+
+import com.banking.internetbanking.repository.VersionStamp;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.ZoneId;
+import java.util.function.Supplier;
+
+/**
+ * 条件付きGET（ETag / Last-Modified）の共通処理
+ * バージョン情報だけで If-None-Match / If-Modified-Since を判定し、
+ * 変更が無ければ本文を読み込まずに 304 Not Modified を返す
+ */
+final class ConditionalGet {
+
+    private ConditionalGet() {
+    }
+
+    static <T> ResponseEntity<T> respond(WebRequest request, String resource, VersionStamp stamp, Supplier<T> body) {
+        String etag = etag(resource, stamp);
+        long lastModified = stamp.lastModified() != null
+                ? stamp.lastModified().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : -1;
+
+        if (request.checkNotModified(etag, lastModified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate());
+        if (lastModified >= 0) {
+            builder.lastModified(lastModified);
+        }
+        return builder.body(body.get());
+    }
+
+    // 強い ETag（同じバージョンなら本文が同じバイト列になるもの。Range / If-Range の判定に使う）
+    static String strongEtag(String resource, VersionStamp stamp) {
+        return etag(resource, stamp).substring("W/".length());
+    }
+
+    // 弱い ETag（JSON の表現は同一でもバイト列の同一性までは保証しない）
+    private static String etag(String resource, VersionStamp stamp) {
+        long modified = stamp.lastModified() != null
+                ? stamp.lastModified().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() * 1000
+                        + stamp.lastModified().getNano() / 1000 % 1000
+                : 0;
+        return "W/\"" + resource + "-" + stamp.count() + "-" + (stamp.maxId() != null ? stamp.maxId() : 0)
+                + "-" + Long.toString(modified, 36)
+                + "-" + (stamp.versionSum() != null ? stamp.versionSum() : 0) + "\"";
+    }
+}
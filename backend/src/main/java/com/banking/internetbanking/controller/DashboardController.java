@@ -0,0 +1,28 @@
+package com.banking.internetbanking.controller;
+
+import com.banking.internetbanking.service.DashboardService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * ダッシュボード（口座・残高・通貨ごとの合計・最近の仕訳）を1回の呼び出しで返す
+ */
+@RestController
+@RequestMapping("/api/users")
+@CrossOrigin(origins = "http://localhost:3000")
+public class DashboardController {
+
+    private final DashboardService dashboardService;
+
+    public DashboardController(DashboardService dashboardService) {
+        this.dashboardService = dashboardService;
+    }
+
+    @GetMapping("/{id}/dashboard")
+    public ResponseEntity<DashboardService.Dashboard> getDashboard(@PathVariable Long id,
+            @RequestParam(defaultValue = "10") int recent) {
+        return dashboardService.getDashboard(id, recent)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,52 @@
+package com.banking.internetbanking.controller;
+
+import com.banking.internetbanking.dto.FxRateRequest;
+import com.banking.internetbanking.service.FxRateService;
+import com.banking.internetbanking.service.Money;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/fx")
+@CrossOrigin(origins = "http://localhost:3000")
+public class FxRateController {
+
+    private final FxRateService fxRateService;
+
+    public FxRateController(FxRateService fxRateService) {
+        this.fxRateService = fxRateService;
+    }
+
+    @GetMapping("/rates")
+    public ResponseEntity<List<Map<String, Object>>> getRates() {
+        return ResponseEntity.ok(fxRateService.getRates());
+    }
+
+    // 換算結果の試算（取引は記録しない）。レートが無い場合は ApiExceptionHandler で 400 を返す
+    @GetMapping("/quote")
+    public ResponseEntity<Map<String, Object>> getQuote(@RequestParam String from, @RequestParam String to,
+            @RequestParam BigDecimal amount) {
+        FxRateService.Conversion conversion = fxRateService.convert(Money.of(amount, from, Money.DEFAULT_ROUNDING), to);
+        return ResponseEntity.ok(Map.of(
+                "from", from,
+                "to", to,
+                "amount", conversion.source().toBigDecimal(),
+                "convertedAmount", conversion.target().toBigDecimal(),
+                "rate", conversion.rate() != null ? conversion.rate().rate() : BigDecimal.ONE));
+    }
+
+    @PutMapping("/rates/{base}/{quote}")
+    public ResponseEntity<Map<String, Object>> updateRate(@PathVariable String base, @PathVariable String quote,
+            @Valid @RequestBody FxRateRequest request) {
+        if (!base.matches("[A-Z]{3}") || !quote.matches("[A-Z]{3}")) {
+            return ResponseEntity.badRequest().body(Map.of("error", "通貨コードは英大文字3桁で指定してください"));
+        }
+        fxRateService.updateRate(base, quote, request.rate());
+        return ResponseEntity.ok(Map.of("message", "為替レートを更新しました"));
+    }
+}
@@ -0,0 +1,63 @@
+package com.banking.internetbanking.controller;
+
+import com.banking.internetbanking.service.ListingPage;
+import com.banking.internetbanking.service.ListingRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 管理画面の一覧（キーセット方式のページ）と全件出力（JSON Lines）の共通処理
+ * クエリパラメータの sort / direction / limit / cursor 以外は絞り込みの条件として扱う
+ */
+final class Listings {
+
+    static final String JSON_LINES = "application/x-ndjson";
+
+    private Listings() {
+    }
+
+    static <T> ResponseEntity<?> page(Map<String, String> params, Function<ListingRequest, ListingPage<T>> lister) {
+        try {
+            return ResponseEntity.ok(lister.apply(ListingRequest.of(params)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * 行を読みながらレスポンスに直接書き出す（明細の出力と同じく、リクエストのスレッドで書く）
+     */
+    static ResponseEntity<?> export(Map<String, String> params, String name, HttpServletResponse response,
+            Exporter exporter) throws IOException {
+        ListingRequest request;
+        try {
+            request = ListingRequest.of(params);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        response.setContentType(JSON_LINES + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(name + ".jsonl").build().toString());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+        try {
+            exporter.export(request, response.getOutputStream());
+        } catch (IllegalArgumentException e) {
+            // 検索条件の誤りは書き出しを始める前に判定される
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        return null;
+    }
+
+    @FunctionalInterface
+    interface Exporter {
+        void export(ListingRequest request, OutputStream out) throws IOException;
+    }
+}
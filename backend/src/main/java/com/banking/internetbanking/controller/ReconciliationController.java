@@ -0,0 +1,52 @@
+package com.banking.internetbanking.controller;
+
+import com.banking.internetbanking.service.ReconciliationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/reconciliation")
+@CrossOrigin(origins = "http://localhost:3000")
+public class ReconciliationController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReconciliationController.class);
+
+    private final ReconciliationService reconciliationService;
+
+    public ReconciliationController(ReconciliationService reconciliationService) {
+        this.reconciliationService = reconciliationService;
+    }
+
+    @GetMapping("/runs")
+    public ResponseEntity<List<Map<String, Object>>> getRuns(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(reconciliationService.getRuns(Math.min(Math.max(limit, 1), 100)));
+    }
+
+    @GetMapping("/runs/{runId}/discrepancies")
+    public ResponseEntity<List<Map<String, Object>>> getDiscrepancies(@PathVariable Long runId) {
+        return ResponseEntity.ok(reconciliationService.getDiscrepancies(runId));
+    }
+
+    // 全件照合は時間がかかるため、バックグラウンドで開始して受付だけを返す（結果は /runs で確認）
+    @PostMapping("/runs")
+    public ResponseEntity<?> startRun(@RequestParam(defaultValue = ReconciliationService.MODE_INCREMENTAL) String mode) {
+        String normalized = mode.toUpperCase();
+        if (!ReconciliationService.MODE_FULL.equals(normalized)
+                && !ReconciliationService.MODE_INCREMENTAL.equals(normalized)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "mode は FULL または INCREMENTAL を指定してください"));
+        }
+        Thread.ofVirtual().name("reconciliation-request").start(() -> {
+            try {
+                reconciliationService.run(normalized);
+            } catch (Exception e) {
+                logger.warn("残高照合に失敗しました: {}", e.getMessage());
+            }
+        });
+        return ResponseEntity.accepted().body(Map.of("message", "残高照合を開始しました", "mode", normalized));
+    }
+}
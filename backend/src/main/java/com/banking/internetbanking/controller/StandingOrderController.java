@@ -0,0 +1,52 @@
+package com.banking.internetbanking.controller;
+
+import com.banking.internetbanking.dto.CreateStandingOrderRequest;
+import com.banking.internetbanking.entity.StandingOrder;
+import com.banking.internetbanking.service.StandingOrderService;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 定期・予約振込の指示（実行はスケジューラが行う）
+ */
+@RestController
+@RequestMapping("/api/standing-orders")
+@CrossOrigin(origins = "http://localhost:3000")
+public class StandingOrderController {
+
+    private final StandingOrderService standingOrderService;
+
+    public StandingOrderController(StandingOrderService standingOrderService) {
+        this.standingOrderService = standingOrderService;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> createStandingOrder(@Valid @RequestBody CreateStandingOrderRequest request) {
+        try {
+            StandingOrder order = standingOrderService.createStandingOrder(request.fromAccountId(),
+                    request.toAccountId(), request.amount(), request.frequency(), request.firstRunAt(),
+                    request.endDate(), request.description());
+            return ResponseEntity.ok(order);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/account/{accountId}")
+    public ResponseEntity<List<StandingOrder>> getStandingOrdersByAccountId(@PathVariable Long accountId) {
+        return ResponseEntity.ok(standingOrderService.getStandingOrdersByAccountId(accountId));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> cancelStandingOrder(@PathVariable Long id) {
+        if (standingOrderService.cancelStandingOrder(id)) {
+            return ResponseEntity.ok().build();
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -1,13 +1,25 @@
 package com.banking.internetbanking.controller;
 
+import com.banking.internetbanking.dto.DepositRequest;
+import com.banking.internetbanking.dto.TransferRequest;
+import com.banking.internetbanking.dto.WithdrawalRequest;
 import com.banking.internetbanking.entity.Transaction;
+import com.banking.internetbanking.service.TransactionHistoryService;
+import com.banking.internetbanking.service.TransactionPage;
+import com.banking.internetbanking.service.TransactionSearchService;
 import com.banking.internetbanking.service.TransactionService;
+import com.banking.internetbanking.service.TransferService;
+import com.banking.internetbanking.service.VelocityService;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.math.BigDecimal;
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -17,14 +29,33 @@ import java.util.Map;
 public class TransactionController {
 
     private final TransactionService transactionService;
-
-    public TransactionController(TransactionService transactionService) {
+    private final TransactionSearchService transactionSearchService;
+    private final TransactionHistoryService transactionHistoryService;
+    private final VelocityService velocityService;
+    private final TransferService transferService;
+
+    public TransactionController(TransactionService transactionService,
+            TransactionSearchService transactionSearchService, TransactionHistoryService transactionHistoryService,
+            VelocityService velocityService, TransferService transferService) {
         this.transactionService = transactionService;
+        this.transactionSearchService = transactionSearchService;
+        this.transactionHistoryService = transactionHistoryService;
+        this.velocityService = velocityService;
+        this.transferService = transferService;
     }
 
+    // 管理画面の一覧（例: ?sort=transactionDate&direction=desc&accountId=1&startDate=2024-01-01T00:00:00。
+    // 続きは nextCursor を cursor に渡す）
     @GetMapping
-    public ResponseEntity<List<Transaction>> getAllTransactions() {
-        return ResponseEntity.ok(transactionService.getAllTransactions());
+    public ResponseEntity<?> listTransactions(@RequestParam Map<String, String> params) {
+        return Listings.page(params, transactionService::listTransactions);
+    }
+
+    // 一覧と同じ条件の全件を JSON Lines で書き出す
+    @GetMapping("/export")
+    public ResponseEntity<?> exportTransactions(@RequestParam Map<String, String> params,
+            HttpServletResponse response) throws IOException {
+        return Listings.export(params, "transactions", response, transactionService::exportTransactions);
     }
 
     @GetMapping("/{id}")
@@ -35,21 +66,64 @@ public class TransactionController {
     }
 
     @GetMapping("/account/{accountId}")
-    public ResponseEntity<List<Transaction>> getTransactionsByAccountId(@PathVariable Long accountId) {
-        return ResponseEntity.ok(transactionService.getTransactionsByAccountId(accountId));
+    public ResponseEntity<List<Transaction>> getTransactionsByAccountId(@PathVariable Long accountId,
+            WebRequest request) {
+        return ConditionalGet.respond(request, "account-transactions-" + accountId,
+                transactionService.getTransactionsVersionByAccountId(accountId),
+                () -> transactionService.getTransactionsByAccountId(accountId));
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Transaction>> getTransactionsByUserId(@PathVariable Long userId) {
-        return ResponseEntity.ok(transactionService.getTransactionsByUserId(userId));
+    public ResponseEntity<List<Transaction>> getTransactionsByUserId(@PathVariable Long userId, WebRequest request) {
+        return ConditionalGet.respond(request, "user-transactions-" + userId,
+                transactionService.getTransactionsVersionByUserId(userId),
+                () -> transactionService.getTransactionsByUserId(userId));
+    }
+
+    // ユーザーの全口座を通じた履歴（次のページは nextCursor を cursor に指定して取得する）
+    @GetMapping("/user/{userId}/history")
+    public ResponseEntity<Map<String, Object>> getUserHistory(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String cursor) {
+        TransactionPage page;
+        try {
+            page = transactionHistoryService.getHistory(userId, limit, cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.ok(pageBody(page));
     }
 
     @GetMapping("/account/{accountId}/range")
     public ResponseEntity<List<Transaction>> getTransactionsByDateRange(
             @PathVariable Long accountId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
-        return ResponseEntity.ok(transactionService.getTransactionsByDateRange(accountId, startDate, endDate));
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            WebRequest request) {
+        return ConditionalGet.respond(request,
+                "account-transactions-" + accountId + "-" + startDate + "-" + endDate,
+                transactionService.getTransactionsVersionByDateRange(accountId, startDate, endDate),
+                () -> transactionService.getTransactionsByDateRange(accountId, startDate, endDate));
+    }
+
+    // 摘要の検索（次のページは nextCursor を cursor に指定して取得する）
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, Object>> searchTransactions(
+            @RequestParam Long accountId,
+            @RequestParam String q,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String cursor) {
+        TransactionPage page;
+        try {
+            page = transactionSearchService.search(accountId, q, startDate, endDate, fuzzy, limit, cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.ok(pageBody(page));
     }
 
     @GetMapping("/reference/{referenceNumber}")
@@ -60,69 +134,61 @@ public class TransactionController {
     }
 
     @PostMapping("/transfer")
-    public ResponseEntity<Transaction> createTransfer(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<Transaction> createTransfer(@Valid @RequestBody TransferRequest request) {
+        // 上限超過は ApiExceptionHandler で 429 を返す
+        VelocityService.Reservation reservation = velocityService.reserve(request.fromAccountId(), request.amount());
         try {
-            Long fromAccountId = Long.valueOf(request.get("fromAccountId").toString());
-            Long toAccountId = Long.valueOf(request.get("toAccountId").toString());
-            BigDecimal amount = new BigDecimal(request.get("amount").toString());
-            String currency = (String) request.get("currency");
-            String description = (String) request.get("description");
-
-            Transaction transaction = transactionService.createTransaction(
-                    fromAccountId, toAccountId, "TRANSFER", amount, currency, description);
+            Transaction transaction = transferService.transfer(
+                    request.fromAccountId(), request.toAccountId(),
+                    request.amount(), request.currency(), request.description());
             return ResponseEntity.ok(transaction);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().build();
+        } catch (RuntimeException e) {
+            velocityService.release(reservation);
+            throw e;
         }
     }
 
     @PostMapping("/deposit")
-    public ResponseEntity<Transaction> createDeposit(@RequestBody Map<String, Object> request) {
-        try {
-            Long toAccountId = Long.valueOf(request.get("toAccountId").toString());
-            BigDecimal amount = new BigDecimal(request.get("amount").toString());
-            String currency = (String) request.get("currency");
-            String description = (String) request.get("description");
-
-            Transaction transaction = transactionService.createDepositTransaction(
-                    toAccountId, amount, currency, description);
-            return ResponseEntity.ok(transaction);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().build();
-        }
+    public ResponseEntity<Transaction> createDeposit(@Valid @RequestBody DepositRequest request) {
+        Transaction transaction = transactionService.createDepositTransaction(
+                request.toAccountId(), request.amount(), request.currency(), request.description());
+        return ResponseEntity.ok(transaction);
     }
 
     @PostMapping("/withdrawal")
-    public ResponseEntity<Transaction> createWithdrawal(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<Transaction> createWithdrawal(@Valid @RequestBody WithdrawalRequest request) {
+        VelocityService.Reservation reservation = velocityService.reserve(request.fromAccountId(), request.amount());
         try {
-            Long fromAccountId = Long.valueOf(request.get("fromAccountId").toString());
-            BigDecimal amount = new BigDecimal(request.get("amount").toString());
-            String currency = (String) request.get("currency");
-            String description = (String) request.get("description");
-
             Transaction transaction = transactionService.createWithdrawalTransaction(
-                    fromAccountId, amount, currency, description);
+                    request.fromAccountId(), request.amount(), request.currency(), request.description());
             return ResponseEntity.ok(transaction);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().build();
+        } catch (RuntimeException e) {
+            velocityService.release(reservation);
+            throw e;
         }
     }
 
+    // 記帳済みの取引は摘要だけ変更できる（金額・口座などの変更は 409）
     @PutMapping("/{id}")
     public ResponseEntity<Transaction> updateTransaction(@PathVariable Long id, @RequestBody Transaction transaction) {
-        if (transactionService.updateTransaction(transaction)) {
-            return ResponseEntity.ok(transaction);
-        } else {
-            return ResponseEntity.notFound().build();
-        }
+        return transactionService.updateTransaction(id, transaction)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
+    // 取引の行は削除せず、逆取引を記帳して取り消す（記帳した逆取引を返す。取消済みなどは 409）
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteTransaction(@PathVariable Long id) {
-        if (transactionService.deleteTransaction(id)) {
-            return ResponseEntity.ok().build();
-        } else {
-            return ResponseEntity.notFound().build();
-        }
+    public ResponseEntity<Transaction> deleteTransaction(@PathVariable Long id) {
+        return transactionService.reverseTransaction(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // nextCursor は最後のページで null になるため Map.of は使えない
+    private static Map<String, Object> pageBody(TransactionPage page) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("transactions", page.transactions());
+        body.put("nextCursor", page.nextCursor());
+        return body;
     }
 }
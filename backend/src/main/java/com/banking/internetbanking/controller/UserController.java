@@ -0,0 +1,37 @@
+package com.banking.internetbanking.controller;
+
+import com.banking.internetbanking.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * 管理画面のユーザー一覧（パスワードのハッシュと MFA の秘密鍵は返さない）
+ */
+@RestController
+@RequestMapping("/api/users")
+@CrossOrigin(origins = "http://localhost:3000")
+public class UserController {
+
+    private final UserService userService;
+
+    public UserController(UserService userService) {
+        this.userService = userService;
+    }
+
+    // 例: ?sort=createdAt&direction=desc&locked=true&limit=100。続きは nextCursor を cursor に渡す
+    @GetMapping
+    public ResponseEntity<?> listUsers(@RequestParam Map<String, String> params) {
+        return Listings.page(params, userService::listUsers);
+    }
+
+    // 一覧と同じ条件の全件を JSON Lines で書き出す
+    @GetMapping("/export")
+    public ResponseEntity<?> exportUsers(@RequestParam Map<String, String> params, HttpServletResponse response)
+            throws IOException {
+        return Listings.export(params, "users", response, userService::exportUsers);
+    }
+}
@@ -0,0 +1,22 @@
+package com.banking.internetbanking.dto;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.math.BigDecimal;
+
+/**
+ * 口座間送金リクエスト（POST /api/accounts/transfer）
+ */
+public record AccountTransferRequest(
+        @NotNull @Positive Long fromAccountId,
+        @NotNull @Positive Long toAccountId,
+        @NotNull @Positive @Digits(integer = 13, fraction = 2) BigDecimal amount) {
+
+    @AssertTrue(message = "送金元と送金先に同じ口座は指定できません")
+    public boolean isDistinctAccounts() {
+        return fromAccountId == null || !fromAccountId.equals(toAccountId);
+    }
+}
@@ -0,0 +1,27 @@
+package com.banking.internetbanking.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+
+import java.math.BigDecimal;
+
+/**
+ * 口座開設リクエスト（POST /api/accounts）
+ */
+public record CreateAccountRequest(
+        @NotNull @Positive Long userId,
+        @NotNull @Pattern(regexp = "SAVINGS|CHECKING|FIXED_DEPOSIT") String accountType,
+        @Pattern(regexp = "[A-Z]{3}") String currency,
+        @NotNull @DecimalMin("0.0000") @DecimalMax("9.9999") @Digits(integer = 1, fraction = 4) BigDecimal interestRate) {
+
+    public CreateAccountRequest {
+        // 通貨の指定が無い場合はテーブルの既定値と同じ JPY
+        if (currency == null) {
+            currency = "JPY";
+        }
+    }
+}
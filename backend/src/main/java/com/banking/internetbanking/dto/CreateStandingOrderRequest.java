@@ -0,0 +1,31 @@
+package com.banking.internetbanking.dto;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 定期・予約振込の登録リクエスト（POST /api/standing-orders）
+ * firstRunAt を省略すると登録後すぐに1回目を実行する。
+ */
+public record CreateStandingOrderRequest(
+        @NotNull @Positive Long fromAccountId,
+        @NotNull @Positive Long toAccountId,
+        @NotNull @Positive @Digits(integer = 13, fraction = 2) BigDecimal amount,
+        @NotNull @Pattern(regexp = "ONCE|DAILY|WEEKLY|MONTHLY") String frequency,
+        LocalDateTime firstRunAt,
+        LocalDate endDate,
+        @Size(max = 255) String description) {
+
+    @AssertTrue(message = "送金元と送金先に同じ口座は指定できません")
+    public boolean isDistinctAccounts() {
+        return fromAccountId == null || !fromAccountId.equals(toAccountId);
+    }
+}
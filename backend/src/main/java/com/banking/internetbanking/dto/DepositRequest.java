@@ -0,0 +1,25 @@
+package com.banking.internetbanking.dto;
+
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.math.BigDecimal;
+
+/**
+ * 入金取引の記帳リクエスト（POST /api/transactions/deposit）
+ */
+public record DepositRequest(
+        @NotNull @Positive Long toAccountId,
+        @NotNull @Positive @Digits(integer = 13, fraction = 2) BigDecimal amount,
+        @Pattern(regexp = "[A-Z]{3}") String currency,
+        @Size(max = 500) String description) {
+
+    public DepositRequest {
+        if (currency == null) {
+            currency = "JPY";
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.banking.internetbanking.dto;
+
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.math.BigDecimal;
+
+/**
+ * 為替レートの登録・更新リクエスト（PUT /api/fx/rates/{base}/{quote}）
+ */
+public record FxRateRequest(
+        @NotNull @Positive @Digits(integer = 10, fraction = 10) BigDecimal rate) {
+}
@@ -0,0 +1,32 @@
+package com.banking.internetbanking.dto;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.math.BigDecimal;
+
+/**
+ * 振込取引の記帳リクエスト（POST /api/transactions/transfer）
+ */
+public record TransferRequest(
+        @NotNull @Positive Long fromAccountId,
+        @NotNull @Positive Long toAccountId,
+        @NotNull @Positive @Digits(integer = 13, fraction = 2) BigDecimal amount,
+        @Pattern(regexp = "[A-Z]{3}") String currency,
+        @Size(max = 500) String description) {
+
+    public TransferRequest {
+        if (currency == null) {
+            currency = "JPY";
+        }
+    }
+
+    @AssertTrue(message = "送金元と送金先に同じ口座は指定できません")
+    public boolean isDistinctAccounts() {
+        return fromAccountId == null || !fromAccountId.equals(toAccountId);
+    }
+}
@@ -6,6 +6,7 @@ import jakarta.persistence.Table;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Column;
+import jakarta.persistence.Version;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -46,6 +47,11 @@ public class Account {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // 楽観的ロック用（更新時に Hibernate が照合して 1 増やす。元帳による残高の更新でも増える）
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     // JPA用のデフォルトコンストラクタ（Hibernateがエンティティをインスタンス化するために必要）
     protected Account() {
     }
@@ -53,6 +59,13 @@ public class Account {
     public Account(Long id, Long userId, String accountNumber, String accountType,
             BigDecimal balance, String currency, String status,
             BigDecimal interestRate, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, userId, accountNumber, accountType, balance, currency, status, interestRate, createdAt, updatedAt,
+                null);
+    }
+
+    public Account(Long id, Long userId, String accountNumber, String accountType,
+            BigDecimal balance, String currency, String status,
+            BigDecimal interestRate, LocalDateTime createdAt, LocalDateTime updatedAt, Long version) {
         this.id = id;
         this.userId = userId;
         this.accountNumber = accountNumber;
@@ -63,6 +76,7 @@ public class Account {
         this.interestRate = interestRate;
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
+        this.version = version;
     }
 
     // Getters
@@ -105,4 +119,8 @@ public class Account {
     public LocalDateTime getUpdatedAt() {
         return updatedAt;
     }
+
+    public Long getVersion() {
+        return version;
+    }
 }
@@ -0,0 +1,62 @@
+package com.banking.internetbanking.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.Column;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
+/**
+ * 口座の変わらない属性（所有者・口座番号・通貨）だけを読む読み取り専用のビュー
+ * 残高は元帳の SQL で直接更新するため {@link Account} は二次キャッシュに載せられない。
+ * 作成後に変わらない列だけをこのエンティティで読み、ID と口座番号（ナチュラル ID）の両方で
+ * 二次キャッシュから引けるようにする。口座の更新ではこれらの列を変更しない。
+ */
+@Entity
+@Immutable
+@Table(name = "accounts")
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = AccountMetadata.CACHE_REGION)
+@NaturalIdCache(region = AccountMetadata.NATURAL_ID_CACHE_REGION)
+public class AccountMetadata {
+
+    public static final String CACHE_REGION = "account-metadata";
+    public static final String NATURAL_ID_CACHE_REGION = "account-metadata-natural-id";
+
+    @Id
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @NaturalId
+    @Column(name = "account_number")
+    private String accountNumber;
+
+    @Column(name = "currency")
+    private String currency;
+
+    // JPA用のデフォルトコンストラクタ（Hibernateがエンティティをインスタンス化するために必要）
+    protected AccountMetadata() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+}
@@ -0,0 +1,83 @@
+package com.banking.internetbanking.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Column;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    // 書き込んだトランザクションのID（DBのデフォルト txid_current() で採番）
+    @Column(name = "tx_id", insertable = false, updatable = false)
+    private Long txId;
+
+    @Column(name = "aggregate_type")
+    private String aggregateType; // TRANSACTION
+
+    @Column(name = "aggregate_id")
+    private Long aggregateId;
+
+    @Column(name = "event_type")
+    private String eventType; // TRANSACTION_POSTED
+
+    @Column(name = "payload")
+    private String payload;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    // JPA用のデフォルトコンストラクタ（Hibernateがエンティティをインスタンス化するために必要）
+    protected OutboxEvent() {
+    }
+
+    public OutboxEvent(Long id, Long txId, String aggregateType, Long aggregateId,
+            String eventType, String payload, LocalDateTime createdAt) {
+        this.id = id;
+        this.txId = txId;
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getTxId() {
+        return txId;
+    }
+
+    public String getAggregateType() {
+        return aggregateType;
+    }
+
+    public Long getAggregateId() {
+        return aggregateId;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
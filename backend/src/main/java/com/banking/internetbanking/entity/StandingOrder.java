@@ -0,0 +1,173 @@
+package com.banking.internetbanking.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Column;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "standing_orders")
+public class StandingOrder {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "from_account_id")
+    private Long fromAccountId;
+
+    @Column(name = "to_account_id")
+    private Long toAccountId;
+
+    @Column(name = "amount")
+    private BigDecimal amount;
+
+    @Column(name = "currency")
+    private String currency;
+
+    @Column(name = "description")
+    private String description;
+
+    @Column(name = "frequency")
+    private String frequency; // ONCE, DAILY, WEEKLY, MONTHLY
+
+    @Column(name = "first_run_at")
+    private LocalDateTime firstRunAt;
+
+    // この日を過ぎる回は実行しない（NULL は無期限）
+    @Column(name = "end_date")
+    private LocalDate endDate;
+
+    // 次に実行する回（0 から）
+    @Column(name = "occurrence")
+    private Integer occurrence;
+
+    @Column(name = "next_run_at")
+    private LocalDateTime nextRunAt;
+
+    @Column(name = "status")
+    private String status; // ACTIVE, COMPLETED, FAILED, CANCELLED
+
+    // 現在の回の失敗回数
+    @Column(name = "attempts")
+    private Integer attempts;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    @Column(name = "last_run_at")
+    private LocalDateTime lastRunAt;
+
+    @Column(name = "last_transaction_id")
+    private Long lastTransactionId;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // JPA用のデフォルトコンストラクタ（Hibernateがエンティティをインスタンス化するために必要）
+    protected StandingOrder() {
+    }
+
+    public StandingOrder(Long id, Long fromAccountId, Long toAccountId, BigDecimal amount, String currency,
+            String description, String frequency, LocalDateTime firstRunAt, LocalDate endDate,
+            LocalDateTime createdAt) {
+        this.id = id;
+        this.fromAccountId = fromAccountId;
+        this.toAccountId = toAccountId;
+        this.amount = amount;
+        this.currency = currency;
+        this.description = description;
+        this.frequency = frequency;
+        this.firstRunAt = firstRunAt;
+        this.endDate = endDate;
+        this.occurrence = 0;
+        this.nextRunAt = firstRunAt;
+        this.status = "ACTIVE";
+        this.attempts = 0;
+        this.createdAt = createdAt;
+        this.updatedAt = createdAt;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getFromAccountId() {
+        return fromAccountId;
+    }
+
+    public Long getToAccountId() {
+        return toAccountId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getFrequency() {
+        return frequency;
+    }
+
+    public LocalDateTime getFirstRunAt() {
+        return firstRunAt;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public Integer getOccurrence() {
+        return occurrence;
+    }
+
+    public LocalDateTime getNextRunAt() {
+        return nextRunAt;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public LocalDateTime getLastRunAt() {
+        return lastRunAt;
+    }
+
+    public Long getLastTransactionId() {
+        return lastTransactionId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -6,6 +6,7 @@ import jakarta.persistence.Table;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Column;
+import jakarta.persistence.Version;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -49,6 +50,25 @@ public class Transaction {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    // 通貨の異なる口座への取引のみ設定（適用したレートと入金側の金額・通貨）
+    @Column(name = "fx_rate")
+    private BigDecimal fxRate;
+
+    @Column(name = "settlement_amount")
+    private BigDecimal settlementAmount;
+
+    @Column(name = "settlement_currency")
+    private String settlementCurrency;
+
+    // 別シャードの口座との送金のみ設定（このシャードに無い側の口座ID。from / to の一方は NULL になる）
+    @Column(name = "counterparty_account_id")
+    private Long counterpartyAccountId;
+
+    // 楽観的ロック用
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     // JPA用のデフォルトコンストラクタ（Hibernateがエンティティをインスタンス化するために必要）
     protected Transaction() {
     }
@@ -56,6 +76,33 @@ public class Transaction {
     public Transaction(Long id, Long fromAccountId, Long toAccountId, String transactionType,
             BigDecimal amount, String currency, String description, String status,
             String referenceNumber, LocalDateTime transactionDate, LocalDateTime createdAt) {
+        this(id, fromAccountId, toAccountId, transactionType, amount, currency, description, status,
+                referenceNumber, transactionDate, createdAt, null, null, null);
+    }
+
+    public Transaction(Long id, Long fromAccountId, Long toAccountId, String transactionType,
+            BigDecimal amount, String currency, String description, String status,
+            String referenceNumber, LocalDateTime transactionDate, LocalDateTime createdAt,
+            BigDecimal fxRate, BigDecimal settlementAmount, String settlementCurrency) {
+        this(id, fromAccountId, toAccountId, transactionType, amount, currency, description, status,
+                referenceNumber, transactionDate, createdAt, fxRate, settlementAmount, settlementCurrency, null);
+    }
+
+    public Transaction(Long id, Long fromAccountId, Long toAccountId, String transactionType,
+            BigDecimal amount, String currency, String description, String status,
+            String referenceNumber, LocalDateTime transactionDate, LocalDateTime createdAt,
+            BigDecimal fxRate, BigDecimal settlementAmount, String settlementCurrency,
+            Long counterpartyAccountId) {
+        this(id, fromAccountId, toAccountId, transactionType, amount, currency, description, status,
+                referenceNumber, transactionDate, createdAt, fxRate, settlementAmount, settlementCurrency,
+                counterpartyAccountId, null);
+    }
+
+    public Transaction(Long id, Long fromAccountId, Long toAccountId, String transactionType,
+            BigDecimal amount, String currency, String description, String status,
+            String referenceNumber, LocalDateTime transactionDate, LocalDateTime createdAt,
+            BigDecimal fxRate, BigDecimal settlementAmount, String settlementCurrency,
+            Long counterpartyAccountId, Long version) {
         this.id = id;
         this.fromAccountId = fromAccountId;
         this.toAccountId = toAccountId;
@@ -67,6 +114,11 @@ public class Transaction {
         this.referenceNumber = referenceNumber;
         this.transactionDate = transactionDate;
         this.createdAt = createdAt;
+        this.fxRate = fxRate;
+        this.settlementAmount = settlementAmount;
+        this.settlementCurrency = settlementCurrency;
+        this.counterpartyAccountId = counterpartyAccountId;
+        this.version = version;
     }
 
     // Getters
@@ -113,4 +165,24 @@ public class Transaction {
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
+
+    public BigDecimal getFxRate() {
+        return fxRate;
+    }
+
+    public BigDecimal getSettlementAmount() {
+        return settlementAmount;
+    }
+
+    public String getSettlementCurrency() {
+        return settlementCurrency;
+    }
+
+    public Long getCounterpartyAccountId() {
+        return counterpartyAccountId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
 }
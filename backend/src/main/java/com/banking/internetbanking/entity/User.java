@@ -1,29 +1,51 @@
 package com.banking.internetbanking.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Column;
+import jakarta.persistence.Version;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.time.LocalDateTime;
 
+/**
+ * ユーザー。更新が少なく ID とユーザー名で繰り返し読むため、二次キャッシュに載せ、
+ * ユーザー名（ナチュラル ID）からの検索もキャッシュで解決する。
+ * 更新は変更した列だけを書く（最終ログイン日時の記録が他の項目を書き戻さないように）
+ */
 @Entity
 @Table(name = "users")
+@DynamicUpdate
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)
+@NaturalIdCache(region = User.NATURAL_ID_CACHE_REGION)
 public class User {
 
+    public static final String CACHE_REGION = "user";
+    public static final String NATURAL_ID_CACHE_REGION = "user-natural-id";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id")
     private Long id;
 
+    // 更新でユーザー名が変わる場合があるため mutable（変わるとキャッシュの対応付けも更新される）
+    @NaturalId(mutable = true)
     @Column(name = "username")
     private String username;
 
     @Column(name = "email")
     private String email;
 
+    // 一覧・出力などの JSON には含めない
+    @JsonIgnore
     @Column(name = "password_hash")
     private String passwordHash;
 
@@ -45,6 +67,7 @@ public class User {
     @Column(name = "mfa_enabled")
     private boolean mfaEnabled;
 
+    @JsonIgnore
     @Column(name = "mfa_secret")
     private String mfaSecret;
 
@@ -57,6 +80,11 @@ public class User {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // 楽観的ロック用（新規作成時は null）
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     // JPA用のデフォルトコンストラクタ（Hibernateがエンティティをインスタンス化するために必要）
     protected User() {
     }
@@ -66,6 +94,15 @@ public class User {
             boolean enabled, boolean locked, boolean mfaEnabled,
             String mfaSecret, LocalDateTime lastLogin,
             LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, username, email, passwordHash, firstName, lastName, phoneNumber, enabled, locked, mfaEnabled,
+                mfaSecret, lastLogin, createdAt, updatedAt, null);
+    }
+
+    public User(Long id, String username, String email, String passwordHash,
+            String firstName, String lastName, String phoneNumber,
+            boolean enabled, boolean locked, boolean mfaEnabled,
+            String mfaSecret, LocalDateTime lastLogin,
+            LocalDateTime createdAt, LocalDateTime updatedAt, Long version) {
         this.id = id;
         this.username = username;
         this.email = email;
@@ -80,6 +117,7 @@ public class User {
         this.lastLogin = lastLogin;
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
+        this.version = version;
     }
 
     // Getters
@@ -138,4 +176,16 @@ public class User {
     public LocalDateTime getUpdatedAt() {
         return updatedAt;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * 最終ログイン日時を記録する（永続化コンテキストにあるエンティティに対して呼び、コミット時に書き込む）
+     */
+    public void recordLogin(LocalDateTime at) {
+        this.lastLogin = at;
+        this.updatedAt = at;
+    }
 }
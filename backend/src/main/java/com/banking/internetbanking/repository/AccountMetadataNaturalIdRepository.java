@@ -0,0 +1,13 @@
+package com.banking.internetbanking.repository;
+
+import com.banking.internetbanking.entity.AccountMetadata;
+
+import java.util.Optional;
+
+/**
+ * 口座番号（ナチュラル ID）による検索。二次キャッシュにあれば SQL を発行しない
+ */
+public interface AccountMetadataNaturalIdRepository {
+
+    Optional<AccountMetadata> findByAccountNumber(String accountNumber);
+}
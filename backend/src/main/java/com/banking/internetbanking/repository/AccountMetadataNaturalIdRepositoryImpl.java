@@ -0,0 +1,26 @@
+package com.banking.internetbanking.repository;
+
+import com.banking.internetbanking.entity.AccountMetadata;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+class AccountMetadataNaturalIdRepositoryImpl implements AccountMetadataNaturalIdRepository {
+
+    private final EntityManager entityManager;
+
+    AccountMetadataNaturalIdRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    // トランザクション外でもセッションを検索の間だけ保つ（キャッシュにあれば接続を借りない）
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Optional<AccountMetadata> findByAccountNumber(String accountNumber) {
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(AccountMetadata.class)
+                .loadOptional(accountNumber);
+    }
+}
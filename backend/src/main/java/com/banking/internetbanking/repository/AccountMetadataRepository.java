@@ -0,0 +1,23 @@
+package com.banking.internetbanking.repository;
+
+import com.banking.internetbanking.entity.AccountMetadata;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 口座の変わらない属性（{@link AccountMetadata}）。ID・口座番号による検索は二次キャッシュから、
+ * ユーザーの口座一覧はクエリキャッシュから返す（このノードでの口座の作成・削除で accounts の
+ * クエリキャッシュは無効になる。他のノードでの作成・削除は ehcache.xml の有効期限の60秒まで反映されない）
+ */
+@Repository
+public interface AccountMetadataRepository extends JpaRepository<AccountMetadata, Long>,
+        AccountMetadataNaturalIdRepository {
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<AccountMetadata> findByUserIdOrderById(Long userId);
+}
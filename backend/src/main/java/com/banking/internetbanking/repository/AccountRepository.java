@@ -2,6 +2,8 @@ package com.banking.internetbanking.repository;
 
 import com.banking.internetbanking.entity.Account;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,5 +16,13 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
 
     Optional<Account> findByAccountNumber(String accountNumber);
 
+    boolean existsByAccountNumber(String accountNumber);
+
     List<Account> findByUserIdAndStatus(Long userId, String status);
+
+    @Query("SELECT new com.banking.internetbanking.repository.VersionStamp(COUNT(a), MAX(a.updatedAt), MAX(a.id), SUM(a.version)) FROM Account a WHERE a.id = :id")
+    VersionStamp findVersionStampById(@Param("id") Long id);
+
+    @Query("SELECT new com.banking.internetbanking.repository.VersionStamp(COUNT(a), MAX(a.updatedAt), MAX(a.id), SUM(a.version)) FROM Account a WHERE a.userId = :userId")
+    VersionStamp findVersionStampByUserId(@Param("userId") Long userId);
 }
@@ -0,0 +1,9 @@
+package com.banking.internetbanking.repository;
+
+import com.banking.internetbanking.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+}
@@ -0,0 +1,21 @@
+package com.banking.internetbanking.repository;
+
+import com.banking.internetbanking.entity.StandingOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StandingOrderRepository extends JpaRepository<StandingOrder, Long> {
+
+    List<StandingOrder> findByFromAccountIdOrderByIdDesc(Long fromAccountId);
+
+    // 実行中の指示は行ロックが外れるまで待ってから取り消す
+    @Modifying
+    @Query("UPDATE StandingOrder o SET o.status = 'CANCELLED', o.updatedAt = CURRENT_TIMESTAMP WHERE o.id = :id AND o.status = 'ACTIVE'")
+    int cancel(@Param("id") Long id);
+}
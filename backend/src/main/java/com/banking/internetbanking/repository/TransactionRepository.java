@@ -13,8 +13,6 @@ import java.util.Optional;
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
 
-    List<Transaction> findByFromAccountIdOrToAccountId(Long fromAccountId, Long toAccountId);
-
     @Query("SELECT t FROM Transaction t WHERE t.fromAccountId = :accountId OR t.toAccountId = :accountId")
     List<Transaction> findByAccountId(@Param("accountId") Long accountId);
 
@@ -22,4 +20,13 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     List<Transaction> findByAccountIdAndDateRange(@Param("accountId") Long accountId, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
 
     Optional<Transaction> findByReferenceNumber(String referenceNumber);
+
+    @Query("SELECT new com.banking.internetbanking.repository.VersionStamp(COUNT(t), MAX(t.transactionDate), MAX(t.id), SUM(t.version)) FROM Transaction t WHERE t.fromAccountId = :accountId OR t.toAccountId = :accountId")
+    VersionStamp findVersionStampByAccountId(@Param("accountId") Long accountId);
+
+    @Query("SELECT new com.banking.internetbanking.repository.VersionStamp(COUNT(t), MAX(t.transactionDate), MAX(t.id), SUM(t.version)) FROM Transaction t WHERE (t.fromAccountId = :accountId OR t.toAccountId = :accountId) AND t.transactionDate BETWEEN :startDate AND :endDate")
+    VersionStamp findVersionStampByAccountIdAndDateRange(@Param("accountId") Long accountId, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT new com.banking.internetbanking.repository.VersionStamp(COUNT(t), MAX(t.transactionDate), MAX(t.id), SUM(t.version)) FROM Transaction t WHERE t.fromAccountId IN (SELECT a.id FROM Account a WHERE a.userId = :userId) OR t.toAccountId IN (SELECT a.id FROM Account a WHERE a.userId = :userId)")
+    VersionStamp findVersionStampByUserId(@Param("userId") Long userId);
 }
@@ -0,0 +1,50 @@
+package com.banking.internetbanking.repository;
+
+import com.banking.internetbanking.entity.Transaction;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * JDBC で読んだ transactions の行をエンティティに変換する（永続化コンテキストには載せない）
+ */
+public final class TransactionRowMapper implements RowMapper<Transaction> {
+
+    public static final TransactionRowMapper INSTANCE = new TransactionRowMapper();
+
+    // SELECT 句に使う列（マッピングと同じ順序・名前）
+    public static final String COLUMNS = "id, from_account_id, to_account_id, transaction_type, amount, currency, "
+            + "description, status, reference_number, transaction_date, created_at, "
+            + "fx_rate, settlement_amount, settlement_currency, counterparty_account_id, version";
+
+    private TransactionRowMapper() {
+    }
+
+    @Override
+    public Transaction mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new Transaction(
+                rs.getLong("id"),
+                rs.getObject("from_account_id", Long.class),
+                rs.getObject("to_account_id", Long.class),
+                rs.getString("transaction_type"),
+                rs.getBigDecimal("amount"),
+                rs.getString("currency"),
+                rs.getString("description"),
+                rs.getString("status"),
+                rs.getString("reference_number"),
+                toLocalDateTime(rs.getTimestamp("transaction_date")),
+                toLocalDateTime(rs.getTimestamp("created_at")),
+                rs.getBigDecimal("fx_rate"),
+                rs.getBigDecimal("settlement_amount"),
+                rs.getString("settlement_currency"),
+                rs.getObject("counterparty_account_id", Long.class),
+                rs.getLong("version"));
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
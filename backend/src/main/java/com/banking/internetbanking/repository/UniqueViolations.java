@@ -0,0 +1,43 @@
+package com.banking.internetbanking.repository;
+
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.ServerErrorMessage;
+
+import java.sql.SQLException;
+
+/**
+ * 一意制約違反の判定
+ * DataIntegrityViolationException は外部キー・NOT NULL・CHECK 違反も含むため、
+ * 特定の一意制約の違反（SQLSTATE 23505 と制約名）だけを見分けるのに使う。
+ */
+public final class UniqueViolations {
+
+    // PostgreSQL の unique_violation
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    // CREATE TABLE の UNIQUE 列に PostgreSQL が付ける制約名
+    public static final String TRANSACTIONS_REFERENCE_NUMBER = "transactions_reference_number_key";
+
+    private UniqueViolations() {
+    }
+
+    /**
+     * 例外（原因を含む）が指定した一意制約の違反かどうか
+     */
+    public static boolean isViolationOf(Throwable throwable, String constraintName) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && UNIQUE_VIOLATION.equals(sqlException.getSQLState())) {
+                return constraintName.equals(constraintOf(sqlException));
+            }
+        }
+        return false;
+    }
+
+    private static String constraintOf(SQLException exception) {
+        if (exception instanceof PSQLException psqlException) {
+            ServerErrorMessage message = psqlException.getServerErrorMessage();
+            return message != null ? message.getConstraint() : null;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,13 @@
+package com.banking.internetbanking.repository;
+
+import com.banking.internetbanking.entity.User;
+
+import java.util.Optional;
+
+/**
+ * ユーザー名（ナチュラル ID）による検索。二次キャッシュにあれば SQL を発行しない
+ */
+public interface UserNaturalIdRepository {
+
+    Optional<User> findByUsername(String username);
+}
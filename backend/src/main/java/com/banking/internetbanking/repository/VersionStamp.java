@@ -0,0 +1,19 @@
+package com.banking.internetbanking.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * 条件付きGET用のバージョン情報
+ * エンティティを読み込まずに集計値だけを取得し、ETag / Last-Modified の計算に使う
+ *
+ * @param count        対象行数（0 の場合は該当なし）
+ * @param lastModified 対象行の最終更新日時
+ * @param maxId        対象行の最大ID
+ * @param versionSum   対象行の楽観的ロック用バージョンの合計（同じ時刻の更新も区別するため）
+ */
+public record VersionStamp(Long count, LocalDateTime lastModified, Long maxId, Long versionSum) {
+
+    public boolean isEmpty() {
+        return count == null || count == 0;
+    }
+}
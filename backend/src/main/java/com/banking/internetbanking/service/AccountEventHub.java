@@ -0,0 +1,305 @@
+package com.banking.internetbanking.service;
+
+import com.banking.internetbanking.entity.Account;
+import com.banking.internetbanking.entity.Transaction;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 口座イベントの Server-Sent Events 配信ハブ
+ * 残高変更と取引の記帳をコミット後に受け取り、口座ごとの購読者へプッシュする。
+ *
+ * <p>SseEmitter は非同期サーブレットで保持されるため、待機中の接続はスレッドを占有しない。
+ * 送信は購読者ごとのキューから仮想スレッドで順に行い、遅いクライアントが記帳処理や
+ * 他の購読者を待たせないようにする。キューが溢れた購読者は切断し、再接続させる。
+ *
+ * <p>口座ごとに直近のイベントを保持し、Last-Event-ID による再接続時に差分を再送する。
+ * 保持範囲外からの再開は resync イベントで通知し、クライアントに再取得を促す。
+ */
+@Service
+public class AccountEventHub implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountEventHub.class);
+
+    private static final HubEvent HEARTBEAT = new HubEvent(0, null, null);
+
+    private final Map<Long, AccountChannel> channels = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("sse-heartbeat").daemon().factory());
+
+    @Value("${app.sse.timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    @Value("${app.sse.replay-buffer-size:64}")
+    private int replayBufferSize;
+
+    @Value("${app.sse.max-pending-per-subscriber:256}")
+    private int maxPendingPerSubscriber;
+
+    @Value("${app.sse.idle-channel-retention-ms:300000}")
+    private long idleChannelRetentionMs;
+
+    public AccountEventHub(MeterRegistry meterRegistry,
+            @Value("${app.sse.heartbeat-interval-ms:15000}") long heartbeatIntervalMs) {
+        Gauge.builder("sse.subscribers", subscriberCount, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("sse.channels", channels, Map::size).register(meterRegistry);
+        heartbeat.scheduleAtFixedRate(this::sendHeartbeats,
+                heartbeatIntervalMs, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 口座のイベントストリームを購読する
+     *
+     * @param account     購読対象の口座（初回接続時のスナップショットに使用）
+     * @param lastEventId 再接続時にクライアントが送る Last-Event-ID（初回は null）
+     */
+    public SseEmitter subscribe(Account account, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        AccountChannel channel = join(account, subscriber, parseEventId(lastEventId));
+        subscriberCount.incrementAndGet();
+        Runnable remove = () -> {
+            if (channel.subscribers.remove(subscriber)) {
+                subscriberCount.decrementAndGet();
+            }
+        };
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        return emitter;
+    }
+
+    /**
+     * 購読者を口座のチャネルに登録し、初回のスナップショットか再送分をキューに入れる
+     */
+    private AccountChannel join(Account account, Subscriber subscriber, Long resumeFrom) {
+        while (true) {
+            AccountChannel channel = channels.computeIfAbsent(account.getId(),
+                    id -> new AccountChannel(sequence.get()));
+            // 再送分のキュー投入と購読登録をチャネルのロック内で行い、間の記帳を取りこぼさない
+            synchronized (channel) {
+                if (channels.get(account.getId()) != channel) {
+                    continue; // ハートビートが破棄したチャネルには登録せず、作り直したチャネルで取り直す
+                }
+                if (resumeFrom == null) {
+                    subscriber.enqueue(new HubEvent(sequence.incrementAndGet(), "balance", balancePayload(
+                            new BalanceChangedEvent(account.getId(), account.getBalance(), account.getCurrency(),
+                                    account.getUpdatedAt()))));
+                } else {
+                    List<HubEvent> missed = channel.eventsAfter(resumeFrom);
+                    if (missed == null) {
+                        // 保持範囲外からの再開はクライアントに全件の再取得を依頼する
+                        subscriber.enqueue(new HubEvent(sequence.incrementAndGet(), "resync",
+                                Map.of("accountId", account.getId())));
+                    } else {
+                        missed.forEach(subscriber::enqueue);
+                    }
+                }
+                channel.subscribers.add(subscriber);
+                return channel;
+            }
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBalanceChanged(BalanceChangedEvent event) {
+        publish(event.accountId(), "balance", balancePayload(event));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTransactionPosted(TransactionPostedEvent event) {
+        Transaction transaction = event.transaction();
+        if (transaction.getFromAccountId() != null) {
+            publish(transaction.getFromAccountId(), "transaction", transaction);
+        }
+        if (transaction.getToAccountId() != null
+                && !transaction.getToAccountId().equals(transaction.getFromAccountId())) {
+            publish(transaction.getToAccountId(), "transaction", transaction);
+        }
+    }
+
+    private void publish(Long accountId, String name, Object data) {
+        AccountChannel channel = channels.get(accountId);
+        if (channel == null) {
+            return; // 購読者も再接続待ちもない口座はバッファしない
+        }
+        synchronized (channel) {
+            HubEvent event = new HubEvent(sequence.incrementAndGet(), name, data);
+            channel.remember(event, replayBufferSize);
+            for (Subscriber subscriber : channel.subscribers) {
+                subscriber.enqueue(event);
+            }
+        }
+    }
+
+    private void sendHeartbeats() {
+        long now = System.currentTimeMillis();
+        channels.forEach((accountId, channel) -> {
+            // 購読者の有無の確認と破棄を購読登録と同じロック内で行い、破棄するチャネルに登録させない
+            synchronized (channel) {
+                if (channel.subscribers.isEmpty()) {
+                    // 再接続を待つ期間を過ぎたチャネルは破棄する
+                    if (now - channel.lastActivity > idleChannelRetentionMs) {
+                        channels.remove(accountId, channel);
+                    }
+                    return;
+                }
+            }
+            channel.lastActivity = now;
+            for (Subscriber subscriber : channel.subscribers) {
+                subscriber.enqueue(HEARTBEAT);
+            }
+        });
+    }
+
+    private Map<String, Object> balancePayload(BalanceChangedEvent event) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("accountId", event.accountId());
+        payload.put("balance", event.balance());
+        payload.put("currency", event.currency());
+        payload.put("updatedAt", event.updatedAt());
+        return payload;
+    }
+
+    private Long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        heartbeat.shutdownNow();
+        channels.values().forEach(channel -> channel.subscribers.forEach(s -> s.emitter.complete()));
+        sender.shutdownNow();
+        logger.info("SSE 配信ハブを停止しました");
+    }
+
+    private record HubEvent(long id, String name, Object data) {
+    }
+
+    /**
+     * 購読者ごとの送信キュー。同時に1つの仮想スレッドだけが送信し、イベント順序を保つ
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Queue<HubEvent> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void enqueue(HubEvent event) {
+            if (pendingCount.incrementAndGet() > maxPendingPerSubscriber) {
+                // 追いつけないクライアントは切断し、Last-Event-ID で再接続させる
+                emitter.complete();
+                return;
+            }
+            pending.add(event);
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                HubEvent event;
+                while ((event = pending.poll()) != null) {
+                    pendingCount.decrementAndGet();
+                    try {
+                        if (event == HEARTBEAT) {
+                            emitter.send(SseEmitter.event().comment("heartbeat"));
+                        } else {
+                            emitter.send(SseEmitter.event()
+                                    .id(Long.toString(event.id()))
+                                    .name(event.name())
+                                    .data(event.data()));
+                        }
+                    } catch (Exception e) {
+                        // 切断済みのクライアント。onError → 購読解除が走る
+                        emitter.completeWithError(e);
+                        pending.clear();
+                        return;
+                    }
+                }
+                draining.set(false);
+            } while (!pending.isEmpty() && draining.compareAndSet(false, true));
+        }
+    }
+
+    /**
+     * 口座ごとの購読者と再送用バッファ
+     */
+    private static final class AccountChannel {
+
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        private final ArrayDeque<HubEvent> recent = new ArrayDeque<>();
+        // このID以前のイベントはバッファに無い（チャネル作成前、または押し出し済み）
+        private long bufferedAfter;
+        private volatile long lastActivity = System.currentTimeMillis();
+
+        AccountChannel(long createdAt) {
+            this.bufferedAfter = createdAt;
+        }
+
+        synchronized void remember(HubEvent event, int capacity) {
+            if (recent.size() >= capacity) {
+                bufferedAfter = recent.removeFirst().id();
+            }
+            recent.addLast(event);
+            lastActivity = System.currentTimeMillis();
+        }
+
+        /**
+         * 指定IDより後のイベント。欠落の可能性がある場合は null
+         */
+        synchronized List<HubEvent> eventsAfter(long lastEventId) {
+            if (lastEventId < bufferedAfter) {
+                return null;
+            }
+            List<HubEvent> missed = new ArrayList<>();
+            for (HubEvent event : recent) {
+                if (event.id() > lastEventId) {
+                    missed.add(event);
+                }
+            }
+            return missed;
+        }
+    }
+}
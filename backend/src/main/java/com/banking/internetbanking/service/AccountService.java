@@ -1,43 +1,110 @@
 package com.banking.internetbanking.service;
 
+import com.banking.internetbanking.config.Bulkhead;
+import com.banking.internetbanking.config.RetryOnConflict;
+import com.banking.internetbanking.config.ShardKey;
+import com.banking.internetbanking.config.ShardKeys;
+import com.banking.internetbanking.config.ShardRouter;
+import com.banking.internetbanking.repository.AccountMetadataRepository;
 import com.banking.internetbanking.repository.AccountRepository;
+import com.banking.internetbanking.repository.VersionStamp;
 import com.banking.internetbanking.entity.Account;
+import com.banking.internetbanking.entity.AccountMetadata;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 
 @Service
 @Transactional
+@Bulkhead(Bulkhead.Type.READ)
 public class AccountService {
 
-    private final AccountRepository accountRepository;
+    private static final int ACCOUNT_NUMBER_ATTEMPTS = 5;
+
+    // 管理画面の一覧
+    private static final KeysetListing<Account> LISTING = new KeysetListing<>(Account.class, Account::getId)
+            .sortable("accountNumber", Account::getAccountNumber, Function.identity())
+            .sortable("createdAt", Account::getCreatedAt, KeysetListing::dateTime)
+            .filterEqual("userId", "userId", Long::valueOf)
+            .filterEqual("accountType", "accountType", Function.identity())
+            .filterEqual("currency", "currency", Function.identity())
+            .filterEqual("status", "status", Function.identity())
+            .filterAtLeast("minBalance", "balance", KeysetListing::decimal)
+            .filterAtMost("maxBalance", "balance", KeysetListing::decimal);
 
-    public AccountService(AccountRepository accountRepository) {
+    private final AccountRepository accountRepository;
+    private final AccountMetadataRepository accountMetadataRepository;
+    private final TransferService transferService;
+    private final ShardRouter shardRouter;
+    private final ListingService listingService;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public AccountService(AccountRepository accountRepository, AccountMetadataRepository accountMetadataRepository,
+            TransferService transferService, ShardRouter shardRouter, ListingService listingService,
+            EntityManagerFactory entityManagerFactory) {
         this.accountRepository = accountRepository;
+        this.accountMetadataRepository = accountMetadataRepository;
+        this.transferService = transferService;
+        this.shardRouter = shardRouter;
+        this.listingService = listingService;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    // 全シャードから読むため、メソッド全体のトランザクションは張らない（シャードごとに読む）
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Bulkhead(Bulkhead.Type.BATCH)
+    public ListingPage<Account> listAccounts(ListingRequest request) {
+        return listingService.page(LISTING, request);
     }
 
-    public List<Account> getAllAccounts() {
-        return accountRepository.findAll();
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Bulkhead(Bulkhead.Type.BATCH)
+    public void exportAccounts(ListingRequest request, OutputStream out) throws IOException {
+        listingService.export(LISTING, request, out);
     }
 
-    public Optional<Account> getAccountById(Long id) {
+    public Optional<Account> getAccountById(@ShardKey Long id) {
         return accountRepository.findById(id);
     }
 
-    public List<Account> getAccountsByUserId(Long userId) {
+    public List<Account> getAccountsByUserId(@ShardKey Long userId) {
         return accountRepository.findByUserId(userId);
     }
 
-    public Optional<Account> getAccountByAccountNumber(String accountNumber) {
-        return accountRepository.findByAccountNumber(accountNumber);
+    public VersionStamp getAccountVersion(@ShardKey Long id) {
+        return accountRepository.findVersionStampById(id);
     }
 
-    public Account createAccount(Long userId, String accountType, String currency, BigDecimal interestRate) {
+    public VersionStamp getAccountsVersionByUserId(@ShardKey Long userId) {
+        return accountRepository.findVersionStampByUserId(userId);
+    }
+
+    // 口座番号から ID への解決はナチュラル ID のキャッシュで行い、残高を含む口座は ID で読む
+    public Optional<Account> getAccountByAccountNumber(@ShardKey(ShardKey.Type.ACCOUNT_NUMBER) String accountNumber) {
+        return accountMetadataRepository.findByAccountNumber(accountNumber)
+                .flatMap(metadata -> accountRepository.findById(metadata.getId()));
+    }
+
+    // 口座はユーザーと同じシャードに作る
+    @Bulkhead(Bulkhead.Type.WRITE)
+    public Account createAccount(@ShardKey Long userId, String accountType, String currency,
+            BigDecimal interestRate) {
+        // 金額列で扱えない通貨の口座は作らない
+        Money.fractionDigits(currency);
         String accountNumber = generateAccountNumber();
         Account account = new Account(
                 null, userId, accountNumber, accountType,
@@ -46,52 +113,84 @@ public class AccountService {
         return accountRepository.save(account);
     }
 
-    public boolean updateAccount(Account account) {
-        return accountRepository.save(account) != null;
+    /**
+     * 口座の属性を更新する。残高は元帳（postings）からのみ変更するため、更新内容の残高は無視して
+     * 現在の残高を引き継ぐ。読み込みから保存までに残高が動いた場合はバージョンの照合で競合になり、
+     * 読み直してやり直す。所有者・口座番号・通貨は変更しない（{@link AccountMetadata} として
+     * 読み取り専用でキャッシュしている）。更新内容の ID は使わない
+     *
+     * @return 更新後の口座（口座が無い場合は空）
+     * @throws VersionConflictException 更新内容にバージョンがあり、現在のバージョンと異なる場合
+     */
+    @RetryOnConflict
+    @Bulkhead(Bulkhead.Type.WRITE)
+    public Optional<Account> updateAccount(@ShardKey Long id, Account changes) {
+        Optional<Account> existing = accountRepository.findById(id);
+        if (existing.isEmpty()) {
+            return Optional.empty();
+        }
+        Account current = existing.get();
+        Long version = current.getVersion();
+        if (changes.getVersion() != null && !changes.getVersion().equals(version)) {
+            throw new VersionConflictException("口座", id, changes.getVersion(), version);
+        }
+        Account updatedAccount = new Account(
+                current.getId(), current.getUserId(), current.getAccountNumber(),
+                changes.getAccountType(), current.getBalance(), current.getCurrency(), changes.getStatus(),
+                changes.getInterestRate(), current.getCreatedAt(), LocalDateTime.now(), version);
+        return Optional.of(accountRepository.save(updatedAccount));
     }
 
-    public boolean deleteAccount(Long id) {
+    @Bulkhead(Bulkhead.Type.WRITE)
+    public boolean deleteAccount(@ShardKey Long id) {
         Optional<Account> account = accountRepository.findById(id);
         if (account.isPresent()) {
             accountRepository.delete(account.get());
+            // 読み取り専用のキャッシュは削除を反映しないため、コミット後に追い出す
+            // （他のノードのキャッシュには届かず、有効期限の60秒までは残る）
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+                    cache.evictEntityData(AccountMetadata.class, id);
+                    cache.evictNaturalIdData(AccountMetadata.class);
+                }
+            });
             return true;
         }
         return false;
     }
 
-    public boolean updateBalance(Long accountId, BigDecimal newBalance) {
-        Optional<Account> account = accountRepository.findById(accountId);
-        if (account.isPresent()) {
-            Account updatedAccount = new Account(
-                    account.get().getId(), account.get().getUserId(),
-                    account.get().getAccountNumber(), account.get().getAccountType(),
-                    newBalance, account.get().getCurrency(), account.get().getStatus(),
-                    account.get().getInterestRate(), account.get().getCreatedAt(), LocalDateTime.now());
-            return accountRepository.save(updatedAccount) != null;
-        }
-        return false;
-    }
-
+    // 送金元と送金先は別シャードの場合があるため、口座の確認と送金はそれぞれのシャードで行う
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Bulkhead(Bulkhead.Type.WRITE)
     public boolean transferMoney(Long fromAccountId, Long toAccountId, BigDecimal amount) {
-        Optional<Account> fromAccount = accountRepository.findById(fromAccountId);
-        Optional<Account> toAccount = accountRepository.findById(toAccountId);
-
-        if (fromAccount.isPresent() && toAccount.isPresent()) {
-            BigDecimal fromBalance = fromAccount.get().getBalance();
-            BigDecimal toBalance = toAccount.get().getBalance();
-
-            if (fromBalance.compareTo(amount) >= 0) {
-                // 送金元の残高を減らす
-                updateBalance(fromAccountId, fromBalance.subtract(amount));
-                // 送金先の残高を増やす
-                updateBalance(toAccountId, toBalance.add(amount));
-                return true;
-            }
+        Optional<AccountMetadata> fromAccount = shardRouter.call(shardRouter.shardOfId(fromAccountId),
+                () -> accountMetadataRepository.findById(fromAccountId));
+        if (fromAccount.isEmpty() || shardRouter.call(shardRouter.shardOfId(toAccountId),
+                () -> accountMetadataRepository.findById(toAccountId)).isEmpty()) {
+            return false;
         }
-        return false;
+        // 取引の記録・仕訳・残高の更新を行う（残高不足は InsufficientFundsException）
+        transferService.transfer(fromAccountId, toAccountId, amount, fromAccount.get().getCurrency(), "口座間送金");
+        return true;
     }
 
+    /**
+     * 口座番号を採番する。乱数部はどちらの形式も48ビット（16進数12桁）で、既に使われている番号なら引き直す
+     */
     private String generateAccountNumber() {
-        return UUID.randomUUID().toString().replace("-", "").substring(0, 12).toUpperCase();
+        for (int attempt = 0; attempt < ACCOUNT_NUMBER_ATTEMPTS; attempt++) {
+            // UUID（version 4）の先頭12桁はすべて乱数
+            String random = UUID.randomUUID().toString().replace("-", "").toUpperCase().substring(0, 12);
+            // 口座番号だけで口座のシャードが分かるよう、シャーディング時は先頭にシャード番号を入れる
+            String candidate = shardRouter.isEnabled()
+                    ? ShardKeys.accountNumberPrefix(shardRouter.currentShard()) + random
+                    : random;
+            if (!accountRepository.existsByAccountNumber(candidate)) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("口座番号を採番できませんでした");
     }
 }
@@ -0,0 +1,10 @@
+package com.banking.internetbanking.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 口座残高の変更イベント（コミット後に購読者へ配信される）
+ */
+public record BalanceChangedEvent(Long accountId, BigDecimal balance, String currency, LocalDateTime updatedAt) {
+}
@@ -0,0 +1,16 @@
+package com.banking.internetbanking.service;
+
+import java.io.Serial;
+
+/**
+ * 通貨換算できない取引（レートが未登録、または出金口座と取引の通貨が異なる）
+ */
+public class CurrencyConversionException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public CurrencyConversionException(String message) {
+        super(message);
+    }
+}
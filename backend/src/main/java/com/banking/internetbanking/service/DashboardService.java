@@ -0,0 +1,152 @@
+package com.banking.internetbanking.service;
+
+import com.banking.internetbanking.config.Bulkhead;
+import com.banking.internetbanking.config.ShardKey;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ダッシュボード（ログイン直後の画面）の表示内容
+ * 口座の一覧・残高・通貨ごとの合計と、全口座を通じた最近の仕訳を、口座の数にかかわらず
+ * 2回の問い合わせで読む（口座ごとに残高・取引を問い合わせる N+1 にならない）。
+ *
+ * <p>最近の仕訳は口座ごとに (口座ID, 仕訳ID) の索引を新しい順に上限件数まで読み（LATERAL）、
+ * それを合わせて上位を取ってから取引と結合する。2回の問い合わせは同じスナップショット
+ * （REPEATABLE READ）から読むため、残高と仕訳の内容は食い違わない。
+ */
+@Service
+@Bulkhead(Bulkhead.Type.READ)
+public class DashboardService {
+
+    public static final int MAX_RECENT = 100;
+
+    // ユーザーが存在すれば口座が無くても1行返る（口座の列は NULL）
+    private static final String ACCOUNTS = "SELECT u.id AS user_id, a.id, a.account_number, a.account_type, "
+            + "a.balance, a.currency, a.status, a.interest_rate, a.updated_at, "
+            + "SUM(a.balance) OVER (PARTITION BY a.currency) AS currency_total, "
+            + "COUNT(a.id) OVER (PARTITION BY a.currency) AS currency_accounts "
+            + "FROM users u LEFT JOIN accounts a ON a.user_id = u.id "
+            + "WHERE u.id = ? ORDER BY a.id";
+
+    private static final String RECENT_POSTINGS = "SELECT p.id, p.account_id, p.direction, p.amount, p.currency, "
+            + "p.posted_at, t.id AS transaction_id, t.transaction_type, t.description, t.reference_number, "
+            + "t.transaction_date "
+            + "FROM (SELECT recent.* FROM accounts a "
+            + "  CROSS JOIN LATERAL (SELECT id, account_id, transaction_id, direction, amount, currency, posted_at "
+            + "    FROM postings WHERE account_id = a.id AND transaction_id IS NOT NULL "
+            + "    ORDER BY id DESC LIMIT ?) recent "
+            + "  WHERE a.user_id = ? ORDER BY recent.id DESC LIMIT ?) p "
+            + "JOIN transactions t ON t.id = p.transaction_id "
+            + "ORDER BY p.id DESC";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Timer loadTimer;
+
+    public DashboardService(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.loadTimer = Timer.builder("dashboard.load")
+                .description("ダッシュボードの読み込み時間（問い合わせと組み立て）")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param recent 最近の仕訳の件数（1〜{@link #MAX_RECENT}）
+     * @return ユーザーが存在しない場合は空
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public Optional<Dashboard> getDashboard(@ShardKey Long userId, int recent) {
+        long start = System.nanoTime();
+        try {
+            return load(userId, Math.min(Math.max(recent, 1), MAX_RECENT));
+        } finally {
+            loadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Optional<Dashboard> load(Long userId, int recent) {
+        List<AccountSummary> accounts = new ArrayList<>();
+        Map<String, CurrencyTotal> totals = new LinkedHashMap<>();
+        boolean[] userFound = {false};
+        jdbcTemplate.query(ACCOUNTS, rs -> {
+            userFound[0] = true;
+            long accountId = rs.getLong("id");
+            if (rs.wasNull()) {
+                return;
+            }
+            String currency = rs.getString("currency");
+            accounts.add(new AccountSummary(
+                    accountId,
+                    rs.getString("account_number"),
+                    rs.getString("account_type"),
+                    rs.getBigDecimal("balance"),
+                    currency,
+                    rs.getString("status"),
+                    rs.getBigDecimal("interest_rate"),
+                    toLocalDateTime(rs.getTimestamp("updated_at"))));
+            totals.putIfAbsent(currency, new CurrencyTotal(currency, rs.getBigDecimal("currency_total"),
+                    rs.getInt("currency_accounts")));
+        }, userId);
+        if (!userFound[0]) {
+            return Optional.empty();
+        }
+
+        List<RecentPosting> postings = accounts.isEmpty()
+                ? List.of()
+                : jdbcTemplate.query(RECENT_POSTINGS, (rs, rowNum) -> new RecentPosting(
+                        rs.getLong("id"),
+                        rs.getLong("account_id"),
+                        rs.getLong("transaction_id"),
+                        rs.getString("transaction_type"),
+                        rs.getString("direction"),
+                        rs.getBigDecimal("amount"),
+                        rs.getString("currency"),
+                        rs.getString("description"),
+                        rs.getString("reference_number"),
+                        toLocalDateTime(rs.getTimestamp("transaction_date")),
+                        toLocalDateTime(rs.getTimestamp("posted_at"))),
+                        recent, userId, recent);
+
+        return Optional.of(new Dashboard(userId, accounts, List.copyOf(totals.values()), postings));
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    public record Dashboard(Long userId, List<AccountSummary> accounts, List<CurrencyTotal> totals,
+            List<RecentPosting> recentPostings) {
+    }
+
+    public record AccountSummary(Long id, String accountNumber, String accountType, BigDecimal balance,
+            String currency, String status, BigDecimal interestRate, LocalDateTime updatedAt) {
+    }
+
+    /**
+     * 通貨ごとの残高の合計（換算はしない）
+     */
+    public record CurrencyTotal(String currency, BigDecimal balance, int accounts) {
+    }
+
+    /**
+     * 口座の仕訳（direction: D は出金、C は入金）と元の取引の内容
+     */
+    public record RecentPosting(Long id, Long accountId, Long transactionId, String transactionType,
+            String direction, BigDecimal amount, String currency, String description, String referenceNumber,
+            LocalDateTime transactionDate, LocalDateTime postedAt) {
+    }
+}
@@ -0,0 +1,133 @@
+package com.banking.internetbanking.service;
+
+import com.banking.internetbanking.config.ShardKeys;
+import com.banking.internetbanking.entity.OutboxEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ファイル配信先
+ * アウトボックスイベントを JSON Lines 形式でファイルに追記する（ローカル開発・検証用）。
+ * 起動時にファイル末尾の行からシャードごとの最終配信位置を復元し、再配信分を書き込まない
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "file")
+public class FileOutboxSink implements OutboxSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileOutboxSink.class);
+
+    private final ObjectMapper objectMapper;
+    private final String consumerName;
+    private final Path path;
+
+    private final Map<Integer, OutboxPosition> lastDelivered;
+
+    public FileOutboxSink(ObjectMapper objectMapper,
+            @Value("${app.outbox.consumer-name:file}") String consumerName,
+            @Value("${app.outbox.file.path:outbox-events.jsonl}") String path) {
+        this.objectMapper = objectMapper;
+        this.consumerName = consumerName;
+        this.path = Path.of(path);
+        this.lastDelivered = recoverLastPositions();
+    }
+
+    @Override
+    public String consumerName() {
+        return consumerName;
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        Map<Integer, OutboxPosition> delivered = new HashMap<>(lastDelivered);
+        for (OutboxEvent event : events) {
+            OutboxPosition position = OutboxPosition.of(event);
+            OutboxPosition last = delivered.get(position.shard());
+            if (last != null && position.compareTo(last) <= 0) {
+                continue; // 再配信分は読み飛ばす
+            }
+            ObjectNode line = objectMapper.createObjectNode();
+            line.put("id", event.getId());
+            line.put("txId", event.getTxId());
+            line.put("aggregateType", event.getAggregateType());
+            line.put("aggregateId", event.getAggregateId());
+            line.put("eventType", event.getEventType());
+            line.set("payload", objectMapper.readTree(event.getPayload()));
+            line.put("createdAt", String.valueOf(event.getCreatedAt()));
+            lines.append(objectMapper.writeValueAsString(line)).append('\n');
+            delivered.put(position.shard(), position);
+        }
+        if (lines.isEmpty()) {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            // オフセットのコミット前にディスクへ確定させる
+            channel.force(false);
+        }
+        lastDelivered.putAll(delivered);
+    }
+
+    @Override
+    public synchronized OutboxPosition lastDeliveredPosition() {
+        return lastDelivered.get(ShardKeys.DEFAULT_SHARD);
+    }
+
+    private Map<Integer, OutboxPosition> recoverLastPositions() {
+        Map<Integer, OutboxPosition> positions = new HashMap<>();
+        if (!Files.exists(path)) {
+            return positions;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "r")) {
+            long end = file.length();
+            if (end == 0) {
+                return positions;
+            }
+            // 末尾から最大64KBを読み、新しい行から順にシャードごとの最後の配信位置を取り出す
+            // （シャーディング無効時はシャード 0 の最後の行だけになる）
+            int length = (int) Math.min(end, 64 * 1024);
+            byte[] tail = new byte[length];
+            file.seek(end - length);
+            file.readFully(tail);
+            String[] lines = new String(tail, StandardCharsets.UTF_8).split("\n");
+            int oldest = length < end ? 1 : 0; // 途中から読んだ先頭行は不完全なので使わない
+            for (int i = lines.length - 1; i >= oldest; i--) {
+                String text = lines[i].trim();
+                if (text.isEmpty()) {
+                    continue;
+                }
+                JsonNode line = objectMapper.readTree(text);
+                OutboxPosition position = new OutboxPosition(line.get("txId").asLong(), line.get("id").asLong());
+                positions.putIfAbsent(position.shard(), position);
+            }
+            logger.info("ファイル配信先の最終配信位置を復元しました: {} ({})", positions, path);
+            return positions;
+        } catch (Exception e) {
+            logger.warn("ファイル配信先の最終配信位置を復元できませんでした（{}）: {}", path, e.getMessage());
+            return positions;
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.banking.internetbanking.service;
+
+import com.banking.internetbanking.config.Bulkhead;
+import com.banking.internetbanking.config.Bulkheads;
+import com.banking.internetbanking.config.PgNotificationListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 為替レート
+ * fx_rates をメモリ上の不変なレート表に読み込み、参照は {@link AtomicReference} から取得した
+ * レート表を引くだけにする（ロックなし）。レートが更新されるとトリガーの NOTIFY で新しい
+ * レート表を作り、参照を丸ごと差し替える。取りこぼしに備えて一定間隔でも読み直す。
+ *
+ * <p>レート表には登録済みのレートに加えて、逆レートと基軸通貨経由のクロスレートを読み込み時に
+ * 計算して入れておくため、換算時の処理は表の参照と long の乗算だけになる。
+ *
+ * <p>更新日時が app.fx.max-rate-age-seconds より古いレートでは換算しない（クロスレートは元のレートの
+ * うち古い方の日時）。読み込みに失敗した場合は直前のレート表で換算を続け、失敗回数をメトリクスに、
+ * 最後に読み込めた日時を /actuator/health の fxRateService に出す。
+ */
+@Service
+public class FxRateService implements SmartLifecycle, HealthIndicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(FxRateService.class);
+
+    public static final String NOTIFY_CHANNEL = "fx_rates";
+    // fx_rates.rate の小数点以下の桁数
+    public static final int RATE_SCALE = 10;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PgNotificationListener notificationListener;
+    private final Bulkheads bulkheads;
+    private final AtomicReference<RateTable> table = new AtomicReference<>(RateTable.EMPTY);
+    private final AtomicReference<Instant> lastReloadedAt = new AtomicReference<>();
+    private final Counter reloadFailures;
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("fx-rate-refresher").daemon().factory());
+
+    @Value("${app.fx.pivot-currency:JPY}")
+    private String pivotCurrency;
+
+    @Value("${app.fx.refresh-interval-seconds:300}")
+    private long refreshIntervalSeconds;
+
+    // 0 以下なら古さを確認しない
+    @Value("${app.fx.max-rate-age-seconds:259200}")
+    private long maxRateAgeSeconds;
+
+    private volatile int consecutiveFailures;
+    private volatile String lastReloadError;
+    private volatile boolean running;
+
+    public FxRateService(JdbcTemplate jdbcTemplate, PgNotificationListener notificationListener,
+            Bulkheads bulkheads, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.notificationListener = notificationListener;
+        this.bulkheads = bulkheads;
+        Gauge.builder("fx.rates.pairs", table, ref -> ref.get().size()).register(meterRegistry);
+        Gauge.builder("fx.rates.reload.age", lastReloadedAt, ref -> secondsSince(ref.get()))
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.reloadFailures = Counter.builder("fx.rates.reload.failures").register(meterRegistry);
+    }
+
+    /**
+     * 換算レートを返す
+     *
+     * @throws CurrencyConversionException レートが登録されていない、または更新日時が古すぎる場合
+     */
+    public Rate getRate(String fromCurrency, String toCurrency) {
+        Rate rate = table.get().get(fromCurrency, toCurrency);
+        if (rate == null) {
+            throw new CurrencyConversionException("為替レートが登録されていません: " + fromCurrency + "/" + toCurrency);
+        }
+        if (maxRateAgeSeconds > 0 && (rate.asOf() == null
+                || rate.asOf().isBefore(LocalDateTime.now().minusSeconds(maxRateAgeSeconds)))) {
+            throw new CurrencyConversionException("為替レートが古いため換算できません: " + fromCurrency + "/" + toCurrency
+                    + "（更新日時: " + rate.asOf() + "）");
+        }
+        return rate;
+    }
+
+    /**
+     * 現在のレートで換算する（結果は銀行家の丸めで換算先の通貨の最小単位にする）
+     */
+    public Conversion convert(Money amount, String toCurrency) {
+        if (amount.currency().equals(toCurrency)) {
+            return new Conversion(amount, amount, null);
+        }
+        Rate rate = getRate(amount.currency(), toCurrency);
+        Money converted = rate.unscaledRate() >= 0
+                ? amount.convert(toCurrency, rate.unscaledRate(), RATE_SCALE, Money.DEFAULT_ROUNDING)
+                : Money.of(amount.toBigDecimal().multiply(rate.rate()), toCurrency, Money.DEFAULT_ROUNDING);
+        return new Conversion(amount, converted, rate);
+    }
+
+    public List<Map<String, Object>> getRates() {
+        return jdbcTemplate.queryForList(
+                "SELECT base_currency, quote_currency, rate, updated_at FROM fx_rates ORDER BY base_currency, quote_currency");
+    }
+
+    /**
+     * レートを登録・更新する。他のノードにはトリガーの NOTIFY で反映される
+     */
+    @Bulkhead(Bulkhead.Type.BATCH)
+    public void updateRate(String baseCurrency, String quoteCurrency, BigDecimal rate) {
+        if (baseCurrency.equals(quoteCurrency)) {
+            throw new CurrencyConversionException("同じ通貨どうしのレートは登録できません");
+        }
+        // 金額列で扱えない通貨のレートは登録しない
+        Money.fractionDigits(baseCurrency);
+        Money.fractionDigits(quoteCurrency);
+        jdbcTemplate.update("INSERT INTO fx_rates (base_currency, quote_currency, rate, updated_at) "
+                + "VALUES (?, ?, ?, CURRENT_TIMESTAMP) "
+                + "ON CONFLICT (base_currency, quote_currency) DO UPDATE "
+                + "SET rate = EXCLUDED.rate, updated_at = EXCLUDED.updated_at",
+                baseCurrency, quoteCurrency, rate.setScale(RATE_SCALE, RoundingMode.HALF_EVEN));
+        reload();
+    }
+
+    @Override
+    public void start() {
+        Runnable reload = bulkheads.bind(Bulkhead.Type.BACKGROUND, this::reload);
+        reload.run();
+        // 通知スレッドを止めないよう、読み直しは専用スレッドで行う
+        notificationListener.subscribe(NOTIFY_CHANNEL, () -> refresher.execute(reload));
+        refresher.scheduleWithFixedDelay(reload, refreshIntervalSeconds, refreshIntervalSeconds,
+                TimeUnit.SECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        refresher.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public Health health() {
+        Instant reloadedAt = lastReloadedAt.get();
+        // 定期読み直し3回分続けて読み込めていなければ DOWN
+        boolean stale = reloadedAt == null
+                || reloadedAt.isBefore(Instant.now().minusSeconds(refreshIntervalSeconds * 3));
+        Health.Builder builder = stale ? Health.down() : Health.up();
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("pairs", table.get().size());
+        details.put("last_reloaded_at", reloadedAt != null ? reloadedAt.toString() : "never");
+        details.put("consecutive_failures", consecutiveFailures);
+        if (lastReloadError != null) {
+            details.put("last_error", lastReloadError);
+        }
+        return builder.withDetails(details).build();
+    }
+
+    @Override
+    public int getPhase() {
+        // Web サーバーが受け付けを始める前にレート表を読み込む
+        return SmartLifecycle.DEFAULT_PHASE - 2048;
+    }
+
+    private synchronized void reload() {
+        try {
+            List<Rate> rates = new ArrayList<>();
+            jdbcTemplate.query("SELECT base_currency, quote_currency, rate, updated_at FROM fx_rates", rs -> {
+                Timestamp updatedAt = rs.getTimestamp("updated_at");
+                rates.add(Rate.of(rs.getString("base_currency"), rs.getString("quote_currency"),
+                        rs.getBigDecimal("rate"), updatedAt != null ? updatedAt.toLocalDateTime() : null));
+            });
+            RateTable next = RateTable.build(rates, pivotCurrency);
+            RateTable previous = table.getAndSet(next);
+            if (previous.size() != next.size()) {
+                logger.info("為替レートを読み込みました（登録: {}件, 換算可能な組み合わせ: {}件）", rates.size(), next.size());
+            }
+            lastReloadedAt.set(Instant.now());
+            consecutiveFailures = 0;
+            lastReloadError = null;
+        } catch (Exception e) {
+            // 読み込みに失敗しても直前のレート表で換算を続ける（古くなったレートは getRate で拒否する）
+            reloadFailures.increment();
+            consecutiveFailures++;
+            lastReloadError = e.getMessage();
+            logger.error("為替レートを読み込めませんでした（連続{}回目）", consecutiveFailures, e);
+        }
+    }
+
+    private static double secondsSince(Instant reloadedAt) {
+        return reloadedAt != null ? Duration.between(reloadedAt, Instant.now()).toSeconds() : Double.NaN;
+    }
+
+    /**
+     * 換算レート（base 1単位あたりの quote の額。unscaledRate は rate × 10^RATE_SCALE）
+     */
+    public record Rate(String baseCurrency, String quoteCurrency, BigDecimal rate, long unscaledRate,
+            LocalDateTime asOf) {
+
+        static Rate of(String baseCurrency, String quoteCurrency, BigDecimal rate, LocalDateTime asOf) {
+            BigDecimal scaled = rate.setScale(RATE_SCALE, RoundingMode.HALF_EVEN);
+            // long に収まらないレート（-1）は換算時に BigDecimal で計算する
+            long unscaled = scaled.precision() <= 18 ? scaled.unscaledValue().longValue() : -1;
+            return new Rate(baseCurrency, quoteCurrency, scaled, unscaled, asOf);
+        }
+
+        Rate inverse() {
+            return of(quoteCurrency, baseCurrency,
+                    BigDecimal.ONE.divide(rate, RATE_SCALE, RoundingMode.HALF_EVEN), asOf);
+        }
+
+        Rate then(Rate next) {
+            LocalDateTime older = asOf == null || (next.asOf != null && next.asOf.isBefore(asOf)) ? next.asOf : asOf;
+            return of(baseCurrency, next.quoteCurrency, rate.multiply(next.rate), older);
+        }
+    }
+
+    /**
+     * 換算結果
+     */
+    public record Conversion(Money source, Money target, Rate rate) {
+    }
+
+    /**
+     * 不変なレート表（通貨 → 通貨 → レート）
+     */
+    private static final class RateTable {
+
+        static final RateTable EMPTY = new RateTable(Map.of(), 0);
+
+        private final Map<String, Map<String, Rate>> rates;
+        private final int size;
+
+        private RateTable(Map<String, Map<String, Rate>> rates, int size) {
+            this.rates = rates;
+            this.size = size;
+        }
+
+        static RateTable build(List<Rate> registered, String pivotCurrency) {
+            Map<String, Map<String, Rate>> building = new HashMap<>();
+            // 登録済みのレートを優先し、無い組み合わせだけ逆レートで補う
+            for (Rate rate : registered) {
+                building.computeIfAbsent(rate.baseCurrency(), k -> new HashMap<>()).put(rate.quoteCurrency(), rate);
+            }
+            for (Rate rate : registered) {
+                building.computeIfAbsent(rate.quoteCurrency(), k -> new HashMap<>())
+                        .putIfAbsent(rate.baseCurrency(), rate.inverse());
+            }
+            // 基軸通貨を経由するクロスレート
+            Map<String, Rate> fromPivot = building.getOrDefault(pivotCurrency, Map.of());
+            for (Map.Entry<String, Map<String, Rate>> entry : building.entrySet()) {
+                Rate toPivot = entry.getValue().get(pivotCurrency);
+                if (toPivot == null) {
+                    continue;
+                }
+                for (Rate pivotToQuote : List.copyOf(fromPivot.values())) {
+                    if (!pivotToQuote.quoteCurrency().equals(entry.getKey())) {
+                        entry.getValue().putIfAbsent(pivotToQuote.quoteCurrency(), toPivot.then(pivotToQuote));
+                    }
+                }
+            }
+
+            Map<String, Map<String, Rate>> frozen = new HashMap<>();
+            int size = 0;
+            for (Map.Entry<String, Map<String, Rate>> entry : building.entrySet()) {
+                frozen.put(entry.getKey(), Map.copyOf(entry.getValue()));
+                size += entry.getValue().size();
+            }
+            return new RateTable(Map.copyOf(frozen), size);
+        }
+
+        Rate get(String fromCurrency, String toCurrency) {
+            Map<String, Rate> quotes = rates.get(fromCurrency);
+            return quotes != null ? quotes.get(toCurrency) : null;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.banking.internetbanking.service;
+
+import com.banking.internetbanking.config.ShardKeys;
+import com.banking.internetbanking.entity.OutboxEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * プロセス内配信先
+ * アウトボックスイベントを Spring のアプリケーションイベントとして発行する（ローカル開発用）。
+ * {@code @EventListener} で {@link OutboxEvent} を受け取れる
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOutboxSink implements OutboxSink {
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final String consumerName;
+
+    // シャードごとの最終配信位置
+    private final Map<Integer, OutboxPosition> lastDelivered = new ConcurrentHashMap<>();
+
+    public InMemoryOutboxSink(ApplicationEventPublisher eventPublisher,
+            @Value("${app.outbox.consumer-name:in-process}") String consumerName) {
+        this.eventPublisher = eventPublisher;
+        this.consumerName = consumerName;
+    }
+
+    @Override
+    public String consumerName() {
+        return consumerName;
+    }
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        for (OutboxEvent event : events) {
+            OutboxPosition position = OutboxPosition.of(event);
+            OutboxPosition last = lastDelivered.get(position.shard());
+            if (last != null && position.compareTo(last) <= 0) {
+                continue; // 再配信分は読み飛ばす
+            }
+            eventPublisher.publishEvent(event);
+            lastDelivered.put(position.shard(), position);
+        }
+    }
+
+    @Override
+    public OutboxPosition lastDeliveredPosition() {
+        return lastDelivered.get(ShardKeys.DEFAULT_SHARD);
+    }
+}
@@ -0,0 +1,23 @@
+package com.banking.internetbanking.service;
+
+import java.io.Serial;
+
+/**
+ * 出金側の口座残高不足
+ */
+public class InsufficientFundsException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final Long accountId;
+
+    public InsufficientFundsException(Long accountId) {
+        super("残高が不足しています");
+        this.accountId = accountId;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+}
@@ -0,0 +1,251 @@
+package com.banking.internetbanking.service;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * エンティティの一覧の定義（並べ替えに使える列と絞り込みの条件）と、キーセット方式の検索条件の組み立て
+ * ページは (並べ替えの列, id) の順に並べ、前のページの最後の行より後ろの行から読む。OFFSET と違い
+ * 何ページ目でも読む行数は1ページ分で、ページをめくる間に行が増減しても重複・欠落しない。
+ *
+ * <p>並べ替えの列が NULL の行は、PostgreSQL の既定と同じく昇順では最後、降順では最初に並べる。
+ * 複数のシャードから読んだ行は {@link #comparator} で同じ順に並べ直してから1ページ分を切り出す。
+ */
+final class KeysetListing<T> {
+
+    private static final String ID = "id";
+
+    private final Class<T> type;
+    private final Function<T, Long> idOf;
+    private final Map<String, SortKey<T>> sortKeys = new LinkedHashMap<>();
+    private final Map<String, Filter> filters = new LinkedHashMap<>();
+
+    KeysetListing(Class<T> type, Function<T, Long> idOf) {
+        this.type = type;
+        this.idOf = idOf;
+        sortKeys.put(ID, new SortKey<>(ID, idOf, Long::valueOf));
+    }
+
+    /**
+     * 並べ替えに使える列（一意な列か、(列, id) の索引がある列にする）
+     */
+    <V extends Comparable<? super V>> KeysetListing<T> sortable(String attribute, Function<T, V> getter,
+            Function<String, V> parser) {
+        sortKeys.put(attribute, new SortKey<>(attribute, getter, parser));
+        return this;
+    }
+
+    /**
+     * 列の値が等しい行に絞り込む条件
+     */
+    KeysetListing<T> filterEqual(String name, String attribute, Function<String, ?> parser) {
+        return filter(name, parser, (cb, root, value) -> cb.equal(root.get(attribute), value));
+    }
+
+    /**
+     * 列の値が指定値以上の行に絞り込む条件
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    <V extends Comparable<? super V>> KeysetListing<T> filterAtLeast(String name, String attribute,
+            Function<String, V> parser) {
+        return filter(name, parser,
+                (cb, root, value) -> cb.greaterThanOrEqualTo(root.<Comparable>get(attribute), (Comparable) value));
+    }
+
+    /**
+     * 列の値が指定値以下の行に絞り込む条件
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    <V extends Comparable<? super V>> KeysetListing<T> filterAtMost(String name, String attribute,
+            Function<String, V> parser) {
+        return filter(name, parser,
+                (cb, root, value) -> cb.lessThanOrEqualTo(root.<Comparable>get(attribute), (Comparable) value));
+    }
+
+    /**
+     * 絞り込みの条件（値は parser で変換してから condition に渡す）
+     */
+    KeysetListing<T> filter(String name, Function<String, ?> parser, Condition condition) {
+        filters.put(name, new Filter(parser, condition));
+        return this;
+    }
+
+    /**
+     * 検索条件を確かめて、シャードごとの検索と結果の並べ替えに使う形にする
+     *
+     * @throws IllegalArgumentException 並べ替えの列・絞り込みの条件・cursor が不正な場合
+     */
+    Query<T> resolve(ListingRequest request) {
+        String sort = request.sort() != null ? request.sort() : ID;
+        SortKey<T> sortKey = sortKeys.get(sort);
+        if (sortKey == null) {
+            throw new IllegalArgumentException("sort は " + String.join(", ", sortKeys.keySet()) + " のいずれかを指定してください");
+        }
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : request.filters().entrySet()) {
+            Filter filter = filters.get(entry.getKey());
+            if (filter == null) {
+                throw new IllegalArgumentException("絞り込みに使えない条件です: " + entry.getKey()
+                        + "（" + String.join(", ", filters.keySet()) + " が使えます）");
+            }
+            try {
+                values.put(entry.getKey(), filter.parser().apply(entry.getValue()));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException(entry.getKey() + " の値が不正です: " + entry.getValue());
+            }
+        }
+        Cursor after = Cursor.decode(request.cursor(), sortKey, request.descending());
+        return new Query<>(sortKey, request.descending(), values, after, request.limit());
+    }
+
+    /**
+     * 並べ替えたシャードごとの行から1ページ分を切り出す
+     */
+    ListingPage<T> toPage(List<T> rows, Query<T> query) {
+        List<T> sorted = new ArrayList<>(rows);
+        sorted.sort(comparator(query));
+        if (sorted.size() <= query.limit()) {
+            return new ListingPage<>(sorted, null);
+        }
+        List<T> page = List.copyOf(sorted.subList(0, query.limit()));
+        T last = page.get(page.size() - 1);
+        Cursor cursor = new Cursor(idOf.apply(last), query.sortKey().getter().apply(last));
+        return new ListingPage<>(page, cursor.encode(query.sortKey().attribute(), query.descending()));
+    }
+
+    /**
+     * 検索と同じ順に並べる比較（NULL は昇順で最後、降順で最初）
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    Comparator<T> comparator(Query<T> query) {
+        Function<T, Comparable> getter = (Function) query.sortKey().getter();
+        Comparator<T> ascending = Comparator.comparing(getter, Comparator.nullsLast(Comparator.naturalOrder()));
+        ascending = ascending.thenComparing(idOf);
+        return query.descending() ? ascending.reversed() : ascending;
+    }
+
+    /**
+     * 絞り込み・続きの位置・並べ替えを付けた検索（件数の上限は呼び出し側で付ける）
+     */
+    CriteriaQuery<T> criteria(CriteriaBuilder cb, Query<T> query) {
+        CriteriaQuery<T> criteria = cb.createQuery(type);
+        Root<T> root = criteria.from(type);
+        List<Predicate> predicates = new ArrayList<>();
+        query.filters().forEach((name, value) ->
+                predicates.add(filters.get(name).condition().toPredicate(cb, root, value)));
+        if (query.after() != null) {
+            predicates.add(after(cb, root, query));
+        }
+        Path<?> sortPath = root.get(query.sortKey().attribute());
+        Path<?> idPath = root.get(ID);
+        criteria.select(root)
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(query.descending()
+                        ? List.of(cb.desc(sortPath), cb.desc(idPath))
+                        : List.of(cb.asc(sortPath), cb.asc(idPath)));
+        return criteria;
+    }
+
+    /**
+     * 前のページの最後の行 (v, i) より後ろの行
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate after(CriteriaBuilder cb, Root<T> root, Query<T> query) {
+        Path<Long> id = root.get(ID);
+        Cursor cursor = query.after();
+        if (ID.equals(query.sortKey().attribute())) {
+            return query.descending() ? cb.lessThan(id, cursor.id()) : cb.greaterThan(id, cursor.id());
+        }
+        Path<Comparable> value = root.get(query.sortKey().attribute());
+        Comparable last = cursor.value();
+        if (!query.descending()) {
+            // 昇順: v > last OR (v = last AND id > i) OR v IS NULL。NULL の行の中では id の順
+            if (last == null) {
+                return cb.and(cb.isNull(value), cb.greaterThan(id, cursor.id()));
+            }
+            return cb.or(cb.greaterThan(value, last),
+                    cb.and(cb.equal(value, last), cb.greaterThan(id, cursor.id())),
+                    cb.isNull(value));
+        }
+        // 降順: NULL の行（id の降順）の後に、値のある行が続く
+        if (last == null) {
+            return cb.or(cb.and(cb.isNull(value), cb.lessThan(id, cursor.id())), cb.isNotNull(value));
+        }
+        return cb.or(cb.lessThan(value, last), cb.and(cb.equal(value, last), cb.lessThan(id, cursor.id())));
+    }
+
+    static LocalDateTime dateTime(String value) {
+        return LocalDateTime.parse(value);
+    }
+
+    static BigDecimal decimal(String value) {
+        return new BigDecimal(value);
+    }
+
+    static Boolean bool(String value) {
+        if (!"true".equalsIgnoreCase(value) && !"false".equalsIgnoreCase(value)) {
+            throw new IllegalArgumentException(value);
+        }
+        return Boolean.valueOf(value);
+    }
+
+    @FunctionalInterface
+    interface Condition {
+        Predicate toPredicate(CriteriaBuilder cb, Root<?> root, Object value);
+    }
+
+    private record Filter(Function<String, ?> parser, Condition condition) {
+    }
+
+    record SortKey<T>(String attribute, Function<T, ? extends Comparable<?>> getter,
+            Function<String, ? extends Comparable<?>> parser) {
+    }
+
+    record Query<T>(SortKey<T> sortKey, boolean descending, Map<String, Object> filters, Cursor after, int limit) {
+    }
+
+    /**
+     * 前のページの最後の行の (id, 並べ替えの列の値)。並べ替えの列と向きを含めて Base64URL で表し、
+     * 別の並べ替えの cursor は受け付けない
+     */
+    record Cursor(Long id, Comparable<?> value) {
+
+        String encode(String sort, boolean descending) {
+            String raw = sort + "|" + (descending ? "d" : "a") + "|" + id + "|" + (value == null ? "-" : "=" + value);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static <T> Cursor decode(String cursor, SortKey<T> sortKey, boolean descending) {
+            if (cursor == null || cursor.isBlank()) {
+                return null;
+            }
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                        .split("\\|", 4);
+                if (parts.length == 4 && parts[0].equals(sortKey.attribute())
+                        && parts[1].equals(descending ? "d" : "a")
+                        && (parts[3].equals("-") || parts[3].startsWith("="))) {
+                    Comparable<?> value = parts[3].equals("-") ? null : sortKey.parser().apply(parts[3].substring(1));
+                    return new Cursor(Long.parseLong(parts[2]), value);
+                }
+            } catch (RuntimeException e) {
+                // 下で不正として扱う
+            }
+            throw new IllegalArgumentException("cursor が不正です（並べ替えを変えた場合は最初のページから読み直してください）");
+        }
+    }
+}
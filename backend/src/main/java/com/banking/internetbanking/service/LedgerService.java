@@ -0,0 +1,173 @@
+package com.banking.internetbanking.service;
+
+import com.banking.internetbanking.entity.Transaction;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 複式簿記の元帳
+ * 取引ごとに借方・貸方の仕訳を postings に追記し、同じトランザクション内で
+ * accounts.balance を差分で更新する。postings は追記専用（更新・削除はトリガーで拒否）のため、
+ * 残高はいつでも仕訳の合計から再計算・監査できる（元帳の導入前の取引は移行時に仕訳にし、
+ * 取引の記録が無い残高は口座ごとの開始残高の仕訳にしている）。残高の参照は従来どおり accounts.balance の1行を読む。
+ *
+ * <p>顧客口座の相手側が銀行外の場合（入金・出金・支払）は相手勘定コードの仕訳を立てる。
+ * 入金側の通貨が異なる取引は、取引に記録された換算後の金額で入金側を記帳する。
+ * 別シャードの口座との送金は、このシャードに無い側をシャード間清算勘定で立てるため、
+ * 各シャードの仕訳はそれぞれのシャード内で借方と貸方が一致する。
+ * 残高の更新は口座ID順に行い、同じ口座を含む送金どうしのデッドロックを避ける。
+ * 出金側は残高が不足していれば更新せず {@link InsufficientFundsException} で全体を取り消す。
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class LedgerService {
+
+    public static final String LEDGER_CUSTOMER = "CUSTOMER";
+    public static final String LEDGER_CASH = "CASH";
+    public static final String LEDGER_PAYMENT_CLEARING = "PAYMENT_CLEARING";
+    public static final String LEDGER_FX_POSITION = "FX_POSITION";
+    public static final String LEDGER_SHARD_CLEARING = "SHARD_CLEARING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public LedgerService(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * 保存済みの取引を元帳に記帳する
+     *
+     * @throws InsufficientFundsException 出金側の残高が不足する場合
+     */
+    public void post(Transaction transaction) {
+        List<Leg> legs = legsOf(transaction);
+
+        // 全明細を1回の複数行 INSERT で書き込む
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO postings (transaction_id, account_id, ledger_code, direction, amount, currency, posted_at) VALUES ");
+        List<Object> args = new ArrayList<>(legs.size() * 7);
+        Timestamp postedAt = Timestamp.valueOf(transaction.getTransactionDate() != null
+                ? transaction.getTransactionDate() : LocalDateTime.now());
+        for (int i = 0; i < legs.size(); i++) {
+            Leg leg = legs.get(i);
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?, ?, ?)");
+            args.add(transaction.getId());
+            args.add(leg.accountId());
+            args.add(leg.ledgerCode());
+            args.add(leg.direction());
+            args.add(leg.amount().toBigDecimal());
+            args.add(leg.amount().currency());
+            args.add(postedAt);
+        }
+        jdbcTemplate.update(sql.toString(), args.toArray());
+
+        legs.stream()
+                .filter(leg -> leg.accountId() != null)
+                .sorted(Comparator.comparing(Leg::accountId))
+                .forEach(this::applyToBalance);
+    }
+
+    private void applyToBalance(Leg leg) {
+        BigDecimal amount = leg.amount().toBigDecimal();
+        List<BalanceRow> updated;
+        if ("D".equals(leg.direction())) {
+            updated = jdbcTemplate.query(
+                    "UPDATE accounts SET balance = balance - ?, updated_at = CURRENT_TIMESTAMP, "
+                            + "version = version + 1 WHERE id = ? AND balance >= ? "
+                            + "RETURNING id, balance, currency, updated_at",
+                    (rs, rowNum) -> balanceRow(rs), amount, leg.accountId(), amount);
+            if (updated.isEmpty()) {
+                throw new InsufficientFundsException(leg.accountId());
+            }
+        } else {
+            updated = jdbcTemplate.query(
+                    "UPDATE accounts SET balance = balance + ?, updated_at = CURRENT_TIMESTAMP, "
+                            + "version = version + 1 WHERE id = ? RETURNING id, balance, currency, updated_at",
+                    (rs, rowNum) -> balanceRow(rs), amount, leg.accountId());
+            if (updated.isEmpty()) {
+                throw new IllegalArgumentException("口座が見つかりません: " + leg.accountId());
+            }
+        }
+        BalanceRow row = updated.get(0);
+        // コミット後に SSE 購読者へ通知される
+        eventPublisher.publishEvent(new BalanceChangedEvent(row.accountId(), row.balance(), row.currency(),
+                row.updatedAt()));
+    }
+
+    private List<Leg> legsOf(Transaction transaction) {
+        // 1/100 未満の端数や列の範囲を超える金額はここで拒否する
+        Money amount = Money.of(transaction.getAmount(), transaction.getCurrency());
+        if (!amount.isPositive()) {
+            throw new IllegalArgumentException("金額は正の値である必要があります");
+        }
+        Money settlement = transaction.getSettlementCurrency() != null
+                ? Money.of(transaction.getSettlementAmount(), transaction.getSettlementCurrency())
+                : amount;
+
+        Long from = transaction.getFromAccountId();
+        Long to = transaction.getToAccountId();
+        String type = transaction.getTransactionType();
+        // 別シャードの口座との送金では、相手側（from / to の NULL の側）がシャード間清算勘定になる
+        boolean interShard = transaction.getCounterpartyAccountId() != null;
+        if (interShard && !"TRANSFER".equals(type)) {
+            throw new IllegalArgumentException("シャードをまたぐ取引は送金のみです: " + type);
+        }
+        Leg debit = switch (type) {
+            case "TRANSFER" -> interShard && from == null
+                    ? new Leg(null, LEDGER_SHARD_CLEARING, "D", amount)
+                    : new Leg(require(from, type), LEDGER_CUSTOMER, "D", amount);
+            case "WITHDRAWAL", "PAYMENT" -> new Leg(require(from, type), LEDGER_CUSTOMER, "D", amount);
+            case "DEPOSIT" -> new Leg(null, LEDGER_CASH, "D", amount);
+            default -> throw new IllegalArgumentException("未対応の取引種別です: " + type);
+        };
+        Leg credit = switch (type) {
+            case "TRANSFER" -> interShard && to == null
+                    ? new Leg(null, LEDGER_SHARD_CLEARING, "C", settlement)
+                    : new Leg(require(to, type), LEDGER_CUSTOMER, "C", settlement);
+            case "DEPOSIT" -> new Leg(require(to, type), LEDGER_CUSTOMER, "C", settlement);
+            case "WITHDRAWAL" -> new Leg(null, LEDGER_CASH, "C", settlement);
+            default -> new Leg(null, LEDGER_PAYMENT_CLEARING, "C", settlement);
+        };
+        if (settlement == amount) {
+            return List.of(debit, credit);
+        }
+        // 通貨をまたぐ取引は為替ポジション勘定を挟み、通貨ごとに借方と貸方を一致させる
+        return List.of(debit,
+                new Leg(null, LEDGER_FX_POSITION, "C", amount),
+                new Leg(null, LEDGER_FX_POSITION, "D", settlement),
+                credit);
+    }
+
+    private static Long require(Long accountId, String type) {
+        if (accountId == null) {
+            throw new IllegalArgumentException(type + " には口座IDが必要です");
+        }
+        return accountId;
+    }
+
+    private static BalanceRow balanceRow(ResultSet rs) throws SQLException {
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        return new BalanceRow(rs.getLong("id"), rs.getBigDecimal("balance"), rs.getString("currency"),
+                updatedAt != null ? updatedAt.toLocalDateTime() : null);
+    }
+
+    private record Leg(Long accountId, String ledgerCode, String direction, Money amount) {
+    }
+
+    private record BalanceRow(Long accountId, BigDecimal balance, String currency, LocalDateTime updatedAt) {
+    }
+}
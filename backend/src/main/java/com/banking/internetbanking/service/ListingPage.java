@@ -0,0 +1,9 @@
+package com.banking.internetbanking.service;
+
+import java.util.List;
+
+/**
+ * 一覧の1ページ（nextCursor が null なら最後のページ）
+ */
+public record ListingPage<T>(List<T> items, String nextCursor) {
+}
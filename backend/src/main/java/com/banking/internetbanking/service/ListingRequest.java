@@ -0,0 +1,53 @@
+package com.banking.internetbanking.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 一覧の検索条件（並べ替えの列と向き・絞り込み・件数・前ページの続きの位置）
+ *
+ * @param sort       並べ替えの列（null は ID 順）
+ * @param descending 降順の場合は true
+ * @param limit      1ページの件数
+ * @param cursor     前ページの {@link ListingPage#nextCursor()}（最初のページは null）
+ * @param filters    絞り込みの条件（列名 → 値）
+ */
+public record ListingRequest(String sort, boolean descending, int limit, String cursor, Map<String, String> filters) {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    /**
+     * クエリパラメータから作る。sort / direction / limit / cursor 以外は絞り込みの条件として扱う
+     *
+     * @throws IllegalArgumentException direction または limit が不正な場合
+     */
+    public static ListingRequest of(Map<String, String> params) {
+        Map<String, String> filters = new LinkedHashMap<>(params);
+        String sort = filters.remove("sort");
+        String direction = filters.remove("direction");
+        String limit = filters.remove("limit");
+        String cursor = filters.remove("cursor");
+        filters.values().removeIf(value -> value == null || value.isBlank());
+
+        boolean descending;
+        if (direction == null || direction.isBlank() || "asc".equalsIgnoreCase(direction)) {
+            descending = false;
+        } else if ("desc".equalsIgnoreCase(direction)) {
+            descending = true;
+        } else {
+            throw new IllegalArgumentException("direction は asc または desc を指定してください");
+        }
+
+        int pageSize = DEFAULT_LIMIT;
+        if (limit != null && !limit.isBlank()) {
+            try {
+                pageSize = Math.min(Math.max(Integer.parseInt(limit), 1), MAX_LIMIT);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("limit は数値で指定してください");
+            }
+        }
+        return new ListingRequest(sort == null || sort.isBlank() ? null : sort, descending, pageSize, cursor,
+                Map.copyOf(filters));
+    }
+}
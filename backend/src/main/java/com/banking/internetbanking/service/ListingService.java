@@ -0,0 +1,106 @@
+package com.banking.internetbanking.service;
+
+import com.banking.internetbanking.config.ShardRouter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 管理画面向けの一覧（{@link KeysetListing}）のページと全件出力
+ * ページは全シャードからそれぞれ1ページ分＋1行を読み、並べ直して1ページ分を返す。
+ *
+ * <p>全件出力は JSON Lines で書き出す。シャードごとに読み取り専用のトランザクションを張り、
+ * fetch size を指定した前方向のみのカーソルで読みながら書き、fetch size の行数ごとに
+ * 永続化コンテキストを空にする（読み終えたエンティティを保持しない）ため、件数にかかわらず
+ * 使用メモリは一定。行はシャード番号順に出力し、各シャードの中で指定の順に並ぶ。
+ */
+@Service
+public class ListingService {
+
+    private final EntityManager entityManager;
+    private final ShardRouter shardRouter;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate exportTemplate;
+
+    @Value("${app.listing.export.fetch-size:1000}")
+    private int fetchSize;
+
+    public ListingService(EntityManager entityManager, ShardRouter shardRouter, ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.shardRouter = shardRouter;
+        this.objectMapper = objectMapper;
+        this.exportTemplate = new TransactionTemplate(transactionManager);
+        this.exportTemplate.setReadOnly(true);
+    }
+
+    /**
+     * @throws IllegalArgumentException 検索条件が不正な場合
+     */
+    <T> ListingPage<T> page(KeysetListing<T> listing, ListingRequest request) {
+        KeysetListing.Query<T> query = listing.resolve(request);
+        List<T> rows = shardRouter.collect(() -> entityManager
+                .createQuery(listing.criteria(entityManager.getCriteriaBuilder(), query))
+                .setMaxResults(RowFetching.withLookahead(query.limit()))
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultList());
+        return listing.toPage(rows, query);
+    }
+
+    /**
+     * 条件に合う全件を1行1エンティティの JSON で書き出す（limit は使わない）。出力先は閉じない
+     *
+     * @throws IllegalArgumentException 検索条件が不正な場合（何も書き出す前に判定する）
+     */
+    <T> void export(KeysetListing<T> listing, ListingRequest request, OutputStream out) throws IOException {
+        KeysetListing.Query<T> query = listing.resolve(request);
+        JsonGenerator generator = objectMapper.createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(generator)) {
+            for (int shard : shardRouter.shardIds()) {
+                shardRouter.run(shard, () -> exportTemplate.executeWithoutResult(status -> {
+                    try {
+                        exportShard(listing, query, writer);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+            }
+            writer.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private <T> void exportShard(KeysetListing<T> listing, KeysetListing.Query<T> query, SequenceWriter writer)
+            throws IOException {
+        TypedQuery<T> select = entityManager.createQuery(listing.criteria(entityManager.getCriteriaBuilder(), query));
+        try (Stream<T> rows = RowFetching.streamed(select, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            int inChunk = 0;
+            for (Iterator<T> iterator = rows.iterator(); iterator.hasNext(); ) {
+                writer.write(iterator.next());
+                if (++inChunk == fetchSize) {
+                    entityManager.clear();
+                    writer.flush();
+                    inChunk = 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.banking.internetbanking.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Objects;
+
+/**
+ * 金額（通貨付きの固定小数点値）
+ * 金額を通貨の最小単位（JPY は 1円、USD は 1セント）の long で保持し、加減算や利率の乗算を
+ * BigDecimal を生成せずに行う。小数点以下の桁数は {@link Currency#getDefaultFractionDigits()} に従う。
+ * 金額列（DECIMAL(15,2)）に保存できるのは小数点以下2桁までの通貨だけなので、それを超える通貨
+ * （BHD・KWD など）や最小単位を持たない通貨は扱わない。値の範囲も金額列の整数部（13桁）に制限するため、
+ * {@link #toBigDecimal()} との相互変換で値は変わらない。
+ *
+ * <p>丸めの方針:
+ * <ul>
+ *   <li>外部から受け取った金額（{@link #of(BigDecimal, String)}）は丸めない。通貨の最小単位未満の端数があれば例外</li>
+ *   <li>端数が出る計算（利率の乗算、換算など）は呼び出し側が丸め方を指定する。省略時は {@link #DEFAULT_ROUNDING}。
+ *       結果は常にその通貨の最小単位に丸める</li>
+ * </ul>
+ * 範囲を超える結果は {@link ArithmeticException}、異なる通貨どうしの計算や扱えない通貨は {@link IllegalArgumentException}。
+ */
+public final class Money implements Comparable<Money> {
+
+    // 金額列（DECIMAL(15,2)）の小数点以下と整数部の桁数
+    public static final int COLUMN_SCALE = 2;
+    public static final int INTEGER_DIGITS = 13;
+    // DECIMAL(15,2) の最大値（9999999999999.99）を 1/100 単位で表した値
+    public static final long MAX_COLUMN_UNITS = 999_999_999_999_999L;
+    public static final RoundingMode DEFAULT_ROUNDING = RoundingMode.HALF_EVEN;
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final long minorUnits;
+    private final String currency;
+    private final int fractionDigits;
+
+    private Money(long minorUnits, String currency, int fractionDigits) {
+        this.minorUnits = checkRange(minorUnits, fractionDigits);
+        this.currency = currency;
+        this.fractionDigits = fractionDigits;
+    }
+
+    /**
+     * @param minorUnits 通貨の最小単位での金額（JPY なら円、USD ならセント）
+     */
+    public static Money ofMinor(long minorUnits, String currency) {
+        return new Money(minorUnits, currency, fractionDigits(currency));
+    }
+
+    public static Money zero(String currency) {
+        return new Money(0, currency, fractionDigits(currency));
+    }
+
+    /**
+     * 丸めずに変換する
+     *
+     * @throws ArithmeticException 通貨の最小単位未満の端数がある、または範囲を超える場合
+     */
+    public static Money of(BigDecimal amount, String currency) {
+        return of(amount, currency, RoundingMode.UNNECESSARY);
+    }
+
+    /**
+     * 通貨の最小単位に丸めて変換する
+     */
+    public static Money of(BigDecimal amount, String currency, RoundingMode rounding) {
+        Objects.requireNonNull(amount, "amount");
+        int digits = fractionDigits(currency);
+        return new Money(amount.setScale(digits, rounding).unscaledValue().longValueExact(), currency, digits);
+    }
+
+    /**
+     * 通貨の小数点以下の桁数
+     *
+     * @throws IllegalArgumentException 通貨コードが不正、または金額列で扱えない通貨の場合
+     */
+    public static int fractionDigits(String currency) {
+        Objects.requireNonNull(currency, "currency");
+        int digits = Currency.getInstance(currency).getDefaultFractionDigits();
+        if (digits < 0 || digits > COLUMN_SCALE) {
+            throw new IllegalArgumentException("この通貨は扱えません: " + currency);
+        }
+        return digits;
+    }
+
+    /**
+     * 金額列の値を 1/100 単位の整数に変換する（通貨を持たない集計用。{@link #minorUnits()} とは単位が異なる）
+     */
+    public static long columnUnitsOf(BigDecimal amount, RoundingMode rounding) {
+        Objects.requireNonNull(amount, "amount");
+        return checkColumnRange(amount.setScale(COLUMN_SCALE, rounding).unscaledValue().longValueExact());
+    }
+
+    /**
+     * 1/100 単位の整数を金額列と同じ精度の BigDecimal に変換する
+     */
+    public static BigDecimal fromColumnUnits(long columnUnits) {
+        return BigDecimal.valueOf(columnUnits, COLUMN_SCALE);
+    }
+
+    /**
+     * 1/100 単位の整数どうしの加算（範囲を超える場合は例外）
+     */
+    public static long addColumnUnits(long a, long b) {
+        return checkColumnRange(Math.addExact(a, b));
+    }
+
+    /**
+     * 通貨の最小単位での金額
+     */
+    public long minorUnits() {
+        return minorUnits;
+    }
+
+    public String currency() {
+        return currency;
+    }
+
+    public int fractionDigits() {
+        return fractionDigits;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, fractionDigits);
+    }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return withMinorUnits(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        requireSameCurrency(other);
+        return withMinorUnits(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public Money negate() {
+        return withMinorUnits(-minorUnits);
+    }
+
+    public Money multiply(BigDecimal rate) {
+        return multiply(rate, DEFAULT_ROUNDING);
+    }
+
+    /**
+     * 利率などを掛けて、結果を通貨の最小単位に丸める
+     */
+    public Money multiply(BigDecimal rate, RoundingMode rounding) {
+        Objects.requireNonNull(rate, "rate");
+        if (rate.scale() >= 0 && rate.scale() < POWERS_OF_TEN.length && rate.precision() <= 18) {
+            return multiply(rate.unscaledValue().longValue(), rate.scale(), rounding);
+        }
+        return of(toBigDecimal().multiply(rate), currency, rounding);
+    }
+
+    /**
+     * 整数部と小数点以下の桁数で表した値（unscaledRate × 10^-rateScale）を掛ける。
+     * 同じレートで繰り返し計算する場合に BigDecimal の分解を省ける
+     */
+    public Money multiply(long unscaledRate, int rateScale, RoundingMode rounding) {
+        Objects.requireNonNull(rounding, "rounding");
+        if (rateScale < 0 || rateScale >= POWERS_OF_TEN.length) {
+            throw new IllegalArgumentException("rateScale は 0 から 18 の範囲で指定してください: " + rateScale);
+        }
+        return scaledProduct(currency, fractionDigits, unscaledRate, rateScale, rateScale, rounding);
+    }
+
+    /**
+     * 別の通貨の金額に換算し、換算先の通貨の最小単位に丸める
+     * （rate は this の通貨1単位あたりの換算先通貨の額）
+     */
+    public Money convert(String targetCurrency, long unscaledRate, int rateScale, RoundingMode rounding) {
+        Objects.requireNonNull(rounding, "rounding");
+        if (rateScale < 0 || rateScale >= POWERS_OF_TEN.length) {
+            throw new IllegalArgumentException("rateScale は 0 から 18 の範囲で指定してください: " + rateScale);
+        }
+        int targetDigits = fractionDigits(targetCurrency);
+        // 換算元の最小単位 × レート を換算先の最小単位にするための桁の移動
+        int shift = rateScale + fractionDigits - targetDigits;
+        return scaledProduct(targetCurrency, targetDigits, unscaledRate, rateScale, shift, rounding);
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof Money other && minorUnits == other.minorUnits && currency.equals(other.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(minorUnits) + currency.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString() + " " + currency;
+    }
+
+    private Money withMinorUnits(long value) {
+        return new Money(value, currency, fractionDigits);
+    }
+
+    /**
+     * minorUnits × unscaledRate ÷ 10^shift を結果の通貨の金額にする
+     */
+    private Money scaledProduct(String resultCurrency, int resultDigits, long unscaledRate, int rateScale,
+            int shift, RoundingMode rounding) {
+        if (shift >= 0 && shift < POWERS_OF_TEN.length) {
+            long high = Math.multiplyHigh(minorUnits, unscaledRate);
+            long product = minorUnits * unscaledRate;
+            if ((high == 0 && product >= 0) || (high == -1 && product < 0)) {
+                return new Money(divide(product, POWERS_OF_TEN[shift], rounding), resultCurrency, resultDigits);
+            }
+        }
+        // 途中の積が long を超える場合だけ BigDecimal で計算する
+        return of(toBigDecimal().multiply(BigDecimal.valueOf(unscaledRate, rateScale)), resultCurrency, rounding);
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("通貨が異なります: " + currency + ", " + other.currency);
+        }
+    }
+
+    private static long checkRange(long minorUnits, int fractionDigits) {
+        long max = POWERS_OF_TEN[INTEGER_DIGITS + fractionDigits] - 1;
+        if (minorUnits > max || minorUnits < -max) {
+            throw new ArithmeticException("金額が範囲を超えています: "
+                    + BigDecimal.valueOf(minorUnits, fractionDigits).toPlainString());
+        }
+        return minorUnits;
+    }
+
+    private static long checkColumnRange(long columnUnits) {
+        return checkRange(columnUnits, COLUMN_SCALE);
+    }
+
+    /**
+     * 正の除数で割り、指定の方法で整数に丸める
+     */
+    private static long divide(long dividend, long divisor, RoundingMode rounding) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+        int signum = dividend < 0 ? -1 : 1;
+        boolean increment = switch (rounding) {
+            case UNNECESSARY -> throw new ArithmeticException("丸めが必要です");
+            case DOWN -> false;
+            case UP -> true;
+            case FLOOR -> signum < 0;
+            case CEILING -> signum > 0;
+            case HALF_UP, HALF_DOWN, HALF_EVEN -> {
+                // |remainder| < divisor <= 10^18 なので2倍しても long に収まる
+                int half = Long.compare(Math.abs(remainder) * 2, divisor);
+                yield half > 0 || (half == 0 && (rounding == RoundingMode.HALF_UP
+                        || (rounding == RoundingMode.HALF_EVEN && (quotient & 1) != 0)));
+            }
+        };
+        return increment ? quotient + signum : quotient;
+    }
+}
@@ -0,0 +1,219 @@
+package com.banking.internetbanking.service;
+
+import com.banking.internetbanking.config.Bulkhead;
+import com.banking.internetbanking.config.Bulkheads;
+import com.banking.internetbanking.config.DedicatedConnectionFactory;
+import com.banking.internetbanking.config.ShardKey;
+import com.banking.internetbanking.config.ShardRouter;
+import com.banking.internetbanking.entity.Transaction;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 口座ごとの月次の入出金集計（account_monthly_rollups）
+ * 取引を記帳するたびに、その取引の顧客口座の仕訳を (口座, 月, 取引種別, 通貨) ごとにまとめて
+ * 同じトランザクションで加算する（UPSERT）。集計の参照は主キーの範囲を読むだけで、
+ * 取引件数にかかわらず月数 × 種別 × 通貨の行数で済む。
+ *
+ * <p>加算は口座ID順に行う。残高の更新（{@link LedgerService}）で同じ口座の行ロックを先に取っているため、
+ * 集計行のロック待ちでデッドロックすることはない。
+ *
+ * <p>作り直し（バックフィル）は口座IDの範囲ごとに、範囲の口座を FOR SHARE でロックしてから
+ * 集計を削除して仕訳から入れ直す。ロック中はその範囲の記帳が待たされるため、記帳中の仕訳が
+ * 二重に数えられたり漏れたりしない。範囲は複数のワーカーで並行に処理する。
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class MonthlyRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MonthlyRollupService.class);
+
+    public static final int MAX_MONTHS = 120;
+
+    private static final long ADVISORY_LOCK_KEY = 0x62616E6B726F6C6CL;
+
+    // 仕訳から集計行を作る SELECT（条件は呼び出し側で付ける）
+    private static final String AGGREGATE = "SELECT p.account_id, date_trunc('month', p.posted_at)::date AS month, "
+            + "%s AS transaction_type, p.currency, "
+            + "COALESCE(SUM(p.amount) FILTER (WHERE p.direction = 'C'), 0), "
+            + "COALESCE(SUM(p.amount) FILTER (WHERE p.direction = 'D'), 0), "
+            + "COUNT(*) FILTER (WHERE p.direction = 'C'), "
+            + "COUNT(*) FILTER (WHERE p.direction = 'D') "
+            + "FROM postings p %s "
+            + "WHERE p.account_id IS NOT NULL AND %s "
+            + "GROUP BY p.account_id, 2, 3, p.currency";
+
+    private static final String INSERT = "INSERT INTO account_monthly_rollups AS r (account_id, month, "
+            + "transaction_type, currency, inflow, outflow, inflow_count, outflow_count) ";
+
+    private static final String RECORD = INSERT
+            + String.format(AGGREGATE, "?", "", "p.transaction_id = ?") + " ORDER BY p.account_id "
+            + "ON CONFLICT (account_id, month, transaction_type, currency) DO UPDATE SET "
+            + "inflow = r.inflow + EXCLUDED.inflow, outflow = r.outflow + EXCLUDED.outflow, "
+            + "inflow_count = r.inflow_count + EXCLUDED.inflow_count, "
+            + "outflow_count = r.outflow_count + EXCLUDED.outflow_count, updated_at = CURRENT_TIMESTAMP";
+
+    private static final String REBUILD = INSERT + String.format(AGGREGATE, "t.transaction_type",
+            "JOIN transactions t ON t.id = p.transaction_id", "p.account_id >= ? AND p.account_id < ?");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+    private final DedicatedConnectionFactory connectionFactory;
+    private final Bulkheads bulkheads;
+    private final Timer rebuildTimer;
+
+    @Value("${app.rollups.rebuild.parallelism:2}")
+    private int parallelism;
+
+    @Value("${app.rollups.rebuild.range-size:10000}")
+    private int rangeSize;
+
+    public MonthlyRollupService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            ShardRouter shardRouter, DedicatedConnectionFactory connectionFactory, Bulkheads bulkheads,
+            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shardRouter = shardRouter;
+        this.connectionFactory = connectionFactory;
+        this.bulkheads = bulkheads;
+        this.rebuildTimer = Timer.builder("rollups.rebuild")
+                .description("月次集計の作り直しの所要時間")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 記帳済みの取引の仕訳を集計に加算する（記帳と同じトランザクションで呼ぶ）
+     */
+    public void record(Transaction transaction) {
+        jdbcTemplate.update(RECORD, transaction.getTransactionType(), transaction.getId());
+    }
+
+    /**
+     * 口座の月次集計（古い月から、同じ月は取引種別・通貨の順）
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    @Bulkhead(Bulkhead.Type.READ)
+    public List<MonthlyRollup> getMonthlyRollups(@ShardKey Long accountId, YearMonth from, YearMonth to) {
+        return jdbcTemplate.query("SELECT month, transaction_type, currency, inflow, outflow, inflow_count, "
+                        + "outflow_count FROM account_monthly_rollups "
+                        + "WHERE account_id = ? AND month >= ? AND month <= ? "
+                        + "ORDER BY month, transaction_type, currency",
+                (rs, rowNum) -> MonthlyRollup.of(rs),
+                accountId, Date.valueOf(from.atDay(1)), Date.valueOf(to.atDay(1)));
+    }
+
+    /**
+     * 全シャードの集計を仕訳から作り直す。他ノードが実行中の場合は何もせず false を返す
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Bulkhead(Bulkhead.Type.BATCH)
+    public boolean rebuild() throws Exception {
+        try (Connection lockConnection = connectionFactory.open("rollup-rebuild-lock")) {
+            if (!tryLock(lockConnection)) {
+                logger.info("他のノードが月次集計を作り直し中のためスキップします。");
+                return false;
+            }
+            long start = System.nanoTime();
+            long ranges = rebuildLocked();
+            long elapsed = System.nanoTime() - start;
+            rebuildTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            logger.info("月次集計を作り直しました（範囲: {}件, {}ms）", ranges, TimeUnit.NANOSECONDS.toMillis(elapsed));
+            return true;
+        }
+    }
+
+    private long rebuildLocked() throws Exception {
+        // ワーカーは background 区画の同時実行数を数える（照合と同時に動いても中継・定期実行の接続を残す）
+        int threads = bulkheads.workers(Bulkhead.Type.BACKGROUND, parallelism);
+        ExecutorService workers = Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().name("rollup-rebuild-worker-", 0).daemon().factory());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int shard : shardRouter.shardIds()) {
+                Map<String, Object> bounds = shardRouter.call(shard, () -> jdbcTemplate.queryForMap(
+                        "SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM accounts"));
+                if (bounds.get("min_id") == null) {
+                    continue;
+                }
+                long min = ((Number) bounds.get("min_id")).longValue();
+                long max = ((Number) bounds.get("max_id")).longValue();
+                for (long low = min; low <= max; low += rangeSize) {
+                    long rangeLow = low;
+                    long rangeHigh = Math.min(low + rangeSize, max + 1);
+                    futures.add(workers.submit(bulkheads.limit(Bulkhead.Type.BACKGROUND, () -> {
+                        shardRouter.run(shard, () -> rebuildRange(rangeLow, rangeHigh));
+                        return null;
+                    })));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return futures.size();
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * 口座IDの範囲 [low, high) の集計を作り直す
+     */
+    private void rebuildRange(long low, long high) {
+        transactionTemplate.executeWithoutResult(status -> {
+            // 範囲の口座の記帳を止める（記帳中の取引はコミットを待つ）。以降の文は待った後の状態を読む
+            jdbcTemplate.query("SELECT id FROM accounts WHERE id >= ? AND id < ? ORDER BY id FOR SHARE",
+                    rs -> {
+                    }, low, high);
+            jdbcTemplate.update("DELETE FROM account_monthly_rollups WHERE account_id >= ? AND account_id < ?",
+                    low, high);
+            jdbcTemplate.update(REBUILD, low, high);
+        });
+    }
+
+    private boolean tryLock(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT pg_try_advisory_lock(" + ADVISORY_LOCK_KEY + ")")) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    /**
+     * 1か月・1取引種別・1通貨の入出金（inflow は口座への入金、outflow は口座からの出金の合計）
+     */
+    public record MonthlyRollup(YearMonth month, String transactionType, String currency, BigDecimal inflow,
+            BigDecimal outflow, BigDecimal net, int inflowCount, int outflowCount) {
+
+        static MonthlyRollup of(ResultSet rs) throws SQLException {
+            BigDecimal inflow = rs.getBigDecimal("inflow");
+            BigDecimal outflow = rs.getBigDecimal("outflow");
+            return new MonthlyRollup(YearMonth.from(rs.getDate("month").toLocalDate()),
+                    rs.getString("transaction_type"), rs.getString("currency"), inflow, outflow,
+                    inflow.subtract(outflow), rs.getInt("inflow_count"), rs.getInt("outflow_count"));
+        }
+    }
+}
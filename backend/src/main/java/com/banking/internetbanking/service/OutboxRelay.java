@@ -0,0 +1,293 @@
+package com.banking.internetbanking.service;
+
+import com.banking.internetbanking.config.Bulkhead;
+import com.banking.internetbanking.config.Bulkheads;
+import com.banking.internetbanking.config.PgNotificationListener;
+import com.banking.internetbanking.config.ShardRouter;
+import com.banking.internetbanking.entity.OutboxEvent;
+import com.banking.internetbanking.service.OutboxSink.OutboxPosition;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * アウトボックスリレー
+ * コミット済みのアウトボックスイベントを (txId, id) 順のバッチで取り出し、配信先に渡す。
+ *
+ * <p>ID は採番順にコミットされるとは限らないため、実行中の最古のトランザクションより前に
+ * 書き込まれた行（tx_id &lt; スナップショットの xmin）だけを対象にする。これにより
+ * オフセットより前に後からイベントが現れることはない。
+ *
+ * <p>オフセット行は FOR UPDATE SKIP LOCKED で確保するため、複数ノードで起動しても
+ * 同じ購読者のバッチを処理するのは常に1ノードだけになる。配信とオフセット更新は同一
+ * トランザクションで行い、配信先は自身の最終配信位置で再配信分を読み飛ばす。
+ *
+ * <p>シャーディング有効時はシャードごとにアウトボックスとオフセットを持ち、各シャードを順に配信する。
+ * トランザクションIDはシャード間で比較できないため、順序はシャード内でのみ保証される。
+ */
+@Component
+public class OutboxRelay implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final String SELECT_BATCH = "SELECT id, tx_id, aggregate_type, aggregate_id, event_type, payload, created_at "
+            + "FROM outbox_events "
+            + "WHERE (tx_id, id) > (?, ?) "
+            + "AND tx_id < txid_snapshot_xmin(txid_current_snapshot()) "
+            + "ORDER BY tx_id, id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxSink sink;
+    private final PgNotificationListener notificationListener;
+    private final ShardRouter shardRouter;
+    private final Bulkheads bulkheads;
+    private final MeterRegistry meterRegistry;
+
+    private final Semaphore wakeups = new Semaphore(0);
+    private final AtomicLong lagEvents = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    @Value("${app.outbox.relay.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.outbox.relay.poll-interval-ms:5000}")
+    private long pollIntervalMs;
+
+    @Value("${app.outbox.relay.lag-refresh-ms:10000}")
+    private long lagRefreshMs;
+
+    @Value("${app.outbox.retention-hours:168}")
+    private long retentionHours;
+
+    private Counter publishedCounter;
+    private Counter failureCounter;
+    private Timer batchTimer;
+
+    private volatile boolean running;
+    private final Set<Integer> offsetRegistered = new HashSet<>();
+    private Thread worker;
+    private long lastLagRefresh;
+    private long lastPurge;
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            OutboxSink sink, PgNotificationListener notificationListener, ShardRouter shardRouter,
+            Bulkheads bulkheads, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sink = sink;
+        this.notificationListener = notificationListener;
+        this.shardRouter = shardRouter;
+        this.bulkheads = bulkheads;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            logger.info("アウトボックスリレーは無効です。");
+            return;
+        }
+
+        String consumer = sink.consumerName();
+        publishedCounter = Counter.builder("outbox.relay.published")
+                .tag("consumer", consumer).register(meterRegistry);
+        failureCounter = Counter.builder("outbox.relay.failures")
+                .tag("consumer", consumer).register(meterRegistry);
+        batchTimer = Timer.builder("outbox.relay.batch")
+                .tag("consumer", consumer).register(meterRegistry);
+        Gauge.builder("outbox.consumer.lag.events", lagEvents, AtomicLong::get)
+                .tag("consumer", consumer).register(meterRegistry);
+        Gauge.builder("outbox.consumer.lag.seconds", lagSeconds, AtomicLong::get)
+                .tag("consumer", consumer).baseUnit("seconds").register(meterRegistry);
+
+        notificationListener.subscribe(OutboxService.NOTIFY_CHANNEL, this::wakeUp);
+
+        running = true;
+        worker = Thread.ofPlatform().name("outbox-relay").daemon()
+                .start(bulkheads.bind(Bulkhead.Type.BACKGROUND, this::relayLoop));
+        logger.info("アウトボックスリレーを開始しました（購読者: {}, バッチサイズ: {}）", consumer, batchSize);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void wakeUp() {
+        if (wakeups.availablePermits() == 0) {
+            wakeups.release();
+        }
+    }
+
+    private void relayLoop() {
+        while (running) {
+            try {
+                boolean backlog = false;
+                for (int shard : shardRouter.shardIds()) {
+                    int delivered = shardRouter.call(shard, () -> {
+                        registerOffsetIfNeeded(shard);
+                        return drainOnce();
+                    });
+                    backlog |= delivered >= batchSize;
+                }
+                refreshLagIfDue();
+                purgeIfDue();
+                if (backlog) {
+                    continue; // 未配信が残っている可能性が高いので待たずに続ける
+                }
+                // NOTIFY で起こされるまで待つ（取りこぼし対策としてポーリング間隔で必ず起きる）
+                wakeups.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS);
+                wakeups.drainPermits();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                failureCounter.increment();
+                logger.warn("アウトボックスの配信に失敗しました。{}ms後に再試行します: {}", pollIntervalMs, e.getMessage());
+                try {
+                    Thread.sleep(pollIntervalMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void registerOffsetIfNeeded(int shard) {
+        // スキーマ初期化より先に起動する場合があるため、ループ内で登録する
+        if (offsetRegistered.contains(shard)) {
+            return;
+        }
+        jdbcTemplate.update("INSERT INTO outbox_consumer_offsets (consumer_name) VALUES (?) "
+                + "ON CONFLICT (consumer_name) DO NOTHING", sink.consumerName());
+        offsetRegistered.add(shard);
+    }
+
+    /**
+     * 現在のシャードの1バッチ分を配信してオフセットを進める
+     *
+     * @return 配信したイベント数（他ノードがオフセットを保持している場合は 0）
+     */
+    int drainOnce() {
+        Integer delivered = transactionTemplate.execute(status -> {
+            List<OutboxPosition> offsets = jdbcTemplate.query(
+                    "SELECT last_tx_id, last_event_id FROM outbox_consumer_offsets "
+                            + "WHERE consumer_name = ? FOR UPDATE SKIP LOCKED",
+                    (rs, rowNum) -> new OutboxPosition(rs.getLong("last_tx_id"), rs.getLong("last_event_id")),
+                    sink.consumerName());
+            if (offsets.isEmpty()) {
+                return 0;
+            }
+            OutboxPosition offset = offsets.get(0);
+
+            List<OutboxEvent> events = jdbcTemplate.query(SELECT_BATCH, (rs, rowNum) -> {
+                Timestamp createdAt = rs.getTimestamp("created_at");
+                return new OutboxEvent(
+                        rs.getLong("id"), rs.getLong("tx_id"), rs.getString("aggregate_type"),
+                        rs.getLong("aggregate_id"), rs.getString("event_type"), rs.getString("payload"),
+                        createdAt != null ? createdAt.toLocalDateTime() : null);
+            }, offset.txId(), offset.eventId(), batchSize);
+            if (events.isEmpty()) {
+                return 0;
+            }
+
+            long start = System.nanoTime();
+            try {
+                sink.publish(events);
+            } catch (Exception e) {
+                throw new IllegalStateException("配信先への送信に失敗しました", e);
+            }
+            batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+            OutboxPosition last = OutboxPosition.of(events.get(events.size() - 1));
+            jdbcTemplate.update("UPDATE outbox_consumer_offsets SET last_tx_id = ?, last_event_id = ?, "
+                    + "updated_at = CURRENT_TIMESTAMP WHERE consumer_name = ?",
+                    last.txId(), last.eventId(), sink.consumerName());
+            publishedCounter.increment(events.size());
+            return events.size();
+        });
+        return delivered != null ? delivered : 0;
+    }
+
+    private void refreshLagIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastLagRefresh < lagRefreshMs) {
+            return;
+        }
+        lastLagRefresh = now;
+        long[] lag = {0, 0};
+        for (int shard : shardRouter.shardIds()) {
+            shardRouter.run(shard, () -> refreshLag(lag));
+        }
+        // 件数はシャードの合計、経過時間は最も遅れているシャードの値
+        lagEvents.set(lag[0]);
+        lagSeconds.set(lag[1]);
+    }
+
+    private void refreshLag(long[] lag) {
+        // 件数は上限付きで数え、未配信が大量でも集計コストを抑える
+        jdbcTemplate.query(
+                "SELECT (SELECT count(*) FROM (SELECT 1 FROM outbox_events e "
+                        + "  WHERE (e.tx_id, e.id) > (o.last_tx_id, o.last_event_id) LIMIT 100000) pending) AS pending, "
+                        + "(SELECT COALESCE(EXTRACT(EPOCH FROM CURRENT_TIMESTAMP - MIN(e.created_at)), 0) "
+                        + "  FROM outbox_events e WHERE (e.tx_id, e.id) > (o.last_tx_id, o.last_event_id)) AS lag_seconds "
+                        + "FROM outbox_consumer_offsets o WHERE o.consumer_name = ?",
+                rs -> {
+                    lag[0] += rs.getLong("pending");
+                    lag[1] = Math.max(lag[1], rs.getLong("lag_seconds"));
+                }, sink.consumerName());
+    }
+
+    private void purgeIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastPurge < TimeUnit.HOURS.toMillis(1)) {
+            return;
+        }
+        lastPurge = now;
+        for (int shard : shardRouter.shardIds()) {
+            shardRouter.run(shard, this::purge);
+        }
+    }
+
+    private void purge() {
+        // すべての購読者が配信済みで、保持期間を過ぎたイベントだけを削除する
+        int purged = jdbcTemplate.update(
+                "DELETE FROM outbox_events e WHERE e.created_at < CURRENT_TIMESTAMP - make_interval(hours => ?) "
+                        + "AND NOT EXISTS (SELECT 1 FROM outbox_consumer_offsets o "
+                        + "  WHERE (e.tx_id, e.id) > (o.last_tx_id, o.last_event_id))",
+                (int) retentionHours);
+        if (purged > 0) {
+            logger.info("保持期間を過ぎたアウトボックスイベントを削除しました: {}件", purged);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.banking.internetbanking.service;
+
+import com.banking.internetbanking.entity.OutboxEvent;
+import com.banking.internetbanking.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * トランザクショナルアウトボックスへの書き込み
+ * 呼び出し元のトランザクション内でイベント行を追加し、コミット時に NOTIFY でリレーを起こす
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxService {
+
+    public static final String NOTIFY_CHANNEL = "outbox_events";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public OutboxService(OutboxEventRepository outboxEventRepository, JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public OutboxEvent record(String aggregateType, Long aggregateId, String eventType, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("アウトボックスのペイロードをシリアライズできません", e);
+        }
+        OutboxEvent event = outboxEventRepository.save(new OutboxEvent(
+                null, null, aggregateType, aggregateId, eventType, json, LocalDateTime.now()));
+
+        // NOTIFY はコミット時に配信され、同一トランザクション内の重複は PostgreSQL がまとめる
+        jdbcTemplate.query("SELECT pg_notify(?, '')", rs -> null, NOTIFY_CHANNEL);
+        return event;
+    }
+}
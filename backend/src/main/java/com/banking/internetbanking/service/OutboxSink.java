@@ -0,0 +1,58 @@
+package com.banking.internetbanking.service;
+
+import com.banking.internetbanking.config.ShardKeys;
+import com.banking.internetbanking.entity.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * アウトボックスイベントの配信先
+ * イベントは (txId, id) の昇順で渡される。リレーは配信後にオフセットをコミットするため、
+ * コミット前に障害が起きると同じイベントが再配信される。実装は {@link #lastDeliveredPosition()}
+ * 以前のイベントを読み飛ばすことで、配信を冪等にすること。
+ * シャーディング有効時は位置をシャード（{@link OutboxPosition#shard()}）ごとに比較すること
+ */
+public interface OutboxSink {
+
+    /**
+     * 購読者名（オフセットテーブルのキー）
+     */
+    String consumerName();
+
+    /**
+     * 順序付きのバッチを配信する。例外を投げた場合、リレーはオフセットを進めない
+     */
+    void publish(List<OutboxEvent> events) throws Exception;
+
+    /**
+     * 配信先が記録している最後の配信位置（シャード 0）。記録を持たない場合は null
+     */
+    default OutboxPosition lastDeliveredPosition() {
+        return null;
+    }
+
+    /**
+     * アウトボックス内の位置（書き込みトランザクションID, イベントID）
+     */
+    record OutboxPosition(long txId, long eventId) implements Comparable<OutboxPosition> {
+
+        public static final OutboxPosition ZERO = new OutboxPosition(0, 0);
+
+        public static OutboxPosition of(OutboxEvent event) {
+            return new OutboxPosition(event.getTxId(), event.getId());
+        }
+
+        /**
+         * イベントを書き込んだシャード（イベントIDの上位ビット）
+         */
+        public int shard() {
+            return ShardKeys.shardOfId(eventId);
+        }
+
+        @Override
+        public int compareTo(OutboxPosition other) {
+            int byTx = Long.compare(txId, other.txId);
+            return byTx != 0 ? byTx : Long.compare(eventId, other.eventId);
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package com.banking.internetbanking.service;
+
+import com.banking.internetbanking.config.Bulkhead;
+import com.banking.internetbanking.config.Bulkheads;
+import com.banking.internetbanking.config.DedicatedConnectionFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 残高照合
+ * 取引履歴から口座ごとの入出金の純額を計算し、accounts.balance と一致するかを確認する。
+ * 不一致は reconciliation_discrepancies に、実行結果は reconciliation_runs に記録する。
+ *
+ * <p>全件照合は口座IDの範囲ごとに分割し、複数のワーカーで並行に処理する。各範囲は
+ * 取引をカーソルで逐次読み込み、範囲内の口座数分の long 配列（金額は 1/100 単位の整数）に
+ * 加算するため、取引件数が増えてもメモリ使用量は範囲の大きさで決まる。
+ * 範囲ごとの取引と残高は同じスナップショット（REPEATABLE READ）から読む。
+ * 通貨の異なる口座への入金は、取引に記録された換算後の金額で数える。
+ *
+ * <p>増分照合は前回の実行以降に取引があった口座、または残高が更新された口座だけを対象にする。
+ * 照合は1ノードだけが実行するよう、アドバイザリロックを取ってから開始する。
+ */
+@Service
+public class ReconciliationService implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReconciliationService.class);
+
+    public static final String MODE_FULL = "FULL";
+    public static final String MODE_INCREMENTAL = "INCREMENTAL";
+
+    private static final long ADVISORY_LOCK_KEY = 0x6962616E6B72636EL;
+    // 取引の記帳時刻と照合開始時刻のずれ（コミットの遅れ）を見込んで、前回開始時刻より前から対象にする
+    private static final long INCREMENTAL_OVERLAP_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final String POSTINGS_BY_RANGE = "SELECT to_account_id AS account_id, (COALESCE(settlement_amount, amount) * 100)::bigint AS units "
+            + "FROM transactions WHERE status = 'COMPLETED' AND to_account_id >= ? AND to_account_id < ? "
+            + "UNION ALL "
+            + "SELECT from_account_id, -(amount * 100)::bigint "
+            + "FROM transactions WHERE status = 'COMPLETED' AND from_account_id >= ? AND from_account_id < ?";
+
+    private static final String POSTINGS_BY_IDS = "SELECT to_account_id AS account_id, (COALESCE(settlement_amount, amount) * 100)::bigint AS units "
+            + "FROM transactions WHERE status = 'COMPLETED' AND to_account_id = ANY(?) "
+            + "UNION ALL "
+            + "SELECT from_account_id, -(amount * 100)::bigint "
+            + "FROM transactions WHERE status = 'COMPLETED' AND from_account_id = ANY(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTemplate;
+    private final DedicatedConnectionFactory connectionFactory;
+    private final Bulkheads bulkheads;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicLong lastDiscrepancies = new AtomicLong();
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+
+    @Value("${app.reconciliation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.reconciliation.parallelism:2}")
+    private int parallelism;
+
+    @Value("${app.reconciliation.range-size:50000}")
+    private int rangeSize;
+
+    @Value("${app.reconciliation.incremental-batch-size:1000}")
+    private int incrementalBatchSize;
+
+    @Value("${app.reconciliation.fetch-size:10000}")
+    private int fetchSize;
+
+    @Value("${app.reconciliation.interval-minutes:15}")
+    private long intervalMinutes;
+
+    public ReconciliationService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            DedicatedConnectionFactory connectionFactory, Bulkheads bulkheads, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTemplate.setReadOnly(true);
+        this.connectionFactory = connectionFactory;
+        this.bulkheads = bulkheads;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("reconciliation.discrepancies", lastDiscrepancies, AtomicLong::get).register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (!enabled) {
+            logger.info("残高照合の定期実行は無効です。");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("reconciliation-scheduler").daemon().factory());
+        scheduler.scheduleWithFixedDelay(bulkheads.bind(Bulkhead.Type.BACKGROUND, () -> {
+            try {
+                run(MODE_INCREMENTAL);
+            } catch (Exception e) {
+                logger.warn("定期の残高照合に失敗しました: {}", e.getMessage());
+            }
+        }), intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 照合を実行する。他ノードが実行中の場合は何もせず null を返す
+     *
+     * @param mode FULL または INCREMENTAL（前回の実行が無い場合は全件照合になる）
+     * @return 実行ID
+     */
+    @Bulkhead(Bulkhead.Type.BATCH)
+    public Long run(String mode) throws Exception {
+        try (Connection lockConnection = connectionFactory.open("reconciliation-lock")) {
+            if (!tryLock(lockConnection)) {
+                logger.info("他のノードが残高照合を実行中のためスキップします。");
+                return null;
+            }
+            return runLocked(mode);
+        }
+    }
+
+    @Bulkhead(Bulkhead.Type.BATCH)
+    public List<Map<String, Object>> getRuns(int limit) {
+        return jdbcTemplate.queryForList(
+                "SELECT id, mode, status, max_transaction_id, accounts_checked, postings_scanned, discrepancies, "
+                        + "error, started_at, finished_at FROM reconciliation_runs ORDER BY id DESC LIMIT ?",
+                limit);
+    }
+
+    @Bulkhead(Bulkhead.Type.BATCH)
+    public List<Map<String, Object>> getDiscrepancies(Long runId) {
+        return jdbcTemplate.queryForList(
+                "SELECT account_id, recorded_balance, computed_balance, difference, detected_at "
+                        + "FROM reconciliation_discrepancies WHERE run_id = ? ORDER BY account_id",
+                runId);
+    }
+
+    private Long runLocked(String requestedMode) throws Exception {
+        Map<String, Object> previous = jdbcTemplate.queryForList(
+                "SELECT max_transaction_id, started_at FROM reconciliation_runs "
+                        + "WHERE status = 'COMPLETED' ORDER BY id DESC LIMIT 1").stream().findFirst().orElse(null);
+        String mode = MODE_INCREMENTAL.equals(requestedMode) && previous != null ? MODE_INCREMENTAL : MODE_FULL;
+
+        long maxTransactionId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM transactions", Long.class);
+        Long runId = insertRun(mode, maxTransactionId);
+        long start = System.nanoTime();
+        logger.info("残高照合を開始します（実行ID: {}, モード: {}）", runId, mode);
+
+        // ワーカーは background 区画の同時実行数を数える（集計の作り直しと同時に動いても中継・定期実行の接続を残す）
+        int threads = bulkheads.workers(Bulkhead.Type.BACKGROUND, parallelism);
+        ExecutorService workers = Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().name("reconciliation-worker-", 0).daemon().factory());
+        try {
+            List<Future<ChunkResult>> futures = new ArrayList<>();
+            for (Chunk chunk : MODE_FULL.equals(mode) ? rangeChunks() : touchedChunks(previous)) {
+                futures.add(workers.submit(bulkheads.limit(Bulkhead.Type.BACKGROUND, () -> reconcile(runId, chunk))));
+            }
+
+            long accounts = 0;
+            long postings = 0;
+            long discrepancies = 0;
+            for (Future<ChunkResult> future : futures) {
+                ChunkResult result = future.get();
+                accounts += result.accountsChecked();
+                postings += result.postingsScanned();
+                discrepancies += result.discrepancies().size();
+            }
+
+            jdbcTemplate.update("UPDATE reconciliation_runs SET status = 'COMPLETED', accounts_checked = ?, "
+                    + "postings_scanned = ?, discrepancies = ?, finished_at = CURRENT_TIMESTAMP WHERE id = ?",
+                    accounts, postings, discrepancies, runId);
+            lastDiscrepancies.set(discrepancies);
+            long elapsed = System.nanoTime() - start;
+            Timer.builder("reconciliation.run").tag("mode", mode.toLowerCase()).register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            if (discrepancies > 0) {
+                logger.warn("残高照合で不一致を検出しました（実行ID: {}, 口座: {}件中 {}件）", runId, accounts, discrepancies);
+            }
+            logger.info("残高照合が完了しました（実行ID: {}, 口座: {}, 取引: {}, 不一致: {}, {}ms）",
+                    runId, accounts, postings, discrepancies, TimeUnit.NANOSECONDS.toMillis(elapsed));
+            return runId;
+        } catch (Exception e) {
+            jdbcTemplate.update("UPDATE reconciliation_runs SET status = 'FAILED', error = ?, "
+                    + "finished_at = CURRENT_TIMESTAMP WHERE id = ?", String.valueOf(e.getMessage()), runId);
+            throw e;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * 全件照合: 口座IDの範囲ごとに分割する
+     */
+    private List<Chunk> rangeChunks() {
+        Map<String, Object> bounds = jdbcTemplate.queryForMap("SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM accounts");
+        List<Chunk> chunks = new ArrayList<>();
+        if (bounds.get("min_id") == null) {
+            return chunks;
+        }
+        long min = ((Number) bounds.get("min_id")).longValue();
+        long max = ((Number) bounds.get("max_id")).longValue();
+        for (long low = min; low <= max; low += rangeSize) {
+            chunks.add(new Chunk(low, Math.min(low + rangeSize, max + 1), null));
+        }
+        return chunks;
+    }
+
+    /**
+     * 増分照合: 前回以降に取引があった口座を、一定数ずつに分割する
+     * 条件ごとに UNION の別の枝にし、各枝が1つの索引（transactions の主キー、transaction_date）の
+     * 範囲だけを読むようにする（OR でまとめると全件走査になりうる）。記帳は必ず取引を伴うため、
+     * 残高が変わった口座はこれで拾える。取引を伴わない残高の書き換えは全件照合で検出する。
+     */
+    private List<Chunk> touchedChunks(Map<String, Object> previous) {
+        long sinceTransactionId = ((Number) previous.get("max_transaction_id")).longValue();
+        Timestamp since = new Timestamp(((Timestamp) previous.get("started_at")).getTime() - INCREMENTAL_OVERLAP_MILLIS);
+        List<Long> touched = jdbcTemplate.queryForList(
+                "SELECT account_id FROM ("
+                        + "  SELECT side.account_id FROM transactions t "
+                        + "  CROSS JOIN LATERAL (VALUES (t.from_account_id), (t.to_account_id)) side(account_id) "
+                        + "  WHERE t.id > ? "
+                        + "  UNION SELECT side.account_id FROM transactions t "
+                        + "  CROSS JOIN LATERAL (VALUES (t.from_account_id), (t.to_account_id)) side(account_id) "
+                        + "  WHERE t.transaction_date >= ? "
+                        + ") touched WHERE account_id IS NOT NULL ORDER BY account_id",
+                Long.class, sinceTransactionId, since);
+
+        List<Chunk> chunks = new ArrayList<>();
+        long[] ids = touched.stream().mapToLong(Long::longValue).toArray();
+        for (int from = 0; from < ids.length; from += incrementalBatchSize) {
+            chunks.add(new Chunk(0, 0, Arrays.copyOfRange(ids, from, Math.min(from + incrementalBatchSize, ids.length))));
+        }
+        return chunks;
+    }
+
+    /**
+     * 1範囲分を照合し、不一致を記録する
+     */
+    private ChunkResult reconcile(Long runId, Chunk chunk) {
+        ChunkResult result = snapshotTemplate.execute(status -> jdbcTemplate.execute((Connection connection) -> {
+            long[] netUnits = new long[chunk.size()];
+            long postings = 0;
+
+            try (PreparedStatement query = connection.prepareStatement(
+                    chunk.isRange() ? POSTINGS_BY_RANGE : POSTINGS_BY_IDS)) {
+                RowFetching.streamed(query, fetchSize);
+                if (chunk.isRange()) {
+                    query.setLong(1, chunk.low());
+                    query.setLong(2, chunk.high());
+                    query.setLong(3, chunk.low());
+                    query.setLong(4, chunk.high());
+                } else {
+                    Array ids = connection.createArrayOf("bigint", Arrays.stream(chunk.ids()).boxed().toArray());
+                    query.setArray(1, ids);
+                    query.setArray(2, ids);
+                }
+                try (ResultSet rs = query.executeQuery()) {
+                    while (rs.next()) {
+                        int index = chunk.indexOf(rs.getLong(1));
+                        if (index >= 0) {
+                            netUnits[index] = Money.addColumnUnits(netUnits[index], rs.getLong(2));
+                        }
+                        postings++;
+                    }
+                }
+            }
+
+            List<Object[]> discrepancies = new ArrayList<>();
+            long accounts = 0;
+            String balanceQuery = chunk.isRange()
+                    ? "SELECT id, (balance * 100)::bigint FROM accounts WHERE id >= ? AND id < ?"
+                    : "SELECT id, (balance * 100)::bigint FROM accounts WHERE id = ANY(?)";
+            try (PreparedStatement query = connection.prepareStatement(balanceQuery)) {
+                RowFetching.streamed(query, fetchSize);
+                if (chunk.isRange()) {
+                    query.setLong(1, chunk.low());
+                    query.setLong(2, chunk.high());
+                } else {
+                    query.setArray(1, connection.createArrayOf("bigint", Arrays.stream(chunk.ids()).boxed().toArray()));
+                }
+                try (ResultSet rs = query.executeQuery()) {
+                    while (rs.next()) {
+                        long accountId = rs.getLong(1);
+                        long recorded = rs.getLong(2);
+                        long computed = netUnits[chunk.indexOf(accountId)];
+                        accounts++;
+                        if (recorded != computed) {
+                            discrepancies.add(new Object[] { runId, accountId, Money.fromColumnUnits(recorded),
+                                    Money.fromColumnUnits(computed),
+                                    Money.fromColumnUnits(Math.subtractExact(recorded, computed)) });
+                        }
+                    }
+                }
+            }
+
+            return new ChunkResult(accounts, postings, discrepancies);
+        }));
+
+        // 読み取り専用のスナップショットを閉じてから記録する（不一致の件数は範囲の口座数以下）
+        if (!result.discrepancies().isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO reconciliation_discrepancies "
+                    + "(run_id, account_id, recorded_balance, computed_balance, difference) VALUES (?, ?, ?, ?, ?)",
+                    result.discrepancies());
+        }
+        return result;
+    }
+
+    private Long insertRun(String mode, long maxTransactionId) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        PreparedStatementCreator creator = connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO reconciliation_runs (mode, status, max_transaction_id) VALUES (?, 'RUNNING', ?)",
+                    new String[] { "id" });
+            statement.setString(1, mode);
+            statement.setLong(2, maxTransactionId);
+            return statement;
+        };
+        jdbcTemplate.update(creator, keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+
+    private boolean tryLock(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT pg_try_advisory_lock(" + ADVISORY_LOCK_KEY + ")")) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    /**
+     * 照合の単位。口座IDの範囲 [low, high)、または口座IDの一覧（昇順）
+     */
+    private record Chunk(long low, long high, long[] ids) {
+
+        boolean isRange() {
+            return ids == null;
+        }
+
+        int size() {
+            return isRange() ? (int) (high - low) : ids.length;
+        }
+
+        int indexOf(long accountId) {
+            return isRange() ? (int) (accountId - low) : Arrays.binarySearch(ids, accountId);
+        }
+    }
+
+    private record ChunkResult(long accountsChecked, long postingsScanned, List<Object[]> discrepancies) {
+    }
+}
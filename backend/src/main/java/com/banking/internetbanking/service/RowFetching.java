@@ -0,0 +1,39 @@
+package com.banking.internetbanking.service;
+
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * 一覧・書き出し・照合で結果の行を読む方法
+ */
+final class RowFetching {
+
+    private RowFetching() {
+    }
+
+    /**
+     * 1ページ分の検索で読む行数。次のページの有無を判定するため1行多く読む
+     */
+    static int withLookahead(int pageSize) {
+        return pageSize + 1;
+    }
+
+    /**
+     * 結果を fetchSize 行ずつ読むようにする。PostgreSQL ドライバーは、トランザクション内（自動コミットでない接続）で
+     * fetchSize を指定したときだけカーソルで逐次読み込み、それ以外では全件をメモリに読み込む。
+     * 呼び出し側はトランザクション内で実行すること
+     */
+    static void streamed(PreparedStatement statement, int fetchSize) throws SQLException {
+        statement.setFetchSize(fetchSize);
+    }
+
+    /**
+     * {@link #streamed(PreparedStatement, int)} の JPA のクエリ版
+     */
+    static <T> TypedQuery<T> streamed(TypedQuery<T> query, int fetchSize) {
+        return query.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize);
+    }
+}
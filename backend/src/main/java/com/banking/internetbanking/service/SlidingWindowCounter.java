@@ -0,0 +1,90 @@
+package com.banking.internetbanking.service;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 時間バケット方式のスライディングウィンドウ集計（件数と金額）
+ * ウィンドウを固定幅のバケットに分けたリングで保持し、各バケットは CAS で置き換える（ロックなし）。
+ *
+ * <p>集計はバケット単位のため、ウィンドウ長より最大1バケット分長い期間を数える
+ * （上限判定としては厳しい側に倒れる）。
+ */
+final class SlidingWindowCounter {
+
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    SlidingWindowCounter(long windowMillis, int bucketCount) {
+        this.bucketMillis = windowMillis / bucketCount;
+        this.bucketCount = bucketCount;
+        this.buckets = new AtomicReferenceArray<>(bucketCount);
+    }
+
+    /**
+     * 指定時刻のバケットに加算する。ウィンドウから外れた時刻（取り消し時など）は無視する
+     */
+    void add(long timestampMillis, long count, long amount) {
+        long epoch = timestampMillis / bucketMillis;
+        int slot = (int) (epoch % bucketCount);
+        while (true) {
+            Bucket current = buckets.get(slot);
+            Bucket updated;
+            if (current == null || current.epoch() < epoch) {
+                // 古い周回のバケットは捨てて作り直す
+                updated = new Bucket(epoch, count, amount);
+            } else if (current.epoch() == epoch) {
+                updated = new Bucket(epoch, current.count() + count, current.amount() + amount);
+            } else {
+                return; // 既に新しい周回で再利用されている
+            }
+            if (buckets.compareAndSet(slot, current, updated)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 現在時刻までのウィンドウ内の合計
+     */
+    Totals totals(long nowMillis) {
+        long currentEpoch = nowMillis / bucketMillis;
+        long oldestEpoch = currentEpoch - bucketCount + 1;
+        long count = 0;
+        long amount = 0;
+        long earliest = Long.MAX_VALUE;
+        for (int i = 0; i < bucketCount; i++) {
+            Bucket bucket = buckets.get(i);
+            if (bucket != null && bucket.epoch() >= oldestEpoch && bucket.epoch() <= currentEpoch
+                    && bucket.count() > 0) {
+                count += bucket.count();
+                amount += bucket.amount();
+                earliest = Math.min(earliest, bucket.epoch());
+            }
+        }
+        // 最も古いバケットがウィンドウから外れるまでの時間（合計が減り始めるまでの待ち時間）
+        long retryAfterMillis = earliest == Long.MAX_VALUE ? 0
+                : (earliest + bucketCount) * bucketMillis - nowMillis;
+        return new Totals(count, amount, Math.max(retryAfterMillis, 0));
+    }
+
+    /**
+     * 最後に加算されたバケットの開始時刻（未使用なら 0）
+     */
+    long lastActivityMillis() {
+        long latest = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            Bucket bucket = buckets.get(i);
+            if (bucket != null) {
+                latest = Math.max(latest, bucket.epoch() * bucketMillis);
+            }
+        }
+        return latest;
+    }
+
+    record Totals(long count, long amount, long retryAfterMillis) {
+    }
+
+    private record Bucket(long epoch, long count, long amount) {
+    }
+}
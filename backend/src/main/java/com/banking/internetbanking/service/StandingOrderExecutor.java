@@ -0,0 +1,373 @@
+package com.banking.internetbanking.service;
+
+import com.banking.internetbanking.config.ShardRouter;
+import com.banking.internetbanking.entity.Transaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 定期・予約振込の実行（現在のシャードの指示を1バッチずつ）
+ * 期限の来た指示を FOR UPDATE SKIP LOCKED で確保するため、複数ノードが同じ指示を選んでも
+ * 実行するのは1ノードだけになる。同じシャードの口座間の振込は、関係する口座をすべて口座ID順に
+ * ロックしてから送金元口座の順に記帳し、回を進める更新と同じトランザクションでコミットする
+ * （途中で落ちても二重には実行されない）。ロックの順序が通常の送金（{@link LedgerService}）と
+ * 同じため、バッチどうしや画面からの送金とデッドロックしない。
+ *
+ * <p>残高不足などで実行できない指示は、ロック済みの残高で事前に判定して記帳せずに再試行を予約し、
+ * 上限回数に達した回は見送る。想定外の例外でバッチが取り消された場合は1件ずつ実行し直し、
+ * 原因の指示だけを失敗として記録する。
+ *
+ * <p>別シャードの口座への振込は1つのトランザクションにできないため、回を進めてコミットしてから
+ * {@link TransferService} で送金する（最大1回の実行。失敗した回は再試行せず last_error に記録する）。
+ *
+ * <p>画面からの振込と同じく、記帳の前（別シャードへの振込は回を進める前）に取引頻度の上限
+ * （{@link VelocityService}）の枠を確保する。上限を超える指示は残高不足と同じく再試行を予約し
+ * （上限の窓が空くまでは待つ）、バッチが取り消された場合や別シャードへの送金が失敗した場合は
+ * 確保した枠を戻す。
+ */
+@Component
+public class StandingOrderExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(StandingOrderExecutor.class);
+
+    private static final String SELECT_CLAIM = "SELECT id, from_account_id, to_account_id, amount, currency, "
+            + "description, frequency, first_run_at, end_date, occurrence, attempts FROM standing_orders "
+            + "WHERE id = ANY(?) AND status = 'ACTIVE' AND next_run_at <= ? "
+            + "ORDER BY from_account_id, id FOR UPDATE SKIP LOCKED";
+
+    private static final String LOCK_ACCOUNTS = "SELECT id, balance, currency, status FROM accounts "
+            + "WHERE id = ANY(?) ORDER BY id FOR UPDATE";
+
+    private final TransactionService transactionService;
+    private final TransferService transferService;
+    private final VelocityService velocityService;
+    private final ShardRouter shardRouter;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter succeededCounter;
+    private final Counter retriedCounter;
+    private final Counter skippedCounter;
+    private final Counter failedCounter;
+    private final Timer batchTimer;
+
+    @Value("${app.standing-orders.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.standing-orders.retry-delay-minutes:60}")
+    private long retryDelayMinutes;
+
+    public StandingOrderExecutor(TransactionService transactionService, TransferService transferService,
+            VelocityService velocityService, ShardRouter shardRouter, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.transactionService = transactionService;
+        this.transferService = transferService;
+        this.velocityService = velocityService;
+        this.shardRouter = shardRouter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.succeededCounter = meterRegistry.counter("standing.orders.executions", "outcome", "succeeded");
+        this.retriedCounter = meterRegistry.counter("standing.orders.executions", "outcome", "retried");
+        this.skippedCounter = meterRegistry.counter("standing.orders.executions", "outcome", "skipped");
+        this.failedCounter = meterRegistry.counter("standing.orders.executions", "outcome", "failed");
+        this.batchTimer = Timer.builder("standing.orders.batch")
+                .description("定期振込の1バッチの実行時間")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 指定した指示のうち、期限が来ていて他のノードが実行していないものを実行する
+     *
+     * @return 実行後も有効な指示の次の実行日時（再試行を含む）。確保できなかった指示は含まない
+     */
+    Map<Long, LocalDateTime> execute(List<Long> ids) {
+        long start = System.nanoTime();
+        try {
+            return executeOrSplit(ids, LocalDateTime.now());
+        } finally {
+            batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Map<Long, LocalDateTime> executeOrSplit(List<Long> ids, LocalDateTime now) {
+        Batch batch = new Batch();
+        try {
+            transactionTemplate.executeWithoutResult(status -> executeBatch(ids, now, batch));
+        } catch (RuntimeException e) {
+            // 取り消したバッチで確保した取引頻度の枠を戻す
+            batch.reservations.forEach(velocityService::release);
+            if (ids.size() == 1) {
+                return recordFailure(ids.get(0), now, e);
+            }
+            logger.warn("定期振込のバッチを取り消し、1件ずつ実行し直します（{}件）: {}", ids.size(), e.getMessage());
+            Map<Long, LocalDateTime> rescheduled = new HashMap<>();
+            for (Long id : ids) {
+                rescheduled.putAll(executeOrSplit(List.of(id), now));
+            }
+            return rescheduled;
+        }
+        // コミットしてから数える（取り消されたバッチは1件ずつの実行で数え直す）
+        succeededCounter.increment(batch.succeeded);
+        retriedCounter.increment(batch.retried);
+        skippedCounter.increment(batch.skipped);
+        for (CrossShardOrder order : batch.crossShard) {
+            transferAcrossShards(order.order(), order.reservation());
+        }
+        return batch.rescheduled;
+    }
+
+    private void executeBatch(List<Long> ids, LocalDateTime now, Batch batch) {
+        List<ClaimedOrder> orders = jdbcTemplate.query(SELECT_CLAIM, (rs, rowNum) -> ClaimedOrder.of(rs),
+                ids.toArray(Long[]::new), Timestamp.valueOf(now));
+        if (orders.isEmpty()) {
+            return;
+        }
+        TreeSet<Long> accountIds = new TreeSet<>();
+        for (ClaimedOrder order : orders) {
+            if (!shardRouter.isCrossShard(order.fromAccountId(), order.toAccountId())) {
+                accountIds.add(order.fromAccountId());
+                accountIds.add(order.toAccountId());
+            }
+        }
+        Map<Long, LockedAccount> accounts = lockAccounts(accountIds);
+
+        for (ClaimedOrder order : orders) {
+            if (shardRouter.isCrossShard(order.fromAccountId(), order.toAccountId())) {
+                if (reserve(order, now, batch)) {
+                    advance(order, now, null, null, batch);
+                    batch.crossShard.add(new CrossShardOrder(order, batch.reservations.getLast()));
+                }
+                continue;
+            }
+            String rejection = check(order, accounts);
+            if (rejection != null) {
+                reject(order, now, rejection, now.plusMinutes(retryDelayMinutes), batch);
+                continue;
+            }
+            if (!reserve(order, now, batch)) {
+                continue;
+            }
+            Transaction transaction = transactionService.createTransaction(order.fromAccountId(),
+                    order.toAccountId(), "TRANSFER", order.amount(), order.currency(), order.description());
+            // 同じバッチの後続の指示の判定に使う残高を更新する（入金側は換算後の金額）
+            accounts.get(order.fromAccountId()).debit(order.amount());
+            accounts.get(order.toAccountId()).credit(transaction.getSettlementAmount() != null
+                    ? transaction.getSettlementAmount() : order.amount());
+            advance(order, now, transaction.getId(), null, batch);
+            batch.succeeded++;
+        }
+    }
+
+    private Map<Long, LockedAccount> lockAccounts(TreeSet<Long> accountIds) {
+        Map<Long, LockedAccount> accounts = new LinkedHashMap<>();
+        if (accountIds.isEmpty()) {
+            return accounts;
+        }
+        jdbcTemplate.query(LOCK_ACCOUNTS, rs -> {
+            accounts.put(rs.getLong("id"), new LockedAccount(rs.getBigDecimal("balance"), rs.getString("currency"),
+                    rs.getString("status")));
+        }, (Object) accountIds.toArray(Long[]::new));
+        return accounts;
+    }
+
+    private static String check(ClaimedOrder order, Map<Long, LockedAccount> accounts) {
+        LockedAccount from = accounts.get(order.fromAccountId());
+        LockedAccount to = accounts.get(order.toAccountId());
+        if (from == null || !"ACTIVE".equals(from.status)) {
+            return "送金元の口座は利用できません: " + order.fromAccountId();
+        }
+        if (to == null || !"ACTIVE".equals(to.status)) {
+            return "送金先の口座は利用できません: " + order.toAccountId();
+        }
+        if (!from.currency.equals(order.currency())) {
+            return "送金元の口座の通貨（" + from.currency + "）と指示の通貨（" + order.currency() + "）が一致しません";
+        }
+        if (from.balance.compareTo(order.amount()) < 0) {
+            return "残高が不足しています";
+        }
+        return null;
+    }
+
+    /**
+     * 取引頻度の上限の枠を確保する。上限を超える場合は窓が空く時刻以降に再試行を予約して false
+     */
+    private boolean reserve(ClaimedOrder order, LocalDateTime now, Batch batch) {
+        try {
+            batch.reservations.add(velocityService.reserve(order.fromAccountId(), order.amount()));
+            return true;
+        } catch (VelocityLimitExceededException e) {
+            LocalDateTime retryAt = now.plusMinutes(retryDelayMinutes);
+            LocalDateTime windowOpensAt = now.plusSeconds(e.getRetryAfterSeconds());
+            reject(order, now, e.getMessage(), windowOpensAt.isAfter(retryAt) ? windowOpensAt : retryAt, batch);
+        } catch (CurrencyConversionException e) {
+            // 基軸通貨への換算レートが無く上限を判定できない
+            reject(order, now, e.getMessage(), now.plusMinutes(retryDelayMinutes), batch);
+        }
+        return false;
+    }
+
+    /**
+     * 今回は実行できなかった。上限回数までは再試行を予約し、達したらこの回を見送る
+     */
+    private void reject(ClaimedOrder order, LocalDateTime now, String reason, LocalDateTime retryAt, Batch batch) {
+        if (order.attempts() + 1 < maxAttempts) {
+            jdbcTemplate.update("UPDATE standing_orders SET attempts = attempts + 1, last_error = ?, "
+                    + "next_run_at = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?",
+                    reason, Timestamp.valueOf(retryAt), order.id());
+            batch.rescheduled.put(order.id(), retryAt);
+            batch.retried++;
+            return;
+        }
+        advance(order, now, null, reason, batch);
+        batch.skipped++;
+        logger.info("定期振込の指示 {} の第{}回を見送りました: {}", order.id(), order.occurrence() + 1, reason);
+    }
+
+    /**
+     * この回を終えて次の回へ進める（単発の指示と終了日を過ぎる指示は終了する）
+     *
+     * @param transactionId 記帳した取引（見送った回と、別シャードへの送金の前は null）
+     * @param error         見送った理由（実行した場合は null）
+     */
+    private void advance(ClaimedOrder order, LocalDateTime now, Long transactionId, String error, Batch batch) {
+        int next = order.occurrence() + 1;
+        LocalDateTime nextRunAt = StandingOrderService.occurrenceAt(order.frequency(), order.firstRunAt(), next);
+        String status = "ACTIVE";
+        if ("ONCE".equals(order.frequency())) {
+            status = error == null ? "COMPLETED" : "FAILED";
+        } else if (order.endDate() != null && nextRunAt.toLocalDate().isAfter(order.endDate())) {
+            status = "COMPLETED";
+        }
+        jdbcTemplate.update("UPDATE standing_orders SET occurrence = ?, next_run_at = ?, status = ?, attempts = 0, "
+                + "last_error = ?, last_run_at = ?, last_transaction_id = COALESCE(?, last_transaction_id), "
+                + "updated_at = CURRENT_TIMESTAMP WHERE id = ?",
+                next, Timestamp.valueOf(nextRunAt), status, error, Timestamp.valueOf(now), transactionId, order.id());
+        if ("ACTIVE".equals(status)) {
+            batch.rescheduled.put(order.id(), nextRunAt);
+        }
+    }
+
+    // 回を進めた後に送金する。結果は同じ回のままの場合だけ記録する。送金できなければ確保した枠を戻す
+    private void transferAcrossShards(ClaimedOrder order, VelocityService.Reservation reservation) {
+        try {
+            Transaction debit;
+            try {
+                debit = transferService.transfer(order.fromAccountId(), order.toAccountId(), order.amount(),
+                        order.currency(), order.description());
+            } catch (RuntimeException e) {
+                velocityService.release(reservation);
+                throw e;
+            }
+            jdbcTemplate.update("UPDATE standing_orders SET last_transaction_id = ?, last_error = NULL, "
+                    + "updated_at = CURRENT_TIMESTAMP WHERE id = ?", debit.getId(), order.id());
+            succeededCounter.increment();
+        } catch (RuntimeException e) {
+            jdbcTemplate.update("UPDATE standing_orders SET last_error = ?, "
+                    + "status = CASE WHEN frequency = 'ONCE' THEN 'FAILED' ELSE status END, "
+                    + "updated_at = CURRENT_TIMESTAMP WHERE id = ? AND occurrence = ?",
+                    String.valueOf(e.getMessage()), order.id(), order.occurrence() + 1);
+            failedCounter.increment();
+            logger.warn("定期振込の指示 {} の別シャードへの送金に失敗しました: {}", order.id(), e.getMessage());
+        }
+    }
+
+    /**
+     * 1件だけで実行しても想定外の例外になった指示を、再試行の予約（または見送り）として記録する
+     */
+    private Map<Long, LocalDateTime> recordFailure(Long id, LocalDateTime now, RuntimeException cause) {
+        failedCounter.increment();
+        logger.warn("定期振込の指示 {} の実行に失敗しました: {}", id, cause.getMessage());
+        Batch batch = new Batch();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<ClaimedOrder> orders = jdbcTemplate.query(SELECT_CLAIM, (rs, rowNum) -> ClaimedOrder.of(rs),
+                        new Long[] {id}, Timestamp.valueOf(now));
+                for (ClaimedOrder order : orders) {
+                    reject(order, now, "実行に失敗しました: " + cause.getMessage(),
+                            now.plusMinutes(retryDelayMinutes), batch);
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.warn("定期振込の指示 {} の失敗を記録できませんでした: {}", id, e.getMessage());
+        }
+        return batch.rescheduled;
+    }
+
+    /**
+     * 1回のバッチの結果（コミットするまで反映しない）
+     */
+    private static final class Batch {
+
+        final List<CrossShardOrder> crossShard = new ArrayList<>();
+        final List<VelocityService.Reservation> reservations = new ArrayList<>();
+        final Map<Long, LocalDateTime> rescheduled = new HashMap<>();
+        int succeeded;
+        int retried;
+        int skipped;
+    }
+
+    private record CrossShardOrder(ClaimedOrder order, VelocityService.Reservation reservation) {
+    }
+
+    /**
+     * ロック済みの口座（バッチ内で記帳した分を反映した残高）
+     */
+    private static final class LockedAccount {
+
+        BigDecimal balance;
+        final String currency;
+        final String status;
+
+        LockedAccount(BigDecimal balance, String currency, String status) {
+            this.balance = balance;
+            this.currency = currency;
+            this.status = status;
+        }
+
+        void debit(BigDecimal amount) {
+            balance = balance.subtract(amount);
+        }
+
+        void credit(BigDecimal amount) {
+            balance = balance.add(amount);
+        }
+    }
+
+    /**
+     * 確保した standing_orders の1行
+     */
+    private record ClaimedOrder(Long id, Long fromAccountId, Long toAccountId, BigDecimal amount, String currency,
+            String description, String frequency, LocalDateTime firstRunAt, LocalDate endDate, int occurrence,
+            int attempts) {
+
+        static ClaimedOrder of(ResultSet rs) throws SQLException {
+            Date endDate = rs.getDate("end_date");
+            return new ClaimedOrder(rs.getLong("id"), rs.getLong("from_account_id"), rs.getLong("to_account_id"),
+                    rs.getBigDecimal("amount"), rs.getString("currency"), rs.getString("description"),
+                    rs.getString("frequency"), rs.getTimestamp("first_run_at").toLocalDateTime(),
+                    endDate != null ? endDate.toLocalDate() : null, rs.getInt("occurrence"), rs.getInt("attempts"));
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.banking.internetbanking.service;
+
+import com.banking.internetbanking.config.Bulkhead;
+import com.banking.internetbanking.config.Bulkheads;
+import com.banking.internetbanking.config.ShardRouter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 定期・予約振込のスケジューラ
+ * 一定時間先（horizon）までに期限が来る指示を定期的に読み込んで階層型タイミングホイールに登録し、
+ * 期限が来た指示を1秒刻みで実行待ちの列に移す。実行待ちの指示はシャードごとのバッチにまとめ、
+ * 1秒あたりの上限件数を超えないように間隔を空けて {@link StandingOrderExecutor} で実行する。
+ * 月末の0時などに期限が集中しても、データベースへの負荷は上限件数で頭打ちになり、
+ * 実行待ちの列が伸びる（その長さと遅れをメトリクスで確認できる）。
+ *
+ * <p>どのノードも同じ指示をホイールに登録するが、実行時に行ロック（SKIP LOCKED）で確保できた
+ * ノードだけが実行し、他のノードは読み飛ばす。ホイールは起こす時刻を決めるだけで、期限の正は
+ * standing_orders.next_run_at のため、ノードが止まっている間に期限が過ぎた指示も次の読み込みで
+ * 実行される。
+ */
+@Component
+public class StandingOrderScheduler implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(StandingOrderScheduler.class);
+
+    private static final int WHEEL_SIZE = 60;
+    private static final int WHEEL_LEVELS = 3;
+
+    private static final String SELECT_UPCOMING = "SELECT id, next_run_at FROM standing_orders "
+            + "WHERE status = 'ACTIVE' AND next_run_at < ? ORDER BY next_run_at LIMIT ?";
+
+    private final StandingOrderExecutor executor;
+    private final ShardRouter shardRouter;
+    private final Bulkheads bulkheads;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentLinkedQueue<long[]> incoming = new ConcurrentLinkedQueue<>();
+    // 期限が来た順。読み込み直しで同じ指示が再び期限切れになっても重複させない
+    private final LinkedHashSet<Long> ready = new LinkedHashSet<>();
+    private final Semaphore wakeups = new Semaphore(0);
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private final AtomicLong scheduled = new AtomicLong();
+    private final AtomicLong readyCount = new AtomicLong();
+
+    @Value("${app.standing-orders.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.standing-orders.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${app.standing-orders.horizon-minutes:60}")
+    private long horizonMinutes;
+
+    @Value("${app.standing-orders.refresh-interval-seconds:60}")
+    private long refreshIntervalSeconds;
+
+    @Value("${app.standing-orders.max-scheduled:100000}")
+    private int maxScheduled;
+
+    @Value("${app.standing-orders.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.standing-orders.max-per-second:200}")
+    private double maxPerSecond;
+
+    private TimingWheel wheel;
+    private volatile boolean running;
+    private Thread worker;
+    private long lastRefresh;
+    private long nextDispatchNanos;
+
+    public StandingOrderScheduler(StandingOrderExecutor executor, ShardRouter shardRouter, Bulkheads bulkheads,
+            JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.executor = executor;
+        this.shardRouter = shardRouter;
+        this.bulkheads = bulkheads;
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            logger.info("定期振込のスケジューラは無効です。");
+            return;
+        }
+        wheel = new TimingWheel(tickMs, WHEEL_SIZE, WHEEL_LEVELS, System.currentTimeMillis());
+        if (TimeUnit.MINUTES.toMillis(horizonMinutes) >= wheel.rangeMillis()) {
+            throw new IllegalStateException("app.standing-orders.horizon-minutes はタイミングホイールの範囲（"
+                    + TimeUnit.MILLISECONDS.toMinutes(wheel.rangeMillis()) + "分）未満で指定してください");
+        }
+
+        Gauge.builder("standing.orders.backlog", backlog, AtomicLong::get)
+                .description("期限を過ぎて未実行の指示の数").register(meterRegistry);
+        Gauge.builder("standing.orders.lag.seconds", lagSeconds, AtomicLong::get)
+                .description("未実行の指示のうち最も古い期限からの経過時間").baseUnit("seconds").register(meterRegistry);
+        Gauge.builder("standing.orders.scheduled", scheduled, AtomicLong::get)
+                .description("タイミングホイールに登録済みの指示の数").register(meterRegistry);
+        Gauge.builder("standing.orders.ready", readyCount, AtomicLong::get)
+                .description("期限が来て実行を待っている指示の数（このノード）").register(meterRegistry);
+
+        running = true;
+        worker = Thread.ofPlatform().name("standing-order-scheduler").daemon()
+                .start(bulkheads.bind(Bulkhead.Type.BACKGROUND, this::schedulerLoop));
+        logger.info("定期振込のスケジューラを開始しました（バッチサイズ: {}, 上限: {}件/秒）", batchSize, maxPerSecond);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 登録・変更した指示をホイールに登録する（次の読み込みを待たずに実行するため）
+     */
+    public void schedule(long id, LocalDateTime nextRunAt) {
+        if (!running) {
+            return;
+        }
+        incoming.add(new long[] {id, toEpochMillis(nextRunAt)});
+        if (wakeups.availablePermits() == 0) {
+            wakeups.release();
+        }
+    }
+
+    private void schedulerLoop() {
+        while (running) {
+            try {
+                long now = System.currentTimeMillis();
+                if (now - lastRefresh >= TimeUnit.SECONDS.toMillis(refreshIntervalSeconds)) {
+                    lastRefresh = now;
+                    refresh(now);
+                }
+                long[] entry;
+                while ((entry = incoming.poll()) != null) {
+                    wheel.schedule(entry[0], entry[1]);
+                }
+                wheel.advance(now, ready::add);
+                scheduled.set(wheel.size());
+                readyCount.set(ready.size());
+
+                if (ready.isEmpty()) {
+                    // 次の tick まで待つ（登録があれば起こされる）
+                    wakeups.tryAcquire(tickMs, TimeUnit.MILLISECONDS);
+                    wakeups.drainPermits();
+                    continue;
+                }
+                dispatchBatch();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.warn("定期振込のスケジューラでエラーが発生しました。{}ms後に再試行します: {}", tickMs, e.getMessage());
+                try {
+                    Thread.sleep(tickMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * horizon までに期限が来る指示（期限を過ぎたものを含む）をホイールに登録し、遅れを集計する
+     */
+    private void refresh(long now) {
+        Timestamp until = new Timestamp(now + TimeUnit.MINUTES.toMillis(horizonMinutes));
+        long[] lag = {0, 0};
+        for (int shard : shardRouter.shardIds()) {
+            shardRouter.run(shard, () -> {
+                jdbcTemplate.query(SELECT_UPCOMING,
+                        rs -> {
+                            wheel.schedule(rs.getLong("id"), rs.getTimestamp("next_run_at").getTime());
+                        }, until, maxScheduled);
+                // 件数は上限付きで数え、未実行が大量でも集計コストを抑える
+                jdbcTemplate.query("SELECT (SELECT count(*) FROM (SELECT 1 FROM standing_orders "
+                                + "  WHERE status = 'ACTIVE' AND next_run_at <= CURRENT_TIMESTAMP LIMIT 100000) due) AS due, "
+                                + "COALESCE(EXTRACT(EPOCH FROM CURRENT_TIMESTAMP - (SELECT MIN(next_run_at) "
+                                + "  FROM standing_orders WHERE status = 'ACTIVE' AND next_run_at <= CURRENT_TIMESTAMP)), 0) "
+                                + "AS lag_seconds",
+                        rs -> {
+                            lag[0] += rs.getLong("due");
+                            lag[1] = Math.max(lag[1], rs.getLong("lag_seconds"));
+                        });
+            });
+        }
+        // 件数はシャードの合計、経過時間は最も遅れているシャードの値
+        backlog.set(lag[0]);
+        lagSeconds.set(lag[1]);
+    }
+
+    /**
+     * 実行待ちの先頭から1バッチ分を取り出し、シャードごとに実行する。上限件数/秒を超えないよう、
+     * 前のバッチの件数に応じた間隔を空ける
+     */
+    private void dispatchBatch() {
+        long wait = nextDispatchNanos - System.nanoTime();
+        if (wait > 0) {
+            LockSupport.parkNanos(wait);
+        }
+        Map<Integer, List<Long>> byShard = new LinkedHashMap<>();
+        int count = 0;
+        Iterator<Long> iterator = ready.iterator();
+        while (count < batchSize && iterator.hasNext()) {
+            long id = iterator.next();
+            iterator.remove();
+            byShard.computeIfAbsent(shardRouter.shardOfId(id), shard -> new ArrayList<>()).add(id);
+            count++;
+        }
+        nextDispatchNanos = Math.max(nextDispatchNanos, System.nanoTime()) + (long) (count * 1e9 / maxPerSecond);
+
+        for (Map.Entry<Integer, List<Long>> entry : byShard.entrySet()) {
+            Map<Long, LocalDateTime> rescheduled = shardRouter.call(entry.getKey(),
+                    () -> executor.execute(entry.getValue()));
+            // 再試行・次の回がホイールの範囲内ならそのまま登録する（範囲外は後の読み込みで登録される）
+            rescheduled.forEach((id, nextRunAt) -> wheel.schedule(id, toEpochMillis(nextRunAt)));
+        }
+        readyCount.set(ready.size());
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,107 @@
+package com.banking.internetbanking.service;
+
+import com.banking.internetbanking.config.Bulkhead;
+import com.banking.internetbanking.config.ShardKey;
+import com.banking.internetbanking.config.ShardRouter;
+import com.banking.internetbanking.entity.Account;
+import com.banking.internetbanking.entity.StandingOrder;
+import com.banking.internetbanking.repository.AccountRepository;
+import com.banking.internetbanking.repository.StandingOrderRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 定期・予約振込の指示の登録・参照・取消
+ * 指示は送金元口座のシャードに記録し、実行は {@link StandingOrderScheduler} が行う。
+ */
+@Service
+@Transactional
+@Bulkhead(Bulkhead.Type.READ)
+public class StandingOrderService {
+
+    private final StandingOrderRepository standingOrderRepository;
+    private final AccountRepository accountRepository;
+    private final ShardRouter shardRouter;
+    private final StandingOrderScheduler scheduler;
+
+    public StandingOrderService(StandingOrderRepository standingOrderRepository,
+            AccountRepository accountRepository, ShardRouter shardRouter, StandingOrderScheduler scheduler) {
+        this.standingOrderRepository = standingOrderRepository;
+        this.accountRepository = accountRepository;
+        this.shardRouter = shardRouter;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * 指示を登録する。金額は送金元口座の通貨とする
+     *
+     * @param firstRunAt 1回目の実行日時（null は今すぐ）
+     * @param endDate    この日を過ぎる回は実行しない（null は無期限）
+     * @throws IllegalArgumentException 口座が見つからない・利用できない場合や日付が不正な場合
+     */
+    @Bulkhead(Bulkhead.Type.WRITE)
+    public StandingOrder createStandingOrder(@ShardKey Long fromAccountId, Long toAccountId, BigDecimal amount,
+            String frequency, LocalDateTime firstRunAt, LocalDate endDate, String description) {
+        Account fromAccount = accountRepository.findById(fromAccountId)
+                .orElseThrow(() -> new IllegalArgumentException("口座が見つかりません: " + fromAccountId));
+        if (!"ACTIVE".equals(fromAccount.getStatus())) {
+            throw new IllegalArgumentException("送金元の口座は利用できません: " + fromAccountId);
+        }
+        if (!shardRouter.call(shardRouter.shardOfId(toAccountId), () -> accountRepository.existsById(toAccountId))) {
+            throw new IllegalArgumentException("口座が見つかりません: " + toAccountId);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime firstRun = firstRunAt != null ? firstRunAt : now;
+        if (endDate != null && endDate.isBefore(firstRun.toLocalDate())) {
+            throw new IllegalArgumentException("終了日は1回目の実行日以降で指定してください");
+        }
+        StandingOrder order = standingOrderRepository.save(new StandingOrder(
+                null, fromAccountId, toAccountId, amount, fromAccount.getCurrency(),
+                description != null ? description : "定期振込", frequency, firstRun, endDate, now));
+
+        // コミット前の行はスケジューラから見えないため、コミット後にタイマーへ登録する
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                scheduler.schedule(order.getId(), order.getNextRunAt());
+            }
+        });
+        return order;
+    }
+
+    @Transactional(readOnly = true)
+    public List<StandingOrder> getStandingOrdersByAccountId(@ShardKey Long accountId) {
+        return standingOrderRepository.findByFromAccountIdOrderByIdDesc(accountId);
+    }
+
+    /**
+     * 実行待ちの指示を取り消す（実行中の回は完了を待ってから取り消す）
+     *
+     * @return 取り消した場合は true。指示が無いか、終了・取消済みの場合は false
+     */
+    @Bulkhead(Bulkhead.Type.WRITE)
+    public boolean cancelStandingOrder(@ShardKey Long id) {
+        return standingOrderRepository.cancel(id) > 0;
+    }
+
+    /**
+     * n 回目（0 から）の予定日時。毎月の指示は1回目の日付を基準にするため、31日の指示は
+     * 月末が31日より前の月はその月末に実行し、翌月はまた31日に戻る
+     */
+    static LocalDateTime occurrenceAt(String frequency, LocalDateTime firstRunAt, int occurrence) {
+        return switch (frequency) {
+            case "ONCE" -> firstRunAt;
+            case "DAILY" -> firstRunAt.plusDays(occurrence);
+            case "WEEKLY" -> firstRunAt.plusWeeks(occurrence);
+            case "MONTHLY" -> firstRunAt.plusMonths(occurrence);
+            default -> throw new IllegalArgumentException("不明な頻度です: " + frequency);
+        };
+    }
+}
@@ -0,0 +1,325 @@
+package com.banking.internetbanking.service;
+
+import com.banking.internetbanking.config.Bulkhead;
+import com.banking.internetbanking.config.ShardKey;
+import com.banking.internetbanking.repository.VersionStamp;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 取引明細（ステートメント）の出力
+ * 取引をサーバー側カーソルで少しずつ読みながら CSV / PDF に書き出すため、期間内の取引件数に
+ * かかわらず使用メモリは一定（PDF はページの位置として1ページあたり数十バイトを保持する）。
+ *
+ * <p>各行には取引後の残高を付ける。期首残高は現在の残高から期首以降の取引の純額を差し引いて求め、
+ * 残高と取引は同じスナップショット（REPEATABLE READ）から読む。同じ期間・同じ取引であれば
+ * 出力は毎回同じバイト列になるため、途中から再開する Range リクエストにも使える。
+ * Range リクエストでは {@link #withSnapshot} で明細の版（ETag）の取得と複数回の書き出しを
+ * 1つのスナップショットで行い、ETag・全体の長さ・切り出す内容が食い違わないようにする。
+ */
+@Service
+@Bulkhead(Bulkhead.Type.BATCH)
+public class StatementExportService {
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_PDF = "pdf";
+
+    static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // 出金側・入金側をそれぞれ口座ごとの索引で古い順に読み、マージして返す
+    private static final String ROWS = "SELECT id, transaction_date, reference_number, transaction_type, description, "
+            + "from_account_id, to_account_id, amount, settlement_amount FROM transactions "
+            + "WHERE from_account_id = ? AND status = 'COMPLETED' AND transaction_date BETWEEN ? AND ? "
+            + "UNION ALL "
+            + "SELECT id, transaction_date, reference_number, transaction_type, description, "
+            + "from_account_id, to_account_id, amount, settlement_amount FROM transactions "
+            + "WHERE to_account_id = ? AND from_account_id IS DISTINCT FROM ? "
+            + "AND status = 'COMPLETED' AND transaction_date BETWEEN ? AND ? "
+            + "ORDER BY transaction_date, id";
+
+    // TransactionRepository#findVersionStampByAccountIdAndDateRange と同じ集計
+    private static final String VERSION_STAMP = "SELECT COUNT(*), MAX(transaction_date), MAX(id), SUM(version)::bigint "
+            + "FROM transactions WHERE (from_account_id = ? OR to_account_id = ?) AND transaction_date BETWEEN ? AND ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTemplate;
+
+    @Value("${app.statement.fetch-size:5000}")
+    private int fetchSize;
+
+    public StatementExportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTemplate.setReadOnly(true);
+    }
+
+    /**
+     * 期間内（両端を含む）の取引明細を書き出す。出力先は閉じない
+     *
+     * @throws IllegalArgumentException 口座が存在しない場合
+     */
+    public void export(@ShardKey Long accountId, LocalDateTime startDate, LocalDateTime endDate, String format,
+            OutputStream out) throws IOException {
+        withSnapshot(accountId, startDate, endDate, format, snapshot -> {
+            snapshot.writeTo(out);
+            return null;
+        });
+    }
+
+    /**
+     * 1つのスナップショット（REPEATABLE READ の読み取り専用トランザクション）の中で callback を呼ぶ。
+     * callback 内の {@link Snapshot#version()} と {@link Snapshot#writeTo} は何度呼んでも同じ内容を返す
+     */
+    public <T> T withSnapshot(@ShardKey Long accountId, LocalDateTime startDate, LocalDateTime endDate,
+            String format, SnapshotCallback<T> callback) throws IOException {
+        try {
+            return snapshotTemplate.execute(status -> jdbcTemplate.execute((Connection connection) -> {
+                try {
+                    return callback.doInSnapshot(new Snapshot(connection, accountId, startDate, endDate, format));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * スナップショットから明細の版と内容を読む（{@link #withSnapshot} の callback の中でだけ使える）
+     */
+    public final class Snapshot {
+
+        private final Connection connection;
+        private final Long accountId;
+        private final LocalDateTime startDate;
+        private final LocalDateTime endDate;
+        private final String format;
+
+        private Snapshot(Connection connection, Long accountId, LocalDateTime startDate, LocalDateTime endDate,
+                String format) {
+            this.connection = connection;
+            this.accountId = accountId;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.format = format;
+        }
+
+        /**
+         * 期間内の取引の版（ETag の計算に使う）
+         */
+        public VersionStamp version() throws IOException {
+            try (PreparedStatement query = connection.prepareStatement(VERSION_STAMP)) {
+                query.setLong(1, accountId);
+                query.setLong(2, accountId);
+                query.setTimestamp(3, Timestamp.valueOf(startDate));
+                query.setTimestamp(4, Timestamp.valueOf(endDate));
+                try (ResultSet rs = query.executeQuery()) {
+                    rs.next();
+                    Timestamp lastModified = rs.getTimestamp(2);
+                    return new VersionStamp(rs.getLong(1), lastModified != null ? lastModified.toLocalDateTime() : null,
+                            rs.getObject(3, Long.class), rs.getObject(4, Long.class));
+                }
+            } catch (SQLException e) {
+                throw translate(e);
+            }
+        }
+
+        /**
+         * 明細を書き出す。出力先は閉じない
+         */
+        public void writeTo(OutputStream out) throws IOException {
+            try {
+                write(connection, accountId, startDate, endDate, format, out);
+            } catch (SQLException e) {
+                throw translate(e);
+            }
+        }
+
+        // callback には SQLException を出さず、JdbcTemplate と同じ例外に変換して返す
+        private RuntimeException translate(SQLException e) {
+            DataAccessException translated = jdbcTemplate.getExceptionTranslator().translate("statement export", null, e);
+            return translated != null ? translated : new UncategorizedSQLException("statement export", null, e);
+        }
+    }
+
+    @FunctionalInterface
+    public interface SnapshotCallback<T> {
+
+        T doInSnapshot(Snapshot snapshot) throws IOException;
+    }
+
+    private void write(Connection connection, Long accountId, LocalDateTime startDate, LocalDateTime endDate,
+            String format, OutputStream out) throws SQLException, IOException {
+        Header header = header(connection, accountId, startDate, endDate);
+        StatementWriter writer = FORMAT_PDF.equals(format)
+                ? new StatementPdfWriter(out)
+                : new CsvWriter(out);
+        writer.begin(header);
+
+        long balance = header.openingBalance();
+        try (PreparedStatement query = connection.prepareStatement(ROWS)) {
+            RowFetching.streamed(query, fetchSize);
+            Timestamp start = Timestamp.valueOf(startDate);
+            Timestamp end = Timestamp.valueOf(endDate);
+            query.setLong(1, accountId);
+            query.setTimestamp(2, start);
+            query.setTimestamp(3, end);
+            query.setLong(4, accountId);
+            query.setLong(5, accountId);
+            query.setTimestamp(6, start);
+            query.setTimestamp(7, end);
+            try (ResultSet rs = query.executeQuery()) {
+                while (rs.next()) {
+                    long debit = accountId.equals(rs.getObject("from_account_id", Long.class))
+                            ? Money.columnUnitsOf(rs.getBigDecimal("amount"), RoundingMode.UNNECESSARY)
+                            : 0;
+                    long credit = 0;
+                    if (accountId.equals(rs.getObject("to_account_id", Long.class))) {
+                        BigDecimal settlement = rs.getBigDecimal("settlement_amount");
+                        credit = Money.columnUnitsOf(settlement != null ? settlement : rs.getBigDecimal("amount"),
+                                RoundingMode.UNNECESSARY);
+                    }
+                    balance = Money.addColumnUnits(balance, credit - debit);
+                    Timestamp date = rs.getTimestamp("transaction_date");
+                    writer.row(new Line(
+                            date != null ? date.toLocalDateTime() : null,
+                            rs.getString("reference_number"),
+                            rs.getString("transaction_type"),
+                            rs.getString("description"),
+                            debit, credit, balance));
+                }
+            }
+        }
+        writer.end(balance);
+    }
+
+    /**
+     * 口座の情報と期首残高（現在の残高 − 期首以降の取引の純額）
+     */
+    private Header header(Connection connection, Long accountId, LocalDateTime startDate, LocalDateTime endDate)
+            throws SQLException {
+        try (PreparedStatement query = connection.prepareStatement(
+                "SELECT a.account_number, a.currency, a.balance - COALESCE(("
+                        + "SELECT SUM(CASE WHEN t.to_account_id = a.id THEN COALESCE(t.settlement_amount, t.amount) ELSE 0 END"
+                        + " - CASE WHEN t.from_account_id = a.id THEN t.amount ELSE 0 END) "
+                        + "FROM transactions t WHERE (t.from_account_id = a.id OR t.to_account_id = a.id) "
+                        + "AND t.status = 'COMPLETED' AND t.transaction_date >= ?), 0) AS opening_balance "
+                        + "FROM accounts a WHERE a.id = ?")) {
+            query.setTimestamp(1, Timestamp.valueOf(startDate));
+            query.setLong(2, accountId);
+            try (ResultSet rs = query.executeQuery()) {
+                if (!rs.next()) {
+                    throw new IllegalArgumentException("口座が見つかりません: " + accountId);
+                }
+                return new Header(rs.getString("account_number"), rs.getString("currency"), startDate, endDate,
+                        Money.columnUnitsOf(rs.getBigDecimal("opening_balance"), RoundingMode.UNNECESSARY));
+            }
+        }
+    }
+
+    static String formatAmount(long columnUnits) {
+        return Money.fromColumnUnits(columnUnits).toPlainString();
+    }
+
+    record Header(String accountNumber, String currency, LocalDateTime startDate, LocalDateTime endDate,
+            long openingBalance) {
+    }
+
+    record Line(LocalDateTime transactionDate, String referenceNumber, String transactionType, String description,
+            long debit, long credit, long balance) {
+    }
+
+    interface StatementWriter {
+
+        void begin(Header header) throws IOException;
+
+        void row(Line line) throws IOException;
+
+        void end(long closingBalance) throws IOException;
+    }
+
+    /**
+     * CSV（UTF-8、Excel で開けるよう BOM 付き）
+     */
+    private static final class CsvWriter implements StatementWriter {
+
+        private final Writer writer;
+        private String currency;
+
+        CsvWriter(OutputStream out) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+        }
+
+        @Override
+        public void begin(Header header) throws IOException {
+            writer.write('\uFEFF');
+            writer.write("取引日時,参照番号,種別,摘要,出金,入金,残高,通貨\r\n");
+            writer.write(",,OPENING,期首残高,,," + formatAmount(header.openingBalance()) + "," + header.currency()
+                    + "\r\n");
+            this.currency = header.currency();
+        }
+
+        @Override
+        public void row(Line line) throws IOException {
+            writer.write(line.transactionDate() != null ? DATE_TIME.format(line.transactionDate()) : "");
+            writer.write(',');
+            writer.write(escape(line.referenceNumber()));
+            writer.write(',');
+            writer.write(escape(line.transactionType()));
+            writer.write(',');
+            writer.write(escape(line.description()));
+            writer.write(',');
+            writer.write(line.debit() != 0 ? formatAmount(line.debit()) : "");
+            writer.write(',');
+            writer.write(line.credit() != 0 ? formatAmount(line.credit()) : "");
+            writer.write(',');
+            writer.write(formatAmount(line.balance()));
+            writer.write(',');
+            writer.write(currency);
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void end(long closingBalance) throws IOException {
+            writer.write(",,CLOSING,期末残高,,," + formatAmount(closingBalance) + "," + currency + "\r\n");
+            writer.flush();
+        }
+
+        private static String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            // 数式として解釈されないよう、先頭の = + - @ は ' を付けて文字列にする
+            String text = !value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0 ? "'" + value : value;
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                return text;
+            }
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+    }
+}
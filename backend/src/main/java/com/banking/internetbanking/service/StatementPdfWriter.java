@@ -0,0 +1,270 @@
+package com.banking.internetbanking.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * 取引明細の PDF 出力
+ * ページ単位で内容を組み立てて順に書き出し、ページオブジェクトの一覧（/Pages）と相互参照表は
+ * 最後に書く。保持するのは組み立て中の1ページ分とオブジェクトの位置だけで、明細全体は持たない。
+ *
+ * <p>日本語はフォントを埋め込まず、PDF ビューアが持つ標準の日本語フォント
+ * （HeiseiKakuGo-W5 / UniJIS-UCS2-H）で表示する。英数字は半角幅として右寄せの位置を計算する。
+ */
+final class StatementPdfWriter implements StatementExportService.StatementWriter {
+
+    private static final int PAGE_WIDTH = 595;
+    private static final int PAGE_HEIGHT = 842;
+    private static final int MARGIN = 36;
+    private static final float FONT_SIZE = 8f;
+    private static final float LINE_HEIGHT = 12f;
+    private static final int ROWS_PER_PAGE = 60;
+    private static final int DESCRIPTION_MAX_CHARS = 24;
+
+    // 固定のオブジェクト番号（ページは FIRST_PAGE_OBJECT から2つずつ：ページ、内容）
+    private static final int CATALOG = 1;
+    private static final int PAGES = 2;
+    private static final int FONT = 3;
+    private static final int CID_FONT = 4;
+    private static final int FONT_DESCRIPTOR = 5;
+    private static final int FIRST_PAGE_OBJECT = 6;
+
+    // 各列の x 座標（金額列は右端）
+    private static final float COL_DATE = MARGIN;
+    private static final float COL_REFERENCE = MARGIN + 80;
+    private static final float COL_TYPE = MARGIN + 170;
+    private static final float COL_DESCRIPTION = MARGIN + 220;
+    private static final float COL_DEBIT_RIGHT = MARGIN + 395;
+    private static final float COL_CREDIT_RIGHT = MARGIN + 460;
+    private static final float COL_BALANCE_RIGHT = PAGE_WIDTH - MARGIN;
+
+    private final CountingOutputStream out;
+    private long[] offsets = new long[64];
+    private int pageCount;
+
+    private ByteArrayOutputStream page;
+    private float y;
+    private int rowsOnPage;
+
+    StatementPdfWriter(OutputStream out) {
+        this.out = new CountingOutputStream(out);
+    }
+
+    @Override
+    public void begin(StatementExportService.Header header) throws IOException {
+        write("%PDF-1.4\n%âãÏÓ\n");
+        beginObject(FONT);
+        write("<< /Type /Font /Subtype /Type0 /BaseFont /HeiseiKakuGo-W5 /Encoding /UniJIS-UCS2-H "
+                + "/DescendantFonts [" + CID_FONT + " 0 R] >>\nendobj\n");
+        beginObject(CID_FONT);
+        write("<< /Type /Font /Subtype /CIDFontType0 /BaseFont /HeiseiKakuGo-W5 "
+                + "/CIDSystemInfo << /Registry (Adobe) /Ordering (Japan1) /Supplement 2 >> "
+                + "/FontDescriptor " + FONT_DESCRIPTOR + " 0 R /DW 1000 /W [1 95 500] >>\nendobj\n");
+        beginObject(FONT_DESCRIPTOR);
+        write("<< /Type /FontDescriptor /FontName /HeiseiKakuGo-W5 /Flags 4 /FontBBox [-92 -250 1010 922] "
+                + "/ItalicAngle 0 /Ascent 752 /Descent -221 /CapHeight 737 /StemV 114 >>\nendobj\n");
+
+        newPage();
+        text(COL_DATE, y, "取引明細書", 12f);
+        y -= LINE_HEIGHT * 2;
+        text(COL_DATE, y, "口座番号: " + header.accountNumber() + "    通貨: " + header.currency());
+        y -= LINE_HEIGHT;
+        text(COL_DATE, y, "期間: " + StatementExportService.DATE_TIME.format(header.startDate()) + " 〜 "
+                + StatementExportService.DATE_TIME.format(header.endDate()));
+        y -= LINE_HEIGHT;
+        text(COL_DATE, y, "期首残高: " + StatementExportService.formatAmount(header.openingBalance()));
+        y -= LINE_HEIGHT * 1.5f;
+        columnHeadings();
+    }
+
+    @Override
+    public void row(StatementExportService.Line line) throws IOException {
+        if (rowsOnPage >= ROWS_PER_PAGE || y < MARGIN + LINE_HEIGHT * 2) {
+            finishPage();
+            newPage();
+            columnHeadings();
+        }
+        text(COL_DATE, y, line.transactionDate() != null
+                ? StatementExportService.DATE_TIME.format(line.transactionDate()).substring(0, 16) : "");
+        text(COL_REFERENCE, y, truncate(line.referenceNumber(), 16));
+        text(COL_TYPE, y, truncate(line.transactionType(), 10));
+        text(COL_DESCRIPTION, y, truncate(line.description(), DESCRIPTION_MAX_CHARS));
+        if (line.debit() != 0) {
+            rightText(COL_DEBIT_RIGHT, y, StatementExportService.formatAmount(line.debit()));
+        }
+        if (line.credit() != 0) {
+            rightText(COL_CREDIT_RIGHT, y, StatementExportService.formatAmount(line.credit()));
+        }
+        rightText(COL_BALANCE_RIGHT, y, StatementExportService.formatAmount(line.balance()));
+        y -= LINE_HEIGHT;
+        rowsOnPage++;
+    }
+
+    @Override
+    public void end(long closingBalance) throws IOException {
+        if (y < MARGIN + LINE_HEIGHT * 2) {
+            finishPage();
+            newPage();
+        }
+        y -= LINE_HEIGHT / 2;
+        text(COL_DESCRIPTION, y, "期末残高");
+        rightText(COL_BALANCE_RIGHT, y, StatementExportService.formatAmount(closingBalance));
+        finishPage();
+
+        beginObject(PAGES);
+        write("<< /Type /Pages /Kids [");
+        for (int i = 0; i < pageCount; i++) {
+            write((i == 0 ? "" : " ") + pageObject(i) + " 0 R");
+        }
+        write("] /Count " + pageCount + " >>\nendobj\n");
+        beginObject(CATALOG);
+        write("<< /Type /Catalog /Pages " + PAGES + " 0 R >>\nendobj\n");
+
+        int size = FIRST_PAGE_OBJECT + pageCount * 2;
+        long xref = out.count();
+        write("xref\n0 " + size + "\n0000000000 65535 f \n");
+        for (int object = 1; object < size; object++) {
+            write(String.format("%010d 00000 n \n", offsets[object]));
+        }
+        write("trailer\n<< /Size " + size + " /Root " + CATALOG + " 0 R >>\nstartxref\n" + xref + "\n%%EOF\n");
+        out.flush();
+    }
+
+    private void newPage() {
+        page = new ByteArrayOutputStream(16 * 1024);
+        y = PAGE_HEIGHT - MARGIN - FONT_SIZE;
+        rowsOnPage = 0;
+    }
+
+    private void finishPage() throws IOException {
+        text(COL_BALANCE_RIGHT - 40, MARGIN / 2f, "- " + (pageCount + 1) + " -");
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(page.size() / 3 + 64);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream deflating = new DeflaterOutputStream(compressed, deflater)) {
+            page.writeTo(deflating);
+        } finally {
+            deflater.end();
+        }
+
+        int pageObject = pageObject(pageCount);
+        beginObject(pageObject);
+        write("<< /Type /Page /Parent " + PAGES + " 0 R /MediaBox [0 0 " + PAGE_WIDTH + " " + PAGE_HEIGHT + "] "
+                + "/Resources << /Font << /F1 " + FONT + " 0 R >> >> /Contents " + (pageObject + 1) + " 0 R >>\n"
+                + "endobj\n");
+        beginObject(pageObject + 1);
+        write("<< /Length " + compressed.size() + " /Filter /FlateDecode >>\nstream\n");
+        compressed.writeTo(out);
+        write("\nendstream\nendobj\n");
+        pageCount++;
+        page = null;
+    }
+
+    private void columnHeadings() {
+        text(COL_DATE, y, "取引日時");
+        text(COL_REFERENCE, y, "参照番号");
+        text(COL_TYPE, y, "種別");
+        text(COL_DESCRIPTION, y, "摘要");
+        rightText(COL_DEBIT_RIGHT, y, "出金");
+        rightText(COL_CREDIT_RIGHT, y, "入金");
+        rightText(COL_BALANCE_RIGHT, y, "残高");
+        y -= LINE_HEIGHT * 1.25f;
+    }
+
+    private void text(float x, float y, String value) {
+        text(x, y, value, FONT_SIZE);
+    }
+
+    private void text(float x, float y, String value, float size) {
+        StringBuilder command = new StringBuilder(32 + value.length() * 4);
+        command.append("BT /F1 ").append(number(size)).append(" Tf ")
+                .append(number(x)).append(' ').append(number(y)).append(" Td <");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            // UCS-2 のため基本多言語面の外の文字（サロゲート）は表示できない
+            if (Character.isSurrogate(c)) {
+                c = '?';
+            }
+            command.append(HEX[(c >> 12) & 0xF]).append(HEX[(c >> 8) & 0xF])
+                    .append(HEX[(c >> 4) & 0xF]).append(HEX[c & 0xF]);
+        }
+        command.append("> Tj ET\n");
+        page.writeBytes(command.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void rightText(float right, float y, String value) {
+        text(right - width(value, FONT_SIZE), y, value);
+    }
+
+    private static float width(String value, float size) {
+        int units = 0;
+        for (int i = 0; i < value.length(); i++) {
+            units += value.charAt(i) < 0x80 ? 500 : 1000;
+        }
+        return units * size / 1000f;
+    }
+
+    private static String truncate(String value, int maxChars) {
+        if (value == null) {
+            return "";
+        }
+        String singleLine = value.replace('\r', ' ').replace('\n', ' ');
+        return singleLine.length() <= maxChars ? singleLine : singleLine.substring(0, maxChars - 1) + "…";
+    }
+
+    private static String number(float value) {
+        return value == (int) value ? Integer.toString((int) value) : String.format("%.2f", value);
+    }
+
+    private static int pageObject(int pageIndex) {
+        return FIRST_PAGE_OBJECT + pageIndex * 2;
+    }
+
+    private void beginObject(int object) throws IOException {
+        if (object >= offsets.length) {
+            offsets = Arrays.copyOf(offsets, Math.max(object + 1, offsets.length * 2));
+        }
+        offsets[object] = out.count();
+        write(object + " 0 obj\n");
+    }
+
+    private void write(String value) throws IOException {
+        out.write(value.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * 書き込んだバイト数を数える（相互参照表に各オブジェクトの位置を書くため）
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long count() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.banking.internetbanking.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * 階層型タイミングホイール（ID ごとに1つの期限を持つタイマー）
+ * レベル L のホイールは wheelSize 個のスロットを持ち、1スロットの幅は tick × wheelSize^L。
+ * 期限までの残り時間が収まる最も細かいレベルのスロットに入れ、上位のスロットは
+ * その幅の先頭の時刻になったら下位のレベルに入れ直す。登録・取り出しは件数にかかわらず O(1) で、
+ * 同じ時刻に大量のタイマーがあっても1スロットを取り出すだけで済む。
+ *
+ * <p>期限は tick 単位に切り上げて通知する（最大 tick だけ遅れる）。同じ ID を別の期限で登録すると
+ * 前の期限は無効になる。スレッドセーフではない（1つのスレッドから使う）。
+ */
+final class TimingWheel {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long[] slotMillis;
+    // レベル L のスロット i は L × wheelSize + i 番目
+    private final List<ArrayDeque<Timer>> slots;
+    private final ArrayDeque<Timer> overdue = new ArrayDeque<>();
+    private final Map<Long, Timer> timers = new HashMap<>();
+    private long currentTime;
+
+    TimingWheel(long tickMillis, int wheelSize, int levels, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2 || levels < 1) {
+            throw new IllegalArgumentException("タイミングホイールの設定が不正です");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.slotMillis = new long[levels];
+        this.slots = new ArrayList<>(Math.multiplyExact(levels, wheelSize));
+        long width = tickMillis;
+        for (int level = 0; level < levels; level++) {
+            slotMillis[level] = width;
+            for (int i = 0; i < wheelSize; i++) {
+                slots.add(new ArrayDeque<>());
+            }
+            width = Math.multiplyExact(width, wheelSize);
+        }
+        this.currentTime = startMillis - Math.floorMod(startMillis, tickMillis);
+    }
+
+    /**
+     * 現在時刻から登録できる期限の範囲（ミリ秒）
+     */
+    long rangeMillis() {
+        return slotMillis[slotMillis.length - 1] * wheelSize;
+    }
+
+    int size() {
+        return timers.size();
+    }
+
+    /**
+     * 期限を登録する。過ぎている期限は次の {@link #advance} で通知する
+     *
+     * @return 範囲より先の期限のため登録しなかった場合は false（同じ ID の登録済みの期限も無効になる）
+     */
+    boolean schedule(long id, long dueMillis) {
+        Timer existing = timers.get(id);
+        if (existing != null && existing.dueMillis == dueMillis) {
+            return true;
+        }
+        if (dueMillis - currentTime >= rangeMillis()) {
+            timers.remove(id);
+            return false;
+        }
+        Timer timer = new Timer(id, dueMillis);
+        timers.put(id, timer);
+        place(timer);
+        return true;
+    }
+
+    /**
+     * 指定時刻まで進め、期限が来た ID を期限の早いスロット順に通知する
+     */
+    void advance(long nowMillis, LongConsumer expired) {
+        fireOverdue(expired);
+        while (currentTime + tickMillis <= nowMillis) {
+            // 通過した tick の幅に期限があるタイマー（このスロットは1周先の期限に再利用されるため、
+            // 上位からの入れ直しより先に空にする）
+            ArrayDeque<Timer> expiredSlot = slot(0, currentTime);
+            Timer timer;
+            while ((timer = expiredSlot.poll()) != null) {
+                fire(timer, expired);
+            }
+            currentTime += tickMillis;
+            // 上位のレベルから、幅の先頭の時刻になったスロットを下位に入れ直す
+            for (int level = slotMillis.length - 1; level >= 1; level--) {
+                if (currentTime % slotMillis[level] == 0) {
+                    ArrayDeque<Timer> slot = slot(level, currentTime);
+                    while ((timer = slot.poll()) != null) {
+                        place(timer);
+                    }
+                }
+            }
+            fireOverdue(expired);
+        }
+    }
+
+    private void place(Timer timer) {
+        long delta = timer.dueMillis - currentTime;
+        if (delta <= 0) {
+            overdue.add(timer);
+            return;
+        }
+        // tick の境界ちょうどの期限は、その時刻で終わる tick のスロットに入れる
+        long key = timer.dueMillis - 1;
+        for (int level = 0; level < slotMillis.length; level++) {
+            if (key - currentTime < slotMillis[level] * wheelSize) {
+                slot(level, key).add(timer);
+                return;
+            }
+        }
+        throw new IllegalStateException("タイミングホイールの範囲外の期限です: " + timer.dueMillis);
+    }
+
+    private ArrayDeque<Timer> slot(int level, long timeMillis) {
+        int index = (int) Math.floorMod(Math.floorDiv(timeMillis, slotMillis[level]), (long) wheelSize);
+        return slots.get(level * wheelSize + index);
+    }
+
+    private void fireOverdue(LongConsumer expired) {
+        Timer timer;
+        while ((timer = overdue.poll()) != null) {
+            fire(timer, expired);
+        }
+    }
+
+    private void fire(Timer timer, LongConsumer expired) {
+        // 登録し直された（または範囲外になった）タイマーの古い期限は通知しない
+        if (timers.get(timer.id) == timer) {
+            timers.remove(timer.id);
+            expired.accept(timer.id);
+        }
+    }
+
+    private record Timer(long id, long dueMillis) {
+    }
+}
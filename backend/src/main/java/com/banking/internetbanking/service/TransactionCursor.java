@@ -0,0 +1,41 @@
+package com.banking.internetbanking.service;
+
+import com.banking.internetbanking.entity.Transaction;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * キーセット方式のページの位置（最後に返した行の取引日時と ID）。次のページは
+ * (transaction_date, id) がこれより小さい行から読む。URL にそのまま載せられるよう Base64URL で表す
+ */
+record TransactionCursor(LocalDateTime transactionDate, Long id) {
+
+    static TransactionCursor of(Transaction transaction) {
+        return new TransactionCursor(transaction.getTransactionDate(), transaction.getId());
+    }
+
+    String encode() {
+        String raw = transactionDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return cursor が null または空の場合は null（最初のページ）
+     * @throws IllegalArgumentException 形式が不正な場合
+     */
+    static TransactionCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new TransactionCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("cursor が不正です");
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.banking.internetbanking.service;
+
+import com.banking.internetbanking.config.Bulkhead;
+import com.banking.internetbanking.config.ShardKey;
+import com.banking.internetbanking.entity.AccountMetadata;
+import com.banking.internetbanking.entity.Transaction;
+import com.banking.internetbanking.repository.AccountMetadataRepository;
+import com.banking.internetbanking.repository.TransactionRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * ユーザーの全口座を通じた取引履歴
+ * 口座ごとに出金側・入金側の2本の流れ（(口座ID, 取引日時 DESC, ID DESC) の索引を新しい順に読む）を
+ * 作り、k 本の流れを優先度付きキューでマージ（k-way merge）して新しい順に返す。
+ *
+ * <p>最初は全部の流れから少しずつ（1ページ分を流れの数で割った程度）を1回の問い合わせで読み、
+ * マージの途中で読み切った流れだけを、その流れの最後の行の続きから追加で読む。口座が増えても
+ * 読む行数は「1ページ分＋流れの数×少量」に収まり、取引の多い口座だけが追加の問い合わせを受け持つ。
+ *
+ * <p>ユーザー自身の口座間の振込は出金側と入金側の両方の流れに現れるが、同じ取引は
+ * (取引日時, ID) が同じためマージ後に隣り合い、1件にまとめて返す。ページは最後に返した行の
+ * (取引日時, ID) より後ろから読むキーセット方式。
+ */
+@Service
+@Bulkhead(Bulkhead.Type.READ)
+public class TransactionHistoryService {
+
+    public static final int MAX_LIMIT = 200;
+
+    // 最初の問い合わせで1本の流れから読む最小の行数
+    private static final int MIN_INITIAL_ROWS = 4;
+
+    private static final String ORDER = " ORDER BY transaction_date DESC, id DESC LIMIT ?";
+    private static final String AFTER = " AND (transaction_date, id) < (?, ?)";
+
+    private static final Comparator<Transaction> NEWEST_FIRST = Comparator
+            .comparing(Transaction::getTransactionDate, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(Transaction::getId, Comparator.reverseOrder());
+
+    private final AccountMetadataRepository accountMetadataRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public TransactionHistoryService(AccountMetadataRepository accountMetadataRepository, JdbcTemplate jdbcTemplate) {
+        this.accountMetadataRepository = accountMetadataRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @param limit  1ページの件数（1〜{@link #MAX_LIMIT}）
+     * @param cursor 前ページの {@link TransactionPage#nextCursor()}（最初のページは null）
+     * @throws IllegalArgumentException cursor が不正な場合
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public TransactionPage getHistory(@ShardKey Long userId, int limit, String cursor) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_LIMIT);
+        TransactionCursor after = TransactionCursor.decode(cursor);
+        // 口座の一覧はクエリキャッシュから読む（口座の作成・削除で無効になる）
+        List<Long> accountIds = accountMetadataRepository.findByUserIdOrderById(userId).stream()
+                .map(AccountMetadata::getId)
+                .toList();
+        if (accountIds.isEmpty()) {
+            return new TransactionPage(List.of(), null);
+        }
+
+        int fetch = RowFetching.withLookahead(pageSize);
+        List<Stream> streams = openStreams(accountIds, after, fetch);
+        PriorityQueue<Stream> heads = new PriorityQueue<>(streams.size(),
+                Comparator.comparing(Stream::head, NEWEST_FIRST));
+        for (Stream stream : streams) {
+            if (!stream.buffer.isEmpty()) {
+                heads.add(stream);
+            }
+        }
+
+        List<Transaction> merged = new ArrayList<>(fetch);
+        Long lastId = null;
+        while (merged.size() < fetch && !heads.isEmpty()) {
+            Stream stream = heads.poll();
+            Transaction next = stream.buffer.poll();
+            // 自分の口座間の振込（出金側と入金側の流れに1回ずつ現れる）は1件にまとめる
+            if (!next.getId().equals(lastId)) {
+                merged.add(next);
+                lastId = next.getId();
+            }
+            if (stream.buffer.isEmpty() && !stream.exhausted) {
+                refill(stream, fetch - merged.size());
+            }
+            if (!stream.buffer.isEmpty()) {
+                heads.add(stream);
+            }
+        }
+
+        if (merged.size() <= pageSize) {
+            return new TransactionPage(merged, null);
+        }
+        List<Transaction> page = merged.subList(0, pageSize);
+        return new TransactionPage(List.copyOf(page), TransactionCursor.of(page.get(pageSize - 1)).encode());
+    }
+
+    /**
+     * 全部の流れの先頭部分を1回の問い合わせで読む（口座IDの配列を LATERAL で口座ごとの索引の読み取りに展開する）
+     */
+    private List<Stream> openStreams(List<Long> accountIds, TransactionCursor after, int fetch) {
+        int streamCount = accountIds.size() * 2;
+        int initialRows = Math.min(fetch, Math.max(MIN_INITIAL_ROWS, 2 * ((fetch + streamCount - 1) / streamCount)));
+        String filter = after != null ? AFTER : "";
+
+        String sql = "SELECT 'F' AS side, a.account_id AS stream_account_id, t.* FROM unnest(?::bigint[]) AS a(account_id) "
+                + "CROSS JOIN LATERAL (SELECT " + TransactionRowMapper.COLUMNS + " FROM transactions "
+                + "WHERE from_account_id = a.account_id" + filter + ORDER + ") t "
+                + "UNION ALL "
+                + "SELECT 'T', a.account_id, t.* FROM unnest(?::bigint[]) AS a(account_id) "
+                + "CROSS JOIN LATERAL (SELECT " + TransactionRowMapper.COLUMNS + " FROM transactions "
+                + "WHERE to_account_id = a.account_id" + filter + ORDER + ") t";
+        Long[] ids = accountIds.toArray(Long[]::new);
+        List<Object> args = new ArrayList<>();
+        for (int side = 0; side < 2; side++) {
+            args.add(ids);
+            if (after != null) {
+                args.add(Timestamp.valueOf(after.transactionDate()));
+                args.add(after.id());
+            }
+            args.add(initialRows);
+        }
+
+        Map<String, Stream> streams = new HashMap<>();
+        for (Long accountId : accountIds) {
+            streams.put("F" + accountId, new Stream(accountId, true));
+            streams.put("T" + accountId, new Stream(accountId, false));
+        }
+        jdbcTemplate.query(sql, rs -> {
+            Stream stream = streams.get(rs.getString("side") + rs.getLong("stream_account_id"));
+            stream.buffer.add(TransactionRowMapper.INSTANCE.mapRow(rs, 0));
+        }, args.toArray());
+
+        // 行は流れごとに新しい順で返る。読めた行数が上限より少ない流れは読み切っている
+        for (Stream stream : streams.values()) {
+            stream.exhausted = stream.buffer.size() < initialRows;
+            stream.last = stream.buffer.peekLast();
+        }
+        return List.copyOf(streams.values());
+    }
+
+    /**
+     * 読み切った流れの続き（その流れで最後に読んだ行より後ろ）を読む
+     */
+    private void refill(Stream stream, int rows) {
+        if (rows <= 0) {
+            return;
+        }
+        String column = stream.outgoing ? "from_account_id" : "to_account_id";
+        List<Transaction> next = jdbcTemplate.query(
+                "SELECT " + TransactionRowMapper.COLUMNS + " FROM transactions WHERE " + column + " = ?" + AFTER + ORDER,
+                TransactionRowMapper.INSTANCE,
+                stream.accountId, Timestamp.valueOf(stream.last.getTransactionDate()), stream.last.getId(), rows);
+        stream.buffer.addAll(next);
+        stream.exhausted = next.size() < rows;
+        if (!next.isEmpty()) {
+            stream.last = next.get(next.size() - 1);
+        }
+    }
+
+    /**
+     * 1口座の出金側（outgoing）または入金側の、新しい順の取引の流れ
+     */
+    private static final class Stream {
+
+        final Long accountId;
+        final boolean outgoing;
+        final ArrayDeque<Transaction> buffer = new ArrayDeque<>();
+        boolean exhausted;
+        Transaction last;
+
+        Stream(Long accountId, boolean outgoing) {
+            this.accountId = accountId;
+            this.outgoing = outgoing;
+        }
+
+        Transaction head() {
+            return buffer.peek();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.banking.internetbanking.service;
+
+import java.io.Serial;
+
+/**
+ * 記帳済みの取引の金額・口座などを変更しようとした、または取り消せない取引を取り消そうとした
+ * 記帳済みの取引は仕訳・残高・月次集計に反映済みのため、訂正は逆取引（{@link TransactionService#reverseTransaction}）で行う
+ */
+public class TransactionImmutableException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public TransactionImmutableException(String message) {
+        super(message);
+    }
+}
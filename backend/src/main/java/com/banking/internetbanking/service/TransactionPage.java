@@ -0,0 +1,11 @@
+package com.banking.internetbanking.service;
+
+import com.banking.internetbanking.entity.Transaction;
+
+import java.util.List;
+
+/**
+ * 取引日時・ID の新しい順に並べた取引の1ページ（nextCursor が null なら最後のページ）
+ */
+public record TransactionPage(List<Transaction> transactions, String nextCursor) {
+}
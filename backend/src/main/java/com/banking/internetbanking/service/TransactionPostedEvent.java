@@ -0,0 +1,9 @@
+package com.banking.internetbanking.service;
+
+import com.banking.internetbanking.entity.Transaction;
+
+/**
+ * 取引の記帳イベント（コミット後に購読者へ配信される）
+ */
+public record TransactionPostedEvent(Transaction transaction) {
+}
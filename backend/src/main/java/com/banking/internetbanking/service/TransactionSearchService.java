@@ -0,0 +1,108 @@
+package com.banking.internetbanking.service;
+
+import com.banking.internetbanking.config.Bulkhead;
+import com.banking.internetbanking.config.ShardKey;
+import com.banking.internetbanking.entity.Transaction;
+import com.banking.internetbanking.repository.TransactionRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 取引の摘要検索
+ * 口座（出金側・入金側）と期間で絞り込み、摘要の部分一致（ILIKE）またはあいまい一致
+ * （pg_trgm の単語類似度）で検索する。どちらもトライグラムの GIN 索引を使える条件で書く。
+ *
+ * <p>結果は取引日時・ID の新しい順で、前ページ最後の行の (取引日時, ID) より後ろを読む
+ * キーセット方式でページングする（OFFSET を使わないため、深いページでも読む行数は変わらない）。
+ * 出金側・入金側はそれぞれ (口座ID, 取引日時 DESC, ID DESC) の索引で読めるよう別々に問い合わせ、
+ * 1ページ分ずつを合わせて並べ直す。
+ *
+ * <p>トライグラムは3文字単位のため、2文字以下の語（「家賃」など）は GIN 索引では絞り込めない。
+ * その場合は口座ごとの索引を新しい順に読みながら摘要を照合する。
+ */
+@Service
+@Bulkhead(Bulkhead.Type.READ)
+public class TransactionSearchService {
+
+    public static final int MAX_LIMIT = 200;
+    public static final int MAX_QUERY_LENGTH = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TransactionSearchService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @param fuzzy  true なら表記ゆれ・誤字を許すあいまい一致（pg_trgm.word_similarity_threshold 以上）
+     * @param cursor 前ページの {@link TransactionPage#nextCursor()}（最初のページは null）
+     */
+    public TransactionPage search(@ShardKey Long accountId, String query, LocalDateTime startDate,
+            LocalDateTime endDate, boolean fuzzy, int limit, String cursor) {
+        String text = query.strip();
+        if (text.isEmpty() || text.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("検索語は1文字以上" + MAX_QUERY_LENGTH + "文字以下で指定してください");
+        }
+        int pageSize = Math.min(Math.max(limit, 1), MAX_LIMIT);
+        TransactionCursor after = TransactionCursor.decode(cursor);
+
+        StringBuilder filter = new StringBuilder();
+        List<Object> filterArgs = new ArrayList<>();
+        if (fuzzy) {
+            filter.append(" AND ? <% description");
+            filterArgs.add(text);
+        } else {
+            filter.append(" AND description ILIKE ? ESCAPE '\\'");
+            filterArgs.add("%" + escapeLike(text) + "%");
+        }
+        if (startDate != null) {
+            filter.append(" AND transaction_date >= ?");
+            filterArgs.add(Timestamp.valueOf(startDate));
+        }
+        if (endDate != null) {
+            filter.append(" AND transaction_date < ?");
+            filterArgs.add(Timestamp.valueOf(endDate));
+        }
+        if (after != null) {
+            filter.append(" AND (transaction_date, id) < (?, ?)");
+            filterArgs.add(Timestamp.valueOf(after.transactionDate()));
+            filterArgs.add(after.id());
+        }
+
+        int fetch = RowFetching.withLookahead(pageSize);
+        String order = " ORDER BY transaction_date DESC, id DESC LIMIT ?";
+        String sql = "SELECT " + TransactionRowMapper.COLUMNS + " FROM ("
+                + "(SELECT * FROM transactions WHERE from_account_id = ?" + filter + order + ") "
+                + "UNION ALL "
+                + "(SELECT * FROM transactions WHERE to_account_id = ? AND from_account_id IS DISTINCT FROM ?"
+                + filter + order + ")"
+                + ") matched" + order;
+
+        List<Object> args = new ArrayList<>();
+        args.add(accountId);
+        args.addAll(filterArgs);
+        args.add(fetch);
+        args.add(accountId);
+        args.add(accountId);
+        args.addAll(filterArgs);
+        args.add(fetch);
+        args.add(fetch);
+
+        List<Transaction> rows = jdbcTemplate.query(sql, TransactionRowMapper.INSTANCE, args.toArray());
+        if (rows.size() <= pageSize) {
+            return new TransactionPage(rows, null);
+        }
+        List<Transaction> page = rows.subList(0, pageSize);
+        Transaction last = page.get(pageSize - 1);
+        return new TransactionPage(List.copyOf(page), TransactionCursor.of(last).encode());
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
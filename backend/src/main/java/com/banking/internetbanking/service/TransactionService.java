@@ -1,95 +1,404 @@
 package com.banking.internetbanking.service;
 
+import com.banking.internetbanking.config.Bulkhead;
+import com.banking.internetbanking.config.RetryOnConflict;
+import com.banking.internetbanking.config.ShardKey;
+import com.banking.internetbanking.config.ShardRouter;
+import com.banking.internetbanking.repository.AccountMetadataRepository;
 import com.banking.internetbanking.repository.TransactionRepository;
+import com.banking.internetbanking.repository.UniqueViolations;
+import com.banking.internetbanking.repository.VersionStamp;
+import com.banking.internetbanking.entity.AccountMetadata;
 import com.banking.internetbanking.entity.Transaction;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 
 @Service
 @Transactional
+@Bulkhead(Bulkhead.Type.READ)
 public class TransactionService {
 
+    // 逆取引の参照番号（元の取引の参照番号の前に付ける）
+    static final String REVERSAL_PREFIX = "REV";
+
+    // 管理画面の一覧（accountId は送金元・送金先のどちらかに一致する取引）
+    private static final KeysetListing<Transaction> LISTING = new KeysetListing<>(Transaction.class, Transaction::getId)
+            .sortable("transactionDate", Transaction::getTransactionDate, KeysetListing::dateTime)
+            .sortable("amount", Transaction::getAmount, KeysetListing::decimal)
+            .filter("accountId", Long::valueOf, (cb, root, value) -> cb.or(
+                    cb.equal(root.get("fromAccountId"), value), cb.equal(root.get("toAccountId"), value)))
+            .filterEqual("transactionType", "transactionType", Function.identity())
+            .filterEqual("status", "status", Function.identity())
+            .filterEqual("currency", "currency", Function.identity())
+            .filterAtLeast("startDate", "transactionDate", KeysetListing::dateTime)
+            .filterAtMost("endDate", "transactionDate", KeysetListing::dateTime)
+            .filterAtLeast("minAmount", "amount", KeysetListing::decimal)
+            .filterAtMost("maxAmount", "amount", KeysetListing::decimal);
+
     private final TransactionRepository transactionRepository;
+    private final AccountMetadataRepository accountMetadataRepository;
+    private final OutboxService outboxService;
+    private final LedgerService ledgerService;
+    private final MonthlyRollupService monthlyRollupService;
+    private final FxRateService fxRateService;
+    private final ShardRouter shardRouter;
+    private final TransactionHistoryService transactionHistoryService;
+    private final ListingService listingService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public TransactionService(TransactionRepository transactionRepository) {
+    public TransactionService(TransactionRepository transactionRepository,
+            AccountMetadataRepository accountMetadataRepository, OutboxService outboxService,
+            LedgerService ledgerService, MonthlyRollupService monthlyRollupService, FxRateService fxRateService,
+            ShardRouter shardRouter, TransactionHistoryService transactionHistoryService,
+            ListingService listingService, ApplicationEventPublisher eventPublisher) {
         this.transactionRepository = transactionRepository;
+        this.accountMetadataRepository = accountMetadataRepository;
+        this.outboxService = outboxService;
+        this.ledgerService = ledgerService;
+        this.monthlyRollupService = monthlyRollupService;
+        this.fxRateService = fxRateService;
+        this.shardRouter = shardRouter;
+        this.transactionHistoryService = transactionHistoryService;
+        this.listingService = listingService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // 全シャードから読むため、メソッド全体のトランザクションは張らない（シャードごとに読む）
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Bulkhead(Bulkhead.Type.BATCH)
+    public ListingPage<Transaction> listTransactions(ListingRequest request) {
+        return listingService.page(LISTING, request);
     }
 
-    public List<Transaction> getAllTransactions() {
-        return transactionRepository.findAll();
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Bulkhead(Bulkhead.Type.BATCH)
+    public void exportTransactions(ListingRequest request, OutputStream out) throws IOException {
+        listingService.export(LISTING, request, out);
     }
 
-    public Optional<Transaction> getTransactionById(Long id) {
+    public Optional<Transaction> getTransactionById(@ShardKey Long id) {
         return transactionRepository.findById(id);
     }
 
-    public List<Transaction> getTransactionsByAccountId(Long accountId) {
+    public List<Transaction> getTransactionsByAccountId(@ShardKey Long accountId) {
         return transactionRepository.findByAccountId(accountId);
     }
 
-    public List<Transaction> getTransactionsByUserId(Long userId) {
-        return transactionRepository.findByFromAccountIdOrToAccountId(userId, userId);
+    /**
+     * ユーザーの全口座を通じた最新の取引（先頭の1ページ。続きは {@link TransactionHistoryService} で読む）
+     */
+    public List<Transaction> getTransactionsByUserId(@ShardKey Long userId) {
+        return transactionHistoryService.getHistory(userId, TransactionHistoryService.MAX_LIMIT, null).transactions();
     }
 
-    public List<Transaction> getTransactionsByDateRange(Long accountId, LocalDateTime startDate,
+    public List<Transaction> getTransactionsByDateRange(@ShardKey Long accountId, LocalDateTime startDate,
             LocalDateTime endDate) {
         return transactionRepository.findByAccountIdAndDateRange(accountId, startDate, endDate);
     }
 
+    public VersionStamp getTransactionsVersionByAccountId(@ShardKey Long accountId) {
+        return transactionRepository.findVersionStampByAccountId(accountId);
+    }
+
+    public VersionStamp getTransactionsVersionByUserId(@ShardKey Long userId) {
+        return transactionRepository.findVersionStampByUserId(userId);
+    }
+
+    public VersionStamp getTransactionsVersionByDateRange(@ShardKey Long accountId, LocalDateTime startDate,
+            LocalDateTime endDate) {
+        return transactionRepository.findVersionStampByAccountIdAndDateRange(accountId, startDate, endDate);
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Optional<Transaction> getTransactionByReferenceNumber(String referenceNumber) {
-        return transactionRepository.findByReferenceNumber(referenceNumber);
+        return shardRouter.findFirst(shardRouter.currentShard(),
+                () -> transactionRepository.findByReferenceNumber(referenceNumber));
     }
 
-    public Transaction createTransaction(Long fromAccountId, Long toAccountId, String transactionType,
+    /**
+     * 同じシャードの口座間の取引（別シャードの口座への送金は {@link TransferService} を使う）
+     */
+    @Bulkhead(Bulkhead.Type.WRITE)
+    public Transaction createTransaction(@ShardKey Long fromAccountId, @ShardKey Long toAccountId,
+            String transactionType,
             BigDecimal amount, String currency, String description) {
-        String referenceNumber = generateReferenceNumber();
-        Transaction transaction = new Transaction(
-                null, fromAccountId, toAccountId, transactionType,
-                amount, currency, description, "COMPLETED", referenceNumber,
-                LocalDateTime.now(), LocalDateTime.now());
-        return transactionRepository.save(transaction);
+        return post(newTransaction(fromAccountId, toAccountId, transactionType, amount, currency, description));
     }
 
-    public Transaction createDepositTransaction(Long toAccountId, BigDecimal amount, String currency,
+    @Bulkhead(Bulkhead.Type.WRITE)
+    public Transaction createDepositTransaction(@ShardKey Long toAccountId, BigDecimal amount, String currency,
             String description) {
-        String referenceNumber = generateReferenceNumber();
-        Transaction transaction = new Transaction(
-                null, null, toAccountId, "DEPOSIT",
-                amount, currency, description, "COMPLETED", referenceNumber,
-                LocalDateTime.now(), LocalDateTime.now());
-        return transactionRepository.save(transaction);
+        return post(newTransaction(null, toAccountId, "DEPOSIT", amount, currency, description));
     }
 
-    public Transaction createWithdrawalTransaction(Long fromAccountId, BigDecimal amount, String currency,
+    @Bulkhead(Bulkhead.Type.WRITE)
+    public Transaction createWithdrawalTransaction(@ShardKey Long fromAccountId, BigDecimal amount, String currency,
             String description) {
-        String referenceNumber = generateReferenceNumber();
-        Transaction transaction = new Transaction(
-                null, fromAccountId, null, "WITHDRAWAL",
-                amount, currency, description, "COMPLETED", referenceNumber,
-                LocalDateTime.now(), LocalDateTime.now());
-        return transactionRepository.save(transaction);
+        return post(newTransaction(fromAccountId, null, "WITHDRAWAL", amount, currency, description));
+    }
+
+    /**
+     * 記帳済みの取引の摘要を更新する。金額・口座・通貨・状態などは仕訳と残高に反映済みのため変更できない
+     * （省略した項目と現在と同じ値は変更とみなさない）。訂正は {@link #reverseTransaction(Long)} で行う
+     *
+     * @return 更新後の取引（取引が無い場合は空）
+     * @throws VersionConflictException      更新内容にバージョンがあり、現在のバージョンと異なる場合
+     * @throws TransactionImmutableException 摘要以外の項目を変更しようとした場合
+     */
+    @RetryOnConflict
+    @Bulkhead(Bulkhead.Type.WRITE)
+    public Optional<Transaction> updateTransaction(@ShardKey Long id, Transaction changes) {
+        Optional<Transaction> existing = transactionRepository.findById(id);
+        if (existing.isEmpty()) {
+            return Optional.empty();
+        }
+        Transaction current = existing.get();
+        Long version = current.getVersion();
+        if (changes.getVersion() != null && !changes.getVersion().equals(version)) {
+            throw new VersionConflictException("取引", id, changes.getVersion(), version);
+        }
+        String changed = changedPostedField(current, changes);
+        if (changed != null) {
+            throw new TransactionImmutableException(
+                    "記帳済みの取引の " + changed + " は変更できません。訂正は取引の取消（逆取引）で行ってください");
+        }
+        Transaction updatedTransaction = new Transaction(
+                current.getId(), current.getFromAccountId(), current.getToAccountId(),
+                current.getTransactionType(), current.getAmount(), current.getCurrency(),
+                changes.getDescription(), current.getStatus(), current.getReferenceNumber(),
+                current.getTransactionDate(), current.getCreatedAt(), current.getFxRate(),
+                current.getSettlementAmount(), current.getSettlementCurrency(),
+                current.getCounterpartyAccountId(), version);
+        return Optional.of(transactionRepository.save(updatedTransaction));
+    }
+
+    /**
+     * 記帳済みの取引を逆取引で取り消す。元の取引と仕訳は残したまま、口座の向きを入れ替えた取引を
+     * 同じ金額（通貨が異なる取引は元の換算後の金額）で記帳する。逆取引の参照番号は元の取引から決まるため、
+     * 同じ取引を二重に取り消すことはできない
+     *
+     * @return 記帳した逆取引（元の取引が無い場合は空）
+     * @throws TransactionImmutableException 取消済み、またはここでは取り消せない種別の取引の場合
+     * @throws InsufficientFundsException    逆取引で出金側になる口座の残高が不足する場合
+     */
+    @Bulkhead(Bulkhead.Type.WRITE)
+    public Optional<Transaction> reverseTransaction(@ShardKey Long id) {
+        Optional<Transaction> existing = transactionRepository.findById(id);
+        if (existing.isEmpty()) {
+            return Optional.empty();
+        }
+        Transaction original = existing.get();
+        if (!"COMPLETED".equals(original.getStatus())) {
+            throw new TransactionImmutableException("完了していない取引は取り消せません: " + original.getStatus());
+        }
+        if (original.getCounterpartyAccountId() != null) {
+            throw new TransactionImmutableException("シャードをまたぐ送金はここでは取り消せません");
+        }
+        String referenceNumber = REVERSAL_PREFIX + original.getReferenceNumber();
+        if (transactionRepository.findByReferenceNumber(referenceNumber).isPresent()) {
+            throw new TransactionImmutableException("この取引は取り消し済みです: " + original.getReferenceNumber());
+        }
+        String type = switch (original.getTransactionType()) {
+            case "TRANSFER" -> "TRANSFER";
+            case "DEPOSIT" -> "WITHDRAWAL";
+            case "WITHDRAWAL" -> "DEPOSIT";
+            default -> throw new TransactionImmutableException(
+                    "この種別の取引はここでは取り消せません: " + original.getTransactionType());
+        };
+        // 通貨をまたぐ取引は、元の入金額を出金し、元の出金額を戻す（現在のレートで換算し直さない）
+        boolean crossCurrency = original.getSettlementCurrency() != null;
+        BigDecimal amount = crossCurrency ? original.getSettlementAmount() : original.getAmount();
+        String currency = crossCurrency ? original.getSettlementCurrency() : original.getCurrency();
+        BigDecimal fxRate = crossCurrency
+                ? original.getAmount().divide(original.getSettlementAmount(), FxRateService.RATE_SCALE,
+                        RoundingMode.HALF_EVEN)
+                : null;
+        LocalDateTime now = LocalDateTime.now();
+        Transaction reversal = new Transaction(
+                null, original.getToAccountId(), original.getFromAccountId(), type,
+                amount, currency, "取消: " + original.getReferenceNumber(), "COMPLETED", referenceNumber,
+                now, now, fxRate, crossCurrency ? original.getAmount() : null,
+                crossCurrency ? original.getCurrency() : null);
+        try {
+            return Optional.of(post(reversal));
+        } catch (DataIntegrityViolationException e) {
+            // 同時に取り消した場合は参照番号の一意制約で片方だけが記帳される
+            if (UniqueViolations.isViolationOf(e, UniqueViolations.TRANSACTIONS_REFERENCE_NUMBER)) {
+                throw new TransactionImmutableException("この取引は取り消し済みです: " + original.getReferenceNumber());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * シャードをまたぐ送金の、このシャード側の取引を記帳する（{@link TransferService} が各シャードの
+     * トランザクション内で呼ぶ）。取引の from / to の一方はこのシャードの口座、もう一方は NULL で、
+     * 相手側の口座は counterpartyAccountId に持つ。同じ参照番号の取引が記帳済みなら記帳せずに
+     * それを返す（入金側の再実行に備える）
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Transaction postShardTransferLeg(Transaction transaction) {
+        Long fromAccountId = transaction.getFromAccountId();
+        Long toAccountId = transaction.getToAccountId();
+        if (transaction.getCounterpartyAccountId() == null || (fromAccountId == null) == (toAccountId == null)) {
+            throw new IllegalArgumentException("シャードをまたぐ取引には、このシャードの口座と相手側の口座が必要です");
+        }
+        Optional<Transaction> existing = transactionRepository.findByReferenceNumber(transaction.getReferenceNumber());
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        String accountCurrency = currencyOf(fromAccountId != null ? fromAccountId : toAccountId);
+        String currency = fromAccountId == null && transaction.getSettlementCurrency() != null
+                ? transaction.getSettlementCurrency()
+                : transaction.getCurrency();
+        if (!accountCurrency.equals(currency)) {
+            throw new CurrencyConversionException(
+                    "口座の通貨（" + accountCurrency + "）と取引の通貨（" + currency + "）が一致しません");
+        }
+        return post(transaction);
+    }
+
+    /**
+     * 取引は出金口座の通貨で受け付ける。入金口座の通貨が異なる場合は、この時点のレートで換算し、
+     * 適用したレートと入金額を取引に記録する（記帳と残高の更新はこの値で行う）
+     */
+    private Transaction newTransaction(Long fromAccountId, Long toAccountId, String transactionType,
+            BigDecimal amount, String currency, String description) {
+        if (fromAccountId != null) {
+            String fromCurrency = currencyOf(fromAccountId);
+            if (!fromCurrency.equals(currency)) {
+                throw new CurrencyConversionException(
+                        "出金口座の通貨（" + fromCurrency + "）と取引の通貨（" + currency + "）が一致しません");
+            }
+        }
+        BigDecimal fxRate = null;
+        BigDecimal settlementAmount = null;
+        String settlementCurrency = null;
+        if (toAccountId != null) {
+            String toCurrency = currencyOf(toAccountId);
+            if (!toCurrency.equals(currency)) {
+                FxRateService.Conversion conversion = fxRateService.convert(Money.of(amount, currency), toCurrency);
+                fxRate = conversion.rate().rate();
+                settlementAmount = conversion.target().toBigDecimal();
+                settlementCurrency = toCurrency;
+            }
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return new Transaction(
+                null, fromAccountId, toAccountId, transactionType,
+                amount, currency, description, "COMPLETED", generateReferenceNumber(),
+                now, now, fxRate, settlementAmount, settlementCurrency);
     }
 
-    public boolean updateTransaction(Transaction transaction) {
-        return transactionRepository.save(transaction) != null;
+    private String currencyOf(Long accountId) {
+        return accountMetadataRepository.findById(accountId)
+                .map(AccountMetadata::getCurrency)
+                .orElseThrow(() -> new IllegalArgumentException("口座が見つかりません: " + accountId));
     }
 
-    public boolean deleteTransaction(Long id) {
-        Optional<Transaction> transaction = transactionRepository.findById(id);
-        if (transaction.isPresent()) {
-            transactionRepository.delete(transaction.get());
-            return true;
+    // 取引の記録・仕訳と残高の更新・月次集計の加算・アウトボックスへの書き込みを同一トランザクションで行う
+    private Transaction post(Transaction transaction) {
+        Transaction saved = transactionRepository.save(transaction);
+        // 残高不足の場合は InsufficientFundsException で取引ごと取り消す
+        ledgerService.post(saved);
+        monthlyRollupService.record(saved);
+        outboxService.record("TRANSACTION", saved.getId(), "TRANSACTION_POSTED", toPayload(saved));
+        // コミット後に SSE 購読者へ通知される
+        eventPublisher.publishEvent(new TransactionPostedEvent(saved));
+        return saved;
+    }
+
+    private Map<String, Object> toPayload(Transaction transaction) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("transactionId", transaction.getId());
+        payload.put("fromAccountId", transaction.getFromAccountId());
+        payload.put("toAccountId", transaction.getToAccountId());
+        payload.put("transactionType", transaction.getTransactionType());
+        payload.put("amount", transaction.getAmount());
+        payload.put("currency", transaction.getCurrency());
+        if (transaction.getSettlementCurrency() != null) {
+            payload.put("fxRate", transaction.getFxRate());
+            payload.put("settlementAmount", transaction.getSettlementAmount());
+            payload.put("settlementCurrency", transaction.getSettlementCurrency());
+        }
+        if (transaction.getCounterpartyAccountId() != null) {
+            payload.put("counterpartyAccountId", transaction.getCounterpartyAccountId());
+        }
+        payload.put("description", transaction.getDescription());
+        payload.put("status", transaction.getStatus());
+        payload.put("referenceNumber", transaction.getReferenceNumber());
+        payload.put("transactionDate", transaction.getTransactionDate());
+        return payload;
+    }
+
+    /**
+     * 摘要以外で値が変わる項目の名前（変更が無ければ null）
+     */
+    private static String changedPostedField(Transaction current, Transaction changes) {
+        if (differs(changes.getFromAccountId(), current.getFromAccountId())) {
+            return "出金口座";
+        }
+        if (differs(changes.getToAccountId(), current.getToAccountId())) {
+            return "入金口座";
         }
-        return false;
+        if (differs(changes.getTransactionType(), current.getTransactionType())) {
+            return "種別";
+        }
+        if (differsAmount(changes.getAmount(), current.getAmount())) {
+            return "金額";
+        }
+        if (differs(changes.getCurrency(), current.getCurrency())) {
+            return "通貨";
+        }
+        if (differs(changes.getStatus(), current.getStatus())) {
+            return "状態";
+        }
+        if (differs(changes.getReferenceNumber(), current.getReferenceNumber())) {
+            return "参照番号";
+        }
+        if (differs(changes.getTransactionDate(), current.getTransactionDate())) {
+            return "取引日時";
+        }
+        if (differsAmount(changes.getFxRate(), current.getFxRate())) {
+            return "為替レート";
+        }
+        if (differsAmount(changes.getSettlementAmount(), current.getSettlementAmount())) {
+            return "入金額";
+        }
+        if (differs(changes.getSettlementCurrency(), current.getSettlementCurrency())) {
+            return "入金通貨";
+        }
+        if (differs(changes.getCounterpartyAccountId(), current.getCounterpartyAccountId())) {
+            return "相手側の口座";
+        }
+        return null;
+    }
+
+    private static boolean differs(Object requested, Object current) {
+        return requested != null && !requested.equals(current);
+    }
+
+    // 12.5 と 12.50 は同じ金額として扱う
+    private static boolean differsAmount(BigDecimal requested, BigDecimal current) {
+        return requested != null && (current == null || requested.compareTo(current) != 0);
     }
 
-    private String generateReferenceNumber() {
+    static String generateReferenceNumber() {
         return "TXN" + UUID.randomUUID().toString().replace("-", "").substring(0, 16).toUpperCase();
     }
 }
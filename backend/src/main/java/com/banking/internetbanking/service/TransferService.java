@@ -0,0 +1,320 @@
+package com.banking.internetbanking.service;
+
+import com.banking.internetbanking.config.Bulkhead;
+import com.banking.internetbanking.config.Bulkheads;
+import com.banking.internetbanking.config.ShardRouter;
+import com.banking.internetbanking.entity.AccountMetadata;
+import com.banking.internetbanking.entity.Transaction;
+import com.banking.internetbanking.repository.AccountMetadataRepository;
+import com.banking.internetbanking.repository.UniqueViolations;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 口座間送金
+ * 送金元と送金先が同じシャードにあれば {@link TransactionService} で1トランザクションで記帳する。
+ * 別々のシャードにある場合は、シャード間清算勘定を経由して2段階で記帳する。
+ * <ol>
+ *   <li>出金側シャード: 送金元から清算勘定への取引を記帳し、shard_transfers に PREPARED で記録する
+ *       （残高不足などはここで拒否され、何も残らない）</li>
+ *   <li>入金側シャード: 清算勘定から送金先への取引を同じ参照番号で記帳する（記帳済みなら何もしない）</li>
+ *   <li>出金側シャード: shard_transfers を COMMITTED にする</li>
+ * </ol>
+ * 送金先が無い（準備の後に削除された場合の外部キー違反を含む）など、入金側で再実行しても成功しない場合は
+ * 出金側に取消の取引を立てて ABORTED にする。接続障害などで入金側を記帳できなかった場合は PREPARED のまま残し、
+ * 回復処理が一定時間後に入金側から再実行する。再実行が一定回数を超えた送金は shard.transfers.stuck で数え、
+ * エラーログに出す（清算勘定に金額が残ったままのため、運用者が原因を確認する）。各シャードの仕訳は常にそのシャード内で借方と貸方が一致し、
+ * 送金中の金額は出金側シャードの清算勘定の残高として見える。
+ */
+@Service
+public class TransferService implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransferService.class);
+
+    private static final String SELECT_PENDING = "SELECT reference_number, from_account_id, to_account_id, "
+            + "transaction_type, amount, currency, fx_rate, settlement_amount, settlement_currency, description "
+            + "FROM shard_transfers WHERE status = 'PREPARED' AND updated_at < ? ORDER BY updated_at LIMIT ?";
+
+    private final TransactionService transactionService;
+    private final AccountMetadataRepository accountMetadataRepository;
+    private final FxRateService fxRateService;
+    private final ShardRouter shardRouter;
+    private final Bulkheads bulkheads;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter committedCounter;
+    private final Counter abortedCounter;
+    private final Counter deferredCounter;
+    private final AtomicLong stuckTransfers = new AtomicLong();
+
+    @Value("${app.sharding.recovery-interval-seconds:30}")
+    private long recoveryIntervalSeconds;
+
+    @Value("${app.sharding.recovery-delay-seconds:30}")
+    private long recoveryDelaySeconds;
+
+    @Value("${app.sharding.recovery-batch-size:100}")
+    private int recoveryBatchSize;
+
+    @Value("${app.sharding.stuck-alert-attempts:10}")
+    private int stuckAlertAttempts;
+
+    private ScheduledExecutorService recoverer;
+    private volatile boolean running;
+
+    public TransferService(TransactionService transactionService, AccountMetadataRepository accountMetadataRepository,
+            FxRateService fxRateService, ShardRouter shardRouter, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager, Bulkheads bulkheads, MeterRegistry meterRegistry) {
+        this.transactionService = transactionService;
+        this.accountMetadataRepository = accountMetadataRepository;
+        this.fxRateService = fxRateService;
+        this.shardRouter = shardRouter;
+        this.bulkheads = bulkheads;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.committedCounter = meterRegistry.counter("shard.transfers", "outcome", "committed");
+        this.abortedCounter = meterRegistry.counter("shard.transfers", "outcome", "aborted");
+        this.deferredCounter = meterRegistry.counter("shard.transfers", "outcome", "deferred");
+        Gauge.builder("shard.transfers.stuck", stuckTransfers, AtomicLong::get)
+                .description("再実行が上限回数を超えて PREPARED のままのシャード間送金の件数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 送金する。別シャードへの送金で入金側の記帳が後回しになった場合も、出金側の取引を返す
+     *
+     * @throws InsufficientFundsException 送金元の残高が不足する場合
+     */
+    @Bulkhead(Bulkhead.Type.WRITE)
+    public Transaction transfer(Long fromAccountId, Long toAccountId, BigDecimal amount, String currency,
+            String description) {
+        if (!shardRouter.isCrossShard(fromAccountId, toAccountId)) {
+            return transactionService.createTransaction(fromAccountId, toAccountId, "TRANSFER", amount, currency,
+                    description);
+        }
+        PendingTransfer transfer = pendingTransfer(fromAccountId, toAccountId, amount, currency, description);
+        Transaction debit = prepare(transfer);
+        RuntimeException rejected = complete(transfer);
+        if (rejected != null) {
+            throw rejected;
+        }
+        return debit;
+    }
+
+    /**
+     * 送金先の口座と通貨を入金側シャードで確認し、換算はこの時点のレートで確定させる
+     * （入金側を再実行しても同じ金額で記帳されるように）
+     */
+    private PendingTransfer pendingTransfer(Long fromAccountId, Long toAccountId, BigDecimal amount,
+            String currency, String description) {
+        AccountMetadata toAccount = shardRouter.call(shardRouter.shardOfId(toAccountId),
+                () -> accountMetadataRepository.findById(toAccountId))
+                .orElseThrow(() -> new IllegalArgumentException("口座が見つかりません: " + toAccountId));
+        BigDecimal fxRate = null;
+        BigDecimal settlementAmount = null;
+        String settlementCurrency = null;
+        if (!toAccount.getCurrency().equals(currency)) {
+            FxRateService.Conversion conversion = fxRateService.convert(Money.of(amount, currency),
+                    toAccount.getCurrency());
+            fxRate = conversion.rate().rate();
+            settlementAmount = conversion.target().toBigDecimal();
+            settlementCurrency = toAccount.getCurrency();
+        }
+        return new PendingTransfer(TransactionService.generateReferenceNumber(), fromAccountId, toAccountId,
+                "TRANSFER", amount, currency, fxRate, settlementAmount, settlementCurrency, description);
+    }
+
+    // 1段階目: 出金側シャードで送金元から清算勘定へ
+    private Transaction prepare(PendingTransfer transfer) {
+        LocalDateTime now = LocalDateTime.now();
+        return shardRouter.call(shardRouter.shardOfId(transfer.fromAccountId()),
+                () -> transactionTemplate.execute(status -> {
+                    Transaction debit = transactionService.postShardTransferLeg(new Transaction(
+                            null, transfer.fromAccountId(), null, transfer.transactionType(),
+                            transfer.amount(), transfer.currency(), transfer.description(), "COMPLETED",
+                            transfer.referenceNumber(), now, now, null, null, null, transfer.toAccountId()));
+                    jdbcTemplate.update("INSERT INTO shard_transfers (reference_number, transaction_id, "
+                            + "from_account_id, to_account_id, transaction_type, amount, currency, fx_rate, "
+                            + "settlement_amount, settlement_currency, description) "
+                            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                            transfer.referenceNumber(), debit.getId(), transfer.fromAccountId(),
+                            transfer.toAccountId(), transfer.transactionType(), transfer.amount(),
+                            transfer.currency(), transfer.fxRate(), transfer.settlementAmount(),
+                            transfer.settlementCurrency(), transfer.description());
+                    return debit;
+                }));
+    }
+
+    /**
+     * 2段階目（入金側シャードで清算勘定から送金先へ）と3段階目（出金側シャードで完了を記録）
+     *
+     * @return 入金側で拒否されて取り消した場合はその理由の例外。完了または後回しにした場合は null
+     */
+    private RuntimeException complete(PendingTransfer transfer) {
+        int fromShard = shardRouter.shardOfId(transfer.fromAccountId());
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            shardRouter.run(shardRouter.shardOfId(transfer.toAccountId()),
+                    () -> transactionTemplate.executeWithoutResult(status ->
+                            transactionService.postShardTransferLeg(new Transaction(
+                                    null, null, transfer.toAccountId(), transfer.transactionType(),
+                                    transfer.amount(), transfer.currency(), transfer.description(), "COMPLETED",
+                                    transfer.referenceNumber(), now, now, transfer.fxRate(),
+                                    transfer.settlementAmount(), transfer.settlementCurrency(),
+                                    transfer.fromAccountId()))));
+        } catch (DataIntegrityViolationException e) {
+            if (!UniqueViolations.isViolationOf(e, UniqueViolations.TRANSACTIONS_REFERENCE_NUMBER)) {
+                // 外部キーや CHECK の違反（準備の後に送金先の口座が削除されたなど）は再実行しても成功しない
+                IllegalArgumentException rejected = new IllegalArgumentException(
+                        "送金先の口座に入金できませんでした: " + transfer.toAccountId(), e);
+                abort(transfer, rejected.getMessage());
+                return rejected;
+            }
+            // 回復処理と同時に記帳した（参照番号の一意制約で二重の記帳は防がれる）。記帳済みとして続ける
+            logger.debug("シャード間送金の入金側は記帳済みです: {}", transfer.referenceNumber());
+        } catch (IllegalArgumentException | CurrencyConversionException e) {
+            // 送金先が無い・通貨が一致しないなど、再実行しても成功しない
+            abort(transfer, e.getMessage());
+            return e;
+        } catch (RuntimeException e) {
+            defer(transfer, e);
+            return null;
+        }
+        int updated = shardRouter.call(fromShard, () -> jdbcTemplate.update("UPDATE shard_transfers "
+                + "SET status = 'COMMITTED', attempts = attempts + 1, last_error = NULL, updated_at = CURRENT_TIMESTAMP "
+                + "WHERE reference_number = ? AND status = 'PREPARED'", transfer.referenceNumber()));
+        if (updated > 0) {
+            committedCounter.increment();
+        }
+        return null;
+    }
+
+    // 失敗を記録し、回復処理での再実行に回す
+    private void defer(PendingTransfer transfer, RuntimeException e) {
+        deferredCounter.increment();
+        try {
+            // 再実行の間隔を空けるため updated_at を進める
+            shardRouter.run(shardRouter.shardOfId(transfer.fromAccountId()), () -> jdbcTemplate.update(
+                    "UPDATE shard_transfers "
+                    + "SET attempts = attempts + 1, last_error = ?, updated_at = CURRENT_TIMESTAMP "
+                    + "WHERE reference_number = ? AND status = 'PREPARED'",
+                    String.valueOf(e.getMessage()), transfer.referenceNumber()));
+        } catch (RuntimeException recordFailure) {
+            e.addSuppressed(recordFailure);
+        }
+        logger.warn("シャード間送金の入金側を記帳できませんでした。{}秒後以降に再実行します（参照番号: {}）: {}",
+                recoveryDelaySeconds, transfer.referenceNumber(), e.getMessage());
+    }
+
+    // 出金側シャードで清算勘定から送金元へ戻す取引を立てる（元の出金の取引はそのまま残る）
+    private void abort(PendingTransfer transfer, String reason) {
+        LocalDateTime now = LocalDateTime.now();
+        shardRouter.run(shardRouter.shardOfId(transfer.fromAccountId()),
+                () -> transactionTemplate.executeWithoutResult(status -> {
+                    int updated = jdbcTemplate.update("UPDATE shard_transfers SET status = 'ABORTED', "
+                            + "attempts = attempts + 1, last_error = ?, updated_at = CURRENT_TIMESTAMP "
+                            + "WHERE reference_number = ? AND status = 'PREPARED'",
+                            reason, transfer.referenceNumber());
+                    if (updated == 0) {
+                        return; // 他のノードが処理済み
+                    }
+                    transactionService.postShardTransferLeg(new Transaction(
+                            null, null, transfer.fromAccountId(), transfer.transactionType(),
+                            transfer.amount(), transfer.currency(), "送金の取消: " + transfer.referenceNumber(),
+                            "COMPLETED", TransactionService.generateReferenceNumber(), now, now, null, null, null,
+                            transfer.toAccountId()));
+                }));
+        abortedCounter.increment();
+        logger.warn("シャード間送金を取り消しました（参照番号: {}）: {}", transfer.referenceNumber(), reason);
+    }
+
+    /**
+     * 一定時間 PREPARED のままの送金を入金側から再実行し、再実行が上限回数を超えた送金を数える
+     */
+    void recoverPending() {
+        Timestamp before = Timestamp.valueOf(LocalDateTime.now().minusSeconds(recoveryDelaySeconds));
+        long stuck = 0;
+        for (int shard : shardRouter.shardIds()) {
+            try {
+                List<PendingTransfer> pending = shardRouter.call(shard, () -> jdbcTemplate.query(SELECT_PENDING,
+                        (rs, rowNum) -> PendingTransfer.of(rs), before, recoveryBatchSize));
+                for (PendingTransfer transfer : pending) {
+                    complete(transfer);
+                }
+                if (!pending.isEmpty()) {
+                    logger.info("シャード {} の未完了のシャード間送金 {}件を再実行しました", shard, pending.size());
+                }
+                stuck += shardRouter.call(shard, () -> jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM shard_transfers WHERE status = 'PREPARED' AND attempts >= ?",
+                        Long.class, stuckAlertAttempts));
+            } catch (Exception e) {
+                logger.warn("シャード {} の未完了のシャード間送金を再実行できませんでした: {}", shard, e.getMessage());
+            }
+        }
+        stuckTransfers.set(stuck);
+        if (stuck > 0) {
+            logger.error("{}回以上再実行しても完了しないシャード間送金が {}件あります"
+                    + "（shard_transfers の last_error を確認してください）", stuckAlertAttempts, stuck);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (shardRouter.isEnabled()) {
+            recoverer = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("shard-transfer-recovery").daemon().factory());
+            recoverer.scheduleWithFixedDelay(bulkheads.bind(Bulkhead.Type.BACKGROUND, this::recoverPending),
+                    recoveryIntervalSeconds, recoveryIntervalSeconds, TimeUnit.SECONDS);
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (recoverer != null) {
+            recoverer.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * shard_transfers の1行（入金側の記帳に必要な内容をすべて持つ）
+     */
+    private record PendingTransfer(String referenceNumber, Long fromAccountId, Long toAccountId,
+            String transactionType, BigDecimal amount, String currency, BigDecimal fxRate,
+            BigDecimal settlementAmount, String settlementCurrency, String description) {
+
+        static PendingTransfer of(ResultSet rs) throws SQLException {
+            return new PendingTransfer(rs.getString("reference_number"), rs.getLong("from_account_id"),
+                    rs.getLong("to_account_id"), rs.getString("transaction_type"), rs.getBigDecimal("amount"),
+                    rs.getString("currency"), rs.getBigDecimal("fx_rate"), rs.getBigDecimal("settlement_amount"),
+                    rs.getString("settlement_currency"), rs.getString("description"));
+        }
+    }
+}
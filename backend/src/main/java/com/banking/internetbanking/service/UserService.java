@@ -1,44 +1,88 @@
 package com.banking.internetbanking.service;
 
+import com.banking.internetbanking.config.Bulkhead;
+import com.banking.internetbanking.config.RetryOnConflict;
+import com.banking.internetbanking.config.ShardKey;
+import com.banking.internetbanking.config.ShardRouter;
 import com.banking.internetbanking.repository.UserRepository;
 import com.banking.internetbanking.entity.User;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 @Service
 @Transactional
+@Bulkhead(Bulkhead.Type.READ)
 public class UserService {
 
+    // 管理画面の一覧
+    private static final KeysetListing<User> LISTING = new KeysetListing<>(User.class, User::getId)
+            .sortable("username", User::getUsername, Function.identity())
+            .sortable("email", User::getEmail, Function.identity())
+            .sortable("createdAt", User::getCreatedAt, KeysetListing::dateTime)
+            .filterEqual("username", "username", Function.identity())
+            .filterEqual("email", "email", Function.identity())
+            .filterEqual("enabled", "enabled", KeysetListing::bool)
+            .filterEqual("locked", "locked", KeysetListing::bool)
+            .filterEqual("mfaEnabled", "mfaEnabled", KeysetListing::bool)
+            .filterAtLeast("createdFrom", "createdAt", KeysetListing::dateTime)
+            .filterAtMost("createdTo", "createdAt", KeysetListing::dateTime);
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ShardRouter shardRouter;
+    private final ListingService listingService;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, ShardRouter shardRouter,
+            ListingService listingService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.shardRouter = shardRouter;
+        this.listingService = listingService;
+    }
+
+    // 全シャードから読むため、メソッド全体のトランザクションは張らない（シャードごとに読む）
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Bulkhead(Bulkhead.Type.BATCH)
+    public ListingPage<User> listUsers(ListingRequest request) {
+        return listingService.page(LISTING, request);
     }
 
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Bulkhead(Bulkhead.Type.BATCH)
+    public void exportUsers(ListingRequest request, OutputStream out) throws IOException {
+        listingService.export(LISTING, request, out);
     }
 
-    public Optional<User> getUserById(Long id) {
+    public Optional<User> getUserById(@ShardKey Long id) {
         return userRepository.findById(id);
     }
 
+    /**
+     * ユーザー名のハッシュで割り当てたシャードから探し、無ければ他のシャードも探す
+     * （シャードを追加すると、追加前に作ったユーザーの一部は割り当てと異なるシャードにある）
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Optional<User> getUserByUsername(String username) {
-        return userRepository.findByUsername(username);
+        return shardRouter.findFirst(shardRouter.shardOfUsername(username),
+                () -> userRepository.findByUsername(username));
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Optional<User> getUserByEmail(String email) {
-        return userRepository.findByEmail(email);
+        return shardRouter.findFirst(shardRouter.currentShard(), () -> userRepository.findByEmail(email));
     }
 
-    public User createUser(String username, String email, String password,
+    // ユーザーはユーザー名のハッシュで割り当てたシャードに作る
+    @Bulkhead(Bulkhead.Type.WRITE)
+    public User createUser(@ShardKey(ShardKey.Type.USERNAME) String username, String email, String password,
             String firstName, String lastName, String phoneNumber) {
         User user = new User(
                 null, username, email, passwordEncoder.encode(password),
@@ -47,11 +91,30 @@ public class UserService {
         return userRepository.save(user);
     }
 
-    public boolean updateUser(User user) {
-        return userRepository.save(user) != null;
+    /**
+     * @throws VersionConflictException 更新内容にバージョンがあり、現在のバージョンと異なる場合
+     */
+    @RetryOnConflict
+    @Bulkhead(Bulkhead.Type.WRITE)
+    public boolean updateUser(@ShardKey User user) {
+        Optional<User> existing = userRepository.findById(user.getId());
+        if (existing.isEmpty()) {
+            return false;
+        }
+        Long version = existing.get().getVersion();
+        if (user.getVersion() != null && !user.getVersion().equals(version)) {
+            throw new VersionConflictException("ユーザー", user.getId(), user.getVersion(), version);
+        }
+        User updatedUser = new User(
+                user.getId(), user.getUsername(), user.getEmail(), user.getPasswordHash(),
+                user.getFirstName(), user.getLastName(), user.getPhoneNumber(),
+                user.isEnabled(), user.isLocked(), user.isMfaEnabled(), user.getMfaSecret(),
+                user.getLastLogin(), existing.get().getCreatedAt(), LocalDateTime.now(), version);
+        return userRepository.save(updatedUser) != null;
     }
 
-    public boolean deleteUser(Long id) {
+    @Bulkhead(Bulkhead.Type.WRITE)
+    public boolean deleteUser(@ShardKey Long id) {
         Optional<User> user = userRepository.findById(id);
         if (user.isPresent()) {
             userRepository.delete(user.get());
@@ -60,24 +123,25 @@ public class UserService {
         return false;
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public boolean authenticateUser(String username, String password) {
-        Optional<User> user = userRepository.findByUsername(username);
-        return user.isPresent() &&
-                user.get().isEnabled() &&
-                !user.get().isLocked() &&
-                passwordEncoder.matches(password, user.get().getPasswordHash());
+        return authenticate(username, password).isPresent();
     }
 
-    public void updateLastLogin(Long userId) {
-        Optional<User> user = userRepository.findById(userId);
-        if (user.isPresent()) {
-            User updatedUser = new User(
-                    user.get().getId(), user.get().getUsername(), user.get().getEmail(),
-                    user.get().getPasswordHash(), user.get().getFirstName(), user.get().getLastName(),
-                    user.get().getPhoneNumber(), user.get().isEnabled(), user.get().isLocked(),
-                    user.get().isMfaEnabled(), user.get().getMfaSecret(), LocalDateTime.now(),
-                    user.get().getCreatedAt(), LocalDateTime.now());
-            userRepository.save(updatedUser);
-        }
+    /**
+     * 認証に成功した場合はそのユーザーを返す
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<User> authenticate(String username, String password) {
+        return getUserByUsername(username)
+                .filter(user -> user.isEnabled() && !user.isLocked())
+                .filter(user -> passwordEncoder.matches(password, user.getPasswordHash()));
+    }
+
+    // 一括更新（UPDATE 文）はユーザーのキャッシュ全体を無効にするため、エンティティを読んで変更した列だけを書く
+    @RetryOnConflict
+    @Bulkhead(Bulkhead.Type.WRITE)
+    public void updateLastLogin(@ShardKey Long userId) {
+        userRepository.findById(userId).ifPresent(user -> user.recordLogin(LocalDateTime.now()));
     }
 }
@@ -0,0 +1,41 @@
+package com.banking.internetbanking.service;
+
+import java.io.Serial;
+
+/**
+ * 取引頻度（ベロシティ）の上限超過
+ */
+public class VelocityLimitExceededException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final String scope;
+    private final String window;
+    private final String metric;
+    private final long retryAfterSeconds;
+
+    public VelocityLimitExceededException(String scope, String window, String metric, long retryAfterSeconds) {
+        super("取引の" + ("count".equals(metric) ? "回数" : "金額") + "が上限を超えています（" + scope + "/" + window + "）");
+        this.scope = scope;
+        this.window = window;
+        this.metric = metric;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public String getWindow() {
+        return window;
+    }
+
+    public String getMetric() {
+        return metric;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
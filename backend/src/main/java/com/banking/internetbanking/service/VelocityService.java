@@ -0,0 +1,358 @@
+package com.banking.internetbanking.service;
+
+import com.banking.internetbanking.config.Bulkhead;
+import com.banking.internetbanking.config.Bulkheads;
+import com.banking.internetbanking.config.ShardKey;
+import com.banking.internetbanking.config.ShardRouter;
+import com.banking.internetbanking.repository.AccountMetadataRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 取引頻度（ベロシティ）チェック
+ * 出金側の取引（振込・出金）について、口座ごと・ユーザーごとに直近1分・1時間・1日の
+ * 件数と金額をメモリ上で集計し、上限を超える取引を拒否する。
+ *
+ * <p>集計は {@link SlidingWindowCounter} のロックなしのバケットで行うため、判定に
+ * データベースへの問い合わせは不要。起動時に直近24時間の取引から状態を復元する。
+ *
+ * <p>判定は「先に加算してから上限を確認し、超えていれば取り消す」順で行うため、
+ * 同時に届いた取引がどちらも上限をすり抜けることはない。取引自体が失敗した場合は
+ * 呼び出し元が {@link #release(Reservation)} で取り消す。
+ *
+ * <p>金額の上限は基軸通貨（app.fx.pivot-currency）の額で設定し、取引額は出金口座の通貨から
+ * {@link FxRateService} の現在のレートで換算して集計する。換算レートが無い通貨の出金は
+ * 上限を判定できないため拒否する（{@link CurrencyConversionException}）。
+ *
+ * <p>集計はノードごとのメモリ上にあり、ノード間で共有しない。N 台で受け付ける構成では、
+ * 同じ口座・ユーザーの取引が各ノードに分散すると実質の上限は設定値の最大 N 倍になる。
+ * 厳密な上限が必要な場合は、設定値をノード数で割るか、口座単位で同じノードに振り分けること。
+ */
+@Service
+public class VelocityService implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(VelocityService.class);
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    private final AccountMetadataRepository accountMetadataRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final FxRateService fxRateService;
+    private final Bulkheads bulkheads;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Long, Windows> accountWindows = new ConcurrentHashMap<>();
+    private final Map<Long, Windows> userWindows = new ConcurrentHashMap<>();
+    // 口座の所有者と通貨は変わらないため、一度引いた結果を保持する（口座の集計と一緒に破棄する）
+    private final Map<Long, AccountInfo> accounts = new ConcurrentHashMap<>();
+    private final AtomicLong trackedKeys = new AtomicLong();
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("velocity-sweeper").daemon().factory());
+
+    @Value("${app.velocity.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.fx.pivot-currency:JPY}")
+    private String pivotCurrency;
+
+    @Value("${app.velocity.account.per-minute.count:5}")
+    private long accountMinuteCount;
+    @Value("${app.velocity.account.per-minute.amount:1000000}")
+    private BigDecimal accountMinuteAmount;
+    @Value("${app.velocity.account.per-hour.count:30}")
+    private long accountHourCount;
+    @Value("${app.velocity.account.per-hour.amount:5000000}")
+    private BigDecimal accountHourAmount;
+    @Value("${app.velocity.account.per-day.count:100}")
+    private long accountDayCount;
+    @Value("${app.velocity.account.per-day.amount:10000000}")
+    private BigDecimal accountDayAmount;
+
+    @Value("${app.velocity.user.per-minute.count:10}")
+    private long userMinuteCount;
+    @Value("${app.velocity.user.per-minute.amount:2000000}")
+    private BigDecimal userMinuteAmount;
+    @Value("${app.velocity.user.per-hour.count:60}")
+    private long userHourCount;
+    @Value("${app.velocity.user.per-hour.amount:10000000}")
+    private BigDecimal userHourAmount;
+    @Value("${app.velocity.user.per-day.count:200}")
+    private long userDayCount;
+    @Value("${app.velocity.user.per-day.amount:20000000}")
+    private BigDecimal userDayAmount;
+
+    private Limits accountLimits;
+    private Limits userLimits;
+    private volatile boolean running;
+
+    public VelocityService(AccountMetadataRepository accountMetadataRepository, JdbcTemplate jdbcTemplate,
+            ShardRouter shardRouter, FxRateService fxRateService, Bulkheads bulkheads, MeterRegistry meterRegistry) {
+        this.accountMetadataRepository = accountMetadataRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.fxRateService = fxRateService;
+        this.bulkheads = bulkheads;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("velocity.tracked.keys", trackedKeys, AtomicLong::get).register(meterRegistry);
+    }
+
+    /**
+     * 出金側の取引を集計に加え、上限を超えていれば取り消して例外を投げる
+     *
+     * @param amount 出金口座の通貨での金額
+     * @throws VelocityLimitExceededException 口座またはユーザーの上限を超える場合
+     * @throws CurrencyConversionException    出金口座の通貨から基軸通貨への換算レートが無い場合
+     */
+    @Bulkhead(Bulkhead.Type.WRITE)
+    public Reservation reserve(@ShardKey Long accountId, BigDecimal amount) {
+        if (!enabled) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        AccountInfo info = accountInfo(accountId);
+        // 口座が見つからない場合（取引自体も失敗する）は基軸通貨の額とみなす
+        long minorUnits = toPivotMinorUnits(amount, info != null ? info.currency() : pivotCurrency);
+        Long userId = info != null ? info.userId() : null;
+
+        Windows account = windows(accountWindows, accountId);
+        Windows user = userId != null ? windows(userWindows, userId) : null;
+        account.add(now, 1, minorUnits);
+        if (user != null) {
+            user.add(now, 1, minorUnits);
+        }
+        Reservation reservation = new Reservation(accountId, userId, now, minorUnits);
+
+        try {
+            check("account", account, accountLimits, now);
+            if (user != null) {
+                check("user", user, userLimits, now);
+            }
+        } catch (VelocityLimitExceededException e) {
+            release(reservation);
+            Counter.builder("velocity.rejections")
+                    .tag("scope", e.getScope())
+                    .tag("window", e.getWindow())
+                    .tag("metric", e.getMetric())
+                    .register(meterRegistry)
+                    .increment();
+            logger.info("取引頻度の上限により拒否しました: 口座 {}, {}/{}/{}", accountId,
+                    e.getScope(), e.getWindow(), e.getMetric());
+            throw e;
+        }
+        return reservation;
+    }
+
+    /**
+     * 取引が成立しなかった場合に集計から取り消す
+     */
+    public void release(Reservation reservation) {
+        if (reservation == null) {
+            return;
+        }
+        Windows account = accountWindows.get(reservation.accountId());
+        if (account != null) {
+            account.add(reservation.timestampMillis(), -1, -reservation.amount());
+        }
+        if (reservation.userId() != null) {
+            Windows user = userWindows.get(reservation.userId());
+            if (user != null) {
+                user.add(reservation.timestampMillis(), -1, -reservation.amount());
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        accountLimits = new Limits(accountMinuteCount, toPivotMinorUnits(accountMinuteAmount, pivotCurrency),
+                accountHourCount, toPivotMinorUnits(accountHourAmount, pivotCurrency),
+                accountDayCount, toPivotMinorUnits(accountDayAmount, pivotCurrency));
+        userLimits = new Limits(userMinuteCount, toPivotMinorUnits(userMinuteAmount, pivotCurrency),
+                userHourCount, toPivotMinorUnits(userHourAmount, pivotCurrency),
+                userDayCount, toPivotMinorUnits(userDayAmount, pivotCurrency));
+        running = true;
+        if (!enabled) {
+            logger.info("取引頻度チェックは無効です。");
+            return;
+        }
+        bulkheads.bind(Bulkhead.Type.BACKGROUND, this::rebuild).run();
+        sweeper.scheduleAtFixedRate(this::sweep, 1, 1, TimeUnit.HOURS);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        sweeper.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Web サーバーが受け付けを始める前に状態の復元を終える
+        return SmartLifecycle.DEFAULT_PHASE - 2048;
+    }
+
+    /**
+     * 直近24時間の出金側取引から集計を復元する（全シャード）
+     */
+    private void rebuild() {
+        long start = System.currentTimeMillis();
+        long[] rows = {0};
+        LongAdder unconverted = new LongAdder();
+        try {
+            for (int shard : shardRouter.shardIds()) {
+                shardRouter.run(shard, () -> jdbcTemplate.query(
+                        "SELECT t.from_account_id, a.user_id, a.currency AS account_currency, "
+                                + "t.amount, t.currency, t.transaction_date "
+                                + "FROM transactions t JOIN accounts a ON a.id = t.from_account_id "
+                                + "WHERE t.transaction_date >= ? "
+                                + "AND t.transaction_type IN ('TRANSFER', 'WITHDRAWAL', 'PAYMENT') "
+                                + "AND t.status = 'COMPLETED'",
+                        rs -> {
+                            long accountId = rs.getLong("from_account_id");
+                            long userId = rs.getLong("user_id");
+                            Timestamp date = rs.getTimestamp("transaction_date");
+                            long minorUnits;
+                            try {
+                                minorUnits = toPivotMinorUnits(rs.getBigDecimal("amount"), rs.getString("currency"));
+                            } catch (CurrencyConversionException e) {
+                                // レートが無い通貨の取引は件数だけ数える
+                                minorUnits = 0;
+                                unconverted.increment();
+                            }
+                            accounts.put(accountId, new AccountInfo(userId, rs.getString("account_currency")));
+                            windows(accountWindows, accountId).add(date.getTime(), 1, minorUnits);
+                            windows(userWindows, userId).add(date.getTime(), 1, minorUnits);
+                            rows[0]++;
+                        },
+                        new Timestamp(start - DAY)));
+            }
+            logger.info("取引頻度の集計を復元しました（取引: {}件, 口座: {}, ユーザー: {}, {}ms）",
+                    rows[0], accountWindows.size(), userWindows.size(), System.currentTimeMillis() - start);
+            if (unconverted.sum() > 0) {
+                logger.warn("換算レートが無いため金額を集計しなかった取引があります（{}件）", unconverted.sum());
+            }
+        } catch (Exception e) {
+            // 復元できなくても取引は止めず、以降の取引から集計する
+            logger.warn("取引頻度の集計を復元できませんでした: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 24時間以上取引の無いキーを破棄する
+     */
+    private void sweep() {
+        long threshold = System.currentTimeMillis() - DAY - HOUR;
+        accountWindows.entrySet().removeIf(entry -> entry.getValue().lastActivityMillis() < threshold);
+        userWindows.entrySet().removeIf(entry -> entry.getValue().lastActivityMillis() < threshold);
+        accounts.keySet().removeIf(accountId -> !accountWindows.containsKey(accountId));
+        trackedKeys.set(accountWindows.size() + userWindows.size());
+    }
+
+    private void check(String scope, Windows windows, Limits limits, long now) {
+        checkWindow(scope, "minute", windows.minute.totals(now), limits.minuteCount(), limits.minuteAmount());
+        checkWindow(scope, "hour", windows.hour.totals(now), limits.hourCount(), limits.hourAmount());
+        checkWindow(scope, "day", windows.day.totals(now), limits.dayCount(), limits.dayAmount());
+    }
+
+    private void checkWindow(String scope, String window, SlidingWindowCounter.Totals totals,
+            long maxCount, long maxAmount) {
+        // 上限 0 以下は無制限
+        long retryAfterSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(totals.retryAfterMillis()));
+        if (maxCount > 0 && totals.count() > maxCount) {
+            throw new VelocityLimitExceededException(scope, window, "count", retryAfterSeconds);
+        }
+        if (maxAmount > 0 && totals.amount() > maxAmount) {
+            throw new VelocityLimitExceededException(scope, window, "amount", retryAfterSeconds);
+        }
+    }
+
+    private Windows windows(Map<Long, Windows> map, Long key) {
+        return map.computeIfAbsent(key, k -> {
+            trackedKeys.incrementAndGet();
+            return new Windows();
+        });
+    }
+
+    private AccountInfo accountInfo(Long accountId) {
+        AccountInfo info = accounts.get(accountId);
+        if (info != null) {
+            return info;
+        }
+        info = accountMetadataRepository.findById(accountId)
+                .map(metadata -> new AccountInfo(metadata.getUserId(), metadata.getCurrency()))
+                .orElse(null);
+        if (info != null) {
+            accounts.put(accountId, info);
+        }
+        return info;
+    }
+
+    /**
+     * 基軸通貨に換算した金額（基軸通貨の最小単位の整数）
+     */
+    private long toPivotMinorUnits(BigDecimal amount, String currency) {
+        Money money = Money.of(amount, currency, RoundingMode.HALF_UP);
+        if (!currency.equals(pivotCurrency)) {
+            money = fxRateService.convert(money, pivotCurrency).target();
+        }
+        return money.minorUnits();
+    }
+
+    /**
+     * 集計に加えた取引（取り消し用）
+     */
+    public record Reservation(Long accountId, Long userId, long timestampMillis, long amount) {
+    }
+
+    private record AccountInfo(Long userId, String currency) {
+    }
+
+    private record Limits(long minuteCount, long minuteAmount, long hourCount, long hourAmount,
+            long dayCount, long dayAmount) {
+    }
+
+    /**
+     * 1キー（口座またはユーザー）分のウィンドウ。1分は5秒、1時間は1分、1日は15分刻みで集計する
+     */
+    private static final class Windows {
+
+        private final SlidingWindowCounter minute = new SlidingWindowCounter(MINUTE, 12);
+        private final SlidingWindowCounter hour = new SlidingWindowCounter(HOUR, 60);
+        private final SlidingWindowCounter day = new SlidingWindowCounter(DAY, 96);
+
+        void add(long timestampMillis, long count, long amount) {
+            minute.add(timestampMillis, count, amount);
+            hour.add(timestampMillis, count, amount);
+            day.add(timestampMillis, count, amount);
+        }
+
+        long lastActivityMillis() {
+            return day.lastActivityMillis();
+        }
+    }
+}
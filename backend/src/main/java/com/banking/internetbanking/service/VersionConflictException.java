@@ -0,0 +1,25 @@
+package com.banking.internetbanking.service;
+
+import java.io.Serial;
+
+/**
+ * 更新内容のバージョンが現在のバージョンと異なる（クライアントが古い内容を元に更新した）
+ * 最新の内容を読み直さない限り結果は変わらないため、{@link com.banking.internetbanking.config.RetryOnConflict}
+ * ではやり直さない
+ */
+public class VersionConflictException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final Long currentVersion;
+
+    public VersionConflictException(String resource, Long id, Long expectedVersion, Long currentVersion) {
+        super(resource + " " + id + " は他で更新されています（指定: " + expectedVersion + ", 現在: " + currentVersion + "）");
+        this.currentVersion = currentVersion;
+    }
+
+    public Long getCurrentVersion() {
+        return currentVersion;
+    }
+}
@@ -0,0 +1,27 @@
+-- 口座ごと・月ごと・取引種別と通貨ごとの入出金の集計（仕訳の記帳と同じトランザクションで加算する）
+-- 月は仕訳の記帳日時の月初日。通貨は仕訳の通貨（通貨の異なる口座への入金は換算後の通貨）
+CREATE TABLE account_monthly_rollups (
+    account_id BIGINT NOT NULL,
+    month DATE NOT NULL,
+    transaction_type VARCHAR(20) NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    inflow DECIMAL(19,2) NOT NULL DEFAULT 0,
+    outflow DECIMAL(19,2) NOT NULL DEFAULT 0,
+    inflow_count INT NOT NULL DEFAULT 0,
+    outflow_count INT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (account_id, month, transaction_type, currency)
+);
+
+-- 既存の仕訳から初期値を作る（件数が多い環境では POST /api/analytics/rollups/rebuild で範囲ごとに作り直せる）
+INSERT INTO account_monthly_rollups (account_id, month, transaction_type, currency, inflow, outflow,
+        inflow_count, outflow_count)
+SELECT p.account_id, date_trunc('month', p.posted_at)::date, t.transaction_type, p.currency,
+       COALESCE(SUM(p.amount) FILTER (WHERE p.direction = 'C'), 0),
+       COALESCE(SUM(p.amount) FILTER (WHERE p.direction = 'D'), 0),
+       COUNT(*) FILTER (WHERE p.direction = 'C'),
+       COUNT(*) FILTER (WHERE p.direction = 'D')
+FROM postings p
+JOIN transactions t ON t.id = p.transaction_id
+WHERE p.account_id IS NOT NULL
+GROUP BY p.account_id, date_trunc('month', p.posted_at)::date, t.transaction_type, p.currency;
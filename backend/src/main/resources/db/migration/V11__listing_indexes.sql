@@ -0,0 +1,18 @@
+-- migrate:no-transaction
+-- 管理画面の一覧（キーセット方式のページング）で並べ替えに使う列の索引。
+-- (並べ替えの列, id) の順で持ち、前のページの最後の行の続きから索引を読むだけでページを返せるようにする。
+-- ユーザー名・メールアドレス・口座番号は一意制約の索引を使う。
+DROP INDEX CONCURRENTLY IF EXISTS idx_users_created_at_id;
+CREATE INDEX CONCURRENTLY idx_users_created_at_id ON users (created_at, id);
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_accounts_created_at_id;
+CREATE INDEX CONCURRENTLY idx_accounts_created_at_id ON accounts (created_at, id);
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_accounts_balance_id;
+CREATE INDEX CONCURRENTLY idx_accounts_balance_id ON accounts (balance, id);
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_transactions_transaction_date_id;
+CREATE INDEX CONCURRENTLY idx_transactions_transaction_date_id ON transactions (transaction_date, id);
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_transactions_amount_id;
+CREATE INDEX CONCURRENTLY idx_transactions_amount_id ON transactions (amount, id);
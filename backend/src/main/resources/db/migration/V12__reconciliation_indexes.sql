@@ -0,0 +1,5 @@
+-- migrate:no-transaction
+-- 増分照合で残高が更新された口座を探すための索引（accounts.updated_at >= 前回の開始時刻）。
+-- transactions 側の条件は主キーと idx_transactions_transaction_date の範囲で読む。
+DROP INDEX CONCURRENTLY IF EXISTS idx_accounts_updated_at;
+CREATE INDEX CONCURRENTLY idx_accounts_updated_at ON accounts (updated_at);
@@ -0,0 +1,6 @@
+-- migrate:no-transaction
+-- V11 で作成した残高順の一覧の索引を削除する。
+-- accounts.balance は記帳のたびに更新されるため、この列の索引があると口座の更新が HOT 更新にならず、
+-- 記帳ごとに accounts のすべての索引へ書き込みが発生する。残高順の並べ替えは一覧から外した
+-- （残高による絞り込みは索引を使わずに行う）。
+DROP INDEX CONCURRENTLY IF EXISTS idx_accounts_balance_id;
@@ -0,0 +1,5 @@
+-- migrate:no-transaction
+-- V12 で作成した accounts.updated_at の索引を削除する。
+-- updated_at は記帳のたびに更新されるため、この列の索引があると口座の更新が HOT 更新にならない。
+-- 増分照合は transactions の条件（主キーと idx_transactions_transaction_date）だけで対象の口座を探す。
+DROP INDEX CONCURRENTLY IF EXISTS idx_accounts_updated_at;
@@ -0,0 +1,24 @@
+-- schema.sql で作成済みのデータベースにも適用できるよう IF NOT EXISTS で作成する
+
+-- トランザクショナルアウトボックステーブル（取引の記帳と同一トランザクションで書き込む）
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGSERIAL PRIMARY KEY,
+    tx_id BIGINT NOT NULL DEFAULT txid_current(),
+    aggregate_type VARCHAR(50) NOT NULL, -- TRANSACTION
+    aggregate_id BIGINT NOT NULL,
+    event_type VARCHAR(50) NOT NULL, -- TRANSACTION_POSTED
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- アウトボックス購読者ごとの配信済みオフセット
+CREATE TABLE IF NOT EXISTS outbox_consumer_offsets (
+    consumer_name VARCHAR(100) PRIMARY KEY,
+    last_tx_id BIGINT NOT NULL DEFAULT 0,
+    last_event_id BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- インデックス
+CREATE INDEX IF NOT EXISTS idx_outbox_events_tx_id_id ON outbox_events(tx_id, id);
+CREATE INDEX IF NOT EXISTS idx_outbox_events_created_at ON outbox_events(created_at);
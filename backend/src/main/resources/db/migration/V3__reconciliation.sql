@@ -0,0 +1,29 @@
+-- 残高照合の実行履歴（増分照合は前回の取引IDと開始時刻以降に動いた口座だけを照合する）
+CREATE TABLE reconciliation_runs (
+    id BIGSERIAL PRIMARY KEY,
+    mode VARCHAR(20) NOT NULL, -- FULL, INCREMENTAL
+    status VARCHAR(20) NOT NULL, -- RUNNING, COMPLETED, FAILED
+    max_transaction_id BIGINT NOT NULL DEFAULT 0,
+    accounts_checked BIGINT NOT NULL DEFAULT 0,
+    postings_scanned BIGINT NOT NULL DEFAULT 0,
+    discrepancies BIGINT NOT NULL DEFAULT 0,
+    error TEXT,
+    started_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    finished_at TIMESTAMP
+);
+
+-- 残高照合で検出した不一致（口座残高と取引履歴から計算した残高の差）
+CREATE TABLE reconciliation_discrepancies (
+    id BIGSERIAL PRIMARY KEY,
+    run_id BIGINT NOT NULL REFERENCES reconciliation_runs(id),
+    account_id BIGINT NOT NULL,
+    recorded_balance DECIMAL(15,2) NOT NULL,
+    computed_balance DECIMAL(15,2) NOT NULL,
+    difference DECIMAL(15,2) NOT NULL,
+    detected_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- インデックス
+CREATE INDEX idx_reconciliation_runs_status_started_at ON reconciliation_runs(status, started_at);
+CREATE INDEX idx_reconciliation_discrepancies_run_id ON reconciliation_discrepancies(run_id);
+CREATE INDEX idx_reconciliation_discrepancies_account_id ON reconciliation_discrepancies(account_id);
@@ -0,0 +1,67 @@
+-- 複式簿記の仕訳（取引ごとに借方・貸方の明細を追記する。更新・削除はトリガーで禁止）
+CREATE TABLE postings (
+    id BIGSERIAL PRIMARY KEY,
+    transaction_id BIGINT REFERENCES transactions(id), -- 移行時の開始残高の仕訳だけ NULL
+    account_id BIGINT REFERENCES accounts(id), -- 顧客口座（相手勘定の場合は NULL）
+    ledger_code VARCHAR(30) NOT NULL, -- CUSTOMER, CASH, PAYMENT_CLEARING, OPENING_BALANCE
+    direction CHAR(1) NOT NULL CHECK (direction IN ('D', 'C')), -- D: 借方（顧客口座から出金）, C: 貸方（顧客口座へ入金）
+    amount DECIMAL(15,2) NOT NULL CHECK (amount > 0),
+    currency VARCHAR(3) NOT NULL,
+    posted_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CHECK (transaction_id IS NOT NULL OR ledger_code IN ('CUSTOMER', 'OPENING_BALANCE'))
+);
+
+-- 既存の完了済みの取引の仕訳（LedgerService と同じ勘定。この時点では通貨をまたぐ取引・シャードは無い）
+-- 口座IDの欠けた取引は仕訳にせず、その分は下の開始残高に含める
+INSERT INTO postings (transaction_id, account_id, ledger_code, direction, amount, currency, posted_at)
+SELECT t.id, leg.account_id, leg.ledger_code, leg.direction, t.amount, COALESCE(t.currency, 'JPY'),
+       COALESCE(t.transaction_date, t.created_at, CURRENT_TIMESTAMP)
+FROM transactions t
+CROSS JOIN LATERAL (VALUES
+    (CASE WHEN t.transaction_type = 'DEPOSIT' THEN NULL ELSE t.from_account_id END,
+     CASE WHEN t.transaction_type = 'DEPOSIT' THEN 'CASH' ELSE 'CUSTOMER' END, 'D'),
+    (CASE WHEN t.transaction_type IN ('TRANSFER', 'DEPOSIT') THEN t.to_account_id END,
+     CASE t.transaction_type WHEN 'WITHDRAWAL' THEN 'CASH' WHEN 'PAYMENT' THEN 'PAYMENT_CLEARING'
+         ELSE 'CUSTOMER' END, 'C')
+) leg(account_id, ledger_code, direction)
+WHERE t.status = 'COMPLETED' AND t.amount > 0
+  AND (t.transaction_type = 'DEPOSIT' OR t.from_account_id IS NOT NULL)
+  AND (t.transaction_type IN ('WITHDRAWAL', 'PAYMENT') OR t.to_account_id IS NOT NULL)
+  AND t.transaction_type IN ('TRANSFER', 'DEPOSIT', 'WITHDRAWAL', 'PAYMENT')
+ORDER BY t.id, leg.direction DESC;
+
+-- 取引の記録より前からある残高（初期データ・取引の無い入金など）は、口座ごとに開始残高の仕訳で埋め、
+-- 仕訳の合計が accounts.balance と一致するようにする（相手勘定は OPENING_BALANCE）
+INSERT INTO postings (transaction_id, account_id, ledger_code, direction, amount, currency, posted_at)
+SELECT NULL, leg.account_id, leg.ledger_code, leg.direction, ABS(o.difference), o.currency, o.opened_at
+FROM (
+    SELECT a.id, COALESCE(a.currency, 'JPY') AS currency, COALESCE(a.created_at, CURRENT_TIMESTAMP) AS opened_at,
+           a.balance - COALESCE(net.amount, 0) AS difference
+    FROM accounts a
+    LEFT JOIN (SELECT account_id, SUM(CASE direction WHEN 'C' THEN amount ELSE -amount END) AS amount
+               FROM postings WHERE account_id IS NOT NULL GROUP BY account_id) net ON net.account_id = a.id
+) o
+CROSS JOIN LATERAL (VALUES
+    (o.id, 'CUSTOMER', CASE WHEN o.difference > 0 THEN 'C' ELSE 'D' END),
+    (NULL::BIGINT, 'OPENING_BALANCE', CASE WHEN o.difference > 0 THEN 'D' ELSE 'C' END)
+) leg(account_id, ledger_code, direction)
+WHERE o.difference <> 0
+ORDER BY o.id, leg.account_id NULLS LAST;
+
+CREATE FUNCTION postings_append_only() RETURNS trigger AS $fn$
+BEGIN
+    RAISE EXCEPTION 'postings は追記専用です（%）', TG_OP;
+END;
+$fn$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_postings_append_only
+    BEFORE UPDATE OR DELETE ON postings
+    FOR EACH ROW EXECUTE FUNCTION postings_append_only();
+
+CREATE TRIGGER trg_postings_no_truncate
+    BEFORE TRUNCATE ON postings
+    FOR EACH STATEMENT EXECUTE FUNCTION postings_append_only();
+
+-- インデックス
+CREATE INDEX idx_postings_transaction_id ON postings(transaction_id);
+CREATE INDEX idx_postings_account_id_id ON postings(account_id, id);
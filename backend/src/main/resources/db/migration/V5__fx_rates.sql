@@ -0,0 +1,26 @@
+-- 為替レート（基準通貨1単位あたりの相手通貨の額）
+CREATE TABLE fx_rates (
+    base_currency VARCHAR(3) NOT NULL,
+    quote_currency VARCHAR(3) NOT NULL,
+    rate DECIMAL(20,10) NOT NULL CHECK (rate > 0),
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (base_currency, quote_currency),
+    CHECK (base_currency <> quote_currency)
+);
+
+-- レートが変わったらアプリケーションのメモリ上のレート表を読み直させる
+CREATE FUNCTION fx_rates_notify() RETURNS trigger AS $fn$
+BEGIN
+    PERFORM pg_notify('fx_rates', '');
+    RETURN NULL;
+END;
+$fn$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_fx_rates_notify
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON fx_rates
+    FOR EACH STATEMENT EXECUTE FUNCTION fx_rates_notify();
+
+-- 通貨の異なる口座への取引は、適用したレートと入金側の金額・通貨を記録する
+ALTER TABLE transactions ADD COLUMN fx_rate DECIMAL(20,10);
+ALTER TABLE transactions ADD COLUMN settlement_amount DECIMAL(15,2);
+ALTER TABLE transactions ADD COLUMN settlement_currency VARCHAR(3);
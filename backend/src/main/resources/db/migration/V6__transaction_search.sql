@@ -0,0 +1,18 @@
+-- migrate:no-transaction
+-- 取引の摘要検索（部分一致・あいまい検索）用のトライグラム索引と、口座ごとに新しい順で読むための索引
+-- 取引の多いテーブルへの書き込みを止めないよう CONCURRENTLY で作成する。
+-- 途中で失敗した場合に無効な索引が残らないよう、作り直してから作成する。
+-- 日本語の文字をトライグラムに分解するには、データベースの LC_CTYPE が UTF-8 のロケール（C 以外）である必要がある。
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_transactions_description_trgm;
+CREATE INDEX CONCURRENTLY idx_transactions_description_trgm
+    ON transactions USING gin (description gin_trgm_ops);
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_transactions_from_account_id_date;
+CREATE INDEX CONCURRENTLY idx_transactions_from_account_id_date
+    ON transactions (from_account_id, transaction_date DESC, id DESC);
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_transactions_to_account_id_date;
+CREATE INDEX CONCURRENTLY idx_transactions_to_account_id_date
+    ON transactions (to_account_id, transaction_date DESC, id DESC);
@@ -0,0 +1,27 @@
+-- 別シャードの口座との送金では、各シャードの取引は自シャードの口座だけを from / to に持ち、
+-- 相手側の口座IDはここに記録する（別のデータベースの行のため外部キーは付けない）
+ALTER TABLE transactions ADD COLUMN counterparty_account_id BIGINT;
+
+-- シャードをまたぐ送金の進行状況（出金側のシャードに記録する）
+-- PREPARED: 出金側を記帳済み、COMMITTED: 入金側も記帳済み、ABORTED: 入金できず出金側を取り消し済み
+CREATE TABLE shard_transfers (
+    reference_number VARCHAR(50) PRIMARY KEY,
+    transaction_id BIGINT NOT NULL REFERENCES transactions(id),
+    from_account_id BIGINT NOT NULL REFERENCES accounts(id),
+    to_account_id BIGINT NOT NULL, -- 入金側シャードの口座
+    transaction_type VARCHAR(20) NOT NULL,
+    amount DECIMAL(15,2) NOT NULL CHECK (amount > 0),
+    currency VARCHAR(3) NOT NULL,
+    fx_rate DECIMAL(20,10),
+    settlement_amount DECIMAL(15,2),
+    settlement_currency VARCHAR(3),
+    description TEXT,
+    status VARCHAR(20) NOT NULL DEFAULT 'PREPARED' CHECK (status IN ('PREPARED', 'COMMITTED', 'ABORTED')),
+    attempts INT NOT NULL DEFAULT 0,
+    last_error TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- インデックス
+CREATE INDEX idx_shard_transfers_prepared ON shard_transfers(updated_at) WHERE status = 'PREPARED';
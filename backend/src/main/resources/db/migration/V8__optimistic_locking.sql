@@ -0,0 +1,5 @@
+-- 楽観的ロック用のバージョン（JPA の @Version）。更新のたびに 1 ずつ増える
+-- 定数のデフォルト値を持つ列の追加は、既存行を書き換えずにカタログの変更だけで済む
+ALTER TABLE users ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE accounts ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE transactions ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
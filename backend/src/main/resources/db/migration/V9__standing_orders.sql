@@ -0,0 +1,28 @@
+-- 定期・予約振込（口座振替の指示）。送金元口座のシャードに記録する
+-- next_run_at が来た指示をスケジューラが FOR UPDATE SKIP LOCKED で確保して実行する
+-- occurrence は次に実行する回（0 から）。回の予定時刻は first_run_at に頻度 × occurrence を足した時刻
+-- attempts は現在の回の失敗回数（上限に達した回は見送って次の回へ進む）
+CREATE TABLE standing_orders (
+    id BIGSERIAL PRIMARY KEY,
+    from_account_id BIGINT NOT NULL REFERENCES accounts(id),
+    to_account_id BIGINT NOT NULL, -- 別シャードの口座の場合があるため外部キーは付けない
+    amount DECIMAL(15,2) NOT NULL CHECK (amount > 0),
+    currency VARCHAR(3) NOT NULL,
+    description TEXT,
+    frequency VARCHAR(10) NOT NULL CHECK (frequency IN ('ONCE', 'DAILY', 'WEEKLY', 'MONTHLY')),
+    first_run_at TIMESTAMP NOT NULL,
+    end_date DATE,
+    occurrence INT NOT NULL DEFAULT 0,
+    next_run_at TIMESTAMP NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'ACTIVE' CHECK (status IN ('ACTIVE', 'COMPLETED', 'FAILED', 'CANCELLED')),
+    attempts INT NOT NULL DEFAULT 0,
+    last_error TEXT,
+    last_run_at TIMESTAMP,
+    last_transaction_id BIGINT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- インデックス
+CREATE INDEX idx_standing_orders_due ON standing_orders(next_run_at) WHERE status = 'ACTIVE';
+CREATE INDEX idx_standing_orders_from_account ON standing_orders(from_account_id);
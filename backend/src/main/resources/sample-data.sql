@@ -17,6 +17,13 @@ INSERT INTO transactions (from_account_id, to_account_id, transaction_type, amou
 (2, 1, 'TRANSFER', 25000.00, 'JPY', '家賃支払い', 'COMPLETED', 'TXN002', CURRENT_TIMESTAMP - INTERVAL '2 days', CURRENT_TIMESTAMP),
 (1, NULL, 'DEPOSIT', 100000.00, 'JPY', '現金入金', 'COMPLETED', 'TXN003', CURRENT_TIMESTAMP - INTERVAL '3 days', CURRENT_TIMESTAMP);
 
+-- 為替レートの挿入
+INSERT INTO fx_rates (base_currency, quote_currency, rate, updated_at) VALUES
+('USD', 'JPY', 150.0000000000, CURRENT_TIMESTAMP),
+('EUR', 'JPY', 162.0000000000, CURRENT_TIMESTAMP),
+('GBP', 'JPY', 190.0000000000, CURRENT_TIMESTAMP)
+ON CONFLICT (base_currency, quote_currency) DO NOTHING;
+
 -- 定期預金データの挿入
 INSERT INTO fixed_deposits (account_id, amount, interest_rate, term_months, start_date, end_date, status, created_at, updated_at) VALUES
 (2, 1000000.00, 0.0050, 12, CURRENT_DATE, CURRENT_DATE + INTERVAL '12 months', 'ACTIVE', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
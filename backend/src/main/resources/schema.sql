@@ -1,5 +1,8 @@
 -- インターネットバンキングシステム データベーススキーマ
 
+-- 拡張機能（取引の摘要検索用）
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
 -- ユーザーテーブル
 CREATE TABLE users (
     id BIGSERIAL PRIMARY KEY,
@@ -15,7 +18,8 @@ CREATE TABLE users (
     mfa_secret VARCHAR(255),
     last_login TIMESTAMP,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0 -- 楽観的ロック用
 );
 
 -- 口座テーブル
@@ -29,7 +33,8 @@ CREATE TABLE accounts (
     status VARCHAR(20) DEFAULT 'ACTIVE', -- ACTIVE, SUSPENDED, CLOSED
     interest_rate DECIMAL(5,4) DEFAULT 0.0000,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0 -- 楽観的ロック用
 );
 
 -- 取引履歴テーブル
@@ -44,7 +49,12 @@ CREATE TABLE transactions (
     status VARCHAR(20) DEFAULT 'COMPLETED', -- PENDING, COMPLETED, FAILED, CANCELLED
     reference_number VARCHAR(50) UNIQUE NOT NULL,
     transaction_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    fx_rate DECIMAL(20,10), -- 通貨の異なる口座への取引で適用したレート
+    settlement_amount DECIMAL(15,2), -- 入金側の通貨での金額
+    settlement_currency VARCHAR(3),
+    counterparty_account_id BIGINT, -- 別シャードの口座との送金で、このシャードに無い側の口座ID
+    version BIGINT NOT NULL DEFAULT 0 -- 楽観的ロック用
 );
 
 -- 定期預金テーブル
@@ -89,6 +99,160 @@ CREATE TABLE security_logs (
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
+-- トランザクショナルアウトボックステーブル（取引の記帳と同一トランザクションで書き込む）
+CREATE TABLE outbox_events (
+    id BIGSERIAL PRIMARY KEY,
+    tx_id BIGINT NOT NULL DEFAULT txid_current(),
+    aggregate_type VARCHAR(50) NOT NULL, -- TRANSACTION
+    aggregate_id BIGINT NOT NULL,
+    event_type VARCHAR(50) NOT NULL, -- TRANSACTION_POSTED
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- アウトボックス購読者ごとの配信済みオフセット
+CREATE TABLE outbox_consumer_offsets (
+    consumer_name VARCHAR(100) PRIMARY KEY,
+    last_tx_id BIGINT NOT NULL DEFAULT 0,
+    last_event_id BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 残高照合の実行履歴（増分照合は前回の取引IDと開始時刻以降に動いた口座だけを照合する）
+CREATE TABLE reconciliation_runs (
+    id BIGSERIAL PRIMARY KEY,
+    mode VARCHAR(20) NOT NULL, -- FULL, INCREMENTAL
+    status VARCHAR(20) NOT NULL, -- RUNNING, COMPLETED, FAILED
+    max_transaction_id BIGINT NOT NULL DEFAULT 0,
+    accounts_checked BIGINT NOT NULL DEFAULT 0,
+    postings_scanned BIGINT NOT NULL DEFAULT 0,
+    discrepancies BIGINT NOT NULL DEFAULT 0,
+    error TEXT,
+    started_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    finished_at TIMESTAMP
+);
+
+-- 残高照合で検出した不一致（口座残高と取引履歴から計算した残高の差）
+CREATE TABLE reconciliation_discrepancies (
+    id BIGSERIAL PRIMARY KEY,
+    run_id BIGINT NOT NULL REFERENCES reconciliation_runs(id),
+    account_id BIGINT NOT NULL,
+    recorded_balance DECIMAL(15,2) NOT NULL,
+    computed_balance DECIMAL(15,2) NOT NULL,
+    difference DECIMAL(15,2) NOT NULL,
+    detected_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 複式簿記の仕訳（取引ごとに借方・貸方の明細を追記する。更新・削除はトリガーで禁止）
+CREATE TABLE postings (
+    id BIGSERIAL PRIMARY KEY,
+    transaction_id BIGINT REFERENCES transactions(id), -- 移行時の開始残高の仕訳だけ NULL
+    account_id BIGINT REFERENCES accounts(id), -- 顧客口座（相手勘定の場合は NULL）
+    ledger_code VARCHAR(30) NOT NULL, -- CUSTOMER, CASH, PAYMENT_CLEARING, OPENING_BALANCE
+    direction CHAR(1) NOT NULL CHECK (direction IN ('D', 'C')), -- D: 借方（顧客口座から出金）, C: 貸方（顧客口座へ入金）
+    amount DECIMAL(15,2) NOT NULL CHECK (amount > 0),
+    currency VARCHAR(3) NOT NULL,
+    posted_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CHECK (transaction_id IS NOT NULL OR ledger_code IN ('CUSTOMER', 'OPENING_BALANCE'))
+);
+
+CREATE FUNCTION postings_append_only() RETURNS trigger AS $fn$
+BEGIN
+    RAISE EXCEPTION 'postings は追記専用です（%）', TG_OP;
+END;
+$fn$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_postings_append_only
+    BEFORE UPDATE OR DELETE ON postings
+    FOR EACH ROW EXECUTE FUNCTION postings_append_only();
+
+CREATE TRIGGER trg_postings_no_truncate
+    BEFORE TRUNCATE ON postings
+    FOR EACH STATEMENT EXECUTE FUNCTION postings_append_only();
+
+-- 為替レート（基準通貨1単位あたりの相手通貨の額）
+CREATE TABLE fx_rates (
+    base_currency VARCHAR(3) NOT NULL,
+    quote_currency VARCHAR(3) NOT NULL,
+    rate DECIMAL(20,10) NOT NULL CHECK (rate > 0),
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (base_currency, quote_currency),
+    CHECK (base_currency <> quote_currency)
+);
+
+-- レートが変わったらアプリケーションのメモリ上のレート表を読み直させる
+CREATE FUNCTION fx_rates_notify() RETURNS trigger AS $fn$
+BEGIN
+    PERFORM pg_notify('fx_rates', '');
+    RETURN NULL;
+END;
+$fn$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_fx_rates_notify
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON fx_rates
+    FOR EACH STATEMENT EXECUTE FUNCTION fx_rates_notify();
+
+-- シャードをまたぐ送金の進行状況（出金側のシャードに記録する）
+-- PREPARED: 出金側を記帳済み、COMMITTED: 入金側も記帳済み、ABORTED: 入金できず出金側を取り消し済み
+CREATE TABLE shard_transfers (
+    reference_number VARCHAR(50) PRIMARY KEY,
+    transaction_id BIGINT NOT NULL REFERENCES transactions(id),
+    from_account_id BIGINT NOT NULL REFERENCES accounts(id),
+    to_account_id BIGINT NOT NULL, -- 入金側シャードの口座
+    transaction_type VARCHAR(20) NOT NULL,
+    amount DECIMAL(15,2) NOT NULL CHECK (amount > 0),
+    currency VARCHAR(3) NOT NULL,
+    fx_rate DECIMAL(20,10),
+    settlement_amount DECIMAL(15,2),
+    settlement_currency VARCHAR(3),
+    description TEXT,
+    status VARCHAR(20) NOT NULL DEFAULT 'PREPARED' CHECK (status IN ('PREPARED', 'COMMITTED', 'ABORTED')),
+    attempts INT NOT NULL DEFAULT 0,
+    last_error TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 定期・予約振込（口座振替の指示）。送金元口座のシャードに記録する
+-- next_run_at が来た指示をスケジューラが FOR UPDATE SKIP LOCKED で確保して実行する
+-- occurrence は次に実行する回（0 から）。回の予定時刻は first_run_at に頻度 × occurrence を足した時刻
+-- attempts は現在の回の失敗回数（上限に達した回は見送って次の回へ進む）
+CREATE TABLE standing_orders (
+    id BIGSERIAL PRIMARY KEY,
+    from_account_id BIGINT NOT NULL REFERENCES accounts(id),
+    to_account_id BIGINT NOT NULL, -- 別シャードの口座の場合があるため外部キーは付けない
+    amount DECIMAL(15,2) NOT NULL CHECK (amount > 0),
+    currency VARCHAR(3) NOT NULL,
+    description TEXT,
+    frequency VARCHAR(10) NOT NULL CHECK (frequency IN ('ONCE', 'DAILY', 'WEEKLY', 'MONTHLY')),
+    first_run_at TIMESTAMP NOT NULL,
+    end_date DATE,
+    occurrence INT NOT NULL DEFAULT 0,
+    next_run_at TIMESTAMP NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'ACTIVE' CHECK (status IN ('ACTIVE', 'COMPLETED', 'FAILED', 'CANCELLED')),
+    attempts INT NOT NULL DEFAULT 0,
+    last_error TEXT,
+    last_run_at TIMESTAMP,
+    last_transaction_id BIGINT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 口座ごと・月ごと・取引種別と通貨ごとの入出金の集計（仕訳の記帳と同じトランザクションで加算する）
+-- 月は仕訳の記帳日時の月初日。通貨は仕訳の通貨（通貨の異なる口座への入金は換算後の通貨）
+CREATE TABLE account_monthly_rollups (
+    account_id BIGINT NOT NULL,
+    month DATE NOT NULL,
+    transaction_type VARCHAR(20) NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    inflow DECIMAL(19,2) NOT NULL DEFAULT 0,
+    outflow DECIMAL(19,2) NOT NULL DEFAULT 0,
+    inflow_count INT NOT NULL DEFAULT 0,
+    outflow_count INT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (account_id, month, transaction_type, currency)
+);
+
 -- インデックス
 CREATE INDEX idx_users_username ON users(username);
 CREATE INDEX idx_users_email ON users(email);
@@ -102,6 +266,26 @@ CREATE INDEX idx_fixed_deposits_account_id ON fixed_deposits(account_id);
 CREATE INDEX idx_loans_user_id ON loans(user_id);
 CREATE INDEX idx_security_logs_user_id ON security_logs(user_id);
 CREATE INDEX idx_security_logs_created_at ON security_logs(created_at);
+CREATE INDEX idx_outbox_events_tx_id_id ON outbox_events(tx_id, id);
+CREATE INDEX idx_outbox_events_created_at ON outbox_events(created_at);
+CREATE INDEX idx_reconciliation_runs_status_started_at ON reconciliation_runs(status, started_at);
+CREATE INDEX idx_reconciliation_discrepancies_run_id ON reconciliation_discrepancies(run_id);
+CREATE INDEX idx_reconciliation_discrepancies_account_id ON reconciliation_discrepancies(account_id);
+CREATE INDEX idx_postings_transaction_id ON postings(transaction_id);
+CREATE INDEX idx_postings_account_id_id ON postings(account_id, id);
+CREATE INDEX idx_transactions_description_trgm ON transactions USING gin (description gin_trgm_ops);
+CREATE INDEX idx_transactions_from_account_id_date ON transactions(from_account_id, transaction_date DESC, id DESC);
+CREATE INDEX idx_transactions_to_account_id_date ON transactions(to_account_id, transaction_date DESC, id DESC);
+CREATE INDEX idx_shard_transfers_prepared ON shard_transfers(updated_at) WHERE status = 'PREPARED';
+CREATE INDEX idx_standing_orders_due ON standing_orders(next_run_at) WHERE status = 'ACTIVE';
+CREATE INDEX idx_standing_orders_from_account ON standing_orders(from_account_id);
+CREATE INDEX idx_users_created_at_id ON users(created_at, id);
+CREATE INDEX idx_accounts_created_at_id ON accounts(created_at, id);
+CREATE INDEX idx_transactions_transaction_date_id ON transactions(transaction_date, id);
+CREATE INDEX idx_transactions_amount_id ON transactions(amount, id);
+
+-- スキーマのバージョン（db/migration の V14 までを適用した状態と同じ。SchemaMigrator がベースラインに使う）
+COMMENT ON TABLE users IS 'schema-snapshot:V14';
 
 -- サンプルデータ
 INSERT INTO users (username, email, password_hash, first_name, last_name, phone_number) VALUES
@@ -114,3 +298,8 @@ INSERT INTO accounts (user_id, account_number, account_type, balance, currency,
 (2, '123456789013', 'CHECKING', 50000.00, 'JPY', 0.0000),
 (3, '123456789014', 'SAVINGS', 200000.00, 'JPY', 0.0010),
 (3, '123456789015', 'FIXED_DEPOSIT', 300000.00, 'JPY', 0.0050);
+
+INSERT INTO fx_rates (base_currency, quote_currency, rate) VALUES
+('USD', 'JPY', 150.0000000000),
+('EUR', 'JPY', 162.0000000000),
+('GBP', 'JPY', 190.0000000000);
@@ -0,0 +1,77 @@
+package com.banking.internetbanking.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShardRingTest {
+
+    private static final int KEYS = 20_000;
+
+    @Test
+    void hashIsPinned() {
+        // 値が変わると既存ユーザーのシャードが変わるため、固定値で確認する
+        assertThat(ShardRing.hash("user-1")).isEqualTo(4729620347622785477L);
+        assertThat(ShardRing.hash("shard-0#0")).isEqualTo(-3413787052447643614L);
+        assertThat(ShardRing.hash("user-1")).isNotEqualTo(ShardRing.hash("user-2"));
+    }
+
+    @Test
+    void locateIsDeterministicAndIndependentOfShardOrder() {
+        ShardRing ring = new ShardRing(List.of(0, 1, 2), 64);
+        ShardRing reordered = new ShardRing(List.of(2, 0, 1), 64);
+        for (int i = 0; i < 1_000; i++) {
+            String key = "user-" + i;
+            assertThat(ring.locate(key)).isEqualTo(ring.locate(key)).isEqualTo(reordered.locate(key));
+        }
+    }
+
+    @Test
+    void singleShardGetsEveryKey() {
+        ShardRing ring = new ShardRing(List.of(3), 1);
+        for (int i = 0; i < 100; i++) {
+            assertThat(ring.locate("key-" + i)).isEqualTo(3);
+        }
+    }
+
+    @Test
+    void spreadsKeysAcrossShards() {
+        ShardRing ring = new ShardRing(List.of(0, 1, 2, 3), 128);
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.locate("user-" + i), 1, Integer::sum);
+        }
+        assertThat(counts).containsOnlyKeys(0, 1, 2, 3);
+        // 均等なら 1/4。仮想ノード 128 なら ±40% に収まる
+        counts.values().forEach(count -> assertThat(count).isBetween(KEYS / 4 * 6 / 10, KEYS / 4 * 14 / 10));
+    }
+
+    @Test
+    void addingShardOnlyMovesKeysToNewShard() {
+        ShardRing before = new ShardRing(List.of(0, 1, 2), 128);
+        ShardRing after = new ShardRing(List.of(0, 1, 2, 3), 128);
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "user-" + i;
+            int oldShard = before.locate(key);
+            int newShard = after.locate(key);
+            if (oldShard != newShard) {
+                assertThat(newShard).isEqualTo(3);
+                moved++;
+            }
+        }
+        // おおよそ 1/4 が新しいシャードに移る
+        assertThat(moved).isBetween(KEYS / 8, KEYS / 2);
+    }
+
+    @Test
+    void rejectsEmptyRing() {
+        assertThatThrownBy(() -> new ShardRing(List.of(), 16)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ShardRing(List.of(0), 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,89 @@
+package com.banking.internetbanking.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlScriptSplitterTest {
+
+    @Test
+    void splitsOnTopLevelSemicolons() {
+        assertThat(SqlScriptSplitter.split("CREATE TABLE a (id INT);\nCREATE TABLE b (id INT);"))
+                .containsExactly("CREATE TABLE a (id INT)", "CREATE TABLE b (id INT)");
+    }
+
+    @Test
+    void keepsLastStatementWithoutSemicolon() {
+        assertThat(SqlScriptSplitter.split("SELECT 1;\nSELECT 2\n"))
+                .containsExactly("SELECT 1", "SELECT 2");
+    }
+
+    @Test
+    void dropsCommentOnlyAndEmptyStatements() {
+        assertThat(SqlScriptSplitter.split("-- 先頭のコメント\n;;\n/* ブロック */;\nSELECT 1;\n-- 末尾のコメント\n"))
+                .containsExactly("SELECT 1");
+    }
+
+    @Test
+    void ignoresSemicolonsInStringLiterals() {
+        assertThat(SqlScriptSplitter.split("INSERT INTO t VALUES ('a;b', 'it''s;');SELECT 1;"))
+                .containsExactly("INSERT INTO t VALUES ('a;b', 'it''s;')", "SELECT 1");
+    }
+
+    @Test
+    void handlesBackslashEscapesOnlyInEscapeStrings() {
+        // E'...' では \' がリテラルの続き、通常の文字列では \ はただの文字
+        assertThat(SqlScriptSplitter.split("SELECT E'a\\';b';SELECT 'c\\';SELECT 2;"))
+                .containsExactly("SELECT E'a\\';b'", "SELECT 'c\\'", "SELECT 2");
+    }
+
+    @Test
+    void doesNotTreatIdentifierEndingInEAsEscapeString() {
+        assertThat(SqlScriptSplitter.split("SELECT name'\\';SELECT 2;"))
+                .containsExactly("SELECT name'\\'", "SELECT 2");
+    }
+
+    @Test
+    void ignoresSemicolonsInQuotedIdentifiers() {
+        assertThat(SqlScriptSplitter.split("SELECT \"a;b\" FROM t;SELECT 1;"))
+                .containsExactly("SELECT \"a;b\" FROM t", "SELECT 1");
+    }
+
+    @Test
+    void ignoresSemicolonsInComments() {
+        assertThat(SqlScriptSplitter.split("SELECT 1 -- a; b\n;SELECT /* c; /* 入れ子; */ d; */ 2;"))
+                .containsExactly("SELECT 1 -- a; b", "SELECT /* c; /* 入れ子; */ d; */ 2");
+    }
+
+    @Test
+    void keepsDollarQuotedBodiesTogether() {
+        String doBlock = """
+                DO $$
+                BEGIN
+                    IF NOT EXISTS (SELECT 1 FROM t) THEN
+                        INSERT INTO t VALUES (1);
+                    END IF;
+                END $$""";
+        assertThat(SqlScriptSplitter.split(doBlock + ";\nSELECT 1;"))
+                .containsExactly(doBlock, "SELECT 1");
+    }
+
+    @Test
+    void keepsTaggedDollarQuotesTogether() {
+        String function = "CREATE FUNCTION f() RETURNS TEXT AS $fn$ SELECT '$$;'; $fn$ LANGUAGE sql";
+        assertThat(SqlScriptSplitter.split(function + ";SELECT 1;"))
+                .containsExactly(function, "SELECT 1");
+    }
+
+    @Test
+    void doesNotTreatPositionalParametersAsDollarQuotes() {
+        assertThat(SqlScriptSplitter.split("PREPARE p AS SELECT $1;SELECT a$b FROM t;"))
+                .containsExactly("PREPARE p AS SELECT $1", "SELECT a$b FROM t");
+    }
+
+    @Test
+    void unterminatedLiteralRunsToEndOfScript() {
+        assertThat(SqlScriptSplitter.split("SELECT 'abc;def"))
+                .containsExactly("SELECT 'abc;def");
+    }
+}
@@ -0,0 +1,88 @@
+package com.banking.internetbanking.controller;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ByteRangeTest {
+
+    @Test
+    void acceptsOnlySingleByteRanges() {
+        assertThat(ByteRange.isSingleRange("bytes=0-99")).isTrue();
+        assertThat(ByteRange.isSingleRange("bytes=100-")).isTrue();
+        assertThat(ByteRange.isSingleRange("bytes=-500")).isTrue();
+        assertThat(ByteRange.isSingleRange(null)).isFalse();
+        assertThat(ByteRange.isSingleRange("bytes=0-1,5-6")).isFalse();
+        assertThat(ByteRange.isSingleRange("items=0-1")).isFalse();
+        assertThat(ByteRange.isSingleRange("bytes=10")).isFalse();
+    }
+
+    @Test
+    void resolvesClosedAndOpenRanges() {
+        assertThat(ByteRange.resolve("bytes=0-99", 1000)).isEqualTo(new ByteRange(0, 99));
+        assertThat(ByteRange.resolve("bytes=900-", 1000)).isEqualTo(new ByteRange(900, 999));
+        // 末尾が全体を超える場合は全体の末尾まで
+        assertThat(ByteRange.resolve("bytes=900-5000", 1000)).isEqualTo(new ByteRange(900, 999));
+        assertThat(ByteRange.resolve("bytes= 5-5", 1000)).isEqualTo(new ByteRange(5, 5));
+    }
+
+    @Test
+    void resolvesSuffixRanges() {
+        assertThat(ByteRange.resolve("bytes=-100", 1000)).isEqualTo(new ByteRange(900, 999));
+        // 全体より長い末尾指定は全体
+        assertThat(ByteRange.resolve("bytes=-5000", 1000)).isEqualTo(new ByteRange(0, 999));
+        assertThat(ByteRange.resolve("bytes=-1", 1)).isEqualTo(new ByteRange(0, 0));
+    }
+
+    @Test
+    void returnsNullForUnsatisfiableRanges() {
+        assertThat(ByteRange.resolve("bytes=1000-", 1000)).isNull();
+        assertThat(ByteRange.resolve("bytes=10-5", 1000)).isNull();
+        assertThat(ByteRange.resolve("bytes=-0", 1000)).isNull();
+        assertThat(ByteRange.resolve("bytes=-10", 0)).isNull();
+        assertThat(ByteRange.resolve("bytes=0-", 0)).isNull();
+        assertThat(ByteRange.resolve("bytes=a-b", 1000)).isNull();
+    }
+
+    @Test
+    void formatsContentRange() {
+        ByteRange range = new ByteRange(900, 999);
+        assertThat(range.length()).isEqualTo(100);
+        assertThat(range.contentRange(1000)).isEqualTo("bytes 900-999/1000");
+    }
+
+    @Test
+    void sliceWritesOnlyBytesInRangeAndStopsAfterLast() throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        OutputStream slice = new ByteRange(3, 7).slice(target);
+        slice.write("012".getBytes(StandardCharsets.US_ASCII));
+        slice.write("3456".getBytes(StandardCharsets.US_ASCII));
+        assertThatThrownBy(() -> slice.write("789".getBytes(StandardCharsets.US_ASCII)))
+                .isInstanceOf(ByteRange.RangeCompleteException.class);
+        assertThat(target.toString(StandardCharsets.US_ASCII)).isEqualTo("34567");
+    }
+
+    @Test
+    void sliceHandlesSingleByteWrites() throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        OutputStream slice = new ByteRange(1, 2).slice(target);
+        slice.write('a');
+        slice.write('b');
+        assertThatThrownBy(() -> slice.write('c')).isInstanceOf(ByteRange.RangeCompleteException.class);
+        assertThat(target.toString(StandardCharsets.US_ASCII)).isEqualTo("bc");
+    }
+
+    @Test
+    void countingStreamCountsWithoutWriting() throws IOException {
+        ByteRange.CountingNullOutputStream counter = new ByteRange.CountingNullOutputStream();
+        counter.write(new byte[64], 8, 32);
+        counter.write('x');
+        assertThat(counter.count()).isEqualTo(33);
+    }
+}
@@ -0,0 +1,140 @@
+package com.banking.internetbanking.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetListingTest {
+
+    private record Row(Long id, BigDecimal balance, String name) {
+    }
+
+    private final KeysetListing<Row> listing = new KeysetListing<>(Row.class, Row::id)
+            .sortable("balance", Row::balance, KeysetListing::decimal)
+            .sortable("name", Row::name, Function.identity());
+
+    @Test
+    void cursorRoundTripsThroughNextPage() {
+        List<Row> rows = List.of(
+                new Row(3L, new BigDecimal("10.00"), "c"),
+                new Row(1L, new BigDecimal("5.50"), "a"),
+                new Row(2L, new BigDecimal("10.00"), "b"));
+        KeysetListing.Query<Row> first = listing.resolve(request("balance", false, 2, null));
+
+        ListingPage<Row> page = listing.toPage(rows, first);
+        assertThat(page.items()).extracting(Row::id).containsExactly(1L, 2L);
+
+        KeysetListing.Query<Row> next = listing.resolve(request("balance", false, 2, page.nextCursor()));
+        assertThat(next.after().id()).isEqualTo(2L);
+        assertThat(next.after().value()).isEqualTo(new BigDecimal("10.00"));
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        KeysetListing.Query<Row> query = listing.resolve(request(null, false, 5, null));
+
+        assertThat(listing.toPage(List.of(new Row(1L, BigDecimal.ONE, "a")), query).nextCursor()).isNull();
+    }
+
+    @Test
+    void cursorIsUrlSafeAndKeepsSeparatorsInValue() {
+        KeysetListing.Cursor cursor = new KeysetListing.Cursor(42L, "a|b/c+=?");
+        String encoded = cursor.encode("name", true);
+
+        assertThat(encoded).matches("[A-Za-z0-9_-]+");
+        assertThat(decode(encoded, "name", true)).isEqualTo(cursor);
+    }
+
+    @Test
+    void nullSortValueSurvivesRoundTrip() {
+        KeysetListing.Cursor cursor = new KeysetListing.Cursor(7L, null);
+
+        assertThat(decode(cursor.encode("balance", false), "balance", false)).isEqualTo(cursor);
+        // "-" という値と NULL を区別する
+        KeysetListing.Cursor dash = new KeysetListing.Cursor(7L, "-");
+        assertThat(decode(dash.encode("name", false), "name", false)).isEqualTo(dash);
+    }
+
+    @Test
+    void blankCursorMeansFirstPage() {
+        assertThat(listing.resolve(request("name", false, 10, "")).after()).isNull();
+        assertThat(listing.resolve(request("name", false, 10, "  ")).after()).isNull();
+    }
+
+    @Test
+    void rejectsCursorFromAnotherSortOrDirection() {
+        String cursor = new KeysetListing.Cursor(1L, new BigDecimal("3.00")).encode("balance", false);
+
+        assertInvalid(cursor, "name", false);
+        assertInvalid(cursor, "balance", true);
+    }
+
+    @Test
+    void rejectsTamperedCursors() {
+        List<String> tampered = new ArrayList<>();
+        tampered.add("not base64!");
+        // 標準の Base64（+ と /）は受け付けない
+        tampered.add("YmFsYW5jZXxhfDF8PTMu+/");
+        tampered.add(raw("balance|a|1"));
+        tampered.add(raw("balance|a|abc|=3.00"));
+        tampered.add(raw("balance|a|1|=三"));
+        tampered.add(raw("balance|a|1|3.00"));
+        tampered.add(raw("balance|a||=3.00"));
+        tampered.add(raw("|||"));
+        String valid = new KeysetListing.Cursor(1L, new BigDecimal("3.00")).encode("balance", false);
+        tampered.add(valid.substring(0, 10));
+
+        for (String cursor : tampered) {
+            assertInvalid(cursor, "balance", false);
+        }
+    }
+
+    @Test
+    void rejectsUnknownSortAndFilter() {
+        assertThatThrownBy(() -> listing.resolve(request("password", false, 10, null)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> listing.resolve(new ListingRequest(null, false, 10, null, Map.of("status", "x"))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void comparatorPutsNullsLastAscendingAndFirstDescending() {
+        List<Row> rows = new ArrayList<>(List.of(
+                new Row(1L, null, "a"),
+                new Row(2L, BigDecimal.ONE, "b"),
+                new Row(3L, null, "c")));
+
+        rows.sort(listing.comparator(listing.resolve(request("balance", false, 10, null))));
+        assertThat(rows).extracting(Row::id).containsExactly(2L, 1L, 3L);
+        rows.sort(listing.comparator(listing.resolve(request("balance", true, 10, null))));
+        assertThat(rows).extracting(Row::id).containsExactly(3L, 1L, 2L);
+    }
+
+    private KeysetListing.Cursor decode(String cursor, String sort, boolean descending) {
+        return listing.resolve(request(sort, descending, 10, cursor)).after();
+    }
+
+    private void assertInvalid(String cursor, String sort, boolean descending) {
+        assertThatThrownBy(() -> decode(cursor, sort, descending))
+                .as(cursor)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("cursor");
+    }
+
+    private static ListingRequest request(String sort, boolean descending, int limit, String cursor) {
+        return new ListingRequest(sort, descending, limit, cursor, Map.of());
+    }
+
+    private static String raw(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
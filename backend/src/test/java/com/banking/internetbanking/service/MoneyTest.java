@@ -0,0 +1,123 @@
+package com.banking.internetbanking.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    @Test
+    void usesCurrencyFractionDigits() {
+        assertThat(Money.of(new BigDecimal("1500"), "JPY").minorUnits()).isEqualTo(1500);
+        assertThat(Money.of(new BigDecimal("12.34"), "USD").minorUnits()).isEqualTo(1234);
+        assertThat(Money.of(new BigDecimal("12.3"), "USD").toBigDecimal()).isEqualByComparingTo("12.30");
+        assertThat(Money.ofMinor(1500, "JPY").toBigDecimal().scale()).isZero();
+        assertThat(Money.ofMinor(1234, "EUR").toString()).isEqualTo("12.34 EUR");
+    }
+
+    @Test
+    void rejectsFractionsBelowMinorUnitWithoutRounding() {
+        assertThatThrownBy(() -> Money.of(new BigDecimal("100.5"), "JPY")).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.of(new BigDecimal("1.005"), "USD")).isInstanceOf(ArithmeticException.class);
+        // 小数点以下の 0 は端数ではない
+        assertThat(Money.of(new BigDecimal("100.00"), "JPY").minorUnits()).isEqualTo(100);
+    }
+
+    @Test
+    void roundsToCurrencyMinorUnit() {
+        assertThat(Money.of(new BigDecimal("100.5"), "JPY", RoundingMode.HALF_EVEN).minorUnits()).isEqualTo(100);
+        assertThat(Money.of(new BigDecimal("101.5"), "JPY", RoundingMode.HALF_EVEN).minorUnits()).isEqualTo(102);
+        assertThat(Money.of(new BigDecimal("1.005"), "USD", RoundingMode.HALF_UP).minorUnits()).isEqualTo(101);
+        assertThat(Money.of(new BigDecimal("-1.005"), "USD", RoundingMode.HALF_UP).minorUnits()).isEqualTo(-101);
+    }
+
+    @Test
+    void rejectsCurrenciesTheAmountColumnsCannotHold() {
+        // BHD・KWD は小数点以下3桁、XAU は最小単位を持たない
+        assertThatThrownBy(() -> Money.of(BigDecimal.ONE, "BHD")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Money.zero("KWD")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Money.zero("XAU")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Money.zero("ABC")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void multiplyRoundsToMinorUnit() {
+        Money usd = Money.of(new BigDecimal("10.00"), "USD");
+        assertThat(usd.multiply(new BigDecimal("0.0125")).minorUnits()).isEqualTo(12);
+        assertThat(usd.multiply(new BigDecimal("0.0125"), RoundingMode.UP).minorUnits()).isEqualTo(13);
+        Money jpy = Money.of(new BigDecimal("999"), "JPY");
+        // 999 × 0.015 = 14.985
+        assertThat(jpy.multiply(new BigDecimal("0.015")).minorUnits()).isEqualTo(15);
+        assertThat(jpy.multiply(new BigDecimal("0.015"), RoundingMode.DOWN).minorUnits()).isEqualTo(14);
+        assertThatThrownBy(() -> jpy.multiply(new BigDecimal("0.015"), RoundingMode.UNNECESSARY))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void halfEvenMatchesBigDecimal() {
+        long[] amounts = { 1, 5, 15, 25, 99, 12_345, -12_345, 1_000_001 };
+        BigDecimal rate = new BigDecimal("0.05");
+        for (long amount : amounts) {
+            Money money = Money.ofMinor(amount, "USD");
+            BigDecimal expected = money.toBigDecimal().multiply(rate).setScale(2, RoundingMode.HALF_EVEN);
+            assertThat(money.multiply(rate).toBigDecimal()).isEqualByComparingTo(expected);
+        }
+    }
+
+    @Test
+    void convertRoundsToTargetCurrencyMinorUnit() {
+        // 1 USD = 151.2345678901 JPY
+        long unscaled = 1_512_345_678_901L;
+        Money usd = Money.of(new BigDecimal("10.01"), "USD");
+        Money jpy = usd.convert("JPY", unscaled, 10, RoundingMode.HALF_EVEN);
+        assertThat(jpy.currency()).isEqualTo("JPY");
+        // 10.01 × 151.2345678901 = 1513.858024...
+        assertThat(jpy.minorUnits()).isEqualTo(1514);
+
+        // 1 JPY = 0.0066122 USD
+        Money back = Money.of(new BigDecimal("1514"), "JPY").convert("USD", 66_122_000L, 10, RoundingMode.HALF_EVEN);
+        // 1514 × 0.0066122 = 10.0108...
+        assertThat(back.toBigDecimal()).isEqualByComparingTo("10.01");
+    }
+
+    @Test
+    void convertFallsBackToBigDecimalWhenProductOverflows() {
+        Money large = Money.of(new BigDecimal("9000000000000"), "JPY");
+        Money usd = large.convert("USD", 66_122_000L, 10, RoundingMode.HALF_EVEN);
+        assertThat(usd.toBigDecimal()).isEqualByComparingTo("59509800000.00");
+    }
+
+    @Test
+    void enforcesColumnRangePerCurrency() {
+        assertThat(Money.of(new BigDecimal("9999999999999.99"), "USD").minorUnits()).isEqualTo(999_999_999_999_999L);
+        assertThat(Money.of(new BigDecimal("9999999999999"), "JPY").minorUnits()).isEqualTo(9_999_999_999_999L);
+        assertThatThrownBy(() -> Money.of(new BigDecimal("10000000000000"), "JPY"))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.ofMinor(1_000_000_000_000_000L, "USD")).isInstanceOf(ArithmeticException.class);
+        Money max = Money.ofMinor(9_999_999_999_999L, "JPY");
+        assertThatThrownBy(() -> max.plus(Money.ofMinor(1, "JPY"))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> max.multiply(new BigDecimal("2"))).isInstanceOf(ArithmeticException.class);
+        assertThat(max.negate().minorUnits()).isEqualTo(-9_999_999_999_999L);
+    }
+
+    @Test
+    void rejectsMixedCurrencies() {
+        Money jpy = Money.ofMinor(100, "JPY");
+        Money usd = Money.ofMinor(100, "USD");
+        assertThatThrownBy(() -> jpy.plus(usd)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> jpy.compareTo(usd)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(jpy).isNotEqualTo(usd);
+    }
+
+    @Test
+    void columnUnitHelpersUseTwoDecimals() {
+        assertThat(Money.columnUnitsOf(new BigDecimal("1500"), RoundingMode.UNNECESSARY)).isEqualTo(150_000);
+        assertThat(Money.fromColumnUnits(150_001)).isEqualTo(new BigDecimal("1500.01"));
+        assertThatThrownBy(() -> Money.addColumnUnits(Money.MAX_COLUMN_UNITS, 1))
+                .isInstanceOf(ArithmeticException.class);
+    }
+}
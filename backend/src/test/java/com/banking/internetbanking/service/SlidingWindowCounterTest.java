@@ -0,0 +1,123 @@
+package com.banking.internetbanking.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlidingWindowCounterTest {
+
+    // 1分を5秒 × 12バケットで集計する（VelocityService と同じ構成）
+    private static final long WINDOW = 60_000;
+    private static final long BUCKET = 5_000;
+    private static final long T0 = 1_700_000_000_000L;
+
+    private final SlidingWindowCounter counter = new SlidingWindowCounter(WINDOW, 12);
+
+    @Test
+    void sumsCountsAndAmountsWithinWindow() {
+        counter.add(T0, 1, 100);
+        counter.add(T0 + 1_000, 1, 250);
+        counter.add(T0 + 30_000, 2, 50);
+
+        SlidingWindowCounter.Totals totals = counter.totals(T0 + 40_000);
+        assertThat(totals.count()).isEqualTo(4);
+        assertThat(totals.amount()).isEqualTo(400);
+    }
+
+    @Test
+    void dropsBucketsOutsideWindow() {
+        counter.add(T0, 1, 100);
+        counter.add(T0 + 30_000, 1, 200);
+
+        SlidingWindowCounter.Totals totals = counter.totals(T0 + WINDOW + BUCKET);
+        assertThat(totals.count()).isEqualTo(1);
+        assertThat(totals.amount()).isEqualTo(200);
+        assertThat(counter.totals(T0 + 2 * WINDOW).count()).isZero();
+    }
+
+    @Test
+    void reusesSlotForNewRoundAndDiscardsOldValues() {
+        counter.add(T0, 3, 300);
+        // 1周後の同じスロット
+        counter.add(T0 + WINDOW, 1, 10);
+
+        SlidingWindowCounter.Totals totals = counter.totals(T0 + WINDOW);
+        assertThat(totals.count()).isEqualTo(1);
+        assertThat(totals.amount()).isEqualTo(10);
+    }
+
+    @Test
+    void ignoresAddForRoundAlreadyReplaced() {
+        counter.add(T0 + WINDOW, 1, 10);
+        // 取り消しが1周遅れで届いた場合は新しい周回の値を変えない
+        counter.add(T0, -1, -100);
+
+        assertThat(counter.totals(T0 + WINDOW).amount()).isEqualTo(10);
+    }
+
+    @Test
+    void negativeAddReleasesReservation() {
+        counter.add(T0, 1, 500);
+        counter.add(T0, -1, -500);
+
+        SlidingWindowCounter.Totals totals = counter.totals(T0 + 1_000);
+        assertThat(totals.count()).isZero();
+        assertThat(totals.amount()).isZero();
+        assertThat(totals.retryAfterMillis()).isZero();
+    }
+
+    @Test
+    void retryAfterIsTimeUntilOldestBucketLeavesWindow() {
+        long bucketStart = T0 - T0 % BUCKET;
+        counter.add(bucketStart + 1_000, 1, 100);
+        counter.add(bucketStart + 20_000, 1, 100);
+
+        SlidingWindowCounter.Totals totals = counter.totals(bucketStart + 30_000);
+        assertThat(totals.retryAfterMillis()).isEqualTo(WINDOW - 30_000);
+    }
+
+    @Test
+    void lastActivityIsStartOfNewestBucket() {
+        assertThat(counter.lastActivityMillis()).isZero();
+        long bucketStart = T0 - T0 % BUCKET;
+        counter.add(bucketStart + 1_000, 1, 1);
+        counter.add(bucketStart + 12_000, 1, 1);
+
+        assertThat(counter.lastActivityMillis()).isEqualTo(bucketStart + 2 * BUCKET);
+    }
+
+    @Test
+    void concurrentAddsAreNotLost() throws Exception {
+        int threads = 8;
+        int perThread = 10_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    counter.add(T0 + i % 3 * BUCKET, 1, 7);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        SlidingWindowCounter.Totals totals = counter.totals(T0 + 3 * BUCKET);
+        assertThat(totals.count()).isEqualTo((long) threads * perThread);
+        assertThat(totals.amount()).isEqualTo(7L * threads * perThread);
+    }
+}
@@ -0,0 +1,103 @@
+package com.banking.internetbanking.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimingWheelTest {
+
+    // 1秒 × 8スロット × 3レベル（範囲 512秒）
+    private static final long TICK = 1_000;
+    private static final long T0 = 1_700_000_000_000L;
+
+    private final TimingWheel wheel = new TimingWheel(TICK, 8, 3, T0);
+    private final List<Long> fired = new ArrayList<>();
+
+    @Test
+    void firesTimerAfterItsTick() {
+        wheel.schedule(1, T0 + 2_500);
+
+        wheel.advance(T0 + 2_000, fired::add);
+        assertThat(fired).isEmpty();
+        // tick 単位に切り上げて通知する
+        wheel.advance(T0 + 3_000, fired::add);
+        assertThat(fired).containsExactly(1L);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void firesInDueOrderAcrossLevels() {
+        // レベル0（8秒未満）、レベル1（64秒未満）、レベル2 に分かれる期限
+        wheel.schedule(3, T0 + 300_000);
+        wheel.schedule(2, T0 + 40_000);
+        wheel.schedule(1, T0 + 5_000);
+
+        wheel.advance(T0 + 500_000, fired::add);
+        assertThat(fired).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void firesEachTimerOnceAtItsOwnTime() {
+        wheel.schedule(2, T0 + 70_000);
+
+        wheel.advance(T0 + 69_000, fired::add);
+        assertThat(fired).isEmpty();
+        wheel.advance(T0 + 70_000, fired::add);
+        assertThat(fired).containsExactly(2L);
+        wheel.advance(T0 + 200_000, fired::add);
+        assertThat(fired).containsExactly(2L);
+    }
+
+    @Test
+    void overdueTimerFiresOnNextAdvance() {
+        wheel.advance(T0 + 10_000, fired::add);
+        wheel.schedule(7, T0);
+
+        wheel.advance(T0 + 10_000, fired::add);
+        assertThat(fired).containsExactly(7L);
+    }
+
+    @Test
+    void reschedulingReplacesPreviousDeadline() {
+        wheel.schedule(1, T0 + 3_000);
+        wheel.schedule(1, T0 + 20_000);
+
+        wheel.advance(T0 + 10_000, fired::add);
+        assertThat(fired).isEmpty();
+        assertThat(wheel.size()).isEqualTo(1);
+        wheel.advance(T0 + 20_000, fired::add);
+        assertThat(fired).containsExactly(1L);
+    }
+
+    @Test
+    void rejectsDeadlineBeyondRangeAndDropsExistingTimer() {
+        assertThat(wheel.rangeMillis()).isEqualTo(512_000);
+        wheel.schedule(1, T0 + 5_000);
+
+        assertThat(wheel.schedule(1, T0 + 512_000)).isFalse();
+        assertThat(wheel.size()).isZero();
+        wheel.advance(T0 + 10_000, fired::add);
+        assertThat(fired).isEmpty();
+    }
+
+    @Test
+    void firesManyTimersSharingOneSlot() {
+        for (long id = 0; id < 1_000; id++) {
+            wheel.schedule(id, T0 + 100_000 + id % 1_000);
+        }
+
+        wheel.advance(T0 + 101_000, fired::add);
+        assertThat(fired).hasSize(1_000).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThatThrownBy(() -> new TimingWheel(0, 8, 3, T0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TimingWheel(TICK, 1, 3, T0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TimingWheel(TICK, 8, 0, T0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
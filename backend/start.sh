@@ -0,0 +1,14 @@
+#!/bin/sh
+# バックエンド起動スクリプト
+# 展開済みのクラスパスで起動し、イメージ作成時に生成した CDS アーカイブがあれば使用する
+set -e
+
+APP_HOME=${APP_HOME:-/app}
+CDS_OPTS=""
+if [ -f "$APP_HOME/app.jsa" ]; then
+    CDS_OPTS="-XX:SharedArchiveFile=$APP_HOME/app.jsa -Xshare:auto"
+fi
+
+exec java $CDS_OPTS $JAVA_OPTS \
+    -cp "$APP_HOME/BOOT-INF/classes:$APP_HOME/BOOT-INF/lib/*" \
+    com.banking.internetbanking.InternetBankingApplication "$@"
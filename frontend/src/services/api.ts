@@ -63,6 +63,7 @@ export interface AuthResponse {
   message?: string;
   error?: string;
   token?: string;
+  userId?: number;
 }
 
 export const apiService = {